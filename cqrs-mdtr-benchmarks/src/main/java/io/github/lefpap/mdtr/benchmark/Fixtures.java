@@ -0,0 +1,120 @@
+package io.github.lefpap.mdtr.benchmark;
+
+import io.github.lefpap.mdtr.handler.CqrsCommandHandler;
+import io.github.lefpap.mdtr.handler.CqrsQueryHandler;
+import io.github.lefpap.mdtr.middleware.CqrsHandlerMiddleware;
+import io.github.lefpap.mdtr.registry.InMemoryCqrsHandlerRegistry;
+import io.github.lefpap.mdtr.request.CqrsCommand;
+import io.github.lefpap.mdtr.request.CqrsQuery;
+import io.github.lefpap.mdtr.request.CqrsRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Requests, handlers and middlewares shared by the benchmarks.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    record PingCommand(long id) implements CqrsCommand<Long> {
+    }
+
+    record PingQuery(long id) implements CqrsQuery<Long> {
+    }
+
+    record OtherQuery(long id) implements CqrsQuery<Long> {
+    }
+
+    static final class PingCommandHandler implements CqrsCommandHandler<PingCommand, Long> {
+        @Override
+        public Long handle(PingCommand command) {
+            return command.id();
+        }
+    }
+
+    static final class PingQueryHandler implements CqrsQueryHandler<PingQuery, Long> {
+        @Override
+        public Long handle(PingQuery query) {
+            return query.id();
+        }
+    }
+
+    /**
+     * Creates a registry containing the ping command and query handlers.
+     *
+     * @return the populated registry
+     */
+    static InMemoryCqrsHandlerRegistry pingRegistry() {
+        var registry = new InMemoryCqrsHandlerRegistry();
+        registry.registerCommandHandler(PingCommand.class, new PingCommandHandler());
+        registry.registerQueryHandler(PingQuery.class, new PingQueryHandler());
+        return registry;
+    }
+
+    /**
+     * Creates pass-through middlewares of which the given percentage applies to {@link PingQuery}
+     * and {@link PingCommand}, and the rest only to {@link OtherQuery}.
+     *
+     * @param count       the number of middlewares
+     * @param selectivity the percentage of middlewares applying to the ping requests
+     * @param perRequest  whether the middlewares decide applicability per request instance
+     * @return the middlewares
+     */
+    static List<CqrsHandlerMiddleware> middlewares(int count, int selectivity, boolean perRequest) {
+        int applicable = Math.round(count * selectivity / 100f);
+        List<CqrsHandlerMiddleware> middlewares = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            boolean applies = i < applicable;
+            middlewares.add(perRequest
+                    ? new PerRequestMiddleware(applies)
+                    : new PerTypeMiddleware(applies));
+        }
+        return middlewares;
+    }
+
+    private static boolean isPing(Class<?> requestType) {
+        return requestType == PingQuery.class || requestType == PingCommand.class;
+    }
+
+    static final class PerTypeMiddleware implements CqrsHandlerMiddleware {
+
+        private final boolean appliesToPing;
+
+        PerTypeMiddleware(boolean appliesToPing) {
+            this.appliesToPing = appliesToPing;
+        }
+
+        @Override
+        public <T extends CqrsRequest<R>, R> R invoke(T request, Supplier<R> next) {
+            return next.get();
+        }
+
+        @Override
+        public boolean applies(Class<?> requestType) {
+            return isPing(requestType) == appliesToPing;
+        }
+    }
+
+    static final class PerRequestMiddleware implements CqrsHandlerMiddleware {
+
+        private final boolean appliesToPing;
+
+        PerRequestMiddleware(boolean appliesToPing) {
+            this.appliesToPing = appliesToPing;
+        }
+
+        @Override
+        public <T extends CqrsRequest<R>, R> R invoke(T request, Supplier<R> next) {
+            return next.get();
+        }
+
+        @Override
+        public boolean applies(CqrsRequest<?> request) {
+            return isPing(request.getClass()) == appliesToPing;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package io.github.lefpap.mdtr.benchmark;
+
+import io.github.lefpap.mdtr.handler.CqrsCommandHandler;
+import io.github.lefpap.mdtr.registry.CqrsHandlerRegistry;
+import io.github.lefpap.mdtr.registry.InMemoryCqrsHandlerRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link InMemoryCqrsHandlerRegistry#getCommandHandler} for registries of different sizes.
+ *
+ * <p>
+ * Each registered command type is a distinct hidden class defined from {@link ProbeCommand}, and
+ * lookups cycle through all of them so that the map is not reduced to a single hot entry.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HandlerRegistryBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int handlerTypes;
+
+    private CqrsHandlerRegistry registry;
+    private Class<ProbeCommand>[] types;
+    private int cursor;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() throws IllegalAccessException {
+        byte[] template = probeClassBytes();
+        var lookup = MethodHandles.lookup();
+        CqrsCommandHandler<ProbeCommand, Long> handler = command -> 1L;
+
+        registry = new InMemoryCqrsHandlerRegistry();
+        types = new Class[handlerTypes];
+        for (int i = 0; i < handlerTypes; i++) {
+            types[i] = (Class<ProbeCommand>) lookup.defineHiddenClass(template, false).lookupClass();
+            registry.registerCommandHandler(types[i], handler);
+        }
+    }
+
+    @Benchmark
+    public Optional<CqrsCommandHandler<ProbeCommand, Long>> getCommandHandler() {
+        int index = cursor;
+        cursor = index + 1 == types.length ? 0 : index + 1;
+        return registry.getCommandHandler(types[index]);
+    }
+
+    private static byte[] probeClassBytes() {
+        try (InputStream in = ProbeCommand.class.getResourceAsStream(ProbeCommand.class.getSimpleName() + ".class")) {
+            return Objects.requireNonNull(in, "ProbeCommand class file not found").readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package io.github.lefpap.mdtr.benchmark;
+
+import io.github.lefpap.mdtr.CqrsMediator;
+import io.github.lefpap.mdtr.DefaultCqrsMediator;
+import io.github.lefpap.mdtr.benchmark.Fixtures.PingCommand;
+import io.github.lefpap.mdtr.benchmark.Fixtures.PingQuery;
+import io.github.lefpap.mdtr.pipeline.DefaultCqrsMiddlewarePipeline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a single shared mediator with a five-middleware pipeline under concurrent use.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MediatorContentionBenchmark {
+
+    private final PingCommand command = new PingCommand(42);
+    private final PingQuery query = new PingQuery(42);
+
+    private CqrsMediator mediator;
+
+    @Setup
+    public void setUp() {
+        var pipeline = new DefaultCqrsMiddlewarePipeline(Fixtures.middlewares(5, 100, false));
+        mediator = new DefaultCqrsMediator(Fixtures.pingRegistry(), pipeline);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Long send() {
+        return mediator.send(query);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public Long mixedDispatch() {
+        return mediator.dispatch(command);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public Long mixedSend() {
+        return mediator.send(query);
+    }
+}
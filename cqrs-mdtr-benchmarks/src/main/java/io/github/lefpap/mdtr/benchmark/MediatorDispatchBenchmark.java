@@ -0,0 +1,108 @@
+package io.github.lefpap.mdtr.benchmark;
+
+import io.github.lefpap.mdtr.CqrsMediator;
+import io.github.lefpap.mdtr.DefaultCqrsMediator;
+import io.github.lefpap.mdtr.benchmark.Fixtures.PingCommand;
+import io.github.lefpap.mdtr.benchmark.Fixtures.PingCommandHandler;
+import io.github.lefpap.mdtr.benchmark.Fixtures.PingQuery;
+import io.github.lefpap.mdtr.benchmark.Fixtures.PingQueryHandler;
+import io.github.lefpap.mdtr.metrics.InMemoryCqrsMetricsRecorder;
+import io.github.lefpap.mdtr.pipeline.NoopCqrsMiddlewarePipeline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of dispatching through the mediator compared to calling the handler directly.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MediatorDispatchBenchmark {
+
+    private final PingCommand command = new PingCommand(42);
+    private final PingQuery query = new PingQuery(42);
+
+    private PingCommandHandler commandHandler;
+    private PingQueryHandler queryHandler;
+    private CqrsMediator mediator;
+    private CqrsMediator noopPipelineMediator;
+    private CqrsMediator frozenMediator;
+    private CqrsMediator metricsMediator;
+
+    @Setup
+    public void setUp() {
+        commandHandler = new PingCommandHandler();
+        queryHandler = new PingQueryHandler();
+        mediator = new DefaultCqrsMediator(Fixtures.pingRegistry());
+        noopPipelineMediator = new DefaultCqrsMediator(Fixtures.pingRegistry(), new NoopCqrsMiddlewarePipeline());
+
+        var frozenRegistry = Fixtures.pingRegistry();
+        frozenRegistry.freeze();
+        frozenMediator = new DefaultCqrsMediator(frozenRegistry);
+        metricsMediator = new DefaultCqrsMediator(frozenRegistry, null, ForkJoinPool.commonPool(), new InMemoryCqrsMetricsRecorder());
+    }
+
+    @Benchmark
+    public Long directCommand() {
+        return commandHandler.handle(command);
+    }
+
+    @Benchmark
+    public Long mediatorDispatch() {
+        return mediator.dispatch(command);
+    }
+
+    @Benchmark
+    public Long mediatorDispatchNoopPipeline() {
+        return noopPipelineMediator.dispatch(command);
+    }
+
+    @Benchmark
+    public Long mediatorDispatchFrozenRegistry() {
+        return frozenMediator.dispatch(command);
+    }
+
+    @Benchmark
+    public Long mediatorDispatchWithMetrics() {
+        return metricsMediator.dispatch(command);
+    }
+
+    @Benchmark
+    public Long directQuery() {
+        return queryHandler.handle(query);
+    }
+
+    @Benchmark
+    public Long mediatorSend() {
+        return mediator.send(query);
+    }
+
+    @Benchmark
+    public Long mediatorSendNoopPipeline() {
+        return noopPipelineMediator.send(query);
+    }
+
+    @Benchmark
+    public Long mediatorSendFrozenRegistry() {
+        return frozenMediator.send(query);
+    }
+
+    @Benchmark
+    public Long mediatorSendWithMetrics() {
+        return metricsMediator.send(query);
+    }
+}
@@ -0,0 +1,60 @@
+package io.github.lefpap.mdtr.benchmark;
+
+import io.github.lefpap.mdtr.benchmark.Fixtures.PingQuery;
+import io.github.lefpap.mdtr.benchmark.Fixtures.PingQueryHandler;
+import io.github.lefpap.mdtr.middleware.CqrsMiddlewarePipeline;
+import io.github.lefpap.mdtr.pipeline.DefaultCqrsMiddlewarePipeline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link DefaultCqrsMiddlewarePipeline#execute} for chains of different length and selectivity.
+ *
+ * <p>
+ * {@code selectivity} is the percentage of middlewares that apply to the executed request, and
+ * {@code perRequest} selects middlewares that decide applicability per request instance instead of
+ * per request type.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MiddlewarePipelineBenchmark {
+
+    @Param({"0", "1", "5", "20"})
+    private int middlewares;
+
+    @Param({"0", "50", "100"})
+    private int selectivity;
+
+    @Param({"false", "true"})
+    private boolean perRequest;
+
+    private final PingQuery query = new PingQuery(42);
+    private final PingQueryHandler handler = new PingQueryHandler();
+
+    private CqrsMiddlewarePipeline pipeline;
+
+    @Setup
+    public void setUp() {
+        pipeline = new DefaultCqrsMiddlewarePipeline(Fixtures.middlewares(middlewares, selectivity, perRequest));
+    }
+
+    @Benchmark
+    public Long execute() {
+        return pipeline.execute(query, handler);
+    }
+}
@@ -0,0 +1,9 @@
+package io.github.lefpap.mdtr.benchmark;
+
+import io.github.lefpap.mdtr.request.CqrsCommand;
+
+/**
+ * Template class used to define many distinct hidden command types for registry benchmarks.
+ */
+final class ProbeCommand implements CqrsCommand<Long> {
+}
@@ -0,0 +1,54 @@
+package io.github.lefpap.mdtr.benchmark;
+
+import io.github.lefpap.mdtr.DefaultCqrsMediator;
+import io.github.lefpap.mdtr.capture.CqrsReplayReport;
+import io.github.lefpap.mdtr.capture.CqrsStubHandlers;
+import io.github.lefpap.mdtr.capture.CqrsTrafficCapture;
+import io.github.lefpap.mdtr.capture.CqrsTrafficReplayer;
+import io.github.lefpap.mdtr.codec.JavaSerializationCqrsCodec;
+import io.github.lefpap.mdtr.metrics.CqrsRequestMetricsSnapshot;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Replays a capture file offline against a mediator with stub handlers, and prints the throughput and
+ * latencies.
+ *
+ * <p>
+ * Usage: {@code TrafficReplay <capture-file> [threads] [speed|max] [stub-latency-micros]}, with the
+ * captured request types on the class path. The capture must have been encoded with Java serialization.
+ * </p>
+ */
+public final class TrafficReplay {
+
+    private TrafficReplay() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: TrafficReplay <capture-file> [threads] [speed|max] [stub-latency-micros]");
+            System.exit(2);
+        }
+        Path file = Path.of(args[0]);
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        double speed = args.length > 2 && !args[2].equals("max") ? Double.parseDouble(args[2]) : CqrsTrafficReplayer.MAXIMUM_SPEED;
+        Duration latency = Duration.ofNanos(args.length > 3 ? Long.parseLong(args[3]) * 1_000 : 0);
+
+        CqrsTrafficCapture capture = CqrsTrafficCapture.load(file, new JavaSerializationCqrsCodec());
+        System.out.printf("Replaying %d requests of %d types, captured over %s, with %d threads at %s speed%n",
+                capture.getRequests().size(), capture.getRequestTypes().size(), capture.getDuration(), threads,
+                speed == CqrsTrafficReplayer.MAXIMUM_SPEED ? "maximum" : speed + "x");
+
+        var mediator = new DefaultCqrsMediator(CqrsStubHandlers.registry(capture.getRequestTypes(), latency));
+        CqrsReplayReport report = new CqrsTrafficReplayer(mediator, threads, speed).replay(capture);
+
+        System.out.printf("%d requests, %d errors in %s: %.0f requests/s%n",
+                report.requestCount(), report.errorCount(), report.elapsed(), report.throughput());
+        System.out.printf("latency p50=%s p90=%s p99=%s p99.9=%s max=%s%n",
+                report.p50(), report.p90(), report.p99(), report.p999(), report.max());
+        for (CqrsRequestMetricsSnapshot type : report.requestTypes()) {
+            System.out.printf("  %s: %d requests, p50=%s p99=%s%n", type.requestType().getName(), type.count(), type.p50(), type.p99());
+        }
+    }
+}
@@ -1,7 +1,20 @@
 package io.github.lefpap.mdtr;
 
+import io.github.lefpap.mdtr.deadline.CqrsDeadline;
+import io.github.lefpap.mdtr.gather.CqrsGatherPolicy;
+import io.github.lefpap.mdtr.gather.CqrsGatherResult;
+import io.github.lefpap.mdtr.gather.CqrsScatterGather;
 import io.github.lefpap.mdtr.request.CqrsCommand;
 import io.github.lefpap.mdtr.request.CqrsQuery;
+import io.github.lefpap.mdtr.request.CqrsStreamQuery;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 
 /**
  * Defines a mediator for dispatching commands and sending queries within a CQRS
@@ -30,4 +43,162 @@ public interface CqrsMediator {
      * @return the result produced by processing the query
      */
     <R, Q extends CqrsQuery<R>> R send(Q query);
+
+    /**
+     * Dispatches the specified command with the given time budget.
+     *
+     * <p>
+     * The command, and every request dispatched while handling it, runs with a {@link CqrsDeadline} the
+     * given time from now, unless the calling thread already has an earlier one.
+     *
+     * @param <R>     the type of result expected from handling the command
+     * @param <C>     the type of command to be processed
+     * @param command the command to dispatch
+     * @param timeout the time budget of the command
+     * @return the result produced by processing the command
+     */
+    default <R, C extends CqrsCommand<R>> R dispatch(C command, Duration timeout) {
+        return CqrsDeadline.after(timeout).call(() -> dispatch(command));
+    }
+
+    /**
+     * Sends the specified query with the given time budget.
+     *
+     * <p>
+     * The query, and every request sent while handling it, runs with a {@link CqrsDeadline} the given
+     * time from now, unless the calling thread already has an earlier one.
+     *
+     * @param <R>     the type of result expected from processing the query
+     * @param <Q>     the type of query to be processed
+     * @param query   the query to send
+     * @param timeout the time budget of the query
+     * @return the result produced by processing the query
+     */
+    default <R, Q extends CqrsQuery<R>> R send(Q query, Duration timeout) {
+        return CqrsDeadline.after(timeout).call(() -> send(query));
+    }
+
+    /**
+     * Dispatches the specified command asynchronously.
+     *
+     * <p>
+     * The default implementation runs {@link #dispatch} on a new virtual thread.
+     *
+     * @param <R>     the type of result expected from handling the command
+     * @param <C>     the type of command to be processed
+     * @param command the command to dispatch
+     * @return a future completed with the result produced by processing the command
+     */
+    default <R, C extends CqrsCommand<R>> CompletableFuture<R> dispatchAsync(C command) {
+        return CompletableFuture.supplyAsync(() -> dispatch(command), Thread.ofVirtual()::start);
+    }
+
+    /**
+     * Dispatches the specified command without waiting for its outcome.
+     *
+     * <p>
+     * The default implementation {@link #dispatchAsync dispatches the command asynchronously} and
+     * discards the returned future.
+     *
+     * @param <R>     the type of result expected from handling the command
+     * @param <C>     the type of command to be processed
+     * @param command the command to dispatch
+     */
+    default <R, C extends CqrsCommand<R>> void dispatchAndForget(C command) {
+        dispatchAsync(command);
+    }
+
+    /**
+     * Sends the specified query asynchronously.
+     *
+     * <p>
+     * The default implementation runs {@link #send} on a new virtual thread.
+     *
+     * @param <R>   the type of result expected from processing the query
+     * @param <Q>   the type of query to be processed
+     * @param query the query to send
+     * @return a future completed with the result produced by processing the query
+     */
+    default <R, Q extends CqrsQuery<R>> CompletableFuture<R> sendAsync(Q query) {
+        return CompletableFuture.supplyAsync(() -> send(query), Thread.ofVirtual()::start);
+    }
+
+    /**
+     * Sends the specified streaming query.
+     *
+     * <p>
+     * Elements are produced as the subscriber of the returned publisher requests them. Use
+     * {@link io.github.lefpap.mdtr.stream.CqrsPublishers#toStream} to consume them as a blocking stream.
+     *
+     * @param <T>   the type of the streamed elements
+     * @param <Q>   the type of query to be processed
+     * @param query the query to send
+     * @return the publisher of the elements
+     */
+    default <T, Q extends CqrsStreamQuery<T>> Flow.Publisher<T> stream(Q query) {
+        return send(query);
+    }
+
+    /**
+     * Sends the specified queries and returns their results.
+     *
+     * <p>
+     * The default implementation sends the queries one by one. Implementations may resolve queries of
+     * the same type through a single {@link io.github.lefpap.mdtr.handler.CqrsBatchQueryHandler} call.
+     *
+     * @param <R>     the type of result expected from processing the queries
+     * @param <Q>     the type of queries to be processed
+     * @param queries the queries to send
+     * @return the results produced by processing the queries, in iteration order of the queries
+     */
+    default <R, Q extends CqrsQuery<R>> List<R> sendAll(Collection<Q> queries) {
+        List<R> results = new ArrayList<>(queries.size());
+        for (Q query : queries) {
+            results.add(send(query));
+        }
+        return Collections.unmodifiableList(results);
+    }
+
+    /**
+     * Sends the specified independent queries concurrently and gathers their results, failing on the
+     * first failed query.
+     *
+     * @param queries the queries to send
+     * @return the results of the queries
+     * @see #gather(Collection, CqrsGatherPolicy, Duration)
+     */
+    default CqrsGatherResult gather(Collection<? extends CqrsQuery<?>> queries) {
+        return gather(queries, CqrsGatherPolicy.FAIL_FAST, null);
+    }
+
+    /**
+     * Sends the specified independent queries concurrently and gathers their results according to the
+     * given policy.
+     *
+     * @param queries the queries to send
+     * @param policy  how failed and unfinished queries are handled
+     * @return the results of the queries
+     * @see #gather(Collection, CqrsGatherPolicy, Duration)
+     */
+    default CqrsGatherResult gather(Collection<? extends CqrsQuery<?>> queries, CqrsGatherPolicy policy) {
+        return gather(queries, policy, null);
+    }
+
+    /**
+     * Sends the specified independent queries concurrently and gathers their results according to the
+     * given policy, within the given time budget.
+     *
+     * <p>
+     * Every query is sent through {@link #sendAsync}, so the latency of the gather is that of its slowest
+     * query rather than the sum of all. Equal queries are sent once.
+     *
+     * @param queries the queries to send
+     * @param policy  how failed and unfinished queries are handled
+     * @param timeout the time budget of the gather, or {@code null} for the deadline of the calling thread only
+     * @return the results of the queries
+     * @see CqrsScatterGather#gather
+     */
+    default CqrsGatherResult gather(Collection<? extends CqrsQuery<?>> queries, CqrsGatherPolicy policy, Duration timeout) {
+        return CqrsScatterGather.gather(this, queries, policy, timeout);
+    }
 }
@@ -0,0 +1,47 @@
+package io.github.lefpap.mdtr.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Marks a command type whose commands are buffered and passed to its batch handler in batches.
+ *
+ * <p>
+ * Dispatched commands wait in a buffer until it holds {@link #maxBatchSize()} commands or the first of
+ * them has waited for {@link #linger()}, whichever comes first. Each caller then receives the result of
+ * its own command, or the failure of the whole batch. Non-positive values fall back to the configured
+ * defaults.
+ * </p>
+ *
+ * @see io.github.lefpap.mdtr.handler.CqrsBatchCommandHandler
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CqrsBuffered {
+
+    /**
+     * The number of buffered commands that triggers an immediate flush.
+     *
+     * @return the maximum batch size
+     */
+    int maxBatchSize() default 0;
+
+    /**
+     * How long the first buffered command waits for further commands, in {@link #unit() units}.
+     *
+     * @return the linger time
+     */
+    long linger() default 0;
+
+    /**
+     * The unit of {@link #linger()}.
+     *
+     * @return the linger time unit
+     */
+    ChronoUnit unit() default ChronoUnit.MILLIS;
+}
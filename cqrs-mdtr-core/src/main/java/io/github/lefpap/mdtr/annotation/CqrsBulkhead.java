@@ -0,0 +1,29 @@
+package io.github.lefpap.mdtr.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Assigns a request type to a named bulkhead.
+ *
+ * <p>
+ * Request types sharing a bulkhead name share its concurrency limit, which is useful when they depend
+ * on the same downstream resource. Request types without this annotation get a bulkhead of their own,
+ * named after the fully qualified name of the type.
+ * </p>
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CqrsBulkhead {
+
+    /**
+     * The name of the bulkhead.
+     *
+     * @return the bulkhead name
+     */
+    String value();
+}
@@ -0,0 +1,25 @@
+package io.github.lefpap.mdtr.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a command type whose successful dispatch invalidates cached query results.
+ *
+ * @see CqrsCacheable
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CqrsCacheEvict {
+
+    /**
+     * Tags of the cached query results to invalidate.
+     *
+     * @return the cache tags
+     */
+    String[] tags();
+}
@@ -0,0 +1,45 @@
+package io.github.lefpap.mdtr.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Marks a query type whose results may be cached.
+ *
+ * <p>
+ * Results are cached per query, using the query's {@code equals}/{@code hashCode} as the key, so
+ * cacheable queries should be immutable value types such as records.
+ * </p>
+ *
+ * @see CqrsCacheEvict
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CqrsCacheable {
+
+    /**
+     * How long a cached result stays valid, in {@link #unit() units}.
+     *
+     * @return the time to live
+     */
+    long ttl() default 60;
+
+    /**
+     * The unit of {@link #ttl()}.
+     *
+     * @return the time to live unit
+     */
+    ChronoUnit unit() default ChronoUnit.SECONDS;
+
+    /**
+     * Tags of the cached results, used by {@link CqrsCacheEvict} to invalidate them.
+     *
+     * @return the cache tags
+     */
+    String[] tags() default {};
+}
@@ -0,0 +1,23 @@
+package io.github.lefpap.mdtr.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a query type whose concurrent, equal instances share a single handler execution.
+ *
+ * <p>
+ * While a query is being handled, equal queries sent concurrently wait for its outcome instead of
+ * invoking the handler again, and all callers receive the same result or exception. Nothing is kept
+ * once the execution completes. Queries are compared with {@code equals}/{@code hashCode}, so
+ * single-flight queries should be immutable value types such as records.
+ * </p>
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CqrsSingleFlight {
+}
@@ -0,0 +1,38 @@
+package io.github.lefpap.mdtr.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Sets the default time budget of the requests of a type.
+ *
+ * <p>
+ * Each request gets a deadline this far in the future when it enters the pipeline. If the caller already
+ * set an earlier deadline, that one applies instead. Non-positive values mean no default.
+ * </p>
+ *
+ * @see io.github.lefpap.mdtr.deadline.CqrsDeadline
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CqrsTimeout {
+
+    /**
+     * The time budget, in {@link #unit() units}.
+     *
+     * @return the timeout
+     */
+    long value();
+
+    /**
+     * The unit of {@link #value()}.
+     *
+     * @return the timeout unit
+     */
+    ChronoUnit unit() default ChronoUnit.MILLIS;
+}
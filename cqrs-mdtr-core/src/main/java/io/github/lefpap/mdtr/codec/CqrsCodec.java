@@ -0,0 +1,32 @@
+package io.github.lefpap.mdtr.codec;
+
+/**
+ * Converts requests to and from bytes, for storing or transmitting them.
+ *
+ * <p>
+ * Implementations must be thread-safe. The type of an encoded value is not part of its bytes; callers
+ * record it alongside and pass it back to {@link #decode}.
+ * </p>
+ */
+public interface CqrsCodec {
+
+    /**
+     * Encodes a value.
+     *
+     * @param value the value to encode
+     * @return the encoded bytes
+     * @throws io.github.lefpap.mdtr.exception.CqrsCodecException if the value cannot be encoded
+     */
+    byte[] encode(Object value);
+
+    /**
+     * Decodes a value of the given type.
+     *
+     * @param data the encoded bytes
+     * @param type the type of the encoded value
+     * @param <T>  the type of the value
+     * @return the decoded value
+     * @throws io.github.lefpap.mdtr.exception.CqrsCodecException if the bytes cannot be decoded
+     */
+    <T> T decode(byte[] data, Class<T> type);
+}
@@ -0,0 +1,99 @@
+package io.github.lefpap.mdtr.codec;
+
+import io.github.lefpap.mdtr.exception.CqrsCodecException;
+import io.github.lefpap.mdtr.request.CqrsRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Codec based on Java serialization.
+ *
+ * <p>
+ * It works for any {@link Serializable} request, including records, without further configuration, but
+ * produces comparatively large output. Prefer a dedicated codec for high volumes or long-lived data.
+ * </p>
+ *
+ * <p>
+ * Decoding only accepts {@link CqrsRequest} implementations, records, enums and the value types of
+ * {@code java.lang}, {@code java.util}, {@code java.time} and {@code java.math}, so that data from an
+ * untrusted source cannot instantiate arbitrary classes of the class path. Other classes, such as results
+ * that are neither records nor JDK types, are rejected unless allowed by the filter passed to the
+ * constructor.
+ * </p>
+ */
+public class JavaSerializationCqrsCodec implements CqrsCodec {
+
+    private static final Set<String> ALLOWED_PACKAGES = Set.of(
+            "java.lang", "java.util", "java.util.concurrent", "java.time", "java.math");
+
+    private final ObjectInputFilter filter;
+
+    /**
+     * Constructs a new codec accepting only the default classes.
+     */
+    public JavaSerializationCqrsCodec() {
+        this(info -> ObjectInputFilter.Status.UNDECIDED);
+    }
+
+    /**
+     * Constructs a new codec consulting the given filter before the default classes, e.g.
+     * {@code ObjectInputFilter.Config.createFilter("com.example.orders.**")}.
+     *
+     * @param filter decides on classes before the defaults; {@code UNDECIDED} falls back to them
+     */
+    public JavaSerializationCqrsCodec(ObjectInputFilter filter) {
+        this.filter = Objects.requireNonNull(filter, "Filter cannot be null");
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        if (!(value instanceof Serializable)) {
+            throw new CqrsCodecException("Cannot encode " + (value == null ? "null" : value.getClass().getName())
+                    + ": not Serializable");
+        }
+
+        var bytes = new ByteArrayOutputStream(256);
+        try (var out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        } catch (IOException e) {
+            throw new CqrsCodecException("Cannot encode " + value.getClass().getName(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public <T> T decode(byte[] data, Class<T> type) {
+        try (var in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            in.setObjectInputFilter(this::check);
+            return type.cast(in.readObject());
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            throw new CqrsCodecException("Cannot decode " + type.getName(), e);
+        }
+    }
+
+    private ObjectInputFilter.Status check(ObjectInputFilter.FilterInfo info) {
+        ObjectInputFilter.Status status = filter.checkInput(info);
+        Class<?> serialClass = info.serialClass();
+        if (status != ObjectInputFilter.Status.UNDECIDED || serialClass == null) {
+            return status;
+        }
+
+        while (serialClass.isArray()) {
+            serialClass = serialClass.getComponentType();
+        }
+        boolean allowed = serialClass.isPrimitive()
+                || serialClass.isRecord()
+                || serialClass.isEnum()
+                || CqrsRequest.class.isAssignableFrom(serialClass)
+                || ALLOWED_PACKAGES.contains(serialClass.getPackageName());
+        return allowed ? ObjectInputFilter.Status.ALLOWED : ObjectInputFilter.Status.REJECTED;
+    }
+}
@@ -0,0 +1,94 @@
+package io.github.lefpap.mdtr.concurrent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Utility methods for bridging blocking and {@link CompletableFuture} based request execution.
+ */
+public final class CqrsFutures {
+
+    private CqrsFutures() {
+    }
+
+    /**
+     * Waits for the given future and returns its result.
+     *
+     * <p>
+     * Unlike {@link CompletableFuture#join()}, unchecked exceptions thrown by the computation are
+     * rethrown as they are instead of being wrapped in a {@link CompletionException}.
+     *
+     * @param future the future to wait for
+     * @param <R>    the type of the result
+     * @return the result of the future
+     */
+    public static <R> R join(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw toUnchecked(e);
+        }
+    }
+
+    /**
+     * Runs the given supplier in the calling thread and returns its outcome as a completed future.
+     *
+     * @param supplier the supplier to run
+     * @param <R>      the type of the result
+     * @return a future completed with the result, or completed exceptionally with the thrown exception
+     */
+    public static <R> CompletableFuture<R> supply(Supplier<R> supplier) {
+        try {
+            return CompletableFuture.completedFuture(supplier.get());
+        } catch (Throwable t) {
+            return CompletableFuture.failedFuture(t);
+        }
+    }
+
+    /**
+     * Invokes the given future-returning supplier, turning a synchronously thrown exception into a
+     * failed future.
+     *
+     * @param supplier the supplier to invoke
+     * @param <R>      the type of the result
+     * @return the future returned by the supplier, or a failed future if it threw
+     */
+    public static <R> CompletableFuture<R> invoke(Supplier<CompletableFuture<R>> supplier) {
+        try {
+            return supplier.get();
+        } catch (Throwable t) {
+            return CompletableFuture.failedFuture(t);
+        }
+    }
+
+    /**
+     * Returns the cause of a {@link CompletionException}, or the given throwable itself.
+     *
+     * @param t the throwable reported by a future
+     * @return the underlying failure
+     */
+    public static Throwable unwrap(Throwable t) {
+        if (t instanceof CompletionException && t.getCause() != null) {
+            return t.getCause();
+        }
+        return t;
+    }
+
+    /**
+     * Returns the original exception wrapped in a {@link CompletionException}, if it is unchecked.
+     *
+     * @param e the completion exception
+     * @return the exception to rethrow
+     */
+    private static RuntimeException toUnchecked(CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return e;
+    }
+}
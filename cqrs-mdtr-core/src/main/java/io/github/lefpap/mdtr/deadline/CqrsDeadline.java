@@ -0,0 +1,185 @@
+package io.github.lefpap.mdtr.deadline;
+
+import io.github.lefpap.mdtr.exception.CqrsDeadlineExceededException;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * A point in time by which a request, and everything it dispatches in turn, should have completed.
+ *
+ * <p>
+ * Deadlines are bound to the current thread with {@link #call(Supplier)} and consulted with
+ * {@link #current()}. Nested deadlines can only shorten the budget: a later deadline never replaces an
+ * earlier one. Handlers doing long-running work may call {@link #checkpoint()} between steps to abandon
+ * requests whose caller has already given up.
+ * </p>
+ *
+ * <p>
+ * Deadlines are based on {@link System#nanoTime()}, so they are only meaningful within one JVM.
+ * </p>
+ */
+public final class CqrsDeadline implements Comparable<CqrsDeadline> {
+
+    private static final ThreadLocal<CqrsDeadline> CURRENT = new ThreadLocal<>();
+
+    // Far enough for any practical budget, while keeping nanoTime arithmetic free of overflow
+    private static final Duration MAX_TIMEOUT = Duration.ofNanos(Long.MAX_VALUE / 4);
+
+    private final long nanoTime;
+
+    private CqrsDeadline(long nanoTime) {
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Returns a deadline the given time from now.
+     *
+     * @param timeout the time budget
+     * @return the deadline
+     */
+    public static CqrsDeadline after(Duration timeout) {
+        Objects.requireNonNull(timeout, "Timeout cannot be null");
+        Duration budget = timeout.compareTo(MAX_TIMEOUT) > 0 ? MAX_TIMEOUT : timeout;
+        return new CqrsDeadline(System.nanoTime() + budget.toNanos());
+    }
+
+    /**
+     * Returns the deadline bound to the current thread.
+     *
+     * @return the current deadline, or {@code null} if there is none
+     */
+    public static CqrsDeadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Throws if the deadline bound to the current thread has expired.
+     *
+     * @throws CqrsDeadlineExceededException if the current deadline has expired
+     */
+    public static void checkpoint() {
+        CqrsDeadline deadline = CURRENT.get();
+        if (deadline != null && deadline.isExpired()) {
+            throw new CqrsDeadlineExceededException("Deadline exceeded by " + deadline.remaining().negated().toMillis() + " ms");
+        }
+    }
+
+    /**
+     * Returns an executor that runs every task with the deadline bound to the submitting thread.
+     *
+     * @param executor the executor running the tasks
+     * @return the propagating executor
+     */
+    public static Executor propagating(Executor executor) {
+        Objects.requireNonNull(executor, "Executor cannot be null");
+        return task -> {
+            CqrsDeadline deadline = CURRENT.get();
+            executor.execute(deadline == null ? task : () -> deadline.run(task));
+        };
+    }
+
+    /**
+     * Returns a supplier that runs the given one with the deadline bound to the calling thread.
+     *
+     * @param action the supplier to run later, possibly on another thread
+     * @param <R>    the type of the result
+     * @return the capturing supplier, or the given one if the calling thread has no deadline
+     */
+    public static <R> Supplier<R> capture(Supplier<R> action) {
+        CqrsDeadline deadline = CURRENT.get();
+        return deadline == null ? action : () -> deadline.call(action);
+    }
+
+    /**
+     * Runs the given action with this deadline bound to the current thread, unless the current thread
+     * already has an earlier one.
+     *
+     * @param action the action to run
+     * @param <R>    the type of the result
+     * @return the result of the action
+     */
+    public <R> R call(Supplier<R> action) {
+        CqrsDeadline previous = CURRENT.get();
+        if (previous != null && previous.nanoTime - nanoTime <= 0) {
+            return action.get();
+        }
+
+        CURRENT.set(this);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Returns the earlier of this deadline and the given one.
+     *
+     * @param other the other deadline, or {@code null}
+     * @return the earlier deadline
+     */
+    public CqrsDeadline min(CqrsDeadline other) {
+        return other == null || nanoTime - other.nanoTime <= 0 ? this : other;
+    }
+
+    /**
+     * Returns the time left until the deadline.
+     *
+     * @return the remaining time, negative once the deadline has passed
+     */
+    public Duration remaining() {
+        return Duration.ofNanos(remainingNanos());
+    }
+
+    /**
+     * Returns the time left until the deadline, in nanoseconds.
+     *
+     * @return the remaining nanoseconds, negative once the deadline has passed
+     */
+    public long remainingNanos() {
+        return nanoTime - System.nanoTime();
+    }
+
+    /**
+     * Returns whether the deadline has passed.
+     *
+     * @return {@code true} if the deadline has passed
+     */
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    @Override
+    public int compareTo(CqrsDeadline other) {
+        return Long.signum(nanoTime - other.nanoTime);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CqrsDeadline other && nanoTime == other.nanoTime;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(nanoTime);
+    }
+
+    @Override
+    public String toString() {
+        return "CqrsDeadline[remaining=" + remaining() + "]";
+    }
+
+    private void run(Runnable task) {
+        call(() -> {
+            task.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,11 @@
+package io.github.lefpap.mdtr.event;
+
+/**
+ * Marker interface representing an event in the CQRS pattern.
+ * <p>
+ * An event records something that has happened, typically as the outcome of a command. Unlike requests,
+ * events have no result and are delivered to any number of subscribers.
+ * </p>
+ */
+public interface CqrsEvent {
+}
@@ -0,0 +1,29 @@
+package io.github.lefpap.mdtr.event;
+
+/**
+ * Publishes events to every subscriber of their type.
+ *
+ * @see CqrsEventSubscriber
+ */
+public interface CqrsEventPublisher {
+
+    /**
+     * Publishes the specified event without waiting for its subscribers.
+     *
+     * <p>
+     * Returns once the event is queued for delivery. Failures of subscribers are not reported to the
+     * publisher.
+     *
+     * @param event the event to publish
+     */
+    void publish(CqrsEvent event);
+
+    /**
+     * Publishes the specified event and waits until every subscriber has handled it.
+     *
+     * @param event the event to publish
+     * @throws RuntimeException the failure of a subscriber, with the failures of further subscribers
+     *                          added as suppressed exceptions
+     */
+    void publishAndWait(CqrsEvent event);
+}
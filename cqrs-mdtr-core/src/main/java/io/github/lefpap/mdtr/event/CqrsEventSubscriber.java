@@ -0,0 +1,17 @@
+package io.github.lefpap.mdtr.event;
+
+/**
+ * Receives the published events of a type.
+ *
+ * @param <E> the type of event received
+ */
+@FunctionalInterface
+public interface CqrsEventSubscriber<E extends CqrsEvent> {
+
+    /**
+     * Handles a published event.
+     *
+     * @param event the event
+     */
+    void onEvent(E event);
+}
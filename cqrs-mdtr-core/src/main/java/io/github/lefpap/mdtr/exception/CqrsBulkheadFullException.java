@@ -0,0 +1,43 @@
+package io.github.lefpap.mdtr.exception;
+
+/**
+ * Exception thrown when a request is rejected because its bulkhead has reached its concurrency limit.
+ * <p>
+ * The request was not passed on to its handler, so it is safe to retry later.
+ * </p>
+ */
+public class CqrsBulkheadFullException extends RuntimeException {
+
+    private final String bulkhead;
+    private final int limit;
+
+    /**
+     * Constructs a new CqrsBulkheadFullException for the given bulkhead.
+     *
+     * @param bulkhead the name of the full bulkhead
+     * @param limit    the concurrency limit of the bulkhead when the request was rejected
+     */
+    public CqrsBulkheadFullException(String bulkhead, int limit) {
+        super("Bulkhead " + bulkhead + " is full (limit " + limit + ")");
+        this.bulkhead = bulkhead;
+        this.limit = limit;
+    }
+
+    /**
+     * Returns the name of the full bulkhead.
+     *
+     * @return the bulkhead name
+     */
+    public String getBulkhead() {
+        return bulkhead;
+    }
+
+    /**
+     * Returns the concurrency limit of the bulkhead when the request was rejected.
+     *
+     * @return the concurrency limit
+     */
+    public int getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,30 @@
+package io.github.lefpap.mdtr.exception;
+
+/**
+ * Exception thrown when captured traffic cannot be written to or read from its capture file.
+ * <p>
+ * Requests are never failed because they cannot be captured; this exception is thrown to the code
+ * managing or reading the capture instead.
+ * </p>
+ */
+public class CqrsCaptureException extends RuntimeException {
+
+    /**
+     * Constructs a new CqrsCaptureException with the specified detail message.
+     *
+     * @param message the detail message
+     */
+    public CqrsCaptureException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new CqrsCaptureException with the specified detail message and cause.
+     *
+     * @param message the detail message
+     * @param cause   the cause
+     */
+    public CqrsCaptureException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,26 @@
+package io.github.lefpap.mdtr.exception;
+
+/**
+ * Exception thrown when a {@link io.github.lefpap.mdtr.codec.CqrsCodec} cannot encode or decode a value.
+ */
+public class CqrsCodecException extends RuntimeException {
+
+    /**
+     * Constructs a new CqrsCodecException with the specified detail message.
+     *
+     * @param message the detail message
+     */
+    public CqrsCodecException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new CqrsCodecException with the specified detail message and cause.
+     *
+     * @param message the detail message
+     * @param cause   the cause
+     */
+    public CqrsCodecException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
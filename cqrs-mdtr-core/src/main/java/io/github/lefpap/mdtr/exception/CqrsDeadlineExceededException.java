@@ -0,0 +1,30 @@
+package io.github.lefpap.mdtr.exception;
+
+/**
+ * Exception thrown when a request runs out of time before it completes.
+ * <p>
+ * The request was either rejected before it reached its handler, or its handler was still running at the
+ * deadline and has been interrupted or abandoned.
+ * </p>
+ */
+public class CqrsDeadlineExceededException extends RuntimeException {
+
+    /**
+     * Constructs a new CqrsDeadlineExceededException with the specified detail message.
+     *
+     * @param message the detail message
+     */
+    public CqrsDeadlineExceededException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new CqrsDeadlineExceededException with the specified detail message and cause.
+     *
+     * @param message the detail message
+     * @param cause   the failure of the handler after the deadline
+     */
+    public CqrsDeadlineExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,29 @@
+package io.github.lefpap.mdtr.exception;
+
+/**
+ * Exception thrown when a command cannot be written to or read from the command journal.
+ * <p>
+ * A command whose journaling failed is not passed on to its handler.
+ * </p>
+ */
+public class CqrsJournalException extends RuntimeException {
+
+    /**
+     * Constructs a new CqrsJournalException with the specified detail message.
+     *
+     * @param message the detail message
+     */
+    public CqrsJournalException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new CqrsJournalException with the specified detail message and cause.
+     *
+     * @param message the detail message
+     * @param cause   the cause
+     */
+    public CqrsJournalException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,69 @@
+package io.github.lefpap.mdtr.exception;
+
+/**
+ * Exception thrown when a request routed to another node fails.
+ * <p>
+ * Either the node could not be reached, in which case the request may or may not have been handled, or its
+ * handler failed on the node, in which case the {@link #getRemoteType() type} of the remote exception is
+ * known.
+ * </p>
+ */
+public class CqrsRemoteException extends RuntimeException {
+
+    private final String node;
+    private final String remoteType;
+
+    /**
+     * Constructs a new CqrsRemoteException for a failure reaching the given node.
+     *
+     * @param node    the name of the node
+     * @param message the detail message
+     */
+    public CqrsRemoteException(String node, String message) {
+        this(node, message, (Throwable) null);
+    }
+
+    /**
+     * Constructs a new CqrsRemoteException for a failure reaching the given node.
+     *
+     * @param node    the name of the node
+     * @param message the detail message
+     * @param cause   the cause of the failure, or {@code null}
+     */
+    public CqrsRemoteException(String node, String message, Throwable cause) {
+        super(message, cause);
+        this.node = node;
+        this.remoteType = null;
+    }
+
+    /**
+     * Constructs a new CqrsRemoteException for an exception thrown on the given node.
+     *
+     * @param node       the name of the node
+     * @param remoteType the class name of the exception thrown on the node
+     * @param message    the message of the exception thrown on the node
+     */
+    public CqrsRemoteException(String node, String remoteType, String message) {
+        super(remoteType + " on node " + node + ": " + message);
+        this.node = node;
+        this.remoteType = remoteType;
+    }
+
+    /**
+     * Returns the name of the node the request was routed to.
+     *
+     * @return the node name
+     */
+    public String getNode() {
+        return node;
+    }
+
+    /**
+     * Returns the class name of the exception thrown on the node.
+     *
+     * @return the remote exception type, or {@code null} if the node could not be reached
+     */
+    public String getRemoteType() {
+        return remoteType;
+    }
+}
@@ -0,0 +1,28 @@
+package io.github.lefpap.mdtr.gather;
+
+/**
+ * How a scatter-gather of queries reacts to failed and unfinished queries.
+ *
+ * @see io.github.lefpap.mdtr.CqrsMediator#gather
+ */
+public enum CqrsGatherPolicy {
+
+    /**
+     * The first failure fails the whole gather, as does the deadline passing before every query has
+     * completed. The remaining queries are cancelled.
+     */
+    FAIL_FAST,
+
+    /**
+     * Every query runs to completion and failures are reported per query in the result. The deadline
+     * passing before every query has completed fails the whole gather.
+     */
+    COLLECT_ERRORS,
+
+    /**
+     * Like {@link #COLLECT_ERRORS}, except that the gather returns when the deadline passes. Queries still
+     * running are cancelled and reported as failed with a
+     * {@link io.github.lefpap.mdtr.exception.CqrsDeadlineExceededException}.
+     */
+    PARTIAL_RESULTS
+}
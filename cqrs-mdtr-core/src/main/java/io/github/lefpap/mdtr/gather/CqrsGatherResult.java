@@ -0,0 +1,154 @@
+package io.github.lefpap.mdtr.gather;
+
+import io.github.lefpap.mdtr.request.CqrsQuery;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.CompletionException;
+
+/**
+ * The results of a scatter-gather of queries, looked up by the queries themselves.
+ *
+ * <p>
+ * Queries are matched by {@link Object#equals equality}; equal queries are sent once and share one entry.
+ * Every query either has a result, possibly {@code null}, or a failure.
+ * </p>
+ *
+ * @see io.github.lefpap.mdtr.CqrsMediator#gather
+ */
+public final class CqrsGatherResult {
+
+    private final List<CqrsQuery<?>> queries;
+    private final Object[] results;
+    private final Throwable[] failures;
+    private final Map<CqrsQuery<?>, Integer> positions;
+
+    CqrsGatherResult(List<CqrsQuery<?>> queries, Object[] results, Throwable[] failures) {
+        this.queries = queries;
+        this.results = results;
+        this.failures = failures;
+        this.positions = HashMap.newHashMap(queries.size());
+        for (int i = 0; i < queries.size(); i++) {
+            positions.put(queries.get(i), i);
+        }
+    }
+
+    /**
+     * Returns the result of the given query.
+     *
+     * @param query the query
+     * @param <R>   the type of the result
+     * @return the result of the query
+     * @throws NoSuchElementException if the query was not gathered
+     * @throws RuntimeException       the failure of the query, as it was thrown, or wrapped in a
+     *                                {@link CompletionException} if it is a checked exception
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R get(CqrsQuery<R> query) {
+        int position = position(query);
+        Throwable failure = failures[position];
+        if (failure == null) {
+            return (R) results[position];
+        }
+        if (failure instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        if (failure instanceof Error error) {
+            throw error;
+        }
+        throw new CompletionException(failure);
+    }
+
+    /**
+     * Returns the result of the given query, or the fallback if the query failed.
+     *
+     * @param query    the query
+     * @param fallback the value to return if the query failed
+     * @param <R>      the type of the result
+     * @return the result of the query, or the fallback
+     * @throws NoSuchElementException if the query was not gathered
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R getOrDefault(CqrsQuery<R> query, R fallback) {
+        int position = position(query);
+        return failures[position] == null ? (R) results[position] : fallback;
+    }
+
+    /**
+     * Returns the failure of the given query.
+     *
+     * @param query the query
+     * @return the failure, or {@code null} if the query succeeded
+     * @throws NoSuchElementException if the query was not gathered
+     */
+    public Throwable getFailure(CqrsQuery<?> query) {
+        return failures[position(query)];
+    }
+
+    /**
+     * Returns whether the given query succeeded.
+     *
+     * @param query the query
+     * @return {@code true} if the query has a result
+     * @throws NoSuchElementException if the query was not gathered
+     */
+    public boolean isSuccess(CqrsQuery<?> query) {
+        return failures[position(query)] == null;
+    }
+
+    /**
+     * Returns whether every query succeeded.
+     *
+     * @return {@code true} if no query failed
+     */
+    public boolean isComplete() {
+        for (Throwable failure : failures) {
+            if (failure != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the failures of the failed queries.
+     *
+     * @return the failures by query, in gather order
+     */
+    public Map<CqrsQuery<?>, Throwable> getFailures() {
+        Map<CqrsQuery<?>, Throwable> failed = new LinkedHashMap<>();
+        for (int i = 0; i < failures.length; i++) {
+            if (failures[i] != null) {
+                failed.put(queries.get(i), failures[i]);
+            }
+        }
+        return Collections.unmodifiableMap(failed);
+    }
+
+    /**
+     * Returns the gathered queries, without duplicates.
+     *
+     * @return the distinct queries, in gather order
+     */
+    public List<CqrsQuery<?>> getQueries() {
+        return queries;
+    }
+
+    @Override
+    public String toString() {
+        return "CqrsGatherResult[queries=" + queries.size() + ", failed=" + getFailures().size() + "]";
+    }
+
+    private int position(CqrsQuery<?> query) {
+        Integer position = positions.get(Objects.requireNonNull(query, "Query cannot be null"));
+        if (position == null) {
+            throw new NoSuchElementException("Query was not gathered: " + query);
+        }
+        return position;
+    }
+}
@@ -0,0 +1,154 @@
+package io.github.lefpap.mdtr.gather;
+
+import io.github.lefpap.mdtr.CqrsMediator;
+import io.github.lefpap.mdtr.concurrent.CqrsFutures;
+import io.github.lefpap.mdtr.deadline.CqrsDeadline;
+import io.github.lefpap.mdtr.exception.CqrsDeadlineExceededException;
+import io.github.lefpap.mdtr.request.CqrsQuery;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Sends independent queries concurrently and gathers their results.
+ *
+ * @see CqrsMediator#gather
+ */
+public final class CqrsScatterGather {
+
+    private CqrsScatterGather() {
+    }
+
+    /**
+     * Sends the given queries concurrently through {@link CqrsMediator#sendAsync} and waits for their
+     * results according to the given policy.
+     *
+     * <p>
+     * Each query passes through the middleware pipeline on its own, on the executor of the mediator. The
+     * queries run with the deadline of the gather, which is the earlier of the given timeout and the
+     * {@link CqrsDeadline deadline} of the calling thread. Queries are cancelled by completing their
+     * futures only; a query still running when its gather gives up because of the deadline notices through
+     * {@link CqrsDeadline#checkpoint()}.
+     *
+     * @param mediator the mediator sending the queries
+     * @param queries  the queries to send
+     * @param policy   how failed and unfinished queries are handled
+     * @param timeout  the time budget of the gather, or {@code null} for the deadline of the calling thread only
+     * @return the results of the queries
+     * @throws CqrsDeadlineExceededException if the deadline passes before the queries have completed, unless
+     *                                       the policy is {@link CqrsGatherPolicy#PARTIAL_RESULTS}
+     * @throws CancellationException         if the calling thread is interrupted while waiting
+     * @throws RuntimeException              the first failure of a query, with {@link CqrsGatherPolicy#FAIL_FAST}
+     */
+    public static CqrsGatherResult gather(CqrsMediator mediator, Collection<? extends CqrsQuery<?>> queries,
+                                          CqrsGatherPolicy policy, Duration timeout) {
+        Objects.requireNonNull(mediator, "Mediator cannot be null");
+        Objects.requireNonNull(queries, "Queries cannot be null");
+        Objects.requireNonNull(policy, "Gather policy cannot be null");
+
+        List<CqrsQuery<?>> distinct = List.copyOf(new LinkedHashSet<>(queries));
+        CqrsDeadline deadline = timeout == null
+                ? CqrsDeadline.current()
+                : CqrsDeadline.after(timeout).min(CqrsDeadline.current());
+
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[distinct.size()];
+        if (deadline == null) {
+            scatter(mediator, distinct, futures);
+        } else {
+            deadline.call(() -> scatter(mediator, distinct, futures));
+        }
+
+        CompletableFuture<Object> firstFailure = new CompletableFuture<>();
+        CompletableFuture<?> done = CompletableFuture.allOf(futures);
+        if (policy == CqrsGatherPolicy.FAIL_FAST) {
+            for (CompletableFuture<?> future : futures) {
+                future.whenComplete((result, failure) -> {
+                    if (failure != null) {
+                        firstFailure.completeExceptionally(CqrsFutures.unwrap(failure));
+                    }
+                });
+            }
+            done = CompletableFuture.anyOf(done, firstFailure);
+        }
+
+        boolean completed = await(done, deadline, futures);
+        if (firstFailure.isCompletedExceptionally()) {
+            cancel(futures);
+            throw unchecked(firstFailure.exceptionNow());
+        }
+        if (!completed && policy != CqrsGatherPolicy.PARTIAL_RESULTS) {
+            cancel(futures);
+            throw new CqrsDeadlineExceededException(
+                    "Gather of " + distinct.size() + " queries did not complete before its deadline");
+        }
+
+        Object[] results = new Object[futures.length];
+        Throwable[] failures = new Throwable[futures.length];
+        for (int i = 0; i < futures.length; i++) {
+            CompletableFuture<?> future = futures[i];
+            if (!future.isDone()) {
+                future.cancel(true);
+                failures[i] = new CqrsDeadlineExceededException(
+                        "Query " + distinct.get(i).getClass().getName() + " did not complete before the deadline of its gather");
+            } else if (future.isCompletedExceptionally()) {
+                failures[i] = CqrsFutures.unwrap(future.exceptionNow());
+            } else {
+                results[i] = future.resultNow();
+            }
+        }
+        return new CqrsGatherResult(distinct, results, failures);
+    }
+
+    private static Void scatter(CqrsMediator mediator, List<CqrsQuery<?>> queries, CompletableFuture<?>[] futures) {
+        for (int i = 0; i < futures.length; i++) {
+            CqrsQuery<?> query = queries.get(i);
+            futures[i] = CqrsFutures.invoke(() -> mediator.sendAsync(query));
+        }
+        return null;
+    }
+
+    private static boolean await(CompletableFuture<?> done, CqrsDeadline deadline, CompletableFuture<?>[] futures) {
+        try {
+            if (deadline == null) {
+                done.get();
+            } else {
+                done.get(Math.max(0, deadline.remainingNanos()), TimeUnit.NANOSECONDS);
+            }
+            return true;
+        } catch (ExecutionException e) {
+            // Failures are reported per query
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            cancel(futures);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Gather was interrupted");
+        }
+    }
+
+    private static void cancel(CompletableFuture<?>[] futures) {
+        for (CompletableFuture<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    private static RuntimeException unchecked(Throwable failure) {
+        if (failure instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (failure instanceof Error error) {
+            throw error;
+        }
+        return new CompletionException(failure);
+    }
+}
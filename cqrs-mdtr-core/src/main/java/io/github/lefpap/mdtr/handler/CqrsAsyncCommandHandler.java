@@ -0,0 +1,13 @@
+package io.github.lefpap.mdtr.handler;
+
+import io.github.lefpap.mdtr.request.CqrsCommand;
+
+/**
+ * Handles a command asynchronously.
+ *
+ * @param <C> the type of command to be processed
+ * @param <R> the type of result produced by handling the command
+ */
+public interface CqrsAsyncCommandHandler<C extends CqrsCommand<R>, R>
+        extends CqrsCommandHandler<C, R>, CqrsAsyncRequestHandler<C, R> {
+}
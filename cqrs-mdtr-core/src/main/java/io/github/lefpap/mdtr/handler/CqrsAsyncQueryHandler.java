@@ -0,0 +1,13 @@
+package io.github.lefpap.mdtr.handler;
+
+import io.github.lefpap.mdtr.request.CqrsQuery;
+
+/**
+ * Handles a query asynchronously.
+ *
+ * @param <Q> the type of query to be processed
+ * @param <R> the type of result produced by handling the query
+ */
+public interface CqrsAsyncQueryHandler<Q extends CqrsQuery<R>, R>
+        extends CqrsQueryHandler<Q, R>, CqrsAsyncRequestHandler<Q, R> {
+}
@@ -0,0 +1,40 @@
+package io.github.lefpap.mdtr.handler;
+
+import io.github.lefpap.mdtr.concurrent.CqrsFutures;
+import io.github.lefpap.mdtr.request.CqrsRequest;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Handles a request asynchronously.
+ *
+ * <p>
+ * Asynchronous handlers are invoked directly by the asynchronous mediator API instead of being
+ * offloaded to an executor. When invoked through the blocking API, the calling thread waits for
+ * the returned future.
+ * </p>
+ *
+ * @param <T> the type of request to be processed
+ * @param <R> the type of result produced by handling the request
+ */
+public interface CqrsAsyncRequestHandler<T extends CqrsRequest<R>, R> extends CqrsRequestHandler<T, R> {
+
+    /**
+     * Handles a request asynchronously.
+     *
+     * @param request the request to be handled
+     * @return a future completed with the result of handling the request
+     */
+    CompletableFuture<R> handleAsync(T request);
+
+    /**
+     * Handles a request and waits for its result.
+     *
+     * @param request the request to be handled
+     * @return the result of handling the request
+     */
+    @Override
+    default R handle(T request) {
+        return CqrsFutures.join(handleAsync(request));
+    }
+}
@@ -0,0 +1,39 @@
+package io.github.lefpap.mdtr.handler;
+
+import io.github.lefpap.mdtr.request.CqrsCommand;
+
+import java.util.List;
+
+/**
+ * Handles a batch of commands of the same type at once.
+ *
+ * <p>
+ * Batch handlers let high-rate commands, such as metric samples or audit entries, be applied with a
+ * single round trip, for example one multi-row {@code INSERT} instead of one statement per command. A
+ * batch handler is also a regular command handler: single commands are handled as a batch of one.
+ * </p>
+ *
+ * @param <C> the type of command to be processed
+ * @param <R> the type of result produced by handling a command
+ */
+public interface CqrsBatchCommandHandler<C extends CqrsCommand<R>, R> extends CqrsCommandHandler<C, R> {
+
+    /**
+     * Handles a batch of commands.
+     *
+     * @param commands the commands to be handled
+     * @return the results of the commands, in the same order as the commands
+     */
+    List<R> handleBatch(List<C> commands);
+
+    /**
+     * Handles a single command as a batch of one.
+     *
+     * @param command the command to be handled
+     * @return the result of handling the command
+     */
+    @Override
+    default R handle(C command) {
+        return handleBatch(List.of(command)).getFirst();
+    }
+}
@@ -0,0 +1,39 @@
+package io.github.lefpap.mdtr.handler;
+
+import io.github.lefpap.mdtr.request.CqrsQuery;
+
+import java.util.List;
+
+/**
+ * Handles a batch of queries of the same type at once.
+ *
+ * <p>
+ * Batch handlers let the mediator resolve many queries with a single round trip, for example one
+ * {@code WHERE id IN (...)} statement instead of one statement per query. A batch handler is also a
+ * regular query handler: single queries are handled as a batch of one.
+ * </p>
+ *
+ * @param <Q> the type of query to be processed
+ * @param <R> the type of result produced by handling a query
+ */
+public interface CqrsBatchQueryHandler<Q extends CqrsQuery<R>, R> extends CqrsQueryHandler<Q, R> {
+
+    /**
+     * Handles a batch of queries.
+     *
+     * @param queries the queries to be handled
+     * @return the results of the queries, in the same order as the queries
+     */
+    List<R> handleBatch(List<Q> queries);
+
+    /**
+     * Handles a single query as a batch of one.
+     *
+     * @param query the query to be handled
+     * @return the result of handling the query
+     */
+    @Override
+    default R handle(Q query) {
+        return handleBatch(List.of(query)).getFirst();
+    }
+}
@@ -0,0 +1,21 @@
+package io.github.lefpap.mdtr.handler;
+
+import io.github.lefpap.mdtr.request.CqrsStreamQuery;
+import io.github.lefpap.mdtr.stream.CqrsPublishers;
+
+import java.util.concurrent.Flow;
+
+/**
+ * Handles a streaming query by returning a publisher of its elements.
+ *
+ * <p>
+ * The returned publisher should honour the demand of its subscribers and only acquire resources, such as
+ * a database cursor, once subscribed. {@link CqrsPublishers#fromStream} adapts a lazily opened
+ * {@link java.util.stream.Stream} accordingly.
+ * </p>
+ *
+ * @param <Q> the type of query to be processed
+ * @param <T> the type of the streamed elements
+ */
+public interface CqrsStreamQueryHandler<Q extends CqrsStreamQuery<T>, T> extends CqrsQueryHandler<Q, Flow.Publisher<T>> {
+}
@@ -0,0 +1,288 @@
+package io.github.lefpap.mdtr.memo;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Memo of the query results of a unit of work, such as a web request or a command handler.
+ *
+ * <p>
+ * A memo is bound to the current thread for the duration of a unit of work with {@link #call(Supplier)}
+ * or {@link #open()}, and consulted with {@link #current()}. Mediators supporting memoisation answer
+ * queries sent within the unit of work from the memo when an equal query was already answered. They
+ * report every command as a {@link #beginWrite() write}, which forgets every memoised result, and
+ * bypass the memo while one is in progress, so that queries observe the writes of the unit of work,
+ * including those of the handler sending them. Nested units of work share the memo of the outermost one,
+ * which is discarded when it ends.
+ * </p>
+ *
+ * <p>
+ * Unlike a cache, a memo never outlives its unit of work, so queries sent by different units of work
+ * never share results.
+ * </p>
+ */
+public final class CqrsQueryMemo {
+
+    private static final ThreadLocal<CqrsQueryMemo> CURRENT = new ThreadLocal<>();
+
+    // Stands for memoised null results
+    private static final Object NULL = new Object();
+
+    // Stands for queries sent while a write is in progress
+    private static final Object BYPASS = new Object();
+
+    private static final Scope NESTED = () -> {
+    };
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Object, Object> results = new HashMap<>();
+    private long generation;
+    private int writes;
+
+    private CqrsQueryMemo() {
+    }
+
+    /**
+     * Returns the memo bound to the current thread.
+     *
+     * @return the current memo, or {@code null} if there is none
+     */
+    public static CqrsQueryMemo current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs the given action as a unit of work, with a new memo bound to the current thread unless it
+     * already has one.
+     *
+     * @param action the action to run
+     * @param <R>    the type of the result
+     * @return the result of the action
+     */
+    public static <R> R call(Supplier<R> action) {
+        Objects.requireNonNull(action, "Action cannot be null");
+        try (Scope ignored = open()) {
+            return action.get();
+        }
+    }
+
+    /**
+     * Starts a unit of work on the current thread, binding a new memo to it unless it already has one.
+     * The unit of work ends when the returned scope is closed, which must happen on the same thread.
+     *
+     * @return the scope of the unit of work
+     */
+    public static Scope open() {
+        if (CURRENT.get() != null) {
+            return NESTED;
+        }
+
+        CURRENT.set(new CqrsQueryMemo());
+        return CURRENT::remove;
+    }
+
+    /**
+     * Returns an executor that runs every task with the memo bound to the submitting thread.
+     *
+     * @param executor the executor running the tasks
+     * @return the propagating executor
+     */
+    public static Executor propagating(Executor executor) {
+        Objects.requireNonNull(executor, "Executor cannot be null");
+        return task -> {
+            CqrsQueryMemo memo = CURRENT.get();
+            executor.execute(memo == null ? task : () -> memo.run(task));
+        };
+    }
+
+    /**
+     * Returns a supplier that runs the given one with the memo bound to the calling thread.
+     *
+     * @param action the supplier to run later, possibly on another thread
+     * @param <R>    the type of the result
+     * @return the capturing supplier, or the given one if the calling thread has no memo
+     */
+    public static <R> Supplier<R> capture(Supplier<R> action) {
+        CqrsQueryMemo memo = CURRENT.get();
+        return memo == null ? action : () -> memo.bind(action);
+    }
+
+    /**
+     * Returns the memoised result of an equal query, or else runs the given action and memoises its
+     * result. Exceptions are not memoised.
+     *
+     * @param query  the query, compared with {@code equals}/{@code hashCode}
+     * @param action answers the query
+     * @param <R>    the type of the result
+     * @return the result of the query
+     */
+    public <R> R memoize(Object query, Supplier<R> action) {
+        Object memoised;
+        long since;
+        lock.lock();
+        try {
+            memoised = writes > 0 ? BYPASS : results.get(query);
+            since = generation;
+        } finally {
+            lock.unlock();
+        }
+        if (memoised == BYPASS) {
+            return action.get();
+        }
+        if (memoised != null) {
+            return unmask(memoised);
+        }
+
+        R result = action.get();
+        put(query, result, since);
+        return result;
+    }
+
+    /**
+     * Returns the memoised result of an equal query, or else runs the given action and memoises the
+     * result it completes with. Exceptions are not memoised.
+     *
+     * @param query  the query, compared with {@code equals}/{@code hashCode}
+     * @param action answers the query asynchronously
+     * @param <R>    the type of the result
+     * @return a future completed with the result of the query
+     */
+    public <R> CompletableFuture<R> memoizeAsync(Object query, Supplier<CompletableFuture<R>> action) {
+        Object memoised;
+        long since;
+        lock.lock();
+        try {
+            memoised = writes > 0 ? BYPASS : results.get(query);
+            since = generation;
+        } finally {
+            lock.unlock();
+        }
+        if (memoised == BYPASS) {
+            return action.get();
+        }
+        if (memoised != null) {
+            return CompletableFuture.completedFuture(unmask(memoised));
+        }
+
+        return action.get().thenApply(result -> {
+            put(query, result, since);
+            return result;
+        });
+    }
+
+    /**
+     * Reports the start of a write, such as the execution of a command. Every memoised result is
+     * forgotten, and queries bypass the memo until the write ends.
+     */
+    public void beginWrite() {
+        lock.lock();
+        try {
+            writes++;
+            generation++;
+            results.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reports the end of a write started with {@link #beginWrite()}, whether or not it succeeded. Every
+     * result memoised in the meantime is forgotten.
+     */
+    public void endWrite() {
+        lock.lock();
+        try {
+            writes--;
+            generation++;
+            results.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forgets every memoised result, e.g. after writing data without dispatching a command.
+     */
+    public void invalidate() {
+        lock.lock();
+        try {
+            generation++;
+            results.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of memoised results.
+     *
+     * @return the number of memoised results
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return results.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Memoises the result of a query, unless the memo was invalidated since the query was sent, in which
+     * case the result may predate the writes of a command.
+     */
+    private void put(Object query, Object result, long since) {
+        lock.lock();
+        try {
+            if (generation == since) {
+                results.put(query, result == null ? NULL : result);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R> R unmask(Object memoised) {
+        return memoised == NULL ? null : (R) memoised;
+    }
+
+    private <R> R bind(Supplier<R> action) {
+        CqrsQueryMemo previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    private void run(Runnable task) {
+        bind(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * The scope of a unit of work, discarding its memo when closed.
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+
+        /**
+         * Ends the unit of work.
+         */
+        @Override
+        void close();
+    }
+}
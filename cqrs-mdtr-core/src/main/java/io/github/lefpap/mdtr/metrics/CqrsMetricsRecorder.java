@@ -0,0 +1,21 @@
+package io.github.lefpap.mdtr.metrics;
+
+/**
+ * Receives the outcome of every request handled by the mediator.
+ *
+ * <p>
+ * Implementations are called on the request's thread and must be thread-safe and cheap, since they run
+ * on every dispatch.
+ */
+@FunctionalInterface
+public interface CqrsMetricsRecorder {
+
+    /**
+     * Records a handled request.
+     *
+     * @param requestType   the type of the request
+     * @param durationNanos the time spent handling the request, in nanoseconds
+     * @param failed        whether the request completed with an exception
+     */
+    void record(Class<?> requestType, long durationNanos, boolean failed);
+}
@@ -0,0 +1,108 @@
+package io.github.lefpap.mdtr.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live metrics of a single request type.
+ *
+ * <p>
+ * Counters are striped, so concurrent recordings from many threads do not contend on a single memory
+ * location. Reads are not atomic across counters; use {@link #snapshot()} for a consistent-enough view.
+ * Counts and the total time cover the whole lifetime, while the maximum and the percentiles only cover a
+ * recent {@link LatencyWindow window}, so that they recover after an outlier.
+ */
+public final class CqrsRequestMetrics {
+
+    private final Class<?> requestType;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LatencyWindow latencies;
+
+    CqrsRequestMetrics(Class<?> requestType, Duration window) {
+        this.requestType = requestType;
+        this.latencies = new LatencyWindow(window);
+    }
+
+    void record(long durationNanos, boolean failed) {
+        count.increment();
+        if (failed) {
+            errorCount.increment();
+        }
+        totalNanos.add(durationNanos);
+        latencies.record(durationNanos);
+    }
+
+    /**
+     * Returns the request type.
+     *
+     * @return the request type
+     */
+    public Class<?> requestType() {
+        return requestType;
+    }
+
+    /**
+     * Returns the number of handled requests, including failed ones.
+     *
+     * @return the number of handled requests
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * Returns the number of requests that completed with an exception.
+     *
+     * @return the number of failed requests
+     */
+    public long errorCount() {
+        return errorCount.sum();
+    }
+
+    /**
+     * Returns the total time spent handling requests, in nanoseconds.
+     *
+     * @return the total time in nanoseconds
+     */
+    public long totalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * Returns the longest time spent handling a single request within the window, in nanoseconds.
+     *
+     * @return the maximum time in nanoseconds
+     */
+    public long maxNanos() {
+        return latencies.max();
+    }
+
+    /**
+     * Returns the latencies of the request type within the window.
+     *
+     * @return the latency window, in nanoseconds
+     */
+    public LatencyWindow latencies() {
+        return latencies;
+    }
+
+    /**
+     * Takes a snapshot of the current metrics.
+     *
+     * @return the snapshot
+     */
+    public CqrsRequestMetricsSnapshot snapshot() {
+        return new CqrsRequestMetricsSnapshot(
+                requestType,
+                count(),
+                errorCount(),
+                Duration.ofNanos(totalNanos()),
+                Duration.ofNanos(maxNanos()),
+                Duration.ofNanos(latencies.valueAtPercentile(0.5)),
+                Duration.ofNanos(latencies.valueAtPercentile(0.95)),
+                Duration.ofNanos(latencies.valueAtPercentile(0.99))
+        );
+    }
+}
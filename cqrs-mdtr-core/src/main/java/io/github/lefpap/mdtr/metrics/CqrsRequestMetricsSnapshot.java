@@ -0,0 +1,36 @@
+package io.github.lefpap.mdtr.metrics;
+
+import java.time.Duration;
+
+/**
+ * Point-in-time metrics of a single request type.
+ *
+ * @param requestType the request type
+ * @param count       the number of handled requests, including failed ones
+ * @param errorCount  the number of requests that completed with an exception
+ * @param totalTime   the total time spent handling requests
+ * @param maxTime     the longest time spent handling a single request within the recent window
+ * @param p50         the median latency within the recent window
+ * @param p95         the 95th percentile latency within the recent window
+ * @param p99         the 99th percentile latency within the recent window
+ */
+public record CqrsRequestMetricsSnapshot(
+        Class<?> requestType,
+        long count,
+        long errorCount,
+        Duration totalTime,
+        Duration maxTime,
+        Duration p50,
+        Duration p95,
+        Duration p99
+) {
+
+    /**
+     * Returns the mean latency.
+     *
+     * @return the mean latency, or {@link Duration#ZERO} if no request has been handled
+     */
+    public Duration meanTime() {
+        return count == 0 ? Duration.ZERO : totalTime.dividedBy(count);
+    }
+}
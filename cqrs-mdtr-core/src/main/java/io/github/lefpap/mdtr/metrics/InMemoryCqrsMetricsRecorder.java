@@ -0,0 +1,130 @@
+package io.github.lefpap.mdtr.metrics;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * {@link CqrsMetricsRecorder} keeping per-request-type counts, error counts and latency histograms in
+ * memory.
+ *
+ * <p>
+ * Recording a request of an already seen type only touches striped counters and a lock-free histogram
+ * and does not allocate. Maxima and percentiles cover a {@link LatencyWindow window} of recent requests,
+ * two minutes by default.
+ */
+public class InMemoryCqrsMetricsRecorder implements CqrsMetricsRecorder {
+
+    /**
+     * The default window of maxima and percentiles.
+     */
+    public static final Duration DEFAULT_WINDOW = Duration.ofMinutes(2);
+
+    private final Map<Class<?>, CqrsRequestMetrics> metrics = new ConcurrentHashMap<>();
+    private final List<Consumer<CqrsRequestMetrics>> listeners = new CopyOnWriteArrayList<>();
+    private final ReentrantLock registrationLock = new ReentrantLock();
+    private final Duration window;
+
+    /**
+     * Creates a recorder with the {@link #DEFAULT_WINDOW default window}.
+     */
+    public InMemoryCqrsMetricsRecorder() {
+        this(DEFAULT_WINDOW);
+    }
+
+    /**
+     * Creates a recorder whose maxima and percentiles cover the given window.
+     *
+     * @param window how long recorded latencies count towards maxima and percentiles
+     * @throws IllegalArgumentException if the window is not positive
+     */
+    public InMemoryCqrsMetricsRecorder(Duration window) {
+        Objects.requireNonNull(window, "Window cannot be null");
+        if (window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("Window must be positive: " + window);
+        }
+        this.window = window;
+    }
+
+    @Override
+    public void record(Class<?> requestType, long durationNanos, boolean failed) {
+        var requestMetrics = metrics.get(requestType);
+        if (requestMetrics == null) {
+            requestMetrics = register(requestType);
+        }
+        requestMetrics.record(durationNanos, failed);
+    }
+
+    /**
+     * Returns the live metrics of the given request type.
+     *
+     * @param requestType the request type
+     * @return the metrics, or an empty optional if no request of the type has been recorded
+     */
+    public Optional<CqrsRequestMetrics> get(Class<?> requestType) {
+        return Optional.ofNullable(metrics.get(requestType));
+    }
+
+    /**
+     * Returns the live metrics of all recorded request types.
+     *
+     * @return an unmodifiable view of the metrics
+     */
+    public Collection<CqrsRequestMetrics> getAll() {
+        return Collections.unmodifiableCollection(metrics.values());
+    }
+
+    /**
+     * Takes a snapshot of the metrics of all recorded request types, sorted by request type name.
+     *
+     * @return the snapshots
+     */
+    public List<CqrsRequestMetricsSnapshot> snapshot() {
+        return metrics.values().stream()
+                .map(CqrsRequestMetrics::snapshot)
+                .sorted(Comparator.comparing(snapshot -> snapshot.requestType().getName()))
+                .toList();
+    }
+
+    /**
+     * Registers a listener that is called once for every request type, when its first request is
+     * recorded. The listener is immediately called for the request types recorded so far.
+     *
+     * @param listener the listener
+     */
+    public void onNewRequestType(Consumer<CqrsRequestMetrics> listener) {
+        Objects.requireNonNull(listener, "Listener cannot be null");
+        registrationLock.lock();
+        try {
+            listeners.add(listener);
+            metrics.values().forEach(listener);
+        } finally {
+            registrationLock.unlock();
+        }
+    }
+
+    private CqrsRequestMetrics register(Class<?> requestType) {
+        registrationLock.lock();
+        try {
+            var existing = metrics.get(requestType);
+            if (existing != null) {
+                return existing;
+            }
+            var requestMetrics = new CqrsRequestMetrics(requestType, window);
+            metrics.put(requestType, requestMetrics);
+            listeners.forEach(listener -> listener.accept(requestMetrics));
+            return requestMetrics;
+        } finally {
+            registrationLock.unlock();
+        }
+    }
+}
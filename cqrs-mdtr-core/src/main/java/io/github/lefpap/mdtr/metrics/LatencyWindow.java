@@ -0,0 +1,133 @@
+package io.github.lefpap.mdtr.metrics;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Latencies of the recent past, so that the maximum and the percentiles recover after an outlier.
+ *
+ * <p>
+ * Values are recorded into the current one of a small ring of histograms. Reads rotate the current
+ * histogram out once it has been current for a fraction of the window, and drop rotated-out histograms
+ * once the window has passed since their rotation, much like the expiry of Micrometer's distribution
+ * statistics. A value is thus taken into account for at least the window, and for at most one read
+ * interval and a fraction of the window longer. Recording reads no clock and never allocates.
+ */
+public final class LatencyWindow {
+
+    private static final int SLICES = 3;
+
+    private final long sliceNanos;
+    private final long windowNanos;
+    private final LatencyHistogram[] histograms = new LatencyHistogram[SLICES + 1];
+    private final LongAccumulator[] maxima = new LongAccumulator[SLICES + 1];
+    private final long[] rotatedAt = new long[SLICES + 1];
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile int current;
+    private long currentSince;
+
+    /**
+     * Creates a window over the given duration.
+     *
+     * @param window how long recorded values are taken into account
+     * @throws IllegalArgumentException if the window is not positive
+     */
+    public LatencyWindow(Duration window) {
+        Objects.requireNonNull(window, "Window cannot be null");
+        if (window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("Window must be positive: " + window);
+        }
+        this.windowNanos = window.toNanos();
+        this.sliceNanos = Math.max(1, windowNanos / SLICES);
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+            maxima[i] = new LongAccumulator(Math::max, 0);
+        }
+        this.currentSince = System.nanoTime();
+        for (int i = 0; i < rotatedAt.length; i++) {
+            rotatedAt[i] = currentSince - windowNanos;
+        }
+    }
+
+    /**
+     * Records a value. Negative values are recorded as zero.
+     *
+     * @param value the value to record
+     */
+    public void record(long value) {
+        int slice = current;
+        histograms[slice].record(value);
+        maxima[slice].accumulate(value);
+    }
+
+    /**
+     * Returns the highest value recorded within the window.
+     *
+     * @return the highest value, or {@code 0} if no value has been recorded within the window
+     */
+    public long max() {
+        lock.lock();
+        try {
+            long now = rotate();
+            long max = 0;
+            for (int i = 0; i < maxima.length; i++) {
+                if (isLive(i, now)) {
+                    max = Math.max(max, maxima[i].get());
+                }
+            }
+            return max;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns an upper bound of the value below which the given percentage of the values recorded within
+     * the window fall.
+     *
+     * @param percentile the percentile, between {@code 0.0} and {@code 1.0}
+     * @return the value at the percentile, or {@code 0} if no value has been recorded within the window
+     * @throws IllegalArgumentException if the percentile is out of range
+     */
+    public long valueAtPercentile(double percentile) {
+        if (!(percentile >= 0.0 && percentile <= 1.0)) {
+            throw new IllegalArgumentException("Percentile must be between 0.0 and 1.0: " + percentile);
+        }
+
+        long[] counts = LatencyHistogram.newCounts();
+        lock.lock();
+        try {
+            long now = rotate();
+            for (int i = 0; i < histograms.length; i++) {
+                if (isLive(i, now)) {
+                    histograms[i].addCountsTo(counts);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return LatencyHistogram.valueAtPercentile(counts, percentile);
+    }
+
+    private long rotate() {
+        long now = System.nanoTime();
+        if (now - currentSince < sliceNanos) {
+            return now;
+        }
+
+        int next = (current + 1) % histograms.length;
+        histograms[next].reset();
+        maxima[next].reset();
+        rotatedAt[current] = now;
+        currentSince = now;
+        current = next;
+        return now;
+    }
+
+    private boolean isLive(int slice, long now) {
+        return slice == current || now - rotatedAt[slice] < windowNanos;
+    }
+}
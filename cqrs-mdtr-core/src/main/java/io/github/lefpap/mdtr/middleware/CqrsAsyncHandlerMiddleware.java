@@ -0,0 +1,37 @@
+package io.github.lefpap.mdtr.middleware;
+
+import io.github.lefpap.mdtr.concurrent.CqrsFutures;
+import io.github.lefpap.mdtr.request.CqrsRequest;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Defines a middleware that takes part in asynchronous request execution without blocking.
+ *
+ * <p>
+ * Plain {@link CqrsHandlerMiddleware} instances are run on the executor of the asynchronous pipeline
+ * and wait for the rest of the chain. Middlewares implementing this interface receive the rest of
+ * the chain as a future instead, and are used as-is by the blocking pipeline as well.
+ * </p>
+ */
+public interface CqrsAsyncHandlerMiddleware extends CqrsHandlerMiddleware {
+
+    /**
+     * Invokes the next middleware in the pipeline asynchronously.
+     *
+     * @param request the request to be processed
+     * @param next    supplies the future result of the next middleware in the pipeline
+     * @param <R>     the type of the result
+     * @return a future completed with the result of processing the request
+     */
+    <T extends CqrsRequest<R>, R> CompletableFuture<R> invokeAsync(T request, Supplier<CompletableFuture<R>> next);
+
+    /**
+     * Invokes the middleware through {@link #invokeAsync} and waits for its result.
+     */
+    @Override
+    default <T extends CqrsRequest<R>, R> R invoke(T request, Supplier<R> next) {
+        return CqrsFutures.join(invokeAsync(request, () -> CqrsFutures.supply(next)));
+    }
+}
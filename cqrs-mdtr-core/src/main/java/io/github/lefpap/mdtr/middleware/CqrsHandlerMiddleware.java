@@ -10,6 +10,12 @@ import java.util.function.Supplier;
  * <p>
  * A middleware is a component that can intercept and modify the request and response in the pipeline.
  * </p>
+ *
+ * <p>
+ * Middlewares that decide applicability from the request type alone should override
+ * {@link #applies(Class)} rather than {@link #applies(CqrsRequest)}. Pipelines may then resolve
+ * the applicable chain once per request type instead of on every execution.
+ * </p>
  */
 public interface CqrsHandlerMiddleware {
 
@@ -26,10 +32,27 @@ public interface CqrsHandlerMiddleware {
     /**
      * Determines if the middleware applies to the given request.
      *
+     * <p>
+     * The default implementation delegates to {@link #applies(Class)} with the runtime class of
+     * the request. Overriding this method marks the middleware as requiring a per-request check.
+     *
      * @param request the request to check
      * @return true if the middleware applies, false otherwise
      */
     default boolean applies(CqrsRequest<?> request) {
+        return applies(request.getClass());
+    }
+
+    /**
+     * Determines if the middleware applies to every request of the given type.
+     *
+     * <p>
+     * The result must depend on the request type only, so that pipelines can cache it.
+     *
+     * @param requestType the concrete request type to check
+     * @return true if the middleware applies, false otherwise
+     */
+    default boolean applies(Class<?> requestType) {
         return true;
     }
 }
@@ -3,6 +3,9 @@ package io.github.lefpap.mdtr.middleware;
 import io.github.lefpap.mdtr.handler.CqrsRequestHandler;
 import io.github.lefpap.mdtr.request.CqrsRequest;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 /**
  * Defines a pipeline for executing requests.
  * This interface allows for the execution of requests using a specified handler.
@@ -19,4 +22,20 @@ public interface CqrsMiddlewarePipeline {
      * @return the result of executing the request
      */
     <T extends CqrsRequest<R>, R> R execute(T request, CqrsRequestHandler<T, R> handler);
+
+    /**
+     * Executes a request asynchronously using the provided handler.
+     *
+     * <p>
+     * The default implementation runs {@link #execute} on the given executor.
+     *
+     * @param request  the request to be executed
+     * @param handler  the handler to process the request
+     * @param executor the executor used for blocking work
+     * @param <R>      the type of the result
+     * @return a future completed with the result of executing the request
+     */
+    default <T extends CqrsRequest<R>, R> CompletableFuture<R> executeAsync(T request, CqrsRequestHandler<T, R> handler, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> execute(request, handler), executor);
+    }
 }
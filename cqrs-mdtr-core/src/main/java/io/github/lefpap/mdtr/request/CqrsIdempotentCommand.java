@@ -0,0 +1,21 @@
+package io.github.lefpap.mdtr.request;
+
+/**
+ * A command carrying an idempotency key, typically supplied by the client issuing it.
+ * <p>
+ * Mediators supporting idempotent execution handle a command only once per command type and key, and
+ * return the recorded result of that execution to later commands with the same key. Clients can thus
+ * safely retry a command whose outcome they did not receive.
+ * </p>
+ *
+ * @param <R> the type of result produced by handling the command
+ */
+public interface CqrsIdempotentCommand<R> extends CqrsCommand<R> {
+
+    /**
+     * Returns the idempotency key of this command.
+     *
+     * @return the idempotency key, or {@code null} to handle this command unconditionally
+     */
+    String idempotencyKey();
+}
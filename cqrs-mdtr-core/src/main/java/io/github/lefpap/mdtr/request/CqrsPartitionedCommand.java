@@ -0,0 +1,21 @@
+package io.github.lefpap.mdtr.request;
+
+/**
+ * A command that belongs to a partition, typically the aggregate it changes.
+ * <p>
+ * Mediators supporting partitioned execution run commands with equal partition keys one at a time, in
+ * the order they were dispatched, while commands of other partitions run in parallel. Handlers of such
+ * commands therefore do not need to lock the aggregate themselves.
+ * </p>
+ *
+ * @param <R> the type of result produced by handling the command
+ */
+public interface CqrsPartitionedCommand<R> extends CqrsCommand<R> {
+
+    /**
+     * Returns the key of the partition this command belongs to.
+     *
+     * @return the partition key, compared with {@code equals}/{@code hashCode}
+     */
+    Object partitionKey();
+}
@@ -0,0 +1,15 @@
+package io.github.lefpap.mdtr.request;
+
+import java.util.concurrent.Flow;
+
+/**
+ * Marker interface representing a query whose result is streamed element by element.
+ * <p>
+ * The handler returns a {@link Flow.Publisher} instead of a materialised result, so large result sets
+ * are produced as the subscriber requests them and never have to fit in memory at once.
+ * </p>
+ *
+ * @param <T> the type of the streamed elements
+ */
+public interface CqrsStreamQuery<T> extends CqrsQuery<Flow.Publisher<T>> {
+}
@@ -0,0 +1,65 @@
+package io.github.lefpap.mdtr.stream;
+
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Flow;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Utility methods bridging {@link Stream streams} and {@link Flow.Publisher publishers} of streaming
+ * queries, with backpressure in both directions.
+ */
+public final class CqrsPublishers {
+
+    private CqrsPublishers() {
+    }
+
+    /**
+     * Returns a publisher emitting the elements of a stream, as fast as its subscriber requests them.
+     *
+     * <p>
+     * The stream is opened when the subscriber first requests elements, on the requesting thread, and
+     * closed once it is exhausted, fails or the subscription is cancelled. Every subscriber gets a stream
+     * of its own.
+     *
+     * @param source opens the stream
+     * @param <T>    the type of the elements
+     * @return the publisher
+     */
+    public static <T> Flow.Publisher<T> fromStream(Supplier<? extends Stream<? extends T>> source) {
+        Objects.requireNonNull(source, "Source cannot be null");
+        return subscriber -> {
+            Objects.requireNonNull(subscriber, "Subscriber cannot be null");
+            new StreamSubscription<T>(subscriber, source).start();
+        };
+    }
+
+    /**
+     * Returns a sequential stream of the elements of a publisher.
+     *
+     * <p>
+     * At most {@code prefetch} elements are requested ahead of consumption, so a fast publisher cannot
+     * outgrow the memory of a slow consumer. Consuming the stream blocks until the next element is
+     * available. Closing the stream, e.g. with try-with-resources, cancels the subscription.
+     *
+     * @param publisher the publisher
+     * @param prefetch  the maximum number of elements requested ahead
+     * @param <T>       the type of the elements
+     * @return the stream
+     * @throws IllegalArgumentException if the prefetch is not positive
+     */
+    public static <T> Stream<T> toStream(Flow.Publisher<T> publisher, int prefetch) {
+        Objects.requireNonNull(publisher, "Publisher cannot be null");
+        if (prefetch < 1) {
+            throw new IllegalArgumentException("Prefetch must be positive: " + prefetch);
+        }
+
+        var iterator = new PublisherIterator<T>(prefetch);
+        publisher.subscribe(iterator);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+}
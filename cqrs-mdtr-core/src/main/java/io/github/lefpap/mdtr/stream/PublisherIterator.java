@@ -0,0 +1,126 @@
+package io.github.lefpap.mdtr.stream;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Blocking iterator over the elements of a publisher.
+ *
+ * <p>
+ * It requests {@code prefetch} elements up front and replenishes them in batches of half the prefetch as
+ * they are consumed, so the queue never holds more than {@code prefetch} elements.
+ * </p>
+ *
+ * @param <T> the type of the elements
+ */
+final class PublisherIterator<T> implements Iterator<T>, Flow.Subscriber<T>, AutoCloseable {
+
+    private static final Object COMPLETE = new Object();
+
+    private record Failure(Throwable cause) {
+    }
+
+    private final int prefetch;
+    private final int replenishThreshold;
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+
+    private volatile Flow.Subscription subscription;
+    private volatile boolean closed;
+
+    private Object next;
+    private boolean done;
+    private int consumed;
+
+    PublisherIterator(int prefetch) {
+        this.prefetch = prefetch;
+        this.replenishThreshold = Math.max(1, prefetch / 2);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (this.subscription != null || closed) {
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        subscription.request(prefetch);
+    }
+
+    @Override
+    public void onNext(T item) {
+        queue.offer(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        queue.offer(new Failure(throwable));
+    }
+
+    @Override
+    public void onComplete() {
+        queue.offer(COMPLETE);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        if (done) {
+            return false;
+        }
+
+        Object signal;
+        try {
+            signal = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new CancellationException("Interrupted while waiting for the next element");
+        }
+
+        if (signal == COMPLETE) {
+            done = true;
+            return false;
+        }
+        if (signal instanceof Failure failure) {
+            done = true;
+            throw failure.cause() instanceof RuntimeException runtime
+                    ? runtime
+                    : new CompletionException(failure.cause());
+        }
+
+        next = signal;
+        if (++consumed == replenishThreshold) {
+            consumed = 0;
+            subscription.request(replenishThreshold);
+        }
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T item = (T) next;
+        next = null;
+        return item;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        done = true;
+        Flow.Subscription current = subscription;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+}
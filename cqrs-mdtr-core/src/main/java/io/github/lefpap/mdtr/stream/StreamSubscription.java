@@ -0,0 +1,131 @@
+package io.github.lefpap.mdtr.stream;
+
+import java.util.Iterator;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Subscription emitting the elements of a lazily opened stream on demand.
+ *
+ * <p>
+ * Elements are emitted by whichever thread requests them. A work-in-progress counter makes sure only one
+ * thread drains at a time, which also turns re-entrant requests from {@code onNext} into iterations of the
+ * running drain loop instead of recursion. The stream is only touched by the draining thread, including
+ * when it is closed after a cancellation.
+ * </p>
+ *
+ * @param <T> the type of the elements
+ */
+final class StreamSubscription<T> implements Flow.Subscription {
+
+    private final Flow.Subscriber<? super T> subscriber;
+    private final Supplier<? extends Stream<? extends T>> source;
+
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile boolean cancelled;
+    private volatile Throwable invalidRequest;
+
+    private Stream<? extends T> stream;
+    private Iterator<? extends T> iterator;
+    private boolean done;
+
+    StreamSubscription(Flow.Subscriber<? super T> subscriber, Supplier<? extends Stream<? extends T>> source) {
+        this.subscriber = subscriber;
+        this.source = source;
+    }
+
+    void start() {
+        subscriber.onSubscribe(this);
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            invalidRequest = new IllegalArgumentException("Requested elements must be positive: " + n);
+        } else {
+            requested.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+        }
+        drain();
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+        drain();
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+
+        int missed = 1;
+        do {
+            emit();
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void emit() {
+        if (done) {
+            return;
+        }
+        if (cancelled) {
+            terminate();
+            return;
+        }
+        if (invalidRequest != null) {
+            terminate();
+            subscriber.onError(invalidRequest);
+            return;
+        }
+
+        try {
+            if (iterator == null) {
+                if (requested.get() == 0) {
+                    return;
+                }
+                stream = source.get();
+                iterator = stream.iterator();
+            }
+
+            long demand = requested.get();
+            long emitted = 0;
+            while (true) {
+                while (emitted != demand) {
+                    if (cancelled) {
+                        terminate();
+                        return;
+                    }
+                    if (!iterator.hasNext()) {
+                        terminate();
+                        subscriber.onComplete();
+                        return;
+                    }
+                    subscriber.onNext(iterator.next());
+                    emitted++;
+                }
+
+                demand = requested.addAndGet(-emitted);
+                emitted = 0;
+                if (demand == 0) {
+                    return;
+                }
+            }
+        } catch (Throwable t) {
+            terminate();
+            subscriber.onError(t);
+        }
+    }
+
+    private void terminate() {
+        done = true;
+        if (stream != null) {
+            stream.close();
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package io.github.lefpap.mdtr.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Annotation processor writing an index of the {@code @CqrsHandler} and {@code @CqrsMiddleware} classes of
+ * a compilation unit to {@value #INDEX_LOCATION}.
+ *
+ * <p>
+ * The index is a properties file. Handlers are keyed by the binary name of their class and map to
+ * {@code handler:<request type>}. Middlewares are keyed by the binary name of their class, or by
+ * {@code <configuration class>#<method>} for {@code @Bean} methods, and map to {@code middleware:<order>},
+ * where the order is that of an {@code @Order} annotation on the same element, like Spring prefers it, or
+ * else that of {@code @CqrsMiddleware}. The Spring Boot starter reads it instead of scanning every bean for
+ * the annotations.
+ * </p>
+ *
+ * <p>
+ * Entries of an index left by a previous, incremental compilation are kept as long as their classes still
+ * exist. Handlers that do not implement a handler interface, or whose request type is neither a command nor
+ * a query, are reported as compilation errors.
+ * </p>
+ */
+@SupportedAnnotationTypes({
+        CqrsIndexProcessor.HANDLER_ANNOTATION,
+        CqrsIndexProcessor.MIDDLEWARE_ANNOTATION
+})
+public class CqrsIndexProcessor extends AbstractProcessor {
+
+    /**
+     * Location of the generated index, relative to the class output.
+     */
+    public static final String INDEX_LOCATION = "META-INF/cqrs-mdtr.index";
+
+    static final String HANDLER_ANNOTATION = "io.github.lefpap.mdtr.annotation.CqrsHandler";
+    static final String MIDDLEWARE_ANNOTATION = "io.github.lefpap.mdtr.annotation.CqrsMiddleware";
+    static final String ORDER_ANNOTATION = "org.springframework.core.annotation.Order";
+
+    private static final String REQUEST_HANDLER_TYPE = "io.github.lefpap.mdtr.handler.CqrsRequestHandler";
+    private static final String COMMAND_TYPE = "io.github.lefpap.mdtr.request.CqrsCommand";
+    private static final String QUERY_TYPE = "io.github.lefpap.mdtr.request.CqrsQuery";
+    private static final String HANDLER_PREFIX = "handler:";
+    private static final String MIDDLEWARE_PREFIX = "middleware:";
+    private static final int LOWEST_PRECEDENCE = Integer.MAX_VALUE;
+
+    private final Map<String, String> entries = new TreeMap<>();
+    private final Set<String> compiledTypes = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element root : roundEnv.getRootElements()) {
+            collectTypes(root);
+        }
+
+        for (TypeElement annotation : annotations) {
+            String name = annotation.getQualifiedName().toString();
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (HANDLER_ANNOTATION.equals(name)) {
+                    indexHandler(element);
+                } else if (MIDDLEWARE_ANNOTATION.equals(name)) {
+                    indexMiddleware(element);
+                }
+            }
+        }
+
+        if (roundEnv.processingOver() && !roundEnv.errorRaised()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    private void indexHandler(Element element) {
+        if (!(element instanceof TypeElement handler)) {
+            return;
+        }
+
+        TypeMirror requestType = annotationValue(element, HANDLER_ANNOTATION, "value") instanceof TypeMirror type
+                ? type
+                : null;
+        if (requestType == null) {
+            return;
+        }
+
+        if (!isSubtype(handler.asType(), REQUEST_HANDLER_TYPE)) {
+            error(element, "@CqrsHandler class " + handler.getQualifiedName() + " does not implement " + REQUEST_HANDLER_TYPE);
+            return;
+        }
+        if (!isSubtype(requestType, COMMAND_TYPE) && !isSubtype(requestType, QUERY_TYPE)) {
+            error(element, "@CqrsHandler on " + handler.getQualifiedName() + " points at " + requestType
+                    + " which is neither a Command nor a Query");
+            return;
+        }
+
+        TypeElement request = (TypeElement) ((DeclaredType) requestType).asElement();
+        entries.put(binaryName(handler), HANDLER_PREFIX + binaryName(request));
+    }
+
+    private void indexMiddleware(Element element) {
+        // A direct @Order is found before the one @CqrsMiddleware is meta-annotated with
+        Object order = hasAnnotation(element, ORDER_ANNOTATION)
+                ? annotationValue(element, ORDER_ANNOTATION, "value")
+                : annotationValue(element, MIDDLEWARE_ANNOTATION, "order");
+        String value = MIDDLEWARE_PREFIX + (order instanceof Integer i ? i : LOWEST_PRECEDENCE);
+
+        if (element instanceof TypeElement middleware) {
+            entries.put(binaryName(middleware), value);
+        } else if (element.getKind() == ElementKind.METHOD
+                && element.getEnclosingElement() instanceof TypeElement configuration) {
+            entries.put(binaryName(configuration) + "#" + element.getSimpleName(), value);
+        }
+    }
+
+    private void writeIndex() {
+        Map<String, String> index = readPreviousIndex();
+        index.putAll(entries);
+        if (index.isEmpty()) {
+            return;
+        }
+
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+            try (OutputStream out = file.openOutputStream()) {
+                StringBuilder content = new StringBuilder();
+                index.forEach((key, value) -> content.append(key).append('=').append(value).append('\n'));
+                out.write(content.toString().getBytes(StandardCharsets.ISO_8859_1));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write " + INDEX_LOCATION, e);
+        }
+    }
+
+    private void collectTypes(Element element) {
+        if (element instanceof TypeElement type) {
+            compiledTypes.add(binaryName(type));
+            for (Element enclosed : type.getEnclosedElements()) {
+                collectTypes(enclosed);
+            }
+        }
+    }
+
+    private Map<String, String> readPreviousIndex() {
+        Map<String, String> index = new TreeMap<>();
+        try {
+            FileObject file = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+            var properties = new Properties();
+            try (InputStream in = file.openInputStream()) {
+                properties.load(in);
+            }
+            properties.forEach((key, value) -> {
+                String name = key.toString();
+                int method = name.indexOf('#');
+                String className = method < 0 ? name : name.substring(0, method);
+                // Keep entries of classes that were not part of this compilation, if they still exist
+                if (!compiledTypes.contains(className)
+                        && processingEnv.getElementUtils().getTypeElement(className.replace('$', '.')) != null) {
+                    index.put(name, value.toString());
+                }
+            });
+        } catch (IOException | IllegalArgumentException e) {
+            // No previous index
+        }
+        return index;
+    }
+
+    private boolean hasAnnotation(Element element, String annotation) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Object annotationValue(Element element, String annotation, String attribute) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            var type = (TypeElement) mirror.getAnnotationType().asElement();
+            if (!type.getQualifiedName().contentEquals(annotation)) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : mirror.getElementValues().entrySet()) {
+                if (value.getKey().getSimpleName().contentEquals(attribute)) {
+                    return value.getValue().getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean isSubtype(TypeMirror type, String supertypeName) {
+        TypeElement supertype = processingEnv.getElementUtils().getTypeElement(supertypeName);
+        if (supertype == null) {
+            // Type not on the compile classpath, nothing to check against
+            return true;
+        }
+        var types = processingEnv.getTypeUtils();
+        return types.isAssignable(types.erasure(type), types.erasure(supertype.asType()));
+    }
+
+    private String binaryName(TypeElement type) {
+        return processingEnv.getElementUtils().getBinaryName(type).toString();
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
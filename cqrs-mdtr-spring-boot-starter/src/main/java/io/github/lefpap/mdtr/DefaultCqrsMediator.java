@@ -1,23 +1,145 @@
 package io.github.lefpap.mdtr;
 
+import io.github.lefpap.mdtr.batch.CqrsQueryBatches;
+import io.github.lefpap.mdtr.capture.CqrsCaptureMiddleware;
+import io.github.lefpap.mdtr.concurrent.CqrsFutures;
+import io.github.lefpap.mdtr.deadline.CqrsDeadline;
 import io.github.lefpap.mdtr.exception.CqrsRequestHandlerNotFoundException;
+import io.github.lefpap.mdtr.handler.CqrsAsyncRequestHandler;
+import io.github.lefpap.mdtr.handler.CqrsBatchQueryHandler;
+import io.github.lefpap.mdtr.handler.CqrsQueryHandler;
+import io.github.lefpap.mdtr.handler.CqrsRequestHandler;
+import io.github.lefpap.mdtr.jfr.CqrsDispatchEvent;
+import io.github.lefpap.mdtr.memo.CqrsQueryMemo;
+import io.github.lefpap.mdtr.metrics.CqrsMetricsRecorder;
 import io.github.lefpap.mdtr.middleware.CqrsMiddlewarePipeline;
+import io.github.lefpap.mdtr.partition.CqrsPartitionedExecutor;
 import io.github.lefpap.mdtr.request.CqrsCommand;
+import io.github.lefpap.mdtr.request.CqrsPartitionedCommand;
 import io.github.lefpap.mdtr.request.CqrsQuery;
 import io.github.lefpap.mdtr.registry.CqrsHandlerRegistry;
+import io.github.lefpap.mdtr.request.CqrsRequest;
+import io.github.lefpap.mdtr.sampling.CqrsRequestSampler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 
 /**
  * Default implementation of the {@link CqrsMediator} interface.
  *
  * <p>This class is responsible for dispatching commands and sending queries to their respective handlers.
  * It uses a {@link CqrsHandlerRegistry} to look up the appropriate handler for each command or query.
+ *
+ * <p>Asynchronous requests are executed on the configured executor, which by default starts a new
+ * virtual thread per task. {@link CqrsAsyncRequestHandler Asynchronous handlers} are invoked directly.
+ * The {@link CqrsDeadline deadline}, {@link CqrsQueryMemo query memo} and {@link CqrsCaptureMiddleware
+ * captured request} of the calling thread are carried over to the threads running asynchronous and
+ * partitioned requests.
+ *
+ * <p>Queries sent together through {@link #sendAll} are grouped by type, and each group whose handler is a
+ * {@link CqrsBatchQueryHandler} is resolved through a single batch call.
+ *
+ * <p>When a {@link CqrsMetricsRecorder} is configured, the duration and outcome of every handled request are
+ * recorded. Without one, requests are not timed at all.
+ *
+ * <p>While a JDK Flight Recorder recording has the {@link CqrsDispatchEvent} enabled, every handled request
+ * is also emitted as an event.
+ *
+ * <p>When a {@link CqrsRequestSampler} is configured, every dispatched or sent request is offered to it, and
+ * slow or sampled ones are kept along with their middleware and handler timings.
+ *
+ * <p>When a {@link CqrsPartitionedExecutor} is configured, {@link CqrsPartitionedCommand partitioned commands}
+ * are run on the shard of their partition key, so commands of the same partition run one at a time, in the
+ * order they were dispatched from the calling threads. A command dispatched with {@link #dispatch} by a
+ * handler running on the same shard is the exception: it runs immediately, ahead of the commands waiting in
+ * the shard, since the handler could otherwise never complete.
  */
 public class DefaultCqrsMediator implements CqrsMediator {
 
+    private static final Logger log = LoggerFactory.getLogger(DefaultCqrsMediator.class);
+
+    private static final Executor DEFAULT_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
     private final CqrsHandlerRegistry registry;
     private final CqrsMiddlewarePipeline pipeline;
+    private final Executor executor;
+    private final CqrsMetricsRecorder metrics;
+    private final CqrsPartitionedExecutor partitions;
+    private final CqrsRequestSampler sampler;
+
+    /**
+     * Constructs a new {@code DefaultCqrsMediator} with the specified handler registry, pipeline, executor
+     * for asynchronous requests, metrics recorder, executor for partitioned commands and request sampler.
+     *
+     * @param registry   the registry containing command and query handlers
+     * @param pipeline   the middleware pipeline, or {@code null} to invoke handlers directly
+     * @param executor   the executor running asynchronous requests
+     * @param metrics    the metrics recorder, or {@code null} to not record metrics
+     * @param partitions the executor running partitioned commands, or {@code null} to run them like other commands
+     * @param sampler    the request sampler, or {@code null} to not sample requests
+     */
+    public DefaultCqrsMediator(CqrsHandlerRegistry registry, CqrsMiddlewarePipeline pipeline, Executor executor,
+                               CqrsMetricsRecorder metrics, CqrsPartitionedExecutor partitions, CqrsRequestSampler sampler) {
+        this.registry = registry;
+        this.pipeline = pipeline;
+        this.executor = CqrsCaptureMiddleware.propagating(
+                CqrsQueryMemo.propagating(CqrsDeadline.propagating(Objects.requireNonNull(executor, "Executor cannot be null"))));
+        this.metrics = metrics;
+        this.partitions = partitions;
+        this.sampler = sampler;
+    }
+
+    /**
+     * Constructs a new {@code DefaultCqrsMediator} with the specified handler registry, pipeline, executor
+     * for asynchronous requests, metrics recorder and executor for partitioned commands.
+     *
+     * @param registry   the registry containing command and query handlers
+     * @param pipeline   the middleware pipeline, or {@code null} to invoke handlers directly
+     * @param executor   the executor running asynchronous requests
+     * @param metrics    the metrics recorder, or {@code null} to not record metrics
+     * @param partitions the executor running partitioned commands, or {@code null} to run them like other commands
+     */
+    public DefaultCqrsMediator(CqrsHandlerRegistry registry, CqrsMiddlewarePipeline pipeline, Executor executor,
+                               CqrsMetricsRecorder metrics, CqrsPartitionedExecutor partitions) {
+        this(registry, pipeline, executor, metrics, partitions, null);
+    }
+
+    /**
+     * Constructs a new {@code DefaultCqrsMediator} with the specified handler registry, pipeline, executor
+     * for asynchronous requests and metrics recorder.
+     *
+     * @param registry the registry containing command and query handlers
+     * @param pipeline the middleware pipeline, or {@code null} to invoke handlers directly
+     * @param executor the executor running asynchronous requests
+     * @param metrics  the metrics recorder, or {@code null} to not record metrics
+     */
+    public DefaultCqrsMediator(CqrsHandlerRegistry registry, CqrsMiddlewarePipeline pipeline, Executor executor, CqrsMetricsRecorder metrics) {
+        this(registry, pipeline, executor, metrics, null);
+    }
+
+    /**
+     * Constructs a new {@code DefaultCqrsMediator} with the specified handler registry, pipeline and
+     * executor for asynchronous requests.
+     *
+     * @param registry the registry containing command and query handlers
+     * @param pipeline the middleware pipeline, or {@code null} to invoke handlers directly
+     * @param executor the executor running asynchronous requests
+     */
+    public DefaultCqrsMediator(CqrsHandlerRegistry registry, CqrsMiddlewarePipeline pipeline, Executor executor) {
+        this(registry, pipeline, executor, null);
+    }
 
     /**
      * Constructs a new {@code DefaultCqrsMediator} with the specified handler registry.
@@ -25,8 +147,7 @@ public class DefaultCqrsMediator implements CqrsMediator {
      * @param registry the registry containing command and query handlers
      */
     public DefaultCqrsMediator(CqrsHandlerRegistry registry, CqrsMiddlewarePipeline pipeline) {
-        this.registry = registry;
-        this.pipeline = pipeline;
+        this(registry, pipeline, DEFAULT_EXECUTOR);
     }
 
     /**
@@ -35,8 +156,7 @@ public class DefaultCqrsMediator implements CqrsMediator {
      * @param registry the registry containing command and query handlers
      */
     public DefaultCqrsMediator(CqrsHandlerRegistry registry) {
-        this.registry = registry;
-        this.pipeline = null;
+        this(registry, null, DEFAULT_EXECUTOR);
     }
 
     /**
@@ -45,12 +165,15 @@ public class DefaultCqrsMediator implements CqrsMediator {
     @Override
     public <R, C extends CqrsCommand<R>> R dispatch(C command) {
         //noinspection unchecked
-        var handler = registry.getCommandHandler((Class<C>) command.getClass())
-                .orElseThrow(() -> new CqrsRequestHandlerNotFoundException("No handler found for command: " + command.getClass().getName()));
+        var handler = registry.findCommandHandler((Class<C>) command.getClass());
+        if (handler == null) {
+            throw new CqrsRequestHandlerNotFoundException("No handler found for command: " + command.getClass().getName());
+        }
 
-        return Optional.ofNullable(pipeline)
-                .map(p -> p.execute(command, handler))
-                .orElseGet(() -> handler.handle(command));
+        if (partitions != null && command instanceof CqrsPartitionedCommand<?> partitioned) {
+            return partitions.call(partitioned.partitionKey(), capture(() -> execute(command, handler)));
+        }
+        return execute(command, handler);
     }
 
     /**
@@ -59,11 +182,214 @@ public class DefaultCqrsMediator implements CqrsMediator {
     @Override
     public <R, Q extends CqrsQuery<R>> R send(Q query) {
         //noinspection unchecked
-        var handler = registry.getQueryHandler((Class<Q>) query.getClass())
-                .orElseThrow(() -> new CqrsRequestHandlerNotFoundException("No handler found for query: " + query.getClass().getName()));
+        var handler = registry.findQueryHandler((Class<Q>) query.getClass());
+        if (handler == null) {
+            throw new CqrsRequestHandlerNotFoundException("No handler found for query: " + query.getClass().getName());
+        }
+
+        return execute(query, handler);
+    }
+
+    /**
+     * The returned future is completed exceptionally with a {@link CqrsRequestHandlerNotFoundException}
+     * if no handler is found for the command.
+     */
+    @Override
+    public <R, C extends CqrsCommand<R>> CompletableFuture<R> dispatchAsync(C command) {
+        //noinspection unchecked
+        var handler = registry.findCommandHandler((Class<C>) command.getClass());
+        if (handler == null) {
+            return CompletableFuture.failedFuture(new CqrsRequestHandlerNotFoundException("No handler found for command: " + command.getClass().getName()));
+        }
+
+        if (partitions != null && command instanceof CqrsPartitionedCommand<?> partitioned) {
+            return CqrsFutures.invoke(() -> partitions.submit(partitioned.partitionKey(), capture(() -> execute(command, handler))));
+        }
+        return executeAsync(command, handler);
+    }
+
+    /**
+     * Failures of the command are logged.
+     *
+     * @throws CqrsRequestHandlerNotFoundException if no handler is found for the command
+     */
+    @Override
+    public <R, C extends CqrsCommand<R>> void dispatchAndForget(C command) {
+        //noinspection unchecked
+        var handler = registry.findCommandHandler((Class<C>) command.getClass());
+        if (handler == null) {
+            throw new CqrsRequestHandlerNotFoundException("No handler found for command: " + command.getClass().getName());
+        }
+
+        if (partitions != null && command instanceof CqrsPartitionedCommand<?> partitioned) {
+            // The partition logs failures
+            Supplier<R> task = capture(() -> execute(command, handler));
+            partitions.execute(partitioned.partitionKey(), task::get);
+        } else {
+            executeAsync(command, handler).whenComplete((result, failure) -> {
+                if (failure != null) {
+                    log.error("Command {} failed", command.getClass().getName(), CqrsFutures.unwrap(failure));
+                }
+            });
+        }
+    }
+
+    /**
+     * The returned future is completed exceptionally with a {@link CqrsRequestHandlerNotFoundException}
+     * if no handler is found for the query.
+     */
+    @Override
+    public <R, Q extends CqrsQuery<R>> CompletableFuture<R> sendAsync(Q query) {
+        //noinspection unchecked
+        var handler = registry.findQueryHandler((Class<Q>) query.getClass());
+        if (handler == null) {
+            return CompletableFuture.failedFuture(new CqrsRequestHandlerNotFoundException("No handler found for query: " + query.getClass().getName()));
+        }
+        return executeAsync(query, handler);
+    }
+
+    /**
+     * Queries of the same type are passed to their {@link CqrsBatchQueryHandler} in one call, while the
+     * middleware pipeline is still applied to every query. Queries whose handler is not batch-capable are
+     * sent one by one.
+     *
+     * @throws CqrsRequestHandlerNotFoundException if no handler is found for one of the queries
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <R, Q extends CqrsQuery<R>> List<R> sendAll(Collection<Q> queries) {
+        Objects.requireNonNull(queries, "Queries cannot be null");
+
+        List<Q> requests = List.copyOf(queries);
+        Map<Class<Q>, List<Integer>> positionsByType = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            positionsByType.computeIfAbsent((Class<Q>) requests.get(i).getClass(), type -> new ArrayList<>()).add(i);
+        }
+
+        Object[] results = new Object[requests.size()];
+        positionsByType.forEach((type, positions) -> {
+            CqrsQueryHandler<Q, R> handler = registry.findQueryHandler(type);
+            if (handler == null) {
+                throw new CqrsRequestHandlerNotFoundException("No handler found for query: " + type.getName());
+            }
+
+            if (handler instanceof CqrsBatchQueryHandler<Q, R> batchHandler) {
+                List<Q> group = new ArrayList<>(positions.size());
+                positions.forEach(position -> group.add(requests.get(position)));
+
+                List<R> groupResults = executeBatch(type, group, batchHandler);
+                for (int i = 0; i < positions.size(); i++) {
+                    results[positions.get(i)] = groupResults.get(i);
+                }
+            } else {
+                for (int position : positions) {
+                    results[position] = execute(requests.get(position), handler);
+                }
+            }
+        });
+
+        return Collections.unmodifiableList((List<R>) Arrays.asList(results));
+    }
+
+    private <T extends CqrsRequest<R>, R> R execute(T request, CqrsRequestHandler<T, R> handler) {
+        if (!isObserved()) {
+            return invoke(request, handler);
+        }
+
+        var event = CqrsDispatchEvent.begin(request.getClass(), handler, 1);
+        long start = startTime();
+        var trace = sampler == null ? null : sampler.begin(request, start);
+        Throwable failure = null;
+        try {
+            return invoke(request, handler);
+        } catch (Throwable t) {
+            failure = t;
+            throw t;
+        } finally {
+            complete(request.getClass(), 1, start, event, failure);
+            if (trace != null) {
+                sampler.end(trace, failure);
+            }
+        }
+    }
+
+    private <Q extends CqrsQuery<R>, R> List<R> executeBatch(Class<Q> type, List<Q> group, CqrsBatchQueryHandler<Q, R> handler) {
+        if (!isObserved()) {
+            return CqrsQueryBatches.execute(group, handler, pipeline, executor);
+        }
+
+        var event = CqrsDispatchEvent.begin(type, handler, group.size());
+        long start = startTime();
+        Throwable failure = null;
+        try {
+            return CqrsQueryBatches.execute(group, handler, pipeline, executor);
+        } catch (Throwable t) {
+            failure = t;
+            throw t;
+        } finally {
+            // Every query of the group waited for the whole batch
+            complete(type, group.size(), start, event, failure);
+        }
+    }
+
+    private <T extends CqrsRequest<R>, R> R invoke(T request, CqrsRequestHandler<T, R> handler) {
+        return pipeline == null
+                ? handler.handle(request)
+                : pipeline.execute(request, handler);
+    }
+
+    private <T extends CqrsRequest<R>, R> CompletableFuture<R> executeAsync(T request, CqrsRequestHandler<T, R> handler) {
+        if (!isObserved()) {
+            return invokeAsync(request, handler);
+        }
+
+        var event = CqrsDispatchEvent.begin(request.getClass(), handler, 1);
+        var thread = Thread.currentThread();
+        long start = startTime();
+        var future = invokeAsync(request, handler);
+        future.whenComplete((result, failure) -> {
+            complete(request.getClass(), 1, start, event, CqrsFutures.unwrap(failure));
+            if (sampler != null) {
+                sampler.record(request, thread, start, CqrsFutures.unwrap(failure));
+            }
+        });
+        return future;
+    }
+
+    private <T extends CqrsRequest<R>, R> CompletableFuture<R> invokeAsync(T request, CqrsRequestHandler<T, R> handler) {
+        if (pipeline != null) {
+            return pipeline.executeAsync(request, handler, executor);
+        }
+        if (handler instanceof CqrsAsyncRequestHandler<T, R> asyncHandler) {
+            return CqrsFutures.invoke(() -> asyncHandler.handleAsync(request));
+        }
+        return CompletableFuture.supplyAsync(() -> handler.handle(request), executor);
+    }
+
+    /**
+     * Carries the deadline, query memo and capture state of the calling thread over to a partition.
+     */
+    private static <R> Supplier<R> capture(Supplier<R> action) {
+        return CqrsCaptureMiddleware.capture(CqrsDeadline.capture(CqrsQueryMemo.capture(action)));
+    }
+
+    private boolean isObserved() {
+        return metrics != null || sampler != null || CqrsDispatchEvent.enabled();
+    }
+
+    private long startTime() {
+        return metrics == null && sampler == null ? 0 : System.nanoTime();
+    }
 
-        return Optional.ofNullable(pipeline)
-                .map(p -> p.execute(query, handler))
-                .orElseGet(() -> handler.handle(query));
+    private void complete(Class<?> requestType, int count, long start, CqrsDispatchEvent event, Throwable failure) {
+        if (metrics != null) {
+            long duration = System.nanoTime() - start;
+            for (int i = 0; i < count; i++) {
+                metrics.record(requestType, duration, failure != null);
+            }
+        }
+        if (event != null) {
+            event.end(failure);
+        }
     }
 }
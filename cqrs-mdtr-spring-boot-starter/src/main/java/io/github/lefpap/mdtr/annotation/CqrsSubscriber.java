@@ -0,0 +1,16 @@
+package io.github.lefpap.mdtr.annotation;
+
+import io.github.lefpap.mdtr.event.CqrsEvent;
+import org.springframework.stereotype.Component;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Component
+public @interface CqrsSubscriber {
+    Class<? extends CqrsEvent> value();
+}
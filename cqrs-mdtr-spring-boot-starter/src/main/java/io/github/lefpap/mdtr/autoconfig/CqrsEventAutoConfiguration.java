@@ -0,0 +1,91 @@
+package io.github.lefpap.mdtr.autoconfig;
+
+import io.github.lefpap.mdtr.CqrsMediator;
+import io.github.lefpap.mdtr.annotation.CqrsSubscriber;
+import io.github.lefpap.mdtr.event.CqrsEvent;
+import io.github.lefpap.mdtr.event.CqrsEventPublisher;
+import io.github.lefpap.mdtr.event.CqrsEventSubscriber;
+import io.github.lefpap.mdtr.event.RingBufferCqrsEventPublisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Autoconfiguration for in-process event publishing.
+ */
+@AutoConfiguration
+@ConditionalOnClass(CqrsMediator.class)
+@ConditionalOnProperty(prefix = "cqrs.mediator.events", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(CqrsMediatorProperties.class)
+public class CqrsEventAutoConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(CqrsEventAutoConfiguration.class);
+
+    private final ApplicationContext ctx;
+
+    public CqrsEventAutoConfiguration(ApplicationContext ctx) {
+        this.ctx = ctx;
+    }
+
+    /**
+     * Creates a started {@link RingBufferCqrsEventPublisher} bean if no event publisher is already defined.
+     *
+     * <p>
+     * Every {@link CqrsSubscriber} bean is subscribed to the events of its annotated type, under its bean
+     * name. The subscriber beans are resolved on their first event rather than here, so that subscribers
+     * may themselves depend on the event publisher.
+     *
+     * @param properties the CQRS mediator properties
+     * @return the event publisher
+     */
+    @Bean
+    @ConditionalOnMissingBean(CqrsEventPublisher.class)
+    public RingBufferCqrsEventPublisher cqrsEventPublisher(CqrsMediatorProperties properties) {
+        var events = properties.getEvents();
+        var publisher = new RingBufferCqrsEventPublisher(events.getBufferSize(), events.getWaitStrategy());
+
+        for (String name : ctx.getBeanNamesForType(CqrsEventSubscriber.class)) {
+            CqrsSubscriber ann = ctx.findAnnotationOnBean(name, CqrsSubscriber.class);
+            if (ann == null) {
+                continue;
+            }
+            publisher.subscribe(name, ann.value(), new LazySubscriber(ctx, name));
+            log.debug("Registered event subscriber {} → {}", name, ann.value().getSimpleName());
+        }
+
+        publisher.start();
+        return publisher;
+    }
+
+    /**
+     * A subscriber bean, resolved from its bean factory on its first event. A subscriber only ever
+     * receives events on its own thread, so the resolved bean needs no further synchronization.
+     */
+    private static final class LazySubscriber implements CqrsEventSubscriber<CqrsEvent> {
+
+        private final BeanFactory beanFactory;
+        private final String beanName;
+        private CqrsEventSubscriber<CqrsEvent> instance;
+
+        private LazySubscriber(BeanFactory beanFactory, String beanName) {
+            this.beanFactory = beanFactory;
+            this.beanName = beanName;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void onEvent(CqrsEvent event) {
+            if (instance == null) {
+                instance = beanFactory.getBean(beanName, CqrsEventSubscriber.class);
+            }
+            instance.onEvent(event);
+        }
+    }
+}
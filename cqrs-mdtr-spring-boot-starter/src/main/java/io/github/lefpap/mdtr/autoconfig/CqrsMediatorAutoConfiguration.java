@@ -2,42 +2,81 @@ package io.github.lefpap.mdtr.autoconfig;
 
 import io.github.lefpap.mdtr.CqrsMediator;
 import io.github.lefpap.mdtr.DefaultCqrsMediator;
+import io.github.lefpap.mdtr.batch.CqrsCommandBuffer;
+import io.github.lefpap.mdtr.batch.CqrsQueryCoalescer;
 import io.github.lefpap.mdtr.pipeline.DefaultCqrsMiddlewarePipeline;
 import io.github.lefpap.mdtr.pipeline.NoopCqrsMiddlewarePipeline;
+import io.github.lefpap.mdtr.annotation.CqrsBuffered;
 import io.github.lefpap.mdtr.annotation.CqrsHandler;
 import io.github.lefpap.mdtr.annotation.CqrsMiddleware;
+import io.github.lefpap.mdtr.handler.CqrsBatchCommandHandler;
+import io.github.lefpap.mdtr.handler.CqrsBatchQueryHandler;
 import io.github.lefpap.mdtr.handler.CqrsCommandHandler;
 import io.github.lefpap.mdtr.handler.CqrsQueryHandler;
 import io.github.lefpap.mdtr.handler.CqrsRequestHandler;
+import io.github.lefpap.mdtr.index.CqrsIndex;
+import io.github.lefpap.mdtr.index.CqrsIndexRuntimeHints;
+import io.github.lefpap.mdtr.metrics.CqrsMetricsRecorder;
 import io.github.lefpap.mdtr.middleware.CqrsHandlerMiddleware;
 import io.github.lefpap.mdtr.middleware.CqrsMiddlewarePipeline;
+import io.github.lefpap.mdtr.partition.CqrsPartitionedExecutor;
 import io.github.lefpap.mdtr.registry.CqrsHandlerRegistry;
+import io.github.lefpap.mdtr.registry.CqrsLazyHandlers;
 import io.github.lefpap.mdtr.registry.InMemoryCqrsHandlerRegistry;
+import io.github.lefpap.mdtr.sampling.CqrsRequestSampler;
 import io.github.lefpap.mdtr.request.CqrsCommand;
 import io.github.lefpap.mdtr.request.CqrsQuery;
-import io.github.lefpap.mdtr.request.CqrsRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.Bean;
-import org.springframework.core.annotation.AnnotatedElementUtils;
-import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.core.annotation.OrderUtils;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.util.ClassUtils;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Autoconfiguration for the CQRS mediator.
  */
 @AutoConfiguration
 @ConditionalOnClass(CqrsMediator.class)
+@EnableConfigurationProperties(CqrsMediatorProperties.class)
+@ImportRuntimeHints(CqrsIndexRuntimeHints.class)
 public class CqrsMediatorAutoConfiguration {
 
+    /**
+     * Name of the executor bean running asynchronous requests.
+     */
+    public static final String EXECUTOR_BEAN_NAME = "cqrsMediatorExecutor";
+
     private static final Logger log = LoggerFactory.getLogger(CqrsMediatorAutoConfiguration.class);
 
     private final ApplicationContext ctx;
@@ -50,74 +89,313 @@ public class CqrsMediatorAutoConfiguration {
      * Creates a {@link CqrsMediator} bean if none is already defined.
      *
      * @param registry the CQRS handler registry
+     * @param pipeline the CQRS middleware pipeline
+     * @param executor the executor running asynchronous requests
+     * @param metrics    the optional metrics recorder
+     * @param partitions the optional executor for partitioned commands
+     * @param sampler    the optional request sampler
      * @return the CQRS mediator
      */
     @Bean
     @ConditionalOnMissingBean
-    public CqrsMediator cqrsMediator(CqrsHandlerRegistry registry, CqrsMiddlewarePipeline pipeline) {
-        return new DefaultCqrsMediator(registry, pipeline);
+    public CqrsMediator cqrsMediator(CqrsHandlerRegistry registry,
+                                     CqrsMiddlewarePipeline pipeline,
+                                     @Qualifier(EXECUTOR_BEAN_NAME) Executor executor,
+                                     ObjectProvider<CqrsMetricsRecorder> metrics,
+                                     ObjectProvider<CqrsPartitionedExecutor> partitions,
+                                     ObjectProvider<CqrsRequestSampler> sampler) {
+        return new DefaultCqrsMediator(registry, pipeline, executor, metrics.getIfAvailable(), partitions.getIfAvailable(),
+                sampler.getIfAvailable());
+    }
+
+    /**
+     * Creates the {@link CqrsPartitionedExecutor} running partitioned commands, unless disabled.
+     *
+     * @param properties the CQRS mediator properties
+     * @return the partitioned executor
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "cqrs.mediator.partition", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public CqrsPartitionedExecutor cqrsPartitionedExecutor(CqrsMediatorProperties properties) {
+        return new CqrsPartitionedExecutor(properties.getPartition().getShards());
+    }
+
+    /**
+     * Creates the executor running asynchronous requests if none is already defined.
+     *
+     * <p>
+     * The default executor starts a new virtual thread per request. Define a bean named
+     * {@value #EXECUTOR_BEAN_NAME} to use a different executor.
+     *
+     * @return the executor running asynchronous requests
+     */
+    @Bean(name = EXECUTOR_BEAN_NAME)
+    @ConditionalOnMissingBean(name = EXECUTOR_BEAN_NAME)
+    public ExecutorService cqrsMediatorExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * Creates a {@link CqrsQueryCoalescer} bean when query coalescing is enabled.
+     *
+     * @param properties the CQRS mediator properties
+     * @param executor   the executor running the batch handlers
+     * @return the CQRS query coalescer
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "cqrs.mediator.batch.coalescing", name = "enabled", havingValue = "true")
+    public CqrsQueryCoalescer cqrsQueryCoalescer(CqrsMediatorProperties properties,
+                                                 @Qualifier(EXECUTOR_BEAN_NAME) Executor executor) {
+        var coalescing = properties.getBatch().getCoalescing();
+        return new CqrsQueryCoalescer(coalescing.getWindow(), coalescing.getMaxBatchSize(), executor);
+    }
+
+    /**
+     * Creates a {@link CqrsCommandBuffer} bean when command buffering is enabled.
+     *
+     * @param properties the CQRS mediator properties
+     * @param executor   the executor running the batch handlers
+     * @return the CQRS command buffer
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "cqrs.mediator.batch.buffering", name = "enabled", havingValue = "true")
+    public CqrsCommandBuffer cqrsCommandBuffer(CqrsMediatorProperties properties,
+                                               @Qualifier(EXECUTOR_BEAN_NAME) Executor executor) {
+        var buffering = properties.getBatch().getBuffering();
+        return new CqrsCommandBuffer(buffering.getMaxBatchSize(), buffering.getLinger(), executor);
+    }
+
+    /**
+     * Loads the build-time {@link CqrsIndex} of handlers and middlewares, unless disabled.
+     *
+     * @param properties the CQRS mediator properties
+     * @return the index, empty if there is none or it is disabled
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public CqrsIndex cqrsIndex(CqrsMediatorProperties properties) {
+        if (!properties.getRegistry().isUseIndex()) {
+            return CqrsIndex.empty();
+        }
+        var index = CqrsIndex.load(ctx.getClassLoader());
+        log.debug("Loaded CQRS index with {} handlers", index.getHandlers().size());
+        return index;
     }
 
     /**
      * Creates a {@link CqrsHandlerRegistry} bean if none is already defined.
      *
+     * <p>
+     * The request type of every handler bean is read from the {@link CqrsIndex}, falling back to its
+     * {@link CqrsHandler} annotation for handlers compiled without the annotation processor. With lazy
+     * handlers enabled, the registry holds {@link CqrsLazyHandlers lazy handlers} resolving the handler
+     * beans on first use. When a {@link CqrsQueryCoalescer} is available, batch query handlers are
+     * registered wrapped in a coalescing handler. When a {@link CqrsCommandBuffer} is available, batch
+     * command handlers of {@link CqrsBuffered} commands are registered wrapped in a buffering handler.
+     *
+     * @param index      the build-time index of handlers
+     * @param properties the CQRS mediator properties
+     * @param coalescer  the optional CQRS query coalescer
+     * @param buffer     the optional CQRS command buffer
      * @return the CQRS handler registry
      */
     @Bean
     @ConditionalOnMissingBean(CqrsHandlerRegistry.class)
     @SuppressWarnings({"rawtypes", "unchecked"})
-    public CqrsHandlerRegistry cqrsHandlerRegistry() {
+    public CqrsHandlerRegistry cqrsHandlerRegistry(CqrsIndex index,
+                                                   CqrsMediatorProperties properties,
+                                                   ObjectProvider<CqrsQueryCoalescer> coalescer,
+                                                   ObjectProvider<CqrsCommandBuffer> buffer) {
         var registry = new InMemoryCqrsHandlerRegistry();
+        var queryCoalescer = coalescer.getIfAvailable();
+        var commandBuffer = buffer.getIfAvailable();
+        boolean lazy = properties.getRegistry().isLazyHandlers();
+
+        for (String name : ctx.getBeanNamesForType(CqrsRequestHandler.class)) {
+            Class<?> reqType = requestTypeOf(index, name);
+            if (reqType == null) {
+                continue;
+            }
 
-        ctx.getBeansWithAnnotation(CqrsHandler.class).values().stream()
-                .filter(CqrsRequestHandler.class::isInstance)
-                .map(CqrsRequestHandler.class::cast)
-                .forEach(handler -> {
-                    // Get the annotation
-                    CqrsHandler ann = AnnotatedElementUtils.findMergedAnnotation(handler.getClass(), CqrsHandler.class);
-                    Class<? extends CqrsRequest<?>> reqType = Objects.requireNonNull(ann).value();
-
-                    if (CqrsCommand.class.isAssignableFrom(reqType)) {
-                        registry.registerCommandHandler((Class) reqType, (CqrsCommandHandler) handler);
-                        log.debug("Registered command handler {} → {}", handler.getClass().getSimpleName(), reqType.getSimpleName());
-                    } else if (CqrsQuery.class.isAssignableFrom(reqType)) {
-                        registry.registerQueryHandler((Class) reqType, (CqrsQueryHandler) handler);
-                        log.debug("Registered query   handler {} → {}", handler.getClass().getSimpleName(), reqType.getSimpleName());
-                    } else {
-                        throw new IllegalStateException(
-                                "@CqrsHandler on " + handler.getClass().getName() +
-                                        " points at " + reqType.getName() +
-                                        " which is neither a Command nor a Query");
-                    }
-                });
+            Class<?> beanType = ctx.getType(name);
+            CqrsRequestHandler handler = lazy && beanType != null
+                    ? CqrsLazyHandlers.lazyHandler(ctx, name, beanType)
+                    : ctx.getBean(name, CqrsRequestHandler.class);
+            if (CqrsCommand.class.isAssignableFrom(reqType)) {
+                CqrsCommandHandler commandHandler = commandBuffer != null
+                        && handler instanceof CqrsBatchCommandHandler batchHandler
+                        && reqType.isAnnotationPresent(CqrsBuffered.class)
+                        ? commandBuffer.buffer((Class) reqType, batchHandler)
+                        : (CqrsCommandHandler) handler;
+                registry.registerCommandHandler((Class) reqType, commandHandler);
+                log.debug("Registered command handler {} → {}", handler.getClass().getSimpleName(), reqType.getSimpleName());
+            } else if (CqrsQuery.class.isAssignableFrom(reqType)) {
+                CqrsQueryHandler queryHandler = queryCoalescer != null && handler instanceof CqrsBatchQueryHandler batchHandler
+                        ? queryCoalescer.coalesce(batchHandler)
+                        : (CqrsQueryHandler) handler;
+                registry.registerQueryHandler((Class) reqType, queryHandler);
+                log.debug("Registered query   handler {} → {}", handler.getClass().getSimpleName(), reqType.getSimpleName());
+            } else {
+                throw new IllegalStateException(
+                        "@CqrsHandler on " + handler.getClass().getName() +
+                                " points at " + reqType.getName() +
+                                " which is neither a Command nor a Query");
+            }
+        }
 
         return registry;
     }
 
+    private Class<?> requestTypeOf(CqrsIndex index, String beanName) {
+        Class<?> beanType = ctx.getType(beanName);
+        if (beanType != null) {
+            String indexed = index.getRequestType(ClassUtils.getUserClass(beanType).getName());
+            if (indexed != null) {
+                return ClassUtils.resolveClassName(indexed, ctx.getClassLoader());
+            }
+        }
+
+        // Not indexed, e.g. compiled without the annotation processor
+        CqrsHandler ann = ctx.findAnnotationOnBean(beanName, CqrsHandler.class);
+        return ann == null ? null : ann.value();
+    }
+
+    /**
+     * Marks the {@link CqrsHandler} beans lazy, so that they are only created when the registry first
+     * dispatches a request to them, unless another bean depends on them.
+     *
+     * @return the bean factory post-processor
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "cqrs.mediator.registry", name = "lazy-handlers", havingValue = "true")
+    public static BeanFactoryPostProcessor cqrsLazyHandlerPostProcessor() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanNamesForType(CqrsRequestHandler.class, true, false)) {
+                if (beanFactory.containsBeanDefinition(name)
+                        && beanFactory.findAnnotationOnBean(name, CqrsHandler.class, false) != null) {
+                    beanFactory.getBeanDefinition(name).setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    /**
+     * Freezes the {@link InMemoryCqrsHandlerRegistry} once the application context is refreshed, so that
+     * steady-state lookups go through its read-only snapshot. Opt-in, as handlers can no longer be
+     * registered afterwards.
+     *
+     * @param registry the CQRS handler registry
+     * @return the listener freezing the registry
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "cqrs.mediator.registry", name = "freeze", havingValue = "true")
+    public ApplicationListener<ContextRefreshedEvent> cqrsHandlerRegistryFreezer(CqrsHandlerRegistry registry) {
+        return event -> {
+            if (event.getApplicationContext() == ctx && registry instanceof InMemoryCqrsHandlerRegistry inMemoryRegistry) {
+                inMemoryRegistry.freeze();
+                log.debug("Froze CQRS handler registry");
+            }
+        };
+    }
+
     /**
      * Creates a {@link CqrsMiddlewarePipeline} bean if none is already defined.
      *
+     * <p>
+     * Middleware beans are looked up in the {@link CqrsIndex} by class or {@code @Bean} method, falling back
+     * to their {@link CqrsMiddleware} annotation for middlewares compiled without the annotation processor.
+     * The pipeline is sorted like Spring orders beans: {@link PriorityOrdered} middlewares first, then by
+     * {@link Ordered#getOrder()} if implemented, or else by the indexed order, or else by the {@code @Order}
+     * of the {@code @Bean} method or bean class. Middlewares of equal order keep the order in which their
+     * beans were defined.
+     *
+     * @param index the build-time index of middlewares
      * @return the CQRS request pipeline
      */
     @Bean
     @ConditionalOnMissingBean
     @ConditionalOnBean(CqrsHandlerMiddleware.class)
-    public CqrsMiddlewarePipeline cqrsMiddlewarePipeline() {
-        // Find all beans annotated @CqrsMiddleware
-        var candidates = ctx.getBeansWithAnnotation(CqrsMiddleware.class)
-                .values();
-
-        // Filter out the beans that are not CqrsHandlerMiddleware
-        List<CqrsHandlerMiddleware> middlewares = candidates.stream()
-                .filter(CqrsHandlerMiddleware.class::isInstance)
-                .map(CqrsHandlerMiddleware.class::cast)
-                .collect(Collectors.toList());
-
-        // sort by @Order on the bean class
-        AnnotationAwareOrderComparator.sort(middlewares);
+    public CqrsMiddlewarePipeline cqrsMiddlewarePipeline(CqrsIndex index) {
+        // Find all middleware beans indexed or annotated @CqrsMiddleware, on the bean class or its @Bean method
+        Map<CqrsHandlerMiddleware, Integer> orders = new IdentityHashMap<>();
+        List<CqrsHandlerMiddleware> middlewares = new ArrayList<>();
+        for (String name : ctx.getBeanNamesForType(CqrsHandlerMiddleware.class)) {
+            OptionalInt indexed = indexedMiddlewareOrder(index, name);
+            if (indexed.isEmpty() && ctx.findAnnotationOnBean(name, CqrsMiddleware.class) == null) {
+                continue;
+            }
+
+            var middleware = ctx.getBean(name, CqrsHandlerMiddleware.class);
+            if (orders.putIfAbsent(middleware, middlewareOrder(name, middleware, indexed)) == null) {
+                middlewares.add(middleware);
+            }
+        }
+
+        // Stable, so middlewares of equal order keep their definition order
+        middlewares.sort(Comparator.comparing((CqrsHandlerMiddleware middleware) -> !(middleware instanceof PriorityOrdered))
+                .thenComparingInt(orders::get));
         return new DefaultCqrsMiddlewarePipeline(middlewares);
     }
 
+    private int middlewareOrder(String beanName, CqrsHandlerMiddleware middleware, OptionalInt indexed) {
+        if (middleware instanceof Ordered ordered) {
+            return ordered.getOrder();
+        }
+        if (indexed.isPresent()) {
+            return indexed.getAsInt();
+        }
+
+        // @Order, or @CqrsMiddleware as its alias, on the @Bean method takes precedence over the bean class
+        if (ctx instanceof ConfigurableApplicationContext configurable
+                && configurable.getBeanFactory().containsBeanDefinition(beanName)
+                && configurable.getBeanFactory().getMergedBeanDefinition(beanName) instanceof RootBeanDefinition root
+                && root.getResolvedFactoryMethod() != null) {
+            Integer order = OrderUtils.getOrder(root.getResolvedFactoryMethod());
+            if (order != null) {
+                return order;
+            }
+        }
+        Class<?> beanType = ctx.getType(beanName);
+        return beanType == null
+                ? Ordered.LOWEST_PRECEDENCE
+                : OrderUtils.getOrder(ClassUtils.getUserClass(beanType), Ordered.LOWEST_PRECEDENCE);
+    }
+
+    private OptionalInt indexedMiddlewareOrder(CqrsIndex index, String beanName) {
+        if (index.isEmpty()) {
+            return OptionalInt.empty();
+        }
+
+        if (ctx instanceof ConfigurableApplicationContext configurable
+                && configurable.getBeanFactory().containsBeanDefinition(beanName)) {
+            BeanDefinition definition = configurable.getBeanFactory().getMergedBeanDefinition(beanName);
+            String factoryMethod = factoryMethodKey(definition);
+            if (factoryMethod != null) {
+                return index.getMiddlewareOrder(factoryMethod);
+            }
+        }
+
+        Class<?> beanType = ctx.getType(beanName);
+        return beanType == null
+                ? OptionalInt.empty()
+                : index.getMiddlewareOrder(ClassUtils.getUserClass(beanType).getName());
+    }
+
+    private static String factoryMethodKey(BeanDefinition definition) {
+        if (definition instanceof RootBeanDefinition root && root.getResolvedFactoryMethod() != null) {
+            Method method = root.getResolvedFactoryMethod();
+            return ClassUtils.getUserClass(method.getDeclaringClass()).getName() + "#" + method.getName();
+        }
+        if (definition instanceof AnnotatedBeanDefinition annotated && annotated.getFactoryMethodMetadata() != null) {
+            MethodMetadata method = annotated.getFactoryMethodMetadata();
+            return method.getDeclaringClassName() + "#" + method.getMethodName();
+        }
+        return null;
+    }
+
     /**
      * Creates a no-operation {@link CqrsMiddlewarePipeline} bean if no other pipeline is defined.
      *
@@ -0,0 +1,993 @@
+package io.github.lefpap.mdtr.autoconfig;
+
+import io.github.lefpap.mdtr.event.CqrsEventWaitStrategy;
+import io.github.lefpap.mdtr.journal.CqrsJournalFsync;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration properties for the CQRS mediator.
+ */
+@ConfigurationProperties(prefix = "cqrs.mediator")
+public class CqrsMediatorProperties {
+
+    private final Batch batch = new Batch();
+    private final Cache cache = new Cache();
+    private final Registry registry = new Registry();
+    private final Metrics metrics = new Metrics();
+    private final SingleFlight singleFlight = new SingleFlight();
+    private final Bulkhead bulkhead = new Bulkhead();
+    private final Partition partition = new Partition();
+    private final Journal journal = new Journal();
+    private final Deadline deadline = new Deadline();
+    private final Events events = new Events();
+    private final Remote remote = new Remote();
+    private final Sampling sampling = new Sampling();
+    private final Idempotency idempotency = new Idempotency();
+    private final Memo memo = new Memo();
+    private final Capture capture = new Capture();
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public Registry getRegistry() {
+        return registry;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public SingleFlight getSingleFlight() {
+        return singleFlight;
+    }
+
+    public Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    public Partition getPartition() {
+        return partition;
+    }
+
+    public Journal getJournal() {
+        return journal;
+    }
+
+    public Deadline getDeadline() {
+        return deadline;
+    }
+
+    public Events getEvents() {
+        return events;
+    }
+
+    public Remote getRemote() {
+        return remote;
+    }
+
+    public Sampling getSampling() {
+        return sampling;
+    }
+
+    public Idempotency getIdempotency() {
+        return idempotency;
+    }
+
+    public Memo getMemo() {
+        return memo;
+    }
+
+    public Capture getCapture() {
+        return capture;
+    }
+
+    /**
+     * Batched query dispatch settings.
+     */
+    public static class Batch {
+
+        private final Coalescing coalescing = new Coalescing();
+        private final Buffering buffering = new Buffering();
+
+        public Coalescing getCoalescing() {
+            return coalescing;
+        }
+
+        public Buffering getBuffering() {
+            return buffering;
+        }
+    }
+
+    /**
+     * Coalescing of individually sent queries into batch handler calls.
+     */
+    public static class Coalescing {
+
+        /**
+         * Whether queries handled by batch query handlers are coalesced.
+         */
+        private boolean enabled = false;
+
+        /**
+         * How long the first query of a batch waits for further queries.
+         */
+        private Duration window = Duration.ofMillis(2);
+
+        /**
+         * The batch size that triggers an immediate flush.
+         */
+        private int maxBatchSize = 100;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+    }
+
+    /**
+     * Buffering of dispatched commands into batch handler calls.
+     */
+    public static class Buffering {
+
+        /**
+         * Whether commands annotated with @CqrsBuffered and handled by batch command handlers are buffered.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The default number of buffered commands that triggers an immediate flush.
+         */
+        private int maxBatchSize = 500;
+
+        /**
+         * The default time the first buffered command waits for further commands.
+         */
+        private Duration linger = Duration.ofMillis(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public Duration getLinger() {
+            return linger;
+        }
+
+        public void setLinger(Duration linger) {
+            this.linger = linger;
+        }
+    }
+
+    /**
+     * Query result cache settings.
+     */
+    public static class Cache {
+
+        /**
+         * Whether results of queries annotated with {@code @CqrsCacheable} are cached.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The maximum number of cached query results.
+         */
+        private long maximumSize = 10_000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+    }
+
+    /**
+     * Handler registry settings.
+     */
+    public static class Registry {
+
+        /**
+         * Whether the handler registry is frozen into a read-only snapshot once the application context is refreshed.
+         */
+        private boolean freeze = false;
+
+        /**
+         * Whether handlers and middlewares are looked up in the build-time index generated by the annotation processor.
+         */
+        private boolean useIndex = true;
+
+        /**
+         * Whether handler beans are created on the first request they handle instead of at startup.
+         */
+        private boolean lazyHandlers = false;
+
+        public boolean isFreeze() {
+            return freeze;
+        }
+
+        public void setFreeze(boolean freeze) {
+            this.freeze = freeze;
+        }
+
+        public boolean isUseIndex() {
+            return useIndex;
+        }
+
+        public void setUseIndex(boolean useIndex) {
+            this.useIndex = useIndex;
+        }
+
+        public boolean isLazyHandlers() {
+            return lazyHandlers;
+        }
+
+        public void setLazyHandlers(boolean lazyHandlers) {
+            this.lazyHandlers = lazyHandlers;
+        }
+    }
+
+    /**
+     * Request metrics settings.
+     */
+    public static class Metrics {
+
+        /**
+         * Whether per-request-type counts, error counts and latencies are recorded.
+         */
+        private boolean enabled = false;
+
+        /**
+         * How long recorded latencies count towards the maximum and percentile gauges.
+         */
+        private Duration window = Duration.ofMinutes(2);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+    }
+
+    /**
+     * Single-flight query settings.
+     */
+    public static class SingleFlight {
+
+        /**
+         * Whether concurrent, equal queries annotated with {@code @CqrsSingleFlight} share a single handler execution.
+         */
+        private boolean enabled = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+    /**
+     * Bulkhead settings.
+     */
+    public static class Bulkhead {
+
+        /**
+         * Whether concurrent executions are capped per request type or {@code @CqrsBulkhead} group.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The concurrency limit of every bulkhead, or its initial limit when the limit is adaptive.
+         */
+        private int limit = 100;
+
+        /**
+         * Concurrency limits overriding {@link #limit} for individual bulkheads, keyed by bulkhead name.
+         */
+        private Map<String, Integer> limits = new LinkedHashMap<>();
+
+        /**
+         * The maximum number of requests waiting for a permit per bulkhead. Zero rejects requests as soon as
+         * the bulkhead is full.
+         */
+        private int maxQueueSize = 0;
+
+        /**
+         * The maximum time a request waits for a permit.
+         */
+        private Duration maxWait = Duration.ZERO;
+
+        private final Adaptive adaptive = new Adaptive();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public void setLimit(int limit) {
+            this.limit = limit;
+        }
+
+        public Map<String, Integer> getLimits() {
+            return limits;
+        }
+
+        public void setLimits(Map<String, Integer> limits) {
+            this.limits = limits;
+        }
+
+        public int getMaxQueueSize() {
+            return maxQueueSize;
+        }
+
+        public void setMaxQueueSize(int maxQueueSize) {
+            this.maxQueueSize = maxQueueSize;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+
+        public Adaptive getAdaptive() {
+            return adaptive;
+        }
+    }
+
+    /**
+     * Adaptive bulkhead limit settings.
+     */
+    public static class Adaptive {
+
+        /**
+         * Whether bulkhead limits adapt to the observed latencies with additive increase and multiplicative
+         * decrease.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The lowest adaptive limit.
+         */
+        private int minLimit = 1;
+
+        /**
+         * The highest adaptive limit.
+         */
+        private int maxLimit = 1000;
+
+        /**
+         * The latency above which an execution signals congestion and shrinks the limit.
+         */
+        private Duration latencyThreshold = Duration.ofMillis(500);
+
+        /**
+         * The factor applied to the limit on congestion.
+         */
+        private double backoffRatio = 0.9;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public Duration getLatencyThreshold() {
+            return latencyThreshold;
+        }
+
+        public void setLatencyThreshold(Duration latencyThreshold) {
+            this.latencyThreshold = latencyThreshold;
+        }
+
+        public double getBackoffRatio() {
+            return backoffRatio;
+        }
+
+        public void setBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+        }
+    }
+
+    /**
+     * Partitioned command execution settings.
+     */
+    public static class Partition {
+
+        /**
+         * Whether partitioned commands run one at a time per partition key.
+         */
+        private boolean enabled = true;
+
+        /**
+         * The number of shards, each served by one worker thread started on first use.
+         */
+        private int shards = Runtime.getRuntime().availableProcessors();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getShards() {
+            return shards;
+        }
+
+        public void setShards(int shards) {
+            this.shards = shards;
+        }
+    }
+
+    /**
+     * Command journal settings.
+     */
+    public static class Journal {
+
+        /**
+         * Whether every dispatched command is appended to the journal before it is handled.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The directory of the journal segment files.
+         */
+        private Path directory = Path.of("cqrs-journal");
+
+        /**
+         * The size of a journal segment file.
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        /**
+         * When appended commands are forced to the storage device.
+         */
+        private CqrsJournalFsync fsync = CqrsJournalFsync.GROUP_COMMIT;
+
+        /**
+         * The minimum interval between syncs with the group-commit fsync policy. Zero syncs as soon as the
+         * previous sync completes.
+         */
+        private Duration groupCommitInterval = Duration.ZERO;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Path getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(Path directory) {
+            this.directory = directory;
+        }
+
+        public DataSize getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(DataSize segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+
+        public CqrsJournalFsync getFsync() {
+            return fsync;
+        }
+
+        public void setFsync(CqrsJournalFsync fsync) {
+            this.fsync = fsync;
+        }
+
+        public Duration getGroupCommitInterval() {
+            return groupCommitInterval;
+        }
+
+        public void setGroupCommitInterval(Duration groupCommitInterval) {
+            this.groupCommitInterval = groupCommitInterval;
+        }
+    }
+
+    /**
+     * Request deadline settings.
+     */
+    public static class Deadline {
+
+        /**
+         * Whether request deadlines are enforced.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The timeout of request types without a configured or annotated one. Unset means no timeout.
+         */
+        private Duration defaultTimeout;
+
+        /**
+         * Timeouts overriding {@code @CqrsTimeout} for individual request types, keyed by request type name.
+         */
+        private Map<String, Duration> timeouts = new LinkedHashMap<>();
+
+        /**
+         * Whether blocking handlers still running at their deadline are interrupted.
+         */
+        private boolean interrupt = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getDefaultTimeout() {
+            return defaultTimeout;
+        }
+
+        public void setDefaultTimeout(Duration defaultTimeout) {
+            this.defaultTimeout = defaultTimeout;
+        }
+
+        public Map<String, Duration> getTimeouts() {
+            return timeouts;
+        }
+
+        public void setTimeouts(Map<String, Duration> timeouts) {
+            this.timeouts = timeouts;
+        }
+
+        public boolean isInterrupt() {
+            return interrupt;
+        }
+
+        public void setInterrupt(boolean interrupt) {
+            this.interrupt = interrupt;
+        }
+    }
+
+    /**
+     * Event publishing settings.
+     */
+    public static class Events {
+
+        /**
+         * Whether an event publisher delivering events to the @CqrsSubscriber beans is created.
+         */
+        private boolean enabled = true;
+
+        /**
+         * The number of slots of the event ring buffer, a power of two.
+         */
+        private int bufferSize = 8192;
+
+        /**
+         * How subscriber threads wait for events.
+         */
+        private CqrsEventWaitStrategy waitStrategy = CqrsEventWaitStrategy.BLOCKING;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public CqrsEventWaitStrategy getWaitStrategy() {
+            return waitStrategy;
+        }
+
+        public void setWaitStrategy(CqrsEventWaitStrategy waitStrategy) {
+            this.waitStrategy = waitStrategy;
+        }
+    }
+
+    /**
+     * Remote request routing settings.
+     */
+    public static class Remote {
+
+        /**
+         * Whether requests are routed to the nodes owning them.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The name of this node.
+         */
+        private String node;
+
+        /**
+         * The host:port addresses of all nodes, this one included, keyed by node name. This node listens on
+         * the port of its own address.
+         */
+        private Map<String, String> nodes = new LinkedHashMap<>();
+
+        /**
+         * The host this node listens on. The loopback address only accepts requests from the same machine;
+         * set it to the node's private address to accept other nodes.
+         */
+        private String bindHost = "127.0.0.1";
+
+        /**
+         * The owning node of individual request types, keyed by request type name.
+         */
+        private Map<String, String> owners = new LinkedHashMap<>();
+
+        /**
+         * The names of the partitioned command types spread across all nodes by partition key.
+         */
+        private List<String> partitioned = new ArrayList<>();
+
+        /**
+         * The number of connections to every other node.
+         */
+        private int connectionsPerNode = 2;
+
+        /**
+         * The time after which remote requests without an earlier deadline fail.
+         */
+        private Duration requestTimeout = Duration.ofSeconds(30);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getNode() {
+            return node;
+        }
+
+        public void setNode(String node) {
+            this.node = node;
+        }
+
+        public Map<String, String> getNodes() {
+            return nodes;
+        }
+
+        public void setNodes(Map<String, String> nodes) {
+            this.nodes = nodes;
+        }
+
+        public String getBindHost() {
+            return bindHost;
+        }
+
+        public void setBindHost(String bindHost) {
+            this.bindHost = bindHost;
+        }
+
+        public Map<String, String> getOwners() {
+            return owners;
+        }
+
+        public void setOwners(Map<String, String> owners) {
+            this.owners = owners;
+        }
+
+        public List<String> getPartitioned() {
+            return partitioned;
+        }
+
+        public void setPartitioned(List<String> partitioned) {
+            this.partitioned = partitioned;
+        }
+
+        public int getConnectionsPerNode() {
+            return connectionsPerNode;
+        }
+
+        public void setConnectionsPerNode(int connectionsPerNode) {
+            this.connectionsPerNode = connectionsPerNode;
+        }
+
+        public Duration getRequestTimeout() {
+            return requestTimeout;
+        }
+
+        public void setRequestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+        }
+    }
+
+    /**
+     * Slow request sampling settings.
+     */
+    public static class Sampling {
+
+        /**
+         * Whether slow and randomly sampled requests are kept in memory.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The number of most recent samples kept.
+         */
+        private int capacity = 256;
+
+        /**
+         * The duration from which requests are kept as slow.
+         */
+        private Duration slowThreshold = Duration.ofMillis(500);
+
+        /**
+         * The fraction of the other requests kept, between 0 and 1.
+         */
+        private double sampleRate = 0;
+
+        /**
+         * Whether samples hold the string form of their request, which may expose sensitive data.
+         */
+        private boolean includeRequests = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public Duration getSlowThreshold() {
+            return slowThreshold;
+        }
+
+        public void setSlowThreshold(Duration slowThreshold) {
+            this.slowThreshold = slowThreshold;
+        }
+
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        public void setSampleRate(double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        public boolean isIncludeRequests() {
+            return includeRequests;
+        }
+
+        public void setIncludeRequests(boolean includeRequests) {
+            this.includeRequests = includeRequests;
+        }
+    }
+
+    /**
+     * Idempotent command settings.
+     */
+    public static class Idempotency {
+
+        /**
+         * Whether commands carrying an idempotency key are handled only once per key.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The maximum number of command results kept in memory.
+         */
+        private int maximumSize = 100_000;
+
+        /**
+         * The time after which a command result is forgotten.
+         */
+        private Duration timeToLive = Duration.ofHours(24);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(int maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+    }
+
+    /**
+     * Request-scoped query memo settings.
+     */
+    public static class Memo {
+
+        /**
+         * Whether queries sent within a unit of work are memoised until the next command.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Whether every servlet request is a unit of work.
+         */
+        private boolean webRequests = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public boolean isWebRequests() {
+            return webRequests;
+        }
+
+        public void setWebRequests(boolean webRequests) {
+            this.webRequests = webRequests;
+        }
+    }
+
+    /**
+     * Traffic capture settings.
+     */
+    public static class Capture {
+
+        /**
+         * Whether the requests passing through the mediator are recorded to a capture file for replay.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The capture file, replaced on startup.
+         */
+        private Path file = Path.of("cqrs-capture.bin");
+
+        /**
+         * The maximum size of the capture file, beyond which requests are no longer recorded.
+         */
+        private DataSize maxSize = DataSize.ofGigabytes(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        public void setFile(Path file) {
+            this.file = file;
+        }
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+}
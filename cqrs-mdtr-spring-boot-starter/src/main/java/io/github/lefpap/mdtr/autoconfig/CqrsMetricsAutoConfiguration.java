@@ -0,0 +1,37 @@
+package io.github.lefpap.mdtr.autoconfig;
+
+import io.github.lefpap.mdtr.CqrsMediator;
+import io.github.lefpap.mdtr.metrics.CqrsMetricsRecorder;
+import io.github.lefpap.mdtr.metrics.InMemoryCqrsMetricsRecorder;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Autoconfiguration for the CQRS mediator metrics.
+ *
+ * <p>
+ * Runs before {@link CqrsMediatorAutoConfiguration} so that the metrics recorder is passed to the
+ * mediator.
+ */
+@AutoConfiguration(before = CqrsMediatorAutoConfiguration.class)
+@ConditionalOnClass(CqrsMediator.class)
+@ConditionalOnProperty(prefix = "cqrs.mediator.metrics", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(CqrsMediatorProperties.class)
+public class CqrsMetricsAutoConfiguration {
+
+    /**
+     * Creates an {@link InMemoryCqrsMetricsRecorder} bean if no metrics recorder is already defined.
+     *
+     * @param properties the mediator properties
+     * @return the metrics recorder
+     */
+    @Bean
+    @ConditionalOnMissingBean(CqrsMetricsRecorder.class)
+    public InMemoryCqrsMetricsRecorder cqrsMetricsRecorder(CqrsMediatorProperties properties) {
+        return new InMemoryCqrsMetricsRecorder(properties.getMetrics().getWindow());
+    }
+}
@@ -0,0 +1,35 @@
+package io.github.lefpap.mdtr.autoconfig;
+
+import io.github.lefpap.mdtr.metrics.CqrsMetricsMeterBinder;
+import io.github.lefpap.mdtr.metrics.InMemoryCqrsMetricsRecorder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Autoconfiguration exposing the CQRS mediator metrics as Micrometer meters.
+ *
+ * <p>
+ * Active when Micrometer is on the classpath and the metrics are kept in an
+ * {@link InMemoryCqrsMetricsRecorder}.
+ */
+@AutoConfiguration(after = CqrsMetricsAutoConfiguration.class)
+@ConditionalOnClass(MeterRegistry.class)
+@ConditionalOnBean(InMemoryCqrsMetricsRecorder.class)
+public class CqrsMicrometerMetricsAutoConfiguration {
+
+    /**
+     * Creates a {@link CqrsMetricsMeterBinder} bean exposing the in-memory metrics as meters.
+     *
+     * @param recorder the in-memory metrics recorder
+     * @return the meter binder
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public CqrsMetricsMeterBinder cqrsMetricsMeterBinder(InMemoryCqrsMetricsRecorder recorder) {
+        return new CqrsMetricsMeterBinder(recorder);
+    }
+}
@@ -0,0 +1,269 @@
+package io.github.lefpap.mdtr.autoconfig;
+
+import io.github.lefpap.mdtr.CqrsMediator;
+import io.github.lefpap.mdtr.annotation.CqrsMiddleware;
+import io.github.lefpap.mdtr.bulkhead.AimdConcurrencyLimit;
+import io.github.lefpap.mdtr.bulkhead.CqrsBulkheadMiddleware;
+import io.github.lefpap.mdtr.bulkhead.CqrsConcurrencyLimit;
+import io.github.lefpap.mdtr.bulkhead.FixedConcurrencyLimit;
+import io.github.lefpap.mdtr.cache.CqrsQueryCacheMiddleware;
+import io.github.lefpap.mdtr.capture.CqrsCaptureMiddleware;
+import io.github.lefpap.mdtr.capture.CqrsTrafficRecorder;
+import io.github.lefpap.mdtr.codec.CqrsCodec;
+import io.github.lefpap.mdtr.codec.JavaSerializationCqrsCodec;
+import io.github.lefpap.mdtr.deadline.CqrsDeadlineMiddleware;
+import io.github.lefpap.mdtr.idempotency.CqrsIdempotencyMiddleware;
+import io.github.lefpap.mdtr.idempotency.CqrsIdempotencyStore;
+import io.github.lefpap.mdtr.idempotency.InMemoryCqrsIdempotencyStore;
+import io.github.lefpap.mdtr.journal.CqrsCommandJournal;
+import io.github.lefpap.mdtr.journal.CqrsJournalMiddleware;
+import io.github.lefpap.mdtr.memo.CqrsQueryMemoMiddleware;
+import io.github.lefpap.mdtr.singleflight.CqrsSingleFlightMiddleware;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Autoconfiguration for the built-in CQRS middlewares.
+ *
+ * <p>
+ * Runs before {@link CqrsMediatorAutoConfiguration} so that the enabled middlewares are picked up by
+ * the middleware pipeline.
+ */
+@AutoConfiguration(before = CqrsMediatorAutoConfiguration.class)
+@ConditionalOnClass(CqrsMediator.class)
+@EnableConfigurationProperties(CqrsMediatorProperties.class)
+public class CqrsMiddlewareAutoConfiguration {
+
+    /**
+     * Order of the capture middleware. It runs before every other built-in middleware, so that requests are
+     * recorded as sent, including those the other middlewares reject or answer themselves.
+     */
+    public static final int CAPTURE_ORDER = -20;
+
+    /**
+     * Order of the deadline middleware. It runs before every other built-in middleware, so that expired
+     * requests are rejected first and the deadline covers the whole pipeline.
+     */
+    public static final int DEADLINE_ORDER = -10;
+
+    /**
+     * Order of the query memo middleware. It runs outside every other built-in middleware but the deadline
+     * middleware, so that memoised queries skip them, and commands invalidate the memo even when rejected.
+     */
+    public static final int MEMO_ORDER = -5;
+
+    /**
+     * Order of the query cache middleware.
+     */
+    public static final int CACHE_ORDER = 0;
+
+    /**
+     * Order of the single-flight middleware. It runs inside the query cache, so that only cache misses
+     * are deduplicated.
+     */
+    public static final int SINGLE_FLIGHT_ORDER = 10;
+
+    /**
+     * Order of the idempotency middleware. It runs outside the bulkhead and journal middlewares, so that
+     * commands answered with a recorded result neither take a permit nor are journaled.
+     */
+    public static final int IDEMPOTENCY_ORDER = 15;
+
+    /**
+     * Order of the bulkhead middleware. It runs inside the query cache and the single-flight middleware,
+     * so that only executions actually reaching the handler take a permit.
+     */
+    public static final int BULKHEAD_ORDER = 20;
+
+    /**
+     * Order of the journal middleware. It runs inside the bulkhead middleware, so that commands rejected
+     * by a full bulkhead are not journaled.
+     */
+    public static final int JOURNAL_ORDER = 30;
+
+    /**
+     * Creates the {@link CqrsTrafficRecorder} when traffic capture is enabled.
+     *
+     * @param properties the CQRS mediator properties
+     * @param codec      the codec encoding the requests
+     * @return the traffic recorder
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "cqrs.mediator.capture", name = "enabled", havingValue = "true")
+    public CqrsTrafficRecorder cqrsTrafficRecorder(CqrsMediatorProperties properties, ObjectProvider<CqrsCodec> codec) {
+        var capture = properties.getCapture();
+        return new CqrsTrafficRecorder(
+                capture.getFile(),
+                codec.getIfAvailable(JavaSerializationCqrsCodec::new),
+                capture.getMaxSize().toBytes());
+    }
+
+    /**
+     * Creates a {@link CqrsCaptureMiddleware} bean when traffic capture is enabled.
+     *
+     * @param recorder the traffic recorder
+     * @return the capture middleware
+     */
+    @Bean
+    @CqrsMiddleware(order = CAPTURE_ORDER)
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "cqrs.mediator.capture", name = "enabled", havingValue = "true")
+    public CqrsCaptureMiddleware cqrsCaptureMiddleware(CqrsTrafficRecorder recorder) {
+        return new CqrsCaptureMiddleware(recorder);
+    }
+
+    /**
+     * Creates a {@link CqrsDeadlineMiddleware} bean when request deadlines are enabled.
+     *
+     * @param properties the CQRS mediator properties
+     * @return the deadline middleware
+     */
+    @Bean
+    @CqrsMiddleware(order = DEADLINE_ORDER)
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "cqrs.mediator.deadline", name = "enabled", havingValue = "true")
+    public CqrsDeadlineMiddleware cqrsDeadlineMiddleware(CqrsMediatorProperties properties) {
+        var deadline = properties.getDeadline();
+        return new CqrsDeadlineMiddleware(deadline.getTimeouts(), deadline.getDefaultTimeout(), deadline.isInterrupt());
+    }
+
+    /**
+     * Creates a {@link CqrsQueryMemoMiddleware} bean when request-scoped query memoisation is enabled.
+     *
+     * @return the query memo middleware
+     */
+    @Bean
+    @CqrsMiddleware(order = MEMO_ORDER)
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "cqrs.mediator.memo", name = "enabled", havingValue = "true")
+    public CqrsQueryMemoMiddleware cqrsQueryMemoMiddleware() {
+        return new CqrsQueryMemoMiddleware();
+    }
+
+    /**
+     * Creates a {@link CqrsQueryCacheMiddleware} bean when query caching is enabled.
+     *
+     * @param properties the CQRS mediator properties
+     * @return the query cache middleware
+     */
+    @Bean
+    @CqrsMiddleware(order = CACHE_ORDER)
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "cqrs.mediator.cache", name = "enabled", havingValue = "true")
+    public CqrsQueryCacheMiddleware cqrsQueryCacheMiddleware(CqrsMediatorProperties properties) {
+        return new CqrsQueryCacheMiddleware(properties.getCache().getMaximumSize());
+    }
+
+    /**
+     * Creates a {@link CqrsSingleFlightMiddleware} bean when single-flight queries are enabled.
+     *
+     * @return the single-flight middleware
+     */
+    @Bean
+    @CqrsMiddleware(order = SINGLE_FLIGHT_ORDER)
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "cqrs.mediator.single-flight", name = "enabled", havingValue = "true")
+    public CqrsSingleFlightMiddleware cqrsSingleFlightMiddleware() {
+        return new CqrsSingleFlightMiddleware();
+    }
+
+    /**
+     * Creates the in-memory {@link CqrsIdempotencyStore} when idempotent commands are enabled and no other
+     * store is provided.
+     *
+     * @param properties the CQRS mediator properties
+     * @return the idempotency store
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "cqrs.mediator.idempotency", name = "enabled", havingValue = "true")
+    public CqrsIdempotencyStore cqrsIdempotencyStore(CqrsMediatorProperties properties) {
+        var idempotency = properties.getIdempotency();
+        return new InMemoryCqrsIdempotencyStore(idempotency.getMaximumSize(), idempotency.getTimeToLive());
+    }
+
+    /**
+     * Creates a {@link CqrsIdempotencyMiddleware} bean when idempotent commands are enabled.
+     *
+     * @param store the idempotency store
+     * @return the idempotency middleware
+     */
+    @Bean
+    @CqrsMiddleware(order = IDEMPOTENCY_ORDER)
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "cqrs.mediator.idempotency", name = "enabled", havingValue = "true")
+    public CqrsIdempotencyMiddleware cqrsIdempotencyMiddleware(CqrsIdempotencyStore store) {
+        return new CqrsIdempotencyMiddleware(store);
+    }
+
+    /**
+     * Creates a {@link CqrsBulkheadMiddleware} bean when bulkheads are enabled.
+     *
+     * @param properties the CQRS mediator properties
+     * @return the bulkhead middleware
+     */
+    @Bean
+    @CqrsMiddleware(order = BULKHEAD_ORDER)
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "cqrs.mediator.bulkhead", name = "enabled", havingValue = "true")
+    public CqrsBulkheadMiddleware cqrsBulkheadMiddleware(CqrsMediatorProperties properties) {
+        var bulkhead = properties.getBulkhead();
+        return new CqrsBulkheadMiddleware(
+                name -> concurrencyLimit(bulkhead, bulkhead.getLimits().getOrDefault(name, bulkhead.getLimit())),
+                bulkhead.getMaxQueueSize(),
+                bulkhead.getMaxWait());
+    }
+
+    /**
+     * Opens the {@link CqrsCommandJournal} when command journaling is enabled.
+     *
+     * @param properties the CQRS mediator properties
+     * @param codec      the codec encoding the commands
+     * @return the command journal
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "cqrs.mediator.journal", name = "enabled", havingValue = "true")
+    public CqrsCommandJournal cqrsCommandJournal(CqrsMediatorProperties properties, ObjectProvider<CqrsCodec> codec) {
+        var journal = properties.getJournal();
+        return new CqrsCommandJournal(
+                journal.getDirectory(),
+                codec.getIfAvailable(JavaSerializationCqrsCodec::new),
+                Math.toIntExact(journal.getSegmentSize().toBytes()),
+                journal.getFsync(),
+                journal.getGroupCommitInterval());
+    }
+
+    /**
+     * Creates a {@link CqrsJournalMiddleware} bean when command journaling is enabled.
+     *
+     * @param journal the command journal
+     * @return the journal middleware
+     */
+    @Bean
+    @CqrsMiddleware(order = JOURNAL_ORDER)
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "cqrs.mediator.journal", name = "enabled", havingValue = "true")
+    public CqrsJournalMiddleware cqrsJournalMiddleware(CqrsCommandJournal journal) {
+        return new CqrsJournalMiddleware(journal);
+    }
+
+    private static CqrsConcurrencyLimit concurrencyLimit(CqrsMediatorProperties.Bulkhead bulkhead, int limit) {
+        var adaptive = bulkhead.getAdaptive();
+        if (!adaptive.isEnabled()) {
+            return new FixedConcurrencyLimit(limit);
+        }
+        return new AimdConcurrencyLimit(
+                Math.clamp(limit, adaptive.getMinLimit(), adaptive.getMaxLimit()),
+                adaptive.getMinLimit(),
+                adaptive.getMaxLimit(),
+                adaptive.getLatencyThreshold(),
+                adaptive.getBackoffRatio());
+    }
+}
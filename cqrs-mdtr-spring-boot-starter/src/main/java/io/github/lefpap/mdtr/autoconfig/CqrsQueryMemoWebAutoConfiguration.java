@@ -0,0 +1,38 @@
+package io.github.lefpap.mdtr.autoconfig;
+
+import io.github.lefpap.mdtr.memo.CqrsQueryMemoFilter;
+import io.github.lefpap.mdtr.memo.CqrsQueryMemoMiddleware;
+import jakarta.servlet.Filter;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Autoconfiguration making every servlet request a unit of work for the query memo.
+ *
+ * <p>
+ * Active in servlet web applications when queries are memoised, unless
+ * {@code cqrs.mediator.memo.web-requests} is {@code false}.
+ */
+@AutoConfiguration(after = CqrsMiddlewareAutoConfiguration.class)
+@ConditionalOnClass(Filter.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnBean(CqrsQueryMemoMiddleware.class)
+@ConditionalOnProperty(prefix = "cqrs.mediator.memo", name = "web-requests", havingValue = "true", matchIfMissing = true)
+public class CqrsQueryMemoWebAutoConfiguration {
+
+    /**
+     * Creates the {@link CqrsQueryMemoFilter} bean.
+     *
+     * @return the query memo filter
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public CqrsQueryMemoFilter cqrsQueryMemoFilter() {
+        return new CqrsQueryMemoFilter();
+    }
+}
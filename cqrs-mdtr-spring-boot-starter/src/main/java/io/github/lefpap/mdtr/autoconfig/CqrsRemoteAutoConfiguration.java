@@ -0,0 +1,134 @@
+package io.github.lefpap.mdtr.autoconfig;
+
+import io.github.lefpap.mdtr.CqrsMediator;
+import io.github.lefpap.mdtr.codec.CqrsCodec;
+import io.github.lefpap.mdtr.remote.CqrsNodeRouter;
+import io.github.lefpap.mdtr.remote.CqrsRemoteClient;
+import io.github.lefpap.mdtr.remote.CqrsRemoteServer;
+import io.github.lefpap.mdtr.remote.RoutingCqrsMediator;
+import io.github.lefpap.mdtr.remote.StaticCqrsNodeRouter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Autoconfiguration for routing requests to the nodes owning them.
+ *
+ * <p>
+ * Runs after {@link CqrsMediatorAutoConfiguration} and decorates its mediator, which keeps handling the
+ * local requests and the requests received from other nodes. Requests and results are encoded with the
+ * {@link CqrsCodec} bean, which must be defined: the codec decodes data received over the network, so it is
+ * chosen explicitly rather than defaulted.
+ */
+@AutoConfiguration(after = CqrsMediatorAutoConfiguration.class)
+@ConditionalOnClass(CqrsMediator.class)
+@ConditionalOnProperty(prefix = "cqrs.mediator.remote", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(CqrsMediatorProperties.class)
+public class CqrsRemoteAutoConfiguration {
+
+    /**
+     * Creates a {@link StaticCqrsNodeRouter} bean from the configured owners if no router is already defined.
+     * The nodes are ordered by name, so that every node spreads partitions alike.
+     *
+     * @param properties the CQRS mediator properties
+     * @return the node router
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public CqrsNodeRouter cqrsNodeRouter(CqrsMediatorProperties properties) {
+        var remote = properties.getRemote();
+        return new StaticCqrsNodeRouter(
+                remote.getNode(),
+                remote.getNodes().keySet().stream().sorted().toList(),
+                remote.getOwners(),
+                remote.getPartitioned());
+    }
+
+    /**
+     * Creates a {@link CqrsRemoteClient} bean connecting to the configured nodes.
+     *
+     * @param properties the CQRS mediator properties
+     * @param codec      the codec encoding requests and decoding results
+     * @return the remote client
+     * @throws IllegalStateException if no codec is defined
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public CqrsRemoteClient cqrsRemoteClient(CqrsMediatorProperties properties, ObjectProvider<CqrsCodec> codec) {
+        var remote = properties.getRemote();
+        Map<String, InetSocketAddress> addresses = new LinkedHashMap<>();
+        remote.getNodes().forEach((node, address) -> addresses.put(node, parseAddress(node, address)));
+        return new CqrsRemoteClient(
+                addresses,
+                requireCodec(codec),
+                remote.getConnectionsPerNode(),
+                remote.getRequestTimeout());
+    }
+
+    /**
+     * Creates and starts a {@link CqrsRemoteServer} bean listening on the configured bind host, the loopback
+     * address by default, at the port of the local node.
+     *
+     * @param properties the CQRS mediator properties
+     * @param mediator   the local mediator
+     * @param codec      the codec decoding requests and encoding results
+     * @return the remote server
+     * @throws IllegalStateException if no codec is defined
+     */
+    @Bean(initMethod = "start")
+    @ConditionalOnMissingBean
+    public CqrsRemoteServer cqrsRemoteServer(CqrsMediatorProperties properties,
+                                             @Qualifier("cqrsMediator") CqrsMediator mediator,
+                                             ObjectProvider<CqrsCodec> codec) {
+        var remote = properties.getRemote();
+        String address = remote.getNodes().get(remote.getNode());
+        if (address == null) {
+            throw new IllegalStateException("Local node " + remote.getNode() + " is not one of the configured nodes " + remote.getNodes().keySet());
+        }
+        int port = parseAddress(remote.getNode(), address).getPort();
+        return new CqrsRemoteServer(new InetSocketAddress(remote.getBindHost(), port), mediator, requireCodec(codec));
+    }
+
+    /**
+     * Creates the primary {@link RoutingCqrsMediator} bean, so that the application dispatches through it.
+     *
+     * @param mediator the local mediator
+     * @param router   the node router
+     * @param client   the remote client
+     * @return the routing mediator
+     */
+    @Bean
+    @Primary
+    public RoutingCqrsMediator cqrsRoutingMediator(@Qualifier("cqrsMediator") CqrsMediator mediator,
+                                                   CqrsNodeRouter router,
+                                                   CqrsRemoteClient client) {
+        return new RoutingCqrsMediator(mediator, router, client);
+    }
+
+    private static CqrsCodec requireCodec(ObjectProvider<CqrsCodec> codec) {
+        CqrsCodec available = codec.getIfAvailable();
+        if (available == null) {
+            throw new IllegalStateException("Remote routing requires a CqrsCodec bean to encode and decode the requests"
+                    + " exchanged between nodes");
+        }
+        return available;
+    }
+
+    private static InetSocketAddress parseAddress(String node, String address) {
+        int colon = address.lastIndexOf(':');
+        if (colon <= 0 || colon == address.length() - 1) {
+            throw new IllegalStateException("Address of node " + node + " must be host:port, was " + address);
+        }
+        return new InetSocketAddress(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+    }
+}
@@ -0,0 +1,38 @@
+package io.github.lefpap.mdtr.autoconfig;
+
+import io.github.lefpap.mdtr.CqrsMediator;
+import io.github.lefpap.mdtr.sampling.CqrsRequestSampler;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Autoconfiguration for the CQRS request sampler.
+ *
+ * <p>
+ * Runs before {@link CqrsMediatorAutoConfiguration} so that the request sampler is passed to the
+ * mediator.
+ */
+@AutoConfiguration(before = CqrsMediatorAutoConfiguration.class)
+@ConditionalOnClass(CqrsMediator.class)
+@ConditionalOnProperty(prefix = "cqrs.mediator.sampling", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(CqrsMediatorProperties.class)
+public class CqrsSamplingAutoConfiguration {
+
+    /**
+     * Creates a {@link CqrsRequestSampler} bean if none is already defined.
+     *
+     * @param properties the CQRS mediator properties
+     * @return the request sampler
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public CqrsRequestSampler cqrsRequestSampler(CqrsMediatorProperties properties) {
+        var sampling = properties.getSampling();
+        return new CqrsRequestSampler(sampling.getCapacity(), sampling.getSlowThreshold(), sampling.getSampleRate(),
+                sampling.isIncludeRequests());
+    }
+}
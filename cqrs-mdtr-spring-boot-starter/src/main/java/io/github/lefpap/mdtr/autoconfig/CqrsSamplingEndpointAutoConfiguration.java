@@ -0,0 +1,34 @@
+package io.github.lefpap.mdtr.autoconfig;
+
+import io.github.lefpap.mdtr.sampling.CqrsRequestSampler;
+import io.github.lefpap.mdtr.sampling.CqrsSamplesEndpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Autoconfiguration exposing the CQRS request samples as an actuator endpoint.
+ *
+ * <p>
+ * Active when Spring Boot Actuator is on the classpath and requests are sampled.
+ */
+@AutoConfiguration(after = CqrsSamplingAutoConfiguration.class)
+@ConditionalOnClass(Endpoint.class)
+@ConditionalOnBean(CqrsRequestSampler.class)
+public class CqrsSamplingEndpointAutoConfiguration {
+
+    /**
+     * Creates the {@link CqrsSamplesEndpoint} bean.
+     *
+     * @param sampler the request sampler
+     * @return the samples endpoint
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public CqrsSamplesEndpoint cqrsSamplesEndpoint(CqrsRequestSampler sampler) {
+        return new CqrsSamplesEndpoint(sampler);
+    }
+}
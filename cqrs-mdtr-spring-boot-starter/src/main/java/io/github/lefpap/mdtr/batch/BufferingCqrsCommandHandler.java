@@ -0,0 +1,216 @@
+package io.github.lefpap.mdtr.batch;
+
+import io.github.lefpap.mdtr.concurrent.CqrsFutures;
+import io.github.lefpap.mdtr.handler.CqrsAsyncCommandHandler;
+import io.github.lefpap.mdtr.handler.CqrsBatchCommandHandler;
+import io.github.lefpap.mdtr.request.CqrsCommand;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Command handler that buffers commands and passes them to a {@link CqrsBatchCommandHandler} in batches.
+ *
+ * <p>
+ * Commands are appended to a lock-free queue. The first command of an empty buffer starts the linger
+ * timer; the buffer is flushed when the timer fires or when it holds the maximum batch size, whichever
+ * comes first. A flush takes every buffered command, split into batches of at most the maximum batch
+ * size. Only one flush runs at a time, so batches are handled in dispatch order, and commands buffered
+ * while a flush runs make up the next, larger batch. Blocking callers wait for their batch, while
+ * asynchronous callers receive a future completed by it. Once the {@link CqrsCommandBuffer buffer} is
+ * closed, commands fail with an {@link IllegalStateException}; commands buffered before are still flushed.
+ * </p>
+ *
+ * @param <C> the type of command to be processed
+ * @param <R> the type of result produced by handling a command
+ * @see CqrsCommandBuffer
+ */
+public final class BufferingCqrsCommandHandler<C extends CqrsCommand<R>, R>
+        implements CqrsBatchCommandHandler<C, R>, CqrsAsyncCommandHandler<C, R> {
+
+    private record Entry<C, R>(C command, CompletableFuture<R> future) {
+    }
+
+    private final Class<C> commandType;
+    private final CqrsBatchCommandHandler<C, R> delegate;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+
+    private final Queue<Entry<C, R>> queue = new ConcurrentLinkedQueue<>();
+    // Incremented after an entry is queued, so the queue always holds at least this many entries
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicBoolean lingering = new AtomicBoolean();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final Runnable drainTask = this::drain;
+    private final Runnable lingerTask = this::onLinger;
+    private volatile boolean closed;
+
+    private final LongAdder flushCount = new LongAdder();
+    private final LongAdder flushedCommands = new LongAdder();
+    private final LongAccumulator maxFlushSize = new LongAccumulator(Math::max, 0);
+
+    BufferingCqrsCommandHandler(Class<C> commandType,
+                                CqrsBatchCommandHandler<C, R> delegate,
+                                int maxBatchSize,
+                                long lingerNanos,
+                                ScheduledExecutorService scheduler,
+                                Executor executor) {
+        this.commandType = commandType;
+        this.delegate = delegate;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = lingerNanos;
+        this.scheduler = scheduler;
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the batch handler the commands are buffered for.
+     *
+     * @return the underlying batch handler
+     */
+    public CqrsBatchCommandHandler<C, R> getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public CompletableFuture<R> handleAsync(C command) {
+        if (closed) {
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("Command buffer of " + commandType.getName() + " is closed"));
+        }
+
+        var future = new CompletableFuture<R>();
+        queue.offer(new Entry<>(command, future));
+
+        if (depth.incrementAndGet() >= maxBatchSize || closed) {
+            // A buffer closed meanwhile has no timer left, and its final flush may have missed the command
+            requestDrain();
+        } else if (!lingering.get() && lingering.compareAndSet(false, true)) {
+            try {
+                scheduler.schedule(lingerTask, lingerNanos, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                lingering.set(false);
+                requestDrain();
+            }
+        }
+        return future;
+    }
+
+    @Override
+    public R handle(C command) {
+        return CqrsFutures.join(handleAsync(command));
+    }
+
+    /**
+     * Passes explicit batches straight to the underlying handler.
+     */
+    @Override
+    public List<R> handleBatch(List<C> commands) {
+        return delegate.handleBatch(commands);
+    }
+
+    /**
+     * Returns a snapshot of the counters of this buffer.
+     *
+     * @return the buffer statistics
+     */
+    public CqrsCommandBufferStats stats() {
+        return new CqrsCommandBufferStats(commandType, depth.get(), flushCount.sum(), flushedCommands.sum(),
+                (int) maxFlushSize.get());
+    }
+
+    /**
+     * Rejects further commands and flushes the buffered ones on the calling thread, unless a flush is
+     * already running.
+     */
+    void close() {
+        closed = true;
+        flush();
+    }
+
+    /**
+     * Flushes the buffered commands on the calling thread, unless a flush is already running.
+     */
+    void flush() {
+        if (draining.compareAndSet(false, true)) {
+            drain();
+        }
+    }
+
+    private void onLinger() {
+        lingering.set(false);
+        requestDrain();
+    }
+
+    private void requestDrain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(drainTask);
+        } catch (RejectedExecutionException e) {
+            drain();
+        }
+    }
+
+    private void drain() {
+        try {
+            int size;
+            while ((size = Math.min(depth.get(), maxBatchSize)) > 0) {
+                List<C> commands = new ArrayList<>(size);
+                List<CompletableFuture<R>> futures = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    Entry<C, R> entry = queue.poll();
+                    commands.add(entry.command());
+                    futures.add(entry.future());
+                }
+                depth.addAndGet(-size);
+                flush(commands, futures);
+            }
+        } finally {
+            draining.set(false);
+        }
+
+        // Commands queued after the last check may have missed both triggers while this flush was running
+        int remaining = depth.get();
+        if (remaining >= maxBatchSize || (remaining > 0 && !lingering.get())) {
+            requestDrain();
+        }
+    }
+
+    private void flush(List<C> commands, List<CompletableFuture<R>> futures) {
+        flushCount.increment();
+        flushedCommands.add(commands.size());
+        maxFlushSize.accumulate(commands.size());
+
+        try {
+            List<R> results = delegate.handleBatch(commands);
+            if (results == null || results.size() != commands.size()) {
+                throw new IllegalStateException(
+                        "Batch handler " + delegate.getClass().getName() + " returned " +
+                                (results == null ? "null" : results.size() + " results") +
+                                " for " + commands.size() + " commands");
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                futures.get(i).complete(results.get(i));
+            }
+        } catch (Throwable t) {
+            for (CompletableFuture<R> future : futures) {
+                future.completeExceptionally(t);
+            }
+        }
+    }
+}
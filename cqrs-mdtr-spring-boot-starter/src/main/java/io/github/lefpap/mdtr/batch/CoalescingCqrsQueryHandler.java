@@ -0,0 +1,118 @@
+package io.github.lefpap.mdtr.batch;
+
+import io.github.lefpap.mdtr.concurrent.CqrsFutures;
+import io.github.lefpap.mdtr.handler.CqrsAsyncQueryHandler;
+import io.github.lefpap.mdtr.handler.CqrsBatchQueryHandler;
+import io.github.lefpap.mdtr.request.CqrsQuery;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Query handler that coalesces individual queries issued within a short window into a single call of
+ * a {@link CqrsBatchQueryHandler}.
+ *
+ * <p>
+ * The first query of a batch opens a window; the batch is flushed when the window elapses or when it
+ * reaches the maximum batch size, whichever comes first. Blocking callers wait for the flush, while
+ * asynchronous callers receive a future completed by it.
+ * </p>
+ *
+ * @param <Q> the type of query to be processed
+ * @param <R> the type of result produced by handling a query
+ * @see CqrsQueryCoalescer
+ */
+public final class CoalescingCqrsQueryHandler<Q extends CqrsQuery<R>, R>
+        implements CqrsBatchQueryHandler<Q, R>, CqrsAsyncQueryHandler<Q, R> {
+
+    private final CqrsBatchQueryHandler<Q, R> delegate;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private PendingBatch<Q, R> current;
+
+    CoalescingCqrsQueryHandler(CqrsBatchQueryHandler<Q, R> delegate,
+                               long windowNanos,
+                               int maxBatchSize,
+                               ScheduledExecutorService scheduler,
+                               Executor executor) {
+        this.delegate = delegate;
+        this.windowNanos = windowNanos;
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = scheduler;
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the batch handler the queries are coalesced into.
+     *
+     * @return the underlying batch handler
+     */
+    public CqrsBatchQueryHandler<Q, R> getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public CompletableFuture<R> handleAsync(Q query) {
+        PendingBatch<Q, R> full = null;
+        CompletableFuture<R> future;
+
+        lock.lock();
+        try {
+            if (current == null) {
+                PendingBatch<Q, R> opened = new PendingBatch<>();
+                current = opened;
+                scheduler.schedule(() -> flushIfCurrent(opened), windowNanos, TimeUnit.NANOSECONDS);
+            }
+            future = current.add(query);
+            if (current.size() >= maxBatchSize) {
+                full = current;
+                current = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (full != null) {
+            submit(full);
+        }
+        return future;
+    }
+
+    @Override
+    public R handle(Q query) {
+        return CqrsFutures.join(handleAsync(query));
+    }
+
+    /**
+     * Passes explicit batches straight to the underlying handler.
+     */
+    @Override
+    public List<R> handleBatch(List<Q> queries) {
+        return delegate.handleBatch(queries);
+    }
+
+    private void flushIfCurrent(PendingBatch<Q, R> batch) {
+        lock.lock();
+        try {
+            if (current != batch) {
+                return;
+            }
+            current = null;
+        } finally {
+            lock.unlock();
+        }
+        submit(batch);
+    }
+
+    private void submit(PendingBatch<Q, R> batch) {
+        executor.execute(() -> batch.flush(delegate));
+    }
+}
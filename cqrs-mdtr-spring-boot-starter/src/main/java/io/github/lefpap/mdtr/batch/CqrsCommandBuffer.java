@@ -0,0 +1,110 @@
+package io.github.lefpap.mdtr.batch;
+
+import io.github.lefpap.mdtr.annotation.CqrsBuffered;
+import io.github.lefpap.mdtr.handler.CqrsBatchCommandHandler;
+import io.github.lefpap.mdtr.request.CqrsCommand;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Creates {@link BufferingCqrsCommandHandler buffering handlers} sharing the same default flush policy,
+ * timer thread and executor.
+ *
+ * <p>
+ * Command types annotated with {@link CqrsBuffered} may override the maximum batch size and linger time.
+ * </p>
+ */
+public class CqrsCommandBuffer implements AutoCloseable {
+
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final Executor executor;
+    private final ScheduledExecutorService scheduler;
+    private final List<BufferingCqrsCommandHandler<?, ?>> handlers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Constructs a new command buffer.
+     *
+     * @param maxBatchSize the default number of buffered commands that triggers an immediate flush
+     * @param linger       the default time the first buffered command waits for further commands
+     * @param executor     the executor running the batch handlers
+     */
+    public CqrsCommandBuffer(int maxBatchSize, Duration linger, Executor executor) {
+        Objects.requireNonNull(linger, "Linger cannot be null");
+        Objects.requireNonNull(executor, "Executor cannot be null");
+        if (linger.isNegative() || linger.isZero()) {
+            throw new IllegalArgumentException("Linger must be positive: " + linger);
+        }
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Max batch size must be positive: " + maxBatchSize);
+        }
+
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = linger.toNanos();
+        this.executor = executor;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("cqrs-command-buffer")
+                .daemon()
+                .factory());
+    }
+
+    /**
+     * Wraps the given batch handler so that commands are buffered and handled in batches.
+     *
+     * @param commandType the command type, whose {@link CqrsBuffered} annotation may override the flush policy
+     * @param handler     the batch handler
+     * @param <C>         the type of command to be processed
+     * @param <R>         the type of result produced by handling a command
+     * @return the buffering handler
+     */
+    public <C extends CqrsCommand<R>, R> BufferingCqrsCommandHandler<C, R> buffer(Class<C> commandType,
+                                                                                CqrsBatchCommandHandler<C, R> handler) {
+        Objects.requireNonNull(commandType, "Command type cannot be null");
+        Objects.requireNonNull(handler, "Batch command handler cannot be null");
+
+        int batchSize = maxBatchSize;
+        long linger = lingerNanos;
+        CqrsBuffered buffered = commandType.getAnnotation(CqrsBuffered.class);
+        if (buffered != null) {
+            if (buffered.maxBatchSize() > 0) {
+                batchSize = buffered.maxBatchSize();
+            }
+            if (buffered.linger() > 0) {
+                linger = Duration.of(buffered.linger(), buffered.unit()).toNanos();
+            }
+        }
+
+        var buffering = new BufferingCqrsCommandHandler<>(commandType, handler, batchSize, linger, scheduler, executor);
+        handlers.add(buffering);
+        return buffering;
+    }
+
+    /**
+     * Returns a snapshot of the counters of every buffering handler, ordered by command type name.
+     *
+     * @return the buffer statistics
+     */
+    public List<CqrsCommandBufferStats> stats() {
+        return handlers.stream()
+                .map(BufferingCqrsCommandHandler::stats)
+                .sorted(Comparator.comparing(stats -> stats.commandType().getName()))
+                .toList();
+    }
+
+    /**
+     * Stops the timer thread and flushes the buffered commands on the calling thread. Commands dispatched
+     * afterwards fail with an {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        handlers.forEach(BufferingCqrsCommandHandler::close);
+    }
+}
@@ -0,0 +1,28 @@
+package io.github.lefpap.mdtr.batch;
+
+/**
+ * Snapshot of the counters of a {@link BufferingCqrsCommandHandler}.
+ *
+ * @param commandType     the buffered command type
+ * @param queueDepth      the number of commands waiting to be flushed
+ * @param flushCount      the number of batches passed to the batch handler
+ * @param flushedCommands the number of commands passed to the batch handler
+ * @param maxFlushSize    the largest batch passed to the batch handler
+ */
+public record CqrsCommandBufferStats(
+        Class<?> commandType,
+        int queueDepth,
+        long flushCount,
+        long flushedCommands,
+        int maxFlushSize
+) {
+
+    /**
+     * Returns the mean number of commands per batch.
+     *
+     * @return the mean flush size, or {@code 0} if nothing was flushed yet
+     */
+    public double meanFlushSize() {
+        return flushCount == 0 ? 0 : (double) flushedCommands / flushCount;
+    }
+}
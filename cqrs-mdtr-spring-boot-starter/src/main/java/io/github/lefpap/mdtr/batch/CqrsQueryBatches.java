@@ -0,0 +1,183 @@
+package io.github.lefpap.mdtr.batch;
+
+import io.github.lefpap.mdtr.concurrent.CqrsFutures;
+import io.github.lefpap.mdtr.handler.CqrsBatchQueryHandler;
+import io.github.lefpap.mdtr.middleware.CqrsMiddlewarePipeline;
+import io.github.lefpap.mdtr.request.CqrsQuery;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Executes groups of queries of the same type through a single batch handler call.
+ */
+public final class CqrsQueryBatches {
+
+    private static final ThreadLocal<Boolean> BATCHING = new ThreadLocal<>();
+
+    // Time without progress after which the queries that reached the handler are flushed
+    private static final long STALL_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private CqrsQueryBatches() {
+    }
+
+    /**
+     * Returns whether the current thread runs the middlewares of a query executed in a batch.
+     *
+     * <p>
+     * Such a query reaches its handler only once every other query of the batch has, so a middleware
+     * must not make it wait for a query outside the batch, which may itself be waiting for this batch.
+     *
+     * @return {@code true} if the current query is executed in a batch
+     */
+    public static boolean isBatching() {
+        return BATCHING.get() != null;
+    }
+
+    /**
+     * Executes the given queries through the batch handler.
+     *
+     * <p>
+     * Without a pipeline, the handler is called directly with all queries. With a pipeline, every query
+     * runs through the middlewares concurrently on the executor, and the queries that reach the handler
+     * are passed to it in one batch once all of them have either reached it or completed early, e.g.
+     * because a middleware returned a cached result.
+     *
+     * <p>
+     * Equal queries are executed once, and share the result. A middleware holding a query back until an
+     * equal one completes, such as single-flight, would otherwise keep the batch from ever being flushed.
+     *
+     * <p>
+     * Queries waiting for the batch keep the executor thread of their blocking middlewares. When the other
+     * queries make no progress for a few milliseconds, e.g. because a bounded executor has no thread left
+     * for them or a bulkhead holds them back, the calling thread flushes the queries that reached the
+     * handler, releasing their threads, and the others are passed to the handler in a later batch.
+     *
+     * @param queries  the queries to execute
+     * @param handler  the batch handler
+     * @param pipeline the middleware pipeline, or {@code null} to invoke the handler directly
+     * @param executor the executor used to run the pipelines concurrently
+     * @param <Q>      the type of the queries
+     * @param <R>      the type of the results
+     * @return the results of the queries, in the same order as the queries
+     */
+    public static <Q extends CqrsQuery<R>, R> List<R> execute(List<Q> queries,
+                                                              CqrsBatchQueryHandler<Q, R> handler,
+                                                              CqrsMiddlewarePipeline pipeline,
+                                                              Executor executor) {
+        if (queries.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Q, Integer> indexes = new HashMap<>();
+        List<Q> distinct = new ArrayList<>(queries.size());
+        int[] slots = new int[queries.size()];
+        for (int i = 0; i < queries.size(); i++) {
+            Q query = queries.get(i);
+            Integer index = indexes.putIfAbsent(query, distinct.size());
+            if (index == null) {
+                index = distinct.size();
+                distinct.add(query);
+            }
+            slots[i] = index;
+        }
+
+        List<R> results = executeDistinct(distinct, handler, pipeline, executor);
+        if (distinct.size() == queries.size()) {
+            return results;
+        }
+        List<R> fanned = new ArrayList<>(queries.size());
+        for (int slot : slots) {
+            fanned.add(results.get(slot));
+        }
+        return fanned;
+    }
+
+    private static <Q extends CqrsQuery<R>, R> List<R> executeDistinct(List<Q> queries,
+                                                                       CqrsBatchQueryHandler<Q, R> handler,
+                                                                       CqrsMiddlewarePipeline pipeline,
+                                                                       Executor executor) {
+        var scope = new QueryBatchScope<>(handler, queries.size());
+        if (pipeline == null) {
+            List<CompletableFuture<R>> futures = new ArrayList<>(queries.size());
+            for (Q query : queries) {
+                futures.add(scope.participant().handleAsync(query));
+            }
+            return joinAll(futures);
+        }
+
+        Executor batchingExecutor = task -> executor.execute(() -> batching(() -> {
+            task.run();
+            return null;
+        }));
+        List<CompletableFuture<R>> futures = new ArrayList<>(queries.size());
+        for (Q query : queries) {
+            var participant = scope.participant();
+            futures.add(batching(() -> pipeline.executeAsync(query, participant, batchingExecutor))
+                    .whenComplete((result, failure) -> participant.complete()));
+        }
+        awaitAll(futures, scope);
+        return joinAll(futures);
+    }
+
+    /**
+     * Waits for the queries to complete, flushing the scope whenever they stall.
+     */
+    private static void awaitAll(List<? extends CompletableFuture<?>> futures, QueryBatchScope<?, ?> scope) {
+        var all = CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new));
+        boolean interrupted = false;
+        long progress = -1;
+        while (!all.isDone()) {
+            try {
+                all.get(STALL_TIMEOUT_NANOS, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                progress = scope.flushIfStalled(progress);
+            } catch (InterruptedException e) {
+                // Waits uninterruptibly, like the other blocking calls of the mediator
+                interrupted = true;
+            } catch (ExecutionException e) {
+                // Reported by joinAll
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs the given action outside of any batch, e.g. the batch handler once the batch is flushed.
+     */
+    static <T> T unbatched(Supplier<T> action) {
+        return bind(null, action);
+    }
+
+    private static <T> T batching(Supplier<T> action) {
+        return bind(Boolean.TRUE, action);
+    }
+
+    private static <T> T bind(Boolean batching, Supplier<T> action) {
+        Boolean previous = BATCHING.get();
+        BATCHING.set(batching);
+        try {
+            return action.get();
+        } finally {
+            BATCHING.set(previous);
+        }
+    }
+
+    private static <R> List<R> joinAll(List<CompletableFuture<R>> futures) {
+        List<R> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<R> future : futures) {
+            results.add(CqrsFutures.join(future));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,69 @@
+package io.github.lefpap.mdtr.batch;
+
+import io.github.lefpap.mdtr.handler.CqrsBatchQueryHandler;
+import io.github.lefpap.mdtr.request.CqrsQuery;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Creates {@link CoalescingCqrsQueryHandler coalescing handlers} sharing the same window, maximum
+ * batch size and timer thread.
+ */
+public class CqrsQueryCoalescer implements AutoCloseable {
+
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final Executor executor;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Constructs a new coalescer.
+     *
+     * @param window       how long the first query of a batch waits for further queries
+     * @param maxBatchSize the batch size that triggers an immediate flush
+     * @param executor     the executor running the batch handlers
+     */
+    public CqrsQueryCoalescer(Duration window, int maxBatchSize, Executor executor) {
+        Objects.requireNonNull(window, "Window cannot be null");
+        Objects.requireNonNull(executor, "Executor cannot be null");
+        if (window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("Window must be positive: " + window);
+        }
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Max batch size must be positive: " + maxBatchSize);
+        }
+
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.executor = executor;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("cqrs-query-coalescer")
+                .daemon()
+                .factory());
+    }
+
+    /**
+     * Wraps the given batch handler so that individual queries are coalesced into batches.
+     *
+     * @param handler the batch handler
+     * @param <Q>     the type of query to be processed
+     * @param <R>     the type of result produced by handling a query
+     * @return the coalescing handler
+     */
+    public <Q extends CqrsQuery<R>, R> CoalescingCqrsQueryHandler<Q, R> coalesce(CqrsBatchQueryHandler<Q, R> handler) {
+        Objects.requireNonNull(handler, "Batch query handler cannot be null");
+        return new CoalescingCqrsQueryHandler<>(handler, windowNanos, maxBatchSize, scheduler, executor);
+    }
+
+    /**
+     * Stops the timer thread. Pending batches are flushed immediately.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow().forEach(Runnable::run);
+    }
+}
@@ -0,0 +1,64 @@
+package io.github.lefpap.mdtr.batch;
+
+import io.github.lefpap.mdtr.handler.CqrsBatchQueryHandler;
+import io.github.lefpap.mdtr.request.CqrsQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Queries collected for a single batch handler call, together with the futures of their callers.
+ *
+ * <p>
+ * Instances are not thread-safe; callers guard {@link #add} with their own lock and call
+ * {@link #flush} once no further queries can be added.
+ * </p>
+ *
+ * @param <Q> the type of the queries
+ * @param <R> the type of the results
+ */
+final class PendingBatch<Q extends CqrsQuery<R>, R> {
+
+    private final List<Q> queries = new ArrayList<>();
+    private final List<CompletableFuture<R>> futures = new ArrayList<>();
+
+    CompletableFuture<R> add(Q query) {
+        var future = new CompletableFuture<R>();
+        queries.add(query);
+        futures.add(future);
+        return future;
+    }
+
+    int size() {
+        return queries.size();
+    }
+
+    /**
+     * Passes the collected queries to the handler and completes the futures with the results.
+     *
+     * @param handler the batch handler
+     */
+    void flush(CqrsBatchQueryHandler<Q, R> handler) {
+        if (queries.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<R> results = handler.handleBatch(List.copyOf(queries));
+            if (results == null || results.size() != queries.size()) {
+                throw new IllegalStateException(
+                        "Batch handler " + handler.getClass().getName() + " returned " +
+                                (results == null ? "null" : results.size() + " results") +
+                                " for " + queries.size() + " queries");
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                futures.get(i).complete(results.get(i));
+            }
+        } catch (Throwable t) {
+            for (CompletableFuture<R> future : futures) {
+                future.completeExceptionally(t);
+            }
+        }
+    }
+}
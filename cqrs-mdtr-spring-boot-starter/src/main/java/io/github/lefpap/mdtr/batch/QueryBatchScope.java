@@ -0,0 +1,154 @@
+package io.github.lefpap.mdtr.batch;
+
+import io.github.lefpap.mdtr.concurrent.CqrsFutures;
+import io.github.lefpap.mdtr.handler.CqrsAsyncQueryHandler;
+import io.github.lefpap.mdtr.handler.CqrsBatchQueryHandler;
+import io.github.lefpap.mdtr.request.CqrsQuery;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Collects a known number of queries that run through the middleware pipeline concurrently, and
+ * flushes them to the batch handler once every query has either reached its handler or completed
+ * without reaching it.
+ *
+ * <p>
+ * When the remaining queries make no progress, the queries collected so far can be
+ * {@link #flushIfStalled flushed early}, and the remaining ones are collected into the next batch.
+ *
+ * @param <Q> the type of the queries
+ * @param <R> the type of the results
+ */
+final class QueryBatchScope<Q extends CqrsQuery<R>, R> {
+
+    private final CqrsBatchQueryHandler<Q, R> handler;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private PendingBatch<Q, R> batch = new PendingBatch<>();
+    private int pending;
+    private long progress;
+
+    QueryBatchScope(CqrsBatchQueryHandler<Q, R> handler, int participants) {
+        this.handler = handler;
+        this.pending = participants;
+    }
+
+    Participant participant() {
+        return new Participant();
+    }
+
+    private CompletableFuture<R> arrive(Participant participant, Q query) {
+        PendingBatch<Q, R> ready = null;
+        CompletableFuture<R> future;
+
+        lock.lock();
+        try {
+            if (batch == null) {
+                // The batch was already flushed, e.g. a middleware retried the handler call.
+                future = null;
+            } else {
+                future = batch.add(query);
+                progress++;
+                if (!participant.done) {
+                    participant.done = true;
+                    ready = countDown();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (future == null) {
+            return CqrsFutures.supply(() -> handler.handle(query));
+        }
+        if (ready != null) {
+            flush(ready);
+        }
+        return future;
+    }
+
+    private void depart(Participant participant) {
+        PendingBatch<Q, R> ready = null;
+
+        lock.lock();
+        try {
+            if (!participant.done) {
+                participant.done = true;
+                progress++;
+                ready = countDown();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (ready != null) {
+            flush(ready);
+        }
+    }
+
+    /**
+     * Flushes the queries collected so far if no query has reached the handler or completed since the
+     * given progress was returned, e.g. because the remaining queries wait for threads held by the
+     * collected ones. The remaining queries are collected into the next batch.
+     *
+     * @param seenProgress the progress returned by the previous call, or {@code -1}
+     * @return the current progress
+     */
+    long flushIfStalled(long seenProgress) {
+        PendingBatch<Q, R> ready = null;
+        long current;
+
+        lock.lock();
+        try {
+            current = progress;
+            if (batch != null && current == seenProgress && batch.size() > 0) {
+                ready = batch;
+                batch = new PendingBatch<>();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (ready != null) {
+            flush(ready);
+        }
+        return current;
+    }
+
+    private void flush(PendingBatch<Q, R> ready) {
+        CqrsQueryBatches.unbatched(() -> {
+            ready.flush(handler);
+            return null;
+        });
+    }
+
+    private PendingBatch<Q, R> countDown() {
+        if (--pending > 0) {
+            return null;
+        }
+        PendingBatch<Q, R> ready = batch;
+        batch = null;
+        return ready;
+    }
+
+    /**
+     * Terminal handler of a single query of the scope.
+     */
+    final class Participant implements CqrsAsyncQueryHandler<Q, R> {
+
+        private boolean done;
+
+        @Override
+        public CompletableFuture<R> handleAsync(Q query) {
+            return arrive(this, query);
+        }
+
+        /**
+         * Marks the query as completed, whether or not it reached the handler.
+         */
+        void complete() {
+            depart(this);
+        }
+    }
+}
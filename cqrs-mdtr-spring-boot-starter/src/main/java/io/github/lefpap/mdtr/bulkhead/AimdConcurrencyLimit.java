@@ -0,0 +1,70 @@
+package io.github.lefpap.mdtr.bulkhead;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit adjusted with additive increase and multiplicative decrease (AIMD).
+ *
+ * <p>
+ * An execution slower than the latency threshold signals congestion and shrinks the limit by the
+ * backoff ratio. Faster executions grow the limit by one, as long as the bulkhead is actually using
+ * at least half of it, so an idle bulkhead does not drift up to the maximum.
+ * </p>
+ */
+public class AimdConcurrencyLimit implements CqrsConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final AtomicInteger limit;
+
+    /**
+     * Constructs a new AIMD limit.
+     *
+     * @param initialLimit     the limit to start with
+     * @param minLimit         the lowest limit
+     * @param maxLimit         the highest limit
+     * @param latencyThreshold the latency above which an execution signals congestion
+     * @param backoffRatio     the factor applied to the limit on congestion, between 0 and 1
+     * @throws IllegalArgumentException if the limits or the backoff ratio are out of range
+     */
+    public AimdConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, Duration latencyThreshold, double backoffRatio) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException(
+                    "Limits must satisfy 1 <= min <= initial <= max: " + minLimit + ", " + initialLimit + ", " + maxLimit);
+        }
+        if (!(backoffRatio > 0 && backoffRatio < 1)) {
+            throw new IllegalArgumentException("Backoff ratio must be between 0 and 1: " + backoffRatio);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.limit = new AtomicInteger(initialLimit);
+    }
+
+    @Override
+    public int getLimit() {
+        return limit.get();
+    }
+
+    @Override
+    public void onSample(long latencyNanos, int inFlight) {
+        while (true) {
+            int current = limit.get();
+            int next;
+            if (latencyNanos > latencyThresholdNanos) {
+                next = Math.max(minLimit, (int) (current * backoffRatio));
+            } else if (inFlight * 2 >= current) {
+                next = Math.min(maxLimit, current + 1);
+            } else {
+                return;
+            }
+            if (next == current || limit.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package io.github.lefpap.mdtr.bulkhead;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Semaphore with a variable number of permits, taken from a {@link CqrsConcurrencyLimit}.
+ *
+ * <p>
+ * Permits are acquired with a compare-and-set loop while the bulkhead is below its limit. Only callers
+ * that have to wait take the lock, and at most {@code maxQueueSize} of them may wait at once.
+ * </p>
+ */
+final class Bulkhead {
+
+    private final String name;
+    private final CqrsConcurrencyLimit limit;
+    private final int maxQueueSize;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private volatile int waiting;
+
+    Bulkhead(String name, CqrsConcurrencyLimit limit, int maxQueueSize) {
+        this.name = name;
+        this.limit = limit;
+        this.maxQueueSize = maxQueueSize;
+    }
+
+    String name() {
+        return name;
+    }
+
+    int limit() {
+        return limit.getLimit();
+    }
+
+    /**
+     * Acquires a permit, waiting up to the given time if the bulkhead is full and its queue is not.
+     *
+     * @param maxWaitNanos the maximum time to wait, in nanoseconds
+     * @return the number of executions in flight, this one included, or {@code -1} if no permit was acquired
+     */
+    int acquire(long maxWaitNanos) {
+        int acquired = tryAcquire();
+        if (acquired > 0 || maxWaitNanos <= 0 || maxQueueSize <= 0) {
+            return countRejection(acquired);
+        }
+
+        lock.lock();
+        try {
+            if (waiting >= maxQueueSize) {
+                return countRejection(-1);
+            }
+            waiting++;
+            try {
+                long remaining = maxWaitNanos;
+                while ((acquired = tryAcquire()) < 0 && remaining > 0) {
+                    remaining = released.awaitNanos(remaining);
+                }
+                return countRejection(acquired);
+            } finally {
+                waiting--;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return countRejection(-1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a permit and reports the latency of the execution to the limit.
+     *
+     * @param latencyNanos the latency of the execution, in nanoseconds
+     * @param inFlightAtStart the value returned by {@link #acquire}
+     */
+    void release(long latencyNanos, int inFlightAtStart) {
+        inFlight.decrementAndGet();
+        limit.onSample(latencyNanos, inFlightAtStart);
+
+        if (waiting > 0) {
+            lock.lock();
+            try {
+                // The limit may have grown, so let every waiter check again
+                released.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    CqrsBulkheadStats stats() {
+        return new CqrsBulkheadStats(name, limit.getLimit(), inFlight.get(), waiting, rejected.sum());
+    }
+
+    private int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.getLimit()) {
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    private int countRejection(int acquired) {
+        if (acquired < 0) {
+            rejected.increment();
+        }
+        return acquired;
+    }
+}
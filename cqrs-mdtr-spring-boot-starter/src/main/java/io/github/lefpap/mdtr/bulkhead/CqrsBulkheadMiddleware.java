@@ -0,0 +1,106 @@
+package io.github.lefpap.mdtr.bulkhead;
+
+import io.github.lefpap.mdtr.annotation.CqrsBulkhead;
+import io.github.lefpap.mdtr.deadline.CqrsDeadline;
+import io.github.lefpap.mdtr.exception.CqrsBulkheadFullException;
+import io.github.lefpap.mdtr.middleware.CqrsHandlerMiddleware;
+import io.github.lefpap.mdtr.request.CqrsRequest;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Middleware capping the number of concurrent executions per request type, or per group of request types.
+ *
+ * <p>
+ * Every request type passes through a bulkhead, named after the type or after its {@link CqrsBulkhead}
+ * annotation. When a bulkhead has reached its {@link CqrsConcurrencyLimit limit}, a request waits up to
+ * the maximum wait time, provided no more than the maximum queue size requests are already waiting, and is
+ * otherwise rejected with a {@link CqrsBulkheadFullException} without reaching its handler. A slow
+ * dependency behind one request type thus cannot occupy all threads of the application. Requests with a
+ * {@link CqrsDeadline} wait no longer than their remaining time.
+ * </p>
+ *
+ * <p>
+ * The latency of every execution is reported to its bulkhead's limit, which lets adaptive limits such as
+ * {@link AimdConcurrencyLimit} follow the capacity of the dependency.
+ * </p>
+ */
+public class CqrsBulkheadMiddleware implements CqrsHandlerMiddleware {
+
+    private final Function<String, CqrsConcurrencyLimit> limitFactory;
+    private final int maxQueueSize;
+    private final long maxWaitNanos;
+
+    private final ConcurrentMap<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+    private final ClassValue<Bulkhead> bulkheadsByType = new ClassValue<>() {
+        @Override
+        protected Bulkhead computeValue(Class<?> requestType) {
+            CqrsBulkhead annotation = requestType.getAnnotation(CqrsBulkhead.class);
+            String name = annotation == null ? requestType.getName() : annotation.value();
+            return bulkheads.computeIfAbsent(name, n -> new Bulkhead(n, limitFactory.apply(n), maxQueueSize));
+        }
+    };
+
+    /**
+     * Constructs a new bulkhead middleware rejecting requests as soon as their bulkhead is full.
+     *
+     * @param limitFactory creates the concurrency limit of a bulkhead, given its name
+     */
+    public CqrsBulkheadMiddleware(Function<String, CqrsConcurrencyLimit> limitFactory) {
+        this(limitFactory, 0, Duration.ZERO);
+    }
+
+    /**
+     * Constructs a new bulkhead middleware.
+     *
+     * @param limitFactory creates the concurrency limit of a bulkhead, given its name
+     * @param maxQueueSize the maximum number of requests waiting for a permit per bulkhead
+     * @param maxWait      the maximum time a request waits for a permit
+     */
+    public CqrsBulkheadMiddleware(Function<String, CqrsConcurrencyLimit> limitFactory, int maxQueueSize, Duration maxWait) {
+        this.limitFactory = Objects.requireNonNull(limitFactory, "Limit factory cannot be null");
+        this.maxQueueSize = maxQueueSize;
+        this.maxWaitNanos = Objects.requireNonNull(maxWait, "Max wait cannot be null").toNanos();
+    }
+
+    /**
+     * @throws CqrsBulkheadFullException if the bulkhead of the request is full
+     */
+    @Override
+    public <T extends CqrsRequest<R>, R> R invoke(T request, Supplier<R> next) {
+        Bulkhead bulkhead = bulkheadsByType.get(request.getClass());
+        // Waiting beyond the deadline of the request is pointless
+        CqrsDeadline deadline = CqrsDeadline.current();
+        long maxWait = deadline == null ? maxWaitNanos : Math.min(maxWaitNanos, deadline.remainingNanos());
+        int inFlight = bulkhead.acquire(maxWait);
+        if (inFlight < 0) {
+            throw new CqrsBulkheadFullException(bulkhead.name(), bulkhead.limit());
+        }
+
+        long start = System.nanoTime();
+        try {
+            return next.get();
+        } finally {
+            bulkhead.release(System.nanoTime() - start, inFlight);
+        }
+    }
+
+    /**
+     * Returns a snapshot of every bulkhead used so far, sorted by name.
+     *
+     * @return the bulkhead statistics
+     */
+    public List<CqrsBulkheadStats> stats() {
+        return bulkheads.values().stream()
+                .map(Bulkhead::stats)
+                .sorted(Comparator.comparing(CqrsBulkheadStats::name))
+                .toList();
+    }
+}
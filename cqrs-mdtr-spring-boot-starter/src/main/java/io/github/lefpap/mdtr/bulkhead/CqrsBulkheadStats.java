@@ -0,0 +1,19 @@
+package io.github.lefpap.mdtr.bulkhead;
+
+/**
+ * Snapshot of the state of a bulkhead of a {@link CqrsBulkheadMiddleware}.
+ *
+ * @param name          the name of the bulkhead
+ * @param limit         the current concurrency limit
+ * @param inFlight      the number of executions in flight
+ * @param waiting       the number of requests waiting for a permit
+ * @param rejectedCount the number of requests rejected because the bulkhead was full
+ */
+public record CqrsBulkheadStats(
+        String name,
+        int limit,
+        int inFlight,
+        int waiting,
+        long rejectedCount
+) {
+}
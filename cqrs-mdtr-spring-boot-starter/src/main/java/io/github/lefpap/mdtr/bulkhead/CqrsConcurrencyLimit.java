@@ -0,0 +1,27 @@
+package io.github.lefpap.mdtr.bulkhead;
+
+/**
+ * Concurrency limit of a bulkhead, which may adapt to the observed latencies.
+ *
+ * <p>
+ * Implementations are shared by all requests of a bulkhead and must be thread-safe.
+ * </p>
+ */
+public interface CqrsConcurrencyLimit {
+
+    /**
+     * Returns the current limit.
+     *
+     * @return the maximum number of concurrent executions
+     */
+    int getLimit();
+
+    /**
+     * Reports the latency of a completed execution.
+     *
+     * @param latencyNanos the latency of the execution, in nanoseconds
+     * @param inFlight     the number of executions in flight when it started, itself included
+     */
+    default void onSample(long latencyNanos, int inFlight) {
+    }
+}
@@ -0,0 +1,27 @@
+package io.github.lefpap.mdtr.bulkhead;
+
+/**
+ * Concurrency limit that never changes.
+ */
+public class FixedConcurrencyLimit implements CqrsConcurrencyLimit {
+
+    private final int limit;
+
+    /**
+     * Constructs a new fixed limit.
+     *
+     * @param limit the maximum number of concurrent executions
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    public FixedConcurrencyLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        this.limit = limit;
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,112 @@
+package io.github.lefpap.mdtr.cache;
+
+import io.github.lefpap.mdtr.annotation.CqrsCacheEvict;
+import io.github.lefpap.mdtr.annotation.CqrsCacheable;
+import io.github.lefpap.mdtr.request.CqrsCommand;
+import io.github.lefpap.mdtr.request.CqrsQuery;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caching behaviour of a request type, resolved once from its annotations.
+ *
+ * <p>
+ * Tags are represented by version counters. Cached entries remember the versions of their tags at the
+ * time the handler was called, and invalidating a tag increments its version, which makes every entry
+ * recorded under an older version stale.
+ * </p>
+ *
+ * @param ttlNanos    the time to live of cached results, or {@code 0} if the type is not cacheable
+ * @param tags        the version counters of the tags of cached results
+ * @param evictedTags the version counters of the tags invalidated by the type
+ */
+record CachePolicy(long ttlNanos, AtomicLong[] tags, AtomicLong[] evictedTags) {
+
+    static final CachePolicy NONE = new CachePolicy(0, new AtomicLong[0], new AtomicLong[0]);
+
+    /**
+     * Resolves the policy of the given request type.
+     *
+     * @param requestType the request type
+     * @param tagVersions the version counters of all tags, by tag name
+     * @return the policy, or {@link #NONE} if the type neither caches nor evicts
+     */
+    static CachePolicy resolve(Class<?> requestType, ConcurrentMap<String, AtomicLong> tagVersions) {
+        if (CqrsQuery.class.isAssignableFrom(requestType)) {
+            CqrsCacheable cacheable = requestType.getAnnotation(CqrsCacheable.class);
+            if (cacheable != null) {
+                long ttlNanos = Duration.of(cacheable.ttl(), cacheable.unit()).toNanos();
+                if (ttlNanos <= 0) {
+                    throw new IllegalStateException("@CqrsCacheable on " + requestType.getName() + " must have a positive ttl");
+                }
+                return new CachePolicy(ttlNanos, versions(cacheable.tags(), tagVersions), NONE.evictedTags);
+            }
+        } else if (CqrsCommand.class.isAssignableFrom(requestType)) {
+            CqrsCacheEvict evict = requestType.getAnnotation(CqrsCacheEvict.class);
+            if (evict != null && evict.tags().length > 0) {
+                return new CachePolicy(0, NONE.tags, versions(evict.tags(), tagVersions));
+            }
+        }
+        return NONE;
+    }
+
+    private static AtomicLong[] versions(String[] tags, ConcurrentMap<String, AtomicLong> tagVersions) {
+        AtomicLong[] versions = new AtomicLong[tags.length];
+        for (int i = 0; i < tags.length; i++) {
+            versions[i] = tagVersions.computeIfAbsent(tags[i], tag -> new AtomicLong());
+        }
+        return versions;
+    }
+
+    static ConcurrentMap<String, AtomicLong> newTagVersions() {
+        return new ConcurrentHashMap<>();
+    }
+
+    boolean caches() {
+        return ttlNanos > 0;
+    }
+
+    boolean evicts() {
+        return evictedTags.length > 0;
+    }
+
+    /**
+     * Captures the current versions of the tags of cached results.
+     *
+     * @return the tag versions
+     */
+    long[] currentVersions() {
+        long[] versions = new long[tags.length];
+        for (int i = 0; i < versions.length; i++) {
+            versions[i] = tags[i].get();
+        }
+        return versions;
+    }
+
+    /**
+     * Determines if the given tag versions are still current.
+     *
+     * @param versions the tag versions captured by {@link #currentVersions()}
+     * @return true if none of the tags was invalidated since
+     */
+    boolean isCurrent(long[] versions) {
+        for (int i = 0; i < versions.length; i++) {
+            if (tags[i].get() != versions[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Invalidates the tags evicted by the request type.
+     */
+    void evict() {
+        for (AtomicLong version : evictedTags) {
+            version.incrementAndGet();
+        }
+    }
+}
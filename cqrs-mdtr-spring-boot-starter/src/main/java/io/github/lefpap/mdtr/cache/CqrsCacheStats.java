@@ -0,0 +1,31 @@
+package io.github.lefpap.mdtr.cache;
+
+/**
+ * Snapshot of the counters of a {@link CqrsQueryCacheMiddleware}.
+ *
+ * @param hitCount          the number of queries answered from the cache
+ * @param missCount         the number of cacheable queries passed on to their handler
+ * @param evictionCount     the number of entries removed to stay within the maximum size
+ * @param expirationCount   the number of entries removed because their time to live elapsed
+ * @param invalidationCount the number of entries removed because one of their tags was invalidated
+ * @param size              the current number of entries
+ */
+public record CqrsCacheStats(
+        long hitCount,
+        long missCount,
+        long evictionCount,
+        long expirationCount,
+        long invalidationCount,
+        long size
+) {
+
+    /**
+     * Returns the ratio of hits to all cacheable queries.
+     *
+     * @return the hit rate, or {@code 0} if no cacheable query was sent yet
+     */
+    public double hitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 0 : (double) hitCount / requests;
+    }
+}
@@ -0,0 +1,125 @@
+package io.github.lefpap.mdtr.cache;
+
+import io.github.lefpap.mdtr.annotation.CqrsCacheEvict;
+import io.github.lefpap.mdtr.annotation.CqrsCacheable;
+import io.github.lefpap.mdtr.middleware.CqrsHandlerMiddleware;
+import io.github.lefpap.mdtr.request.CqrsRequest;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Middleware caching the results of queries annotated with {@link CqrsCacheable}.
+ *
+ * <p>
+ * Results are kept in a size-bounded, concurrent LRU cache keyed by the query itself, and expire after
+ * the time to live declared on the query type. Dispatching a command annotated with {@link CqrsCacheEvict}
+ * invalidates all cached results carrying one of its tags, whether or not the command succeeds.
+ * </p>
+ *
+ * <p>
+ * The middleware applies to annotated request types only, so other requests do not pass through it.
+ * </p>
+ */
+public class CqrsQueryCacheMiddleware implements CqrsHandlerMiddleware {
+
+    private final QueryCacheSegments cache;
+    private final ConcurrentMap<String, AtomicLong> tagVersions = CachePolicy.newTagVersions();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    private final ClassValue<CachePolicy> policies = new ClassValue<>() {
+        @Override
+        protected CachePolicy computeValue(Class<?> requestType) {
+            return CachePolicy.resolve(requestType, tagVersions);
+        }
+    };
+
+    /**
+     * Constructs a new cache middleware.
+     *
+     * @param maximumSize the maximum number of cached results
+     */
+    public CqrsQueryCacheMiddleware(long maximumSize) {
+        this.cache = new QueryCacheSegments(maximumSize);
+    }
+
+    @Override
+    public <T extends CqrsRequest<R>, R> R invoke(T request, Supplier<R> next) {
+        CachePolicy policy = policies.get(request.getClass());
+        if (policy.evicts()) {
+            try {
+                return next.get();
+            } finally {
+                policy.evict();
+            }
+        }
+        if (!policy.caches()) {
+            return next.get();
+        }
+
+        QueryCacheSegments.Entry entry = cache.get(request);
+        if (entry != null) {
+            if (entry.isExpired(System.nanoTime())) {
+                cache.remove(request, entry);
+                expirations.increment();
+            } else if (!policy.isCurrent(entry.tagVersions())) {
+                cache.remove(request, entry);
+                invalidations.increment();
+            } else {
+                hits.increment();
+                //noinspection unchecked
+                return (R) entry.value();
+            }
+        }
+
+        misses.increment();
+        long[] versions = policy.currentVersions();
+        R result = next.get();
+        cache.put(request, new QueryCacheSegments.Entry(result, policy, System.nanoTime() + policy.ttlNanos(), versions));
+        return result;
+    }
+
+    @Override
+    public boolean applies(Class<?> requestType) {
+        return policies.get(requestType) != CachePolicy.NONE;
+    }
+
+    /**
+     * Invalidates all cached results carrying the given tag.
+     *
+     * @param tag the cache tag
+     */
+    public void invalidate(String tag) {
+        Objects.requireNonNull(tag, "Tag cannot be null");
+        tagVersions.computeIfAbsent(tag, t -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * Removes all cached results.
+     */
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    /**
+     * Returns a snapshot of the cache counters.
+     *
+     * @return the cache statistics
+     */
+    public CqrsCacheStats stats() {
+        return new CqrsCacheStats(
+                hits.sum(),
+                misses.sum(),
+                cache.evictionCount(),
+                expirations.sum(),
+                invalidations.sum(),
+                cache.size());
+    }
+}
@@ -0,0 +1,147 @@
+package io.github.lefpap.mdtr.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Size-bounded map of cached query results, split into independently locked LRU segments.
+ */
+final class QueryCacheSegments {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final int mask;
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Cached result of a query.
+     *
+     * @param value       the result, possibly {@code null}
+     * @param policy      the policy of the query type
+     * @param expiresAt   the {@link System#nanoTime()} after which the entry is expired
+     * @param tagVersions the versions of the tags of the query type when the result was computed
+     */
+    record Entry(Object value, CachePolicy policy, long expiresAt, long[] tagVersions) {
+
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+
+    QueryCacheSegments(long maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+        }
+
+        int count = (int) Math.min(MAX_SEGMENTS, Long.highestOneBit(maximumSize));
+        this.segments = new Segment[count];
+        this.mask = count - 1;
+
+        long perSegment = (maximumSize + count - 1) / count;
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment((int) Math.min(Integer.MAX_VALUE, perSegment));
+        }
+    }
+
+    Entry get(Object key) {
+        return segmentFor(key).get(key);
+    }
+
+    void put(Object key, Entry entry) {
+        segmentFor(key).put(key, entry);
+    }
+
+    void remove(Object key, Entry entry) {
+        segmentFor(key).remove(key, entry);
+    }
+
+    void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    long evictionCount() {
+        return evictions.sum();
+    }
+
+    private Segment segmentFor(Object key) {
+        int h = key.hashCode();
+        return segments[(h ^ (h >>> 16)) & mask];
+    }
+
+    private final class Segment {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<Object, Entry> entries;
+
+        Segment(int capacity) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        Entry get(Object key) {
+            lock.lock();
+            try {
+                return entries.get(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void put(Object key, Entry entry) {
+            lock.lock();
+            try {
+                entries.put(key, entry);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void remove(Object key, Entry entry) {
+            lock.lock();
+            try {
+                entries.remove(key, entry);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void clear() {
+            lock.lock();
+            try {
+                entries.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return entries.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package io.github.lefpap.mdtr.capture;
+
+import io.github.lefpap.mdtr.concurrent.CqrsFutures;
+import io.github.lefpap.mdtr.middleware.CqrsAsyncHandlerMiddleware;
+import io.github.lefpap.mdtr.request.CqrsRequest;
+import io.github.lefpap.mdtr.request.CqrsStreamQuery;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Middleware recording the requests passing through the mediator to a {@link CqrsTrafficRecorder}.
+ *
+ * <p>
+ * Only requests sent from outside a handler are recorded, since replaying them dispatches the nested ones
+ * again. A recorded request is bound to the thread it executes on, and carried over to the threads of the
+ * requests it starts by {@link #propagating(Executor)} and {@link #capture(Supplier)}, so that requests
+ * sent by handlers running on the executor or on a partition are recognised as nested too. Streaming
+ * queries are not recorded.
+ * </p>
+ */
+public class CqrsCaptureMiddleware implements CqrsAsyncHandlerMiddleware {
+
+    // Set while a recorded request executes on the thread; set to null rather than removed, as it is
+    // checked on every request
+    private static final ThreadLocal<Object> NESTED = new ThreadLocal<>();
+
+    private final CqrsTrafficRecorder recorder;
+
+    /**
+     * Constructs a new capture middleware.
+     *
+     * @param recorder the recorder writing the capture file
+     */
+    public CqrsCaptureMiddleware(CqrsTrafficRecorder recorder) {
+        this.recorder = Objects.requireNonNull(recorder, "Recorder cannot be null");
+    }
+
+    /**
+     * Returns an executor that runs every task with the recorded request bound to the submitting thread,
+     * if any, so that the requests the task sends are not recorded.
+     *
+     * @param executor the executor running the tasks
+     * @return the propagating executor
+     */
+    public static Executor propagating(Executor executor) {
+        Objects.requireNonNull(executor, "Executor cannot be null");
+        return task -> {
+            Object parent = NESTED.get();
+            executor.execute(parent == null ? task : () -> nested(parent, () -> {
+                task.run();
+                return null;
+            }));
+        };
+    }
+
+    /**
+     * Returns a supplier that runs the given one with the recorded request bound to the calling thread, if
+     * any, so that the requests it sends are not recorded.
+     *
+     * @param action the supplier to run later, possibly on another thread
+     * @param <R>    the type of the result
+     * @return the capturing supplier, or the given one if the calling thread has no recorded request
+     */
+    public static <R> Supplier<R> capture(Supplier<R> action) {
+        Object parent = NESTED.get();
+        return parent == null ? action : () -> nested(parent, action);
+    }
+
+    @Override
+    public <T extends CqrsRequest<R>, R> R invoke(T request, Supplier<R> next) {
+        if (NESTED.get() != null) {
+            return next.get();
+        }
+
+        recorder.record(request);
+        return nested(request, next);
+    }
+
+    @Override
+    public <T extends CqrsRequest<R>, R> CompletableFuture<R> invokeAsync(T request, Supplier<CompletableFuture<R>> next) {
+        if (NESTED.get() != null) {
+            return CqrsFutures.invoke(next);
+        }
+
+        recorder.record(request);
+        // Bound while the rest of the chain starts, so that the executor carries it over to the handler
+        return nested(request, () -> CqrsFutures.invoke(next));
+    }
+
+    @Override
+    public boolean applies(Class<?> requestType) {
+        return !CqrsStreamQuery.class.isAssignableFrom(requestType);
+    }
+
+    private static <R> R nested(Object parent, Supplier<R> action) {
+        Object previous = NESTED.get();
+        NESTED.set(parent);
+        try {
+            return action.get();
+        } finally {
+            NESTED.set(previous);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package io.github.lefpap.mdtr.capture;
+
+/**
+ * Snapshot of the counters of a {@link CqrsTrafficRecorder}.
+ *
+ * @param capturedCount the number of recorded requests
+ * @param skippedCount  the number of requests that could not be encoded or did not fit into the file
+ * @param size          the size of the capture file in bytes, buffered records included
+ */
+public record CqrsCaptureStats(
+        long capturedCount,
+        long skippedCount,
+        long size
+) {
+}
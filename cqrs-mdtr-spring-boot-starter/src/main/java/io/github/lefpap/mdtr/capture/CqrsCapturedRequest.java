@@ -0,0 +1,17 @@
+package io.github.lefpap.mdtr.capture;
+
+import io.github.lefpap.mdtr.request.CqrsRequest;
+
+import java.time.Duration;
+
+/**
+ * A request read back from a capture file.
+ *
+ * @param offset  the time between the start of the capture and the request
+ * @param request the decoded request
+ */
+public record CqrsCapturedRequest(
+        Duration offset,
+        CqrsRequest<?> request
+) {
+}
@@ -0,0 +1,39 @@
+package io.github.lefpap.mdtr.capture;
+
+import io.github.lefpap.mdtr.metrics.CqrsRequestMetricsSnapshot;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Outcome of replaying captured traffic with a {@link CqrsTrafficReplayer}.
+ *
+ * <p>
+ * Latencies are measured from the time each request was due to be sent, so a mediator falling behind
+ * the pace of the capture shows as growing latency rather than as fewer requests.
+ * </p>
+ *
+ * @param requestCount the number of replayed requests, including failed ones
+ * @param errorCount   the number of requests that completed with an exception
+ * @param elapsed      the time from the first request until the last one completed
+ * @param throughput   the number of requests completed per second
+ * @param p50          the median latency
+ * @param p90          the 90th percentile latency
+ * @param p99          the 99th percentile latency
+ * @param p999         the 99.9th percentile latency
+ * @param max          an upper bound of the highest latency
+ * @param requestTypes the metrics of every replayed request type
+ */
+public record CqrsReplayReport(
+        long requestCount,
+        long errorCount,
+        Duration elapsed,
+        double throughput,
+        Duration p50,
+        Duration p90,
+        Duration p99,
+        Duration p999,
+        Duration max,
+        List<CqrsRequestMetricsSnapshot> requestTypes
+) {
+}
@@ -0,0 +1,56 @@
+package io.github.lefpap.mdtr.capture;
+
+import io.github.lefpap.mdtr.handler.CqrsCommandHandler;
+import io.github.lefpap.mdtr.handler.CqrsQueryHandler;
+import io.github.lefpap.mdtr.registry.InMemoryCqrsHandlerRegistry;
+import io.github.lefpap.mdtr.request.CqrsCommand;
+import io.github.lefpap.mdtr.request.CqrsQuery;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Stub handlers standing in for the real ones when {@link CqrsTrafficReplayer replaying} traffic offline.
+ *
+ * <p>
+ * A stub handler takes a fixed time, without using the CPU, and returns {@code null}.
+ * </p>
+ */
+public final class CqrsStubHandlers {
+
+    private CqrsStubHandlers() {
+    }
+
+    /**
+     * Creates a registry with a stub handler for each of the given command and query types.
+     *
+     * @param requestTypes the request types, e.g. those of a {@link CqrsTrafficCapture}
+     * @param latency      the time every stub handler takes
+     * @return the populated registry
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static InMemoryCqrsHandlerRegistry registry(Collection<Class<?>> requestTypes, Duration latency) {
+        Objects.requireNonNull(requestTypes, "Request types cannot be null");
+        long latencyNanos = Objects.requireNonNull(latency, "Latency cannot be null").toNanos();
+
+        var registry = new InMemoryCqrsHandlerRegistry();
+        for (Class<?> type : requestTypes) {
+            if (CqrsCommand.class.isAssignableFrom(type)) {
+                registry.registerCommandHandler((Class) type, (CqrsCommandHandler) command -> stub(latencyNanos));
+            } else if (CqrsQuery.class.isAssignableFrom(type)) {
+                registry.registerQueryHandler((Class) type, (CqrsQueryHandler) query -> stub(latencyNanos));
+            }
+        }
+        return registry;
+    }
+
+    private static Object stub(long latencyNanos) {
+        long end = System.nanoTime() + latencyNanos;
+        for (long remaining = latencyNanos; remaining > 0; remaining = end - System.nanoTime()) {
+            LockSupport.parkNanos(remaining);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,173 @@
+package io.github.lefpap.mdtr.capture;
+
+import io.github.lefpap.mdtr.codec.CqrsCodec;
+import io.github.lefpap.mdtr.exception.CqrsCaptureException;
+import io.github.lefpap.mdtr.request.CqrsRequest;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Requests read back from a capture file written by a {@link CqrsTrafficRecorder}, in the order they were
+ * captured.
+ *
+ * <p>
+ * A capture file that was not closed properly, e.g. because the process crashed, is read up to its last
+ * complete request.
+ * </p>
+ */
+public final class CqrsTrafficCapture {
+
+    private final Instant startedAt;
+    private final List<CqrsCapturedRequest> requests;
+    private final Set<Class<?>> requestTypes;
+
+    /**
+     * Constructs a capture from requests, e.g. to replay synthetic traffic.
+     *
+     * @param startedAt the start of the capture
+     * @param requests  the requests, in the order of their offsets
+     */
+    public CqrsTrafficCapture(Instant startedAt, List<CqrsCapturedRequest> requests) {
+        this.startedAt = Objects.requireNonNull(startedAt, "Start cannot be null");
+        this.requests = List.copyOf(Objects.requireNonNull(requests, "Requests cannot be null"));
+        Set<Class<?>> types = new LinkedHashSet<>();
+        for (CqrsCapturedRequest request : this.requests) {
+            types.add(request.request().getClass());
+        }
+        this.requestTypes = Set.copyOf(types);
+    }
+
+    /**
+     * Reads a capture file.
+     *
+     * @param file  the capture file
+     * @param codec the codec the requests were encoded with
+     * @return the captured requests
+     * @throws CqrsCaptureException if the file is not a capture file, cannot be read, or holds requests of
+     *                              unknown types
+     */
+    public static CqrsTrafficCapture load(Path file, CqrsCodec codec) {
+        Objects.requireNonNull(file, "File cannot be null");
+        Objects.requireNonNull(codec, "Codec cannot be null");
+
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < CqrsTrafficRecorder.HEADER_SIZE
+                    || buffer.getInt() != CqrsTrafficRecorder.MAGIC
+                    || buffer.get() != CqrsTrafficRecorder.VERSION) {
+                throw new CqrsCaptureException(file + " is not a capture file");
+            }
+            Instant startedAt = Instant.EPOCH.plus(buffer.getLong(), ChronoUnit.MICROS);
+
+            ClassLoader classLoader = classLoader();
+            List<Class<?>> types = new ArrayList<>();
+            List<CqrsCapturedRequest> requests = new ArrayList<>();
+            long offset = 0;
+            while (buffer.hasRemaining()) {
+                long delay;
+                Class<?> type;
+                byte[] data;
+                try {
+                    delay = getVarLong(buffer);
+                    int index = (int) getVarLong(buffer);
+                    if (index == 0) {
+                        byte[] name = new byte[(int) getVarLong(buffer)];
+                        buffer.get(name);
+                        types.add(loadClass(new String(name, StandardCharsets.UTF_8), classLoader));
+                        index = types.size();
+                    }
+                    type = types.get(index - 1);
+                    data = new byte[(int) getVarLong(buffer)];
+                    buffer.get(data);
+                } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+                    // A torn last request
+                    break;
+                }
+
+                offset += delay;
+                var request = (CqrsRequest<?>) codec.decode(data, type);
+                requests.add(new CqrsCapturedRequest(Duration.of(offset, ChronoUnit.MICROS), request));
+            }
+            return new CqrsTrafficCapture(startedAt, requests);
+        } catch (IOException e) {
+            throw new CqrsCaptureException("Cannot read capture file " + file, e);
+        }
+    }
+
+    /**
+     * Returns when the capture started.
+     *
+     * @return the start of the capture
+     */
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * Returns the captured requests, in the order they were captured.
+     *
+     * @return the captured requests
+     */
+    public List<CqrsCapturedRequest> getRequests() {
+        return requests;
+    }
+
+    /**
+     * Returns the distinct types of the captured requests, e.g. to register stub handlers for.
+     *
+     * @return the request types
+     */
+    public Set<Class<?>> getRequestTypes() {
+        return requestTypes;
+    }
+
+    /**
+     * Returns the time between the first and the last captured request.
+     *
+     * @return the duration of the capture
+     */
+    public Duration getDuration() {
+        return requests.isEmpty()
+                ? Duration.ZERO
+                : requests.getLast().offset().minus(requests.getFirst().offset());
+    }
+
+    private static long getVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new BufferUnderflowException();
+    }
+
+    private static ClassLoader classLoader() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return classLoader != null ? classLoader : CqrsTrafficCapture.class.getClassLoader();
+    }
+
+    private static Class<?> loadClass(String name, ClassLoader classLoader) {
+        try {
+            return Class.forName(name, false, classLoader);
+        } catch (ClassNotFoundException e) {
+            throw new CqrsCaptureException("Unknown captured request type " + name, e);
+        }
+    }
+}
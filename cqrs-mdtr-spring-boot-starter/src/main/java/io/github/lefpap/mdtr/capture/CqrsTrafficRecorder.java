@@ -0,0 +1,260 @@
+package io.github.lefpap.mdtr.capture;
+
+import io.github.lefpap.mdtr.codec.CqrsCodec;
+import io.github.lefpap.mdtr.exception.CqrsCaptureException;
+import io.github.lefpap.mdtr.request.CqrsRequest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Records requests with their timestamps to a compact capture file, for {@link CqrsTrafficCapture#load replay}.
+ *
+ * <p>
+ * The file starts with a header of {@code magic:int version:byte startedAt:long}, the start time in
+ * microseconds since the epoch, followed by one record per request:
+ * {@code delay:varint type:varint [typeName] length:varint data}. The delay is the number of microseconds
+ * since the previous request, and the type the index of the request type, {@code 0} introducing a new
+ * type whose length-prefixed name follows. Requests are encoded with a {@link CqrsCodec}.
+ * </p>
+ *
+ * <p>
+ * Records are buffered in memory and written when the buffer is full, on {@link #flush()} and on
+ * {@link #close()}. Once the file reaches its maximum size, further requests are skipped, as are requests
+ * the codec cannot encode, so capturing never fails a request. After a write error, capturing stops, and
+ * the error is thrown by the next {@link #flush()} or {@link #close()}.
+ * </p>
+ */
+public class CqrsTrafficRecorder implements AutoCloseable {
+
+    static final int MAGIC = 0x43515243;
+    static final byte VERSION = 1;
+    static final int HEADER_SIZE = 4 + 1 + 8;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Delay, type index, name length and data length, each a varint of at most 5 or 10 bytes
+    private static final int MAX_RECORD_HEADER = 10 + 5 + 5 + 5;
+
+    private final Path file;
+    private final CqrsCodec codec;
+    private final long maxSize;
+    private final FileChannel channel;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final Map<Class<?>, Integer> typeIndexes = new IdentityHashMap<>();
+    private final ClassValue<byte[]> typeNames = new ClassValue<>() {
+        @Override
+        protected byte[] computeValue(Class<?> type) {
+            return type.getName().getBytes(StandardCharsets.UTF_8);
+        }
+    };
+
+    private final LongAdder captured = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    private long lastTime;
+    private long size;
+    private boolean closed;
+    private CqrsCaptureException failure;
+
+    /**
+     * Creates a new capture file, replacing any existing one.
+     *
+     * @param file    the capture file
+     * @param codec   the codec encoding the requests
+     * @param maxSize the maximum size of the capture file in bytes
+     * @throws CqrsCaptureException if the file cannot be created
+     */
+    public CqrsTrafficRecorder(Path file, CqrsCodec codec, long maxSize) {
+        this.file = Objects.requireNonNull(file, "File cannot be null");
+        this.codec = Objects.requireNonNull(codec, "Codec cannot be null");
+        if (maxSize < HEADER_SIZE) {
+            throw new IllegalArgumentException("Max size must be at least " + HEADER_SIZE + " bytes: " + maxSize);
+        }
+        this.maxSize = maxSize;
+
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            throw new CqrsCaptureException("Cannot create capture file " + file, e);
+        }
+
+        this.lastTime = System.nanoTime();
+        buffer.putInt(MAGIC).put(VERSION).putLong(ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now()));
+        this.size = HEADER_SIZE;
+    }
+
+    /**
+     * Records a request, timestamped now. Requests that cannot be encoded, or do not fit into the capture
+     * file any more, are skipped.
+     *
+     * @param request the request
+     */
+    public void record(CqrsRequest<?> request) {
+        byte[] data;
+        try {
+            data = codec.encode(request);
+        } catch (RuntimeException e) {
+            skipped.increment();
+            return;
+        }
+        Class<?> type = request.getClass();
+
+        lock.lock();
+        try {
+            Integer index = typeIndexes.get(type);
+            byte[] name = index == null ? typeNames.get(type) : null;
+            int recordSize = MAX_RECORD_HEADER + data.length + (name == null ? 0 : name.length);
+            if (closed || failure != null || size + recordSize > maxSize) {
+                skipped.increment();
+                return;
+            }
+            if (buffer.remaining() < MAX_RECORD_HEADER + (name == null ? 0 : name.length)) {
+                drain();
+            }
+
+            // Taken under the lock, so that delays are never negative
+            long delay = (System.nanoTime() - lastTime) / 1_000;
+            // Carries the sub-microsecond remainder over, so that delays do not drift
+            lastTime += delay * 1_000;
+            int start = buffer.position();
+            putVarLong(delay);
+            if (index == null) {
+                typeIndexes.put(type, typeIndexes.size() + 1);
+                putVarLong(0);
+                putVarLong(name.length);
+                buffer.put(name);
+            } else {
+                putVarLong(index);
+            }
+            putVarLong(data.length);
+            size += buffer.position() - start + data.length;
+
+            if (buffer.remaining() >= data.length) {
+                buffer.put(data);
+            } else {
+                drain();
+                write(ByteBuffer.wrap(data));
+            }
+            captured.increment();
+        } catch (CqrsCaptureException e) {
+            // Reported by flush and close, as the request must not fail
+            failure = e;
+            skipped.increment();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the buffered records to the capture file.
+     *
+     * @throws CqrsCaptureException if the records cannot be written, or could not be written before
+     */
+    public void flush() {
+        lock.lock();
+        try {
+            if (failure != null) {
+                throw failure;
+            }
+            if (!closed) {
+                drain();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the capture file.
+     *
+     * @return the capture file
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns a snapshot of the capture counters.
+     *
+     * @return the capture statistics
+     */
+    public CqrsCaptureStats stats() {
+        lock.lock();
+        try {
+            return new CqrsCaptureStats(captured.sum(), skipped.sum(), size);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the buffered records and closes the capture file.
+     *
+     * @throws CqrsCaptureException if the records cannot be written, or could not be written before
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try (channel) {
+                if (failure != null) {
+                    throw failure;
+                }
+                drain();
+            } catch (IOException e) {
+                throw new CqrsCaptureException("Cannot close capture file " + file, e);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void putVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private void drain() {
+        buffer.flip();
+        try {
+            write(buffer);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    private void write(ByteBuffer source) {
+        try {
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        } catch (IOException e) {
+            throw new CqrsCaptureException("Cannot write capture file " + file, e);
+        }
+    }
+}
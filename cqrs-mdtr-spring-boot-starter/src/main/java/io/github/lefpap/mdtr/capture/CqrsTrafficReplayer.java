@@ -0,0 +1,151 @@
+package io.github.lefpap.mdtr.capture;
+
+import io.github.lefpap.mdtr.CqrsMediator;
+import io.github.lefpap.mdtr.metrics.InMemoryCqrsMetricsRecorder;
+import io.github.lefpap.mdtr.metrics.LatencyHistogram;
+import io.github.lefpap.mdtr.request.CqrsCommand;
+import io.github.lefpap.mdtr.request.CqrsQuery;
+import io.github.lefpap.mdtr.request.CqrsRequest;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays {@link CqrsTrafficCapture captured traffic} against a mediator, e.g. to load test it.
+ *
+ * <p>
+ * Requests are sent by a fixed number of threads, in the order they were captured. At a finite speed,
+ * every request is due at its captured offset divided by the speed, so a speed of {@code 1} reproduces the
+ * original pace and {@code 2} twice the pace; threads wait until a request is due before sending it. At
+ * {@link #MAXIMUM_SPEED}, every thread sends its next request as soon as the previous one completed. Failed
+ * requests are counted and do not stop the replay.
+ * </p>
+ *
+ * <p>
+ * The mediator may use the real handlers, or stub handlers such as those of {@link CqrsStubHandlers}, so
+ * that the mediator and its middlewares can be measured in isolation and offline.
+ * </p>
+ */
+public class CqrsTrafficReplayer {
+
+    /**
+     * Speed at which requests are sent as fast as the mediator completes them.
+     */
+    public static final double MAXIMUM_SPEED = Double.POSITIVE_INFINITY;
+
+    private final CqrsMediator mediator;
+    private final int threads;
+    private final double speed;
+
+    /**
+     * Constructs a new replayer.
+     *
+     * @param mediator the mediator to send the requests to
+     * @param threads  the number of threads sending requests
+     * @param speed    the speed relative to the capture, or {@link #MAXIMUM_SPEED}
+     */
+    public CqrsTrafficReplayer(CqrsMediator mediator, int threads, double speed) {
+        this.mediator = Objects.requireNonNull(mediator, "Mediator cannot be null");
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads must be positive: " + threads);
+        }
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("Speed must be positive: " + speed);
+        }
+        this.threads = threads;
+        this.speed = speed;
+    }
+
+    /**
+     * Replays the captured requests and waits for all of them to complete.
+     *
+     * @param capture the captured traffic
+     * @return the throughput and latencies of the replay
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public CqrsReplayReport replay(CqrsTrafficCapture capture) throws InterruptedException {
+        Objects.requireNonNull(capture, "Capture cannot be null");
+        List<CqrsCapturedRequest> requests = capture.getRequests();
+        long firstOffset = requests.isEmpty() ? 0 : requests.getFirst().offset().toNanos();
+        boolean paced = speed != MAXIMUM_SPEED;
+
+        var next = new AtomicInteger();
+        var latencies = new LatencyHistogram();
+        var metrics = new InMemoryCqrsMetricsRecorder();
+        var errors = new LongAdder();
+
+        long start = System.nanoTime();
+        Runnable worker = () -> {
+            for (int i = next.getAndIncrement(); i < requests.size(); i = next.getAndIncrement()) {
+                CqrsCapturedRequest captured = requests.get(i);
+                long due;
+                if (paced) {
+                    due = start + (long) ((captured.offset().toNanos() - firstOffset) / speed);
+                    for (long delay = due - System.nanoTime(); delay > 0; delay = due - System.nanoTime()) {
+                        LockSupport.parkNanos(delay);
+                    }
+                } else {
+                    due = System.nanoTime();
+                }
+
+                boolean failed = false;
+                try {
+                    send(captured.request());
+                } catch (RuntimeException e) {
+                    failed = true;
+                    errors.increment();
+                }
+                long latency = System.nanoTime() - due;
+                latencies.record(latency);
+                metrics.record(captured.request().getClass(), latency, failed);
+            }
+        };
+
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = Thread.ofPlatform()
+                    .name("cqrs-replay-" + i)
+                    .daemon()
+                    .start(worker);
+        }
+        try {
+            for (Thread thread : workers) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            // Stops the workers after their current request
+            next.set(requests.size());
+            throw e;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        return new CqrsReplayReport(
+                requests.size(),
+                errors.sum(),
+                Duration.ofNanos(elapsed),
+                elapsed == 0 ? 0 : requests.size() * 1e9 / elapsed,
+                Duration.ofNanos(latencies.valueAtPercentile(0.5)),
+                Duration.ofNanos(latencies.valueAtPercentile(0.9)),
+                Duration.ofNanos(latencies.valueAtPercentile(0.99)),
+                Duration.ofNanos(latencies.valueAtPercentile(0.999)),
+                Duration.ofNanos(latencies.valueAtPercentile(1.0)),
+                metrics.snapshot().stream()
+                        .sorted(Comparator.comparing(snapshot -> snapshot.requestType().getName()))
+                        .toList());
+    }
+
+    private void send(CqrsRequest<?> request) {
+        if (request instanceof CqrsCommand<?> command) {
+            mediator.dispatch(command);
+        } else if (request instanceof CqrsQuery<?> query) {
+            mediator.send(query);
+        } else {
+            throw new IllegalArgumentException("Unsupported request type " + request.getClass().getName());
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package io.github.lefpap.mdtr.deadline;
+
+import io.github.lefpap.mdtr.annotation.CqrsTimeout;
+import io.github.lefpap.mdtr.concurrent.CqrsFutures;
+import io.github.lefpap.mdtr.exception.CqrsDeadlineExceededException;
+import io.github.lefpap.mdtr.middleware.CqrsAsyncHandlerMiddleware;
+import io.github.lefpap.mdtr.request.CqrsRequest;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Middleware enforcing the {@link CqrsDeadline deadline} of every request.
+ *
+ * <p>
+ * The deadline of a request is the earlier of the deadline of the calling thread and its default timeout,
+ * taken from the configured timeouts by request type name, or else from its {@link CqrsTimeout} annotation,
+ * or else from the default timeout. Requests without a deadline pass through untouched.
+ * </p>
+ *
+ * <p>
+ * Requests whose deadline has already passed are rejected with a {@link CqrsDeadlineExceededException}
+ * without reaching their handler, so that an overloaded application does not spend capacity on work
+ * nobody waits for any more. Otherwise the request runs with its deadline bound to the thread, so that
+ * the requests it dispatches in turn inherit what is left of the budget. A blocking handler still running
+ * at the deadline is interrupted, and fails with a {@link CqrsDeadlineExceededException} if it gives up;
+ * one that completes regardless returns its result as usual. An asynchronous execution fails with the
+ * exception at the deadline, and stages still running on other threads may notice through
+ * {@link CqrsDeadline#checkpoint()}.
+ * </p>
+ */
+public class CqrsDeadlineMiddleware implements CqrsAsyncHandlerMiddleware, AutoCloseable {
+
+    private final Map<String, Duration> timeouts;
+    private final Duration defaultTimeout;
+    private final boolean interrupt;
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    private final ClassValue<Duration> timeoutsByType = new ClassValue<>() {
+        @Override
+        protected Duration computeValue(Class<?> requestType) {
+            Duration timeout = timeouts.get(requestType.getName());
+            if (timeout == null) {
+                CqrsTimeout annotation = requestType.getAnnotation(CqrsTimeout.class);
+                timeout = annotation != null && annotation.value() > 0
+                        ? Duration.of(annotation.value(), annotation.unit())
+                        : defaultTimeout;
+            }
+            // Zero stands for no timeout
+            return timeout == null || timeout.isNegative() ? Duration.ZERO : timeout;
+        }
+    };
+
+    /**
+     * Constructs a new deadline middleware.
+     *
+     * @param timeouts       timeouts by fully qualified request type name, overriding {@link CqrsTimeout}
+     * @param defaultTimeout the timeout of request types without one, or {@code null} for none
+     * @param interrupt      whether blocking handlers still running at the deadline are interrupted
+     */
+    public CqrsDeadlineMiddleware(Map<String, Duration> timeouts, Duration defaultTimeout, boolean interrupt) {
+        this.timeouts = Map.copyOf(Objects.requireNonNull(timeouts, "Timeouts cannot be null"));
+        this.defaultTimeout = defaultTimeout;
+        this.interrupt = interrupt;
+        this.scheduler = new ScheduledThreadPoolExecutor(1, Thread.ofPlatform()
+                .name("cqrs-deadline-timer")
+                .daemon()
+                .factory());
+        // Most timers are cancelled, so keep them from piling up in the queue
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * @throws CqrsDeadlineExceededException if the deadline of the request has passed before it reached its
+     *                                       handler, or if the handler failed after being interrupted
+     */
+    @Override
+    public <T extends CqrsRequest<R>, R> R invoke(T request, Supplier<R> next) {
+        CqrsDeadline deadline = deadline(request.getClass());
+        if (deadline == null) {
+            return next.get();
+        }
+        if (deadline.isExpired()) {
+            rejected.increment();
+            throw expired(request);
+        }
+        if (!interrupt) {
+            return deadline.call(next);
+        }
+
+        var watchdog = new Watchdog(Thread.currentThread());
+        watchdog.timer = scheduler.schedule(watchdog, deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+        R result;
+        try {
+            result = deadline.call(next);
+        } catch (RuntimeException | Error e) {
+            if (watchdog.disarm() && !(e instanceof CqrsDeadlineExceededException)) {
+                timedOut.increment();
+                throw new CqrsDeadlineExceededException(
+                        "Handler of " + request.getClass().getName() + " was interrupted at its deadline", e);
+            }
+            throw e;
+        }
+        watchdog.disarm();
+        return result;
+    }
+
+    @Override
+    public <T extends CqrsRequest<R>, R> CompletableFuture<R> invokeAsync(T request, Supplier<CompletableFuture<R>> next) {
+        CqrsDeadline deadline = deadline(request.getClass());
+        if (deadline == null) {
+            return next.get();
+        }
+        if (deadline.isExpired()) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(expired(request));
+        }
+
+        CompletableFuture<R> execution = deadline.call(() -> CqrsFutures.invoke(next));
+        if (execution.isDone()) {
+            return execution;
+        }
+
+        var result = new CompletableFuture<R>();
+        ScheduledFuture<?> timer = scheduler.schedule(() -> {
+            if (result.completeExceptionally(new CqrsDeadlineExceededException(
+                    "Deadline of " + request.getClass().getName() + " passed before it completed"))) {
+                timedOut.increment();
+                execution.cancel(true);
+            }
+        }, deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+        execution.whenComplete((value, failure) -> {
+            timer.cancel(false);
+            if (failure == null) {
+                result.complete(value);
+            } else {
+                result.completeExceptionally(CqrsFutures.unwrap(failure));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns a snapshot of the rejection and timeout counters.
+     *
+     * @return the deadline statistics
+     */
+    public CqrsDeadlineStats stats() {
+        return new CqrsDeadlineStats(rejected.sum(), timedOut.sum());
+    }
+
+    /**
+     * Stops the timer thread. Running handlers are no longer interrupted at their deadline.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private CqrsDeadline deadline(Class<?> requestType) {
+        CqrsDeadline current = CqrsDeadline.current();
+        Duration timeout = timeoutsByType.get(requestType);
+        if (timeout.isZero()) {
+            return current;
+        }
+        return CqrsDeadline.after(timeout).min(current);
+    }
+
+    private static CqrsDeadlineExceededException expired(CqrsRequest<?> request) {
+        return new CqrsDeadlineExceededException(
+                "Deadline of " + request.getClass().getName() + " passed before it reached its handler");
+    }
+
+    /**
+     * Interrupts the thread running a handler at its deadline, unless it was disarmed first.
+     */
+    private static final class Watchdog implements Runnable {
+
+        private static final int ARMED = 0;
+        private static final int DISARMED = 1;
+        private static final int FIRING = 2;
+        private static final int FIRED = 3;
+
+        private final Thread thread;
+        private final AtomicInteger state = new AtomicInteger(ARMED);
+        private ScheduledFuture<?> timer;
+
+        private Watchdog(Thread thread) {
+            this.thread = thread;
+        }
+
+        @Override
+        public void run() {
+            if (state.compareAndSet(ARMED, FIRING)) {
+                thread.interrupt();
+                state.set(FIRED);
+            }
+        }
+
+        /**
+         * Disarms the watchdog, called by the handler thread once the handler has returned.
+         *
+         * @return {@code true} if the thread was interrupted at the deadline
+         */
+        boolean disarm() {
+            if (state.compareAndSet(ARMED, DISARMED)) {
+                timer.cancel(false);
+                return false;
+            }
+            while (state.get() == FIRING) {
+                Thread.onSpinWait();
+            }
+            // The interrupt was meant for the handler, so it must not leak to the caller
+            Thread.interrupted();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package io.github.lefpap.mdtr.deadline;
+
+/**
+ * Snapshot of the counters of a {@link CqrsDeadlineMiddleware}.
+ *
+ * @param rejectedCount the number of requests rejected because their deadline had passed before they
+ *                      reached their handler
+ * @param timedOutCount the number of requests whose handler was interrupted or abandoned at the deadline
+ */
+public record CqrsDeadlineStats(
+        long rejectedCount,
+        long timedOutCount
+) {
+}
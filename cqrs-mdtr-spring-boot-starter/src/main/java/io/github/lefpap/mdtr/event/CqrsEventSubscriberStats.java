@@ -0,0 +1,19 @@
+package io.github.lefpap.mdtr.event;
+
+/**
+ * Snapshot of the counters of a subscriber of a {@link RingBufferCqrsEventPublisher}.
+ *
+ * @param subscriber     the name of the subscriber
+ * @param eventType      the fully qualified name of the event type the subscriber receives
+ * @param processedCount the number of events the subscriber has handled
+ * @param failedCount    the number of events the subscriber failed to handle
+ * @param lag            the number of published events the subscriber has not reached yet, of any type
+ */
+public record CqrsEventSubscriberStats(
+        String subscriber,
+        String eventType,
+        long processedCount,
+        long failedCount,
+        long lag
+) {
+}
@@ -0,0 +1,32 @@
+package io.github.lefpap.mdtr.event;
+
+/**
+ * How the subscriber threads of a {@link RingBufferCqrsEventPublisher} wait for new events, trading
+ * latency against CPU usage.
+ */
+public enum CqrsEventWaitStrategy {
+
+    /**
+     * Waiting threads block until an event is published. Uses no CPU while idle, at the cost of waking
+     * the thread on every quiet-to-busy transition.
+     */
+    BLOCKING,
+
+    /**
+     * Waiting threads spin briefly, then yield, then sleep in short intervals. A compromise between
+     * latency and CPU usage for mostly idle subscribers.
+     */
+    SLEEPING,
+
+    /**
+     * Waiting threads spin briefly, then yield to other threads. Low latency, but every subscriber keeps
+     * a core busy while others are runnable.
+     */
+    YIELDING,
+
+    /**
+     * Waiting threads spin. The lowest latency, but every subscriber occupies a core of its own even while
+     * idle.
+     */
+    BUSY_SPIN
+}
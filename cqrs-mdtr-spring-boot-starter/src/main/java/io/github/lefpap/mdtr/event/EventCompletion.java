@@ -0,0 +1,83 @@
+package io.github.lefpap.mdtr.event;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Tracks the subscribers of an event published with {@link RingBufferCqrsEventPublisher#publishAndWait}
+ * and wakes the publishing thread once the last of them has handled it.
+ */
+final class EventCompletion {
+
+    private static final VarHandle FAILURE;
+
+    static {
+        try {
+            FAILURE = MethodHandles.lookup().findVarHandle(EventCompletion.class, "failure", Throwable.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final AtomicInteger remaining;
+    private final Thread publisher;
+    @SuppressWarnings("unused")
+    private volatile Throwable failure;
+
+    EventCompletion(int subscribers) {
+        this.remaining = new AtomicInteger(subscribers);
+        this.publisher = Thread.currentThread();
+    }
+
+    /**
+     * Records the failure of a subscriber. The first failure is rethrown to the publisher, later ones are
+     * added to it as suppressed exceptions.
+     */
+    void fail(Throwable t) {
+        if (!FAILURE.compareAndSet(this, null, t)) {
+            Throwable first = failure;
+            if (first != t) {
+                first.addSuppressed(t);
+            }
+        }
+    }
+
+    /**
+     * Records that a subscriber has handled the event.
+     */
+    void done() {
+        if (remaining.decrementAndGet() == 0) {
+            LockSupport.unpark(publisher);
+        }
+    }
+
+    /**
+     * Waits until every subscriber has handled the event, and rethrows the first failure.
+     */
+    void await() {
+        boolean interrupted = false;
+        while (remaining.get() > 0) {
+            LockSupport.park(this);
+            if (Thread.interrupted()) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        Throwable t = failure;
+        if (t instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        if (t instanceof Error error) {
+            throw error;
+        }
+        if (t != null) {
+            throw new CompletionException(t);
+        }
+    }
+}
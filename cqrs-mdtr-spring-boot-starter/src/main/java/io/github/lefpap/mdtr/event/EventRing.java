@@ -0,0 +1,221 @@
+package io.github.lefpap.mdtr.event;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A pre-allocated ring of event slots shared by many publishing threads and one thread per subscriber.
+ *
+ * <p>
+ * Publishers claim consecutive sequence numbers with a compare-and-set on the cursor, fill the slot of
+ * their sequence and mark it available. Subscriber threads follow the ring each at their own sequence and
+ * consume every available slot in order. A publisher never overtakes the slowest subscriber by more than
+ * the ring size; it waits for capacity instead.
+ * </p>
+ */
+final class EventRing {
+
+    private static final VarHandle AVAILABLE = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long SLEEP_NANOS = 100_000;
+
+    private final Slot[] slots;
+    private final int[] available;
+    private final int mask;
+    private final int shift;
+    private final CqrsEventWaitStrategy waitStrategy;
+
+    private final Sequence cursor = new Sequence(-1);
+    private final Sequence gatingCache = new Sequence(-1);
+    private volatile Sequence[] gating = new Sequence[0];
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+    private volatile int blockedWaiters;
+    private volatile boolean closed;
+
+    EventRing(int size, CqrsEventWaitStrategy waitStrategy) {
+        if (size < 1 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Ring size must be a power of two: " + size);
+        }
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+        this.available = new int[size];
+        for (int i = 0; i < size; i++) {
+            AVAILABLE.setRelease(available, i, -1);
+        }
+        this.mask = size - 1;
+        this.shift = Integer.numberOfTrailingZeros(size);
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Sets the sequences of the subscribers that publishers must not overtake.
+     */
+    void setGatingSequences(Sequence[] sequences) {
+        this.gating = sequences.clone();
+    }
+
+    int size() {
+        return slots.length;
+    }
+
+    long cursor() {
+        return cursor.get();
+    }
+
+    /**
+     * Claims the next sequence, waiting until the slowest subscriber has freed its slot.
+     */
+    long next() {
+        while (true) {
+            long current = cursor.get();
+            long next = current + 1;
+            long wrapPoint = next - slots.length;
+            long cachedGating = gatingCache.get();
+
+            if (wrapPoint > cachedGating || cachedGating > current) {
+                long gatingSequence = minimumGatingSequence(current);
+                if (wrapPoint > gatingSequence) {
+                    // The ring is full
+                    LockSupport.parkNanos(1);
+                    continue;
+                }
+                gatingCache.set(gatingSequence);
+            } else if (cursor.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    Slot slot(long sequence) {
+        return slots[(int) sequence & mask];
+    }
+
+    /**
+     * Makes the slot of a claimed sequence visible to the subscribers.
+     */
+    void publish(long sequence) {
+        AVAILABLE.setRelease(available, (int) sequence & mask, (int) (sequence >>> shift));
+        if (waitStrategy == CqrsEventWaitStrategy.BLOCKING) {
+            // Pairs with the fence in waitFor, so that either the publisher sees the waiter or the
+            // waiter sees the event
+            VarHandle.fullFence();
+            if (blockedWaiters > 0) {
+                signalAll();
+            }
+        }
+    }
+
+    /**
+     * Waits until the given sequence is available.
+     *
+     * @param sequence the next sequence to consume
+     * @return the highest sequence available without gaps, or {@code sequence - 1} once the ring is closed
+     *         and every claimed sequence has been consumed
+     */
+    long waitFor(long sequence) {
+        int tries = 0;
+        long highest;
+        while ((highest = highestPublished(sequence)) < sequence) {
+            if (closed && cursor.get() < sequence) {
+                return sequence - 1;
+            }
+            switch (waitStrategy) {
+                case BUSY_SPIN -> Thread.onSpinWait();
+                case YIELDING -> {
+                    if (tries++ < SPIN_TRIES) {
+                        Thread.onSpinWait();
+                    } else {
+                        Thread.yield();
+                    }
+                }
+                case SLEEPING -> {
+                    if (tries < SPIN_TRIES) {
+                        Thread.onSpinWait();
+                    } else if (tries < SPIN_TRIES + YIELD_TRIES) {
+                        Thread.yield();
+                    } else {
+                        LockSupport.parkNanos(SLEEP_NANOS);
+                    }
+                    tries++;
+                }
+                case BLOCKING -> block(sequence);
+            }
+        }
+        return highest;
+    }
+
+    /**
+     * Stops the subscribers once they have consumed every claimed sequence.
+     */
+    void close() {
+        closed = true;
+        signalAll();
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    private long highestPublished(long sequence) {
+        long claimed = cursor.get();
+        long next = sequence;
+        while (next <= claimed && isAvailable(next)) {
+            next++;
+        }
+        return next - 1;
+    }
+
+    private boolean isAvailable(long sequence) {
+        return (int) AVAILABLE.getAcquire(available, (int) sequence & mask) == (int) (sequence >>> shift);
+    }
+
+    private long minimumGatingSequence(long minimum) {
+        for (Sequence sequence : gating) {
+            minimum = Math.min(minimum, sequence.get());
+        }
+        return minimum;
+    }
+
+    private void block(long sequence) {
+        lock.lock();
+        try {
+            blockedWaiters++;
+            try {
+                VarHandle.fullFence();
+                while (highestPublished(sequence) < sequence && !(closed && cursor.get() < sequence)) {
+                    published.awaitUninterruptibly();
+                }
+            } finally {
+                blockedWaiters--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void signalAll() {
+        lock.lock();
+        try {
+            published.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A reusable slot of the ring, written by the publisher of its sequence before it is made available.
+     */
+    static final class Slot {
+        CqrsEvent event;
+        EventCompletion completion;
+    }
+}
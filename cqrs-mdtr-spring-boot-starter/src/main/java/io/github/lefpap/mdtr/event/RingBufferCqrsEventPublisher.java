@@ -0,0 +1,230 @@
+package io.github.lefpap.mdtr.event;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Event publisher backed by a pre-allocated ring buffer, delivering every event to each of its
+ * subscribers on a thread per subscriber.
+ *
+ * <p>
+ * Publishing claims a slot of the ring and returns without allocating, unless the slowest subscriber is a
+ * whole ring behind, in which case the publisher waits for it. Subscribers run in parallel with each other,
+ * but every subscriber receives its events one at a time, in the order they were published; events
+ * published by the same thread thus reach each subscriber in program order. Events no subscriber receives
+ * are dropped without touching the ring.
+ * </p>
+ *
+ * <p>
+ * Subscribers are added before the publisher is {@link #start() started}. Their threads wait for events
+ * according to the {@link CqrsEventWaitStrategy wait strategy}. A subscriber may publish further events,
+ * but must not {@link #publishAndWait wait} for them, and should not outpace the ring, since a publisher
+ * waiting for capacity on a subscriber thread can wait for itself.
+ * </p>
+ */
+public class RingBufferCqrsEventPublisher implements CqrsEventPublisher, AutoCloseable {
+
+    private final EventRing ring;
+    private final ThreadFactory threadFactory;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<SubscriberWorker> pending = new ArrayList<>();
+
+    private volatile SubscriberWorker[] workers;
+
+    private final ClassValue<Integer> subscriberCounts = new ClassValue<>() {
+        @Override
+        protected Integer computeValue(Class<?> eventType) {
+            int count = 0;
+            for (SubscriberWorker worker : workers) {
+                if (worker.accepts(eventType)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    };
+
+    /**
+     * Constructs a new event publisher running its subscribers on daemon platform threads.
+     *
+     * @param bufferSize   the number of slots of the ring, a power of two
+     * @param waitStrategy how subscriber threads wait for events
+     */
+    public RingBufferCqrsEventPublisher(int bufferSize, CqrsEventWaitStrategy waitStrategy) {
+        this(bufferSize, waitStrategy, Thread.ofPlatform()
+                .name("cqrs-event-", 0)
+                .daemon()
+                .factory());
+    }
+
+    /**
+     * Constructs a new event publisher.
+     *
+     * @param bufferSize    the number of slots of the ring, a power of two
+     * @param waitStrategy  how subscriber threads wait for events
+     * @param threadFactory creates the thread of every subscriber
+     */
+    public RingBufferCqrsEventPublisher(int bufferSize, CqrsEventWaitStrategy waitStrategy, ThreadFactory threadFactory) {
+        this.ring = new EventRing(bufferSize, Objects.requireNonNull(waitStrategy, "Wait strategy cannot be null"));
+        this.threadFactory = Objects.requireNonNull(threadFactory, "Thread factory cannot be null");
+    }
+
+    /**
+     * Adds a subscriber named after its class.
+     *
+     * @param eventType  the type of events the subscriber receives, subtypes included
+     * @param subscriber the subscriber
+     * @param <E>        the type of events the subscriber receives
+     * @throws IllegalStateException if the publisher has already been started
+     */
+    public <E extends CqrsEvent> void subscribe(Class<E> eventType, CqrsEventSubscriber<? super E> subscriber) {
+        subscribe(Objects.requireNonNull(subscriber, "Subscriber cannot be null").getClass().getName(), eventType, subscriber);
+    }
+
+    /**
+     * Adds a subscriber.
+     *
+     * @param name       the name of the subscriber, reported in the statistics
+     * @param eventType  the type of events the subscriber receives, subtypes included
+     * @param subscriber the subscriber
+     * @param <E>        the type of events the subscriber receives
+     * @throws IllegalStateException if the publisher has already been started
+     */
+    public <E extends CqrsEvent> void subscribe(String name, Class<E> eventType, CqrsEventSubscriber<? super E> subscriber) {
+        Objects.requireNonNull(name, "Name cannot be null");
+        Objects.requireNonNull(eventType, "Event type cannot be null");
+        Objects.requireNonNull(subscriber, "Subscriber cannot be null");
+
+        lock.lock();
+        try {
+            if (workers != null) {
+                throw new IllegalStateException("Cannot subscribe to a started event publisher");
+            }
+            pending.add(new SubscriberWorker(name, eventType, subscriber, ring));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts the thread of every subscriber. Events can be published from then on.
+     */
+    public void start() {
+        lock.lock();
+        try {
+            if (workers != null) {
+                return;
+            }
+            ring.setGatingSequences(pending.stream().map(SubscriberWorker::sequence).toArray(Sequence[]::new));
+            for (SubscriberWorker worker : pending) {
+                worker.start(threadFactory);
+            }
+            workers = pending.toArray(SubscriberWorker[]::new);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Failures of subscribers are logged.
+     *
+     * @throws IllegalStateException if the publisher is not started or already closed
+     */
+    @Override
+    public void publish(CqrsEvent event) {
+        Objects.requireNonNull(event, "Event cannot be null");
+        checkRunning();
+        if (subscriberCounts.get(event.getClass()) > 0) {
+            enqueue(event, null);
+        }
+    }
+
+    /**
+     * @throws IllegalStateException if the publisher is not started or already closed, or if called by a
+     *                               subscriber, which would wait for itself
+     */
+    @Override
+    public void publishAndWait(CqrsEvent event) {
+        Objects.requireNonNull(event, "Event cannot be null");
+        checkRunning();
+        int subscribers = subscriberCounts.get(event.getClass());
+        if (subscribers == 0) {
+            return;
+        }
+
+        Thread current = Thread.currentThread();
+        for (SubscriberWorker worker : workers) {
+            if (worker.isRunningOn(current)) {
+                throw new IllegalStateException("Subscribers cannot wait for the events they publish");
+            }
+        }
+
+        var completion = new EventCompletion(subscribers);
+        enqueue(event, completion);
+        completion.await();
+    }
+
+    /**
+     * Returns a snapshot of every subscriber, sorted by name.
+     *
+     * @return the subscriber statistics
+     */
+    public List<CqrsEventSubscriberStats> stats() {
+        SubscriberWorker[] running = workers;
+        if (running == null) {
+            return List.of();
+        }
+        List<CqrsEventSubscriberStats> stats = new ArrayList<>(running.length);
+        for (SubscriberWorker worker : running) {
+            stats.add(worker.stats());
+        }
+        stats.sort(Comparator.comparing(CqrsEventSubscriberStats::subscriber));
+        return stats;
+    }
+
+    /**
+     * Stops accepting events and waits until the subscribers have handled every published event. Events
+     * published concurrently with closing may be lost.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (ring.isClosed()) {
+                return;
+            }
+            ring.close();
+            if (workers == null) {
+                return;
+            }
+            for (SubscriberWorker worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void enqueue(CqrsEvent event, EventCompletion completion) {
+        long sequence = ring.next();
+        EventRing.Slot slot = ring.slot(sequence);
+        slot.event = event;
+        slot.completion = completion;
+        ring.publish(sequence);
+    }
+
+    private void checkRunning() {
+        if (workers == null) {
+            throw new IllegalStateException("Event publisher has not been started");
+        }
+        if (ring.isClosed()) {
+            throw new IllegalStateException("Event publisher is closed");
+        }
+    }
+}
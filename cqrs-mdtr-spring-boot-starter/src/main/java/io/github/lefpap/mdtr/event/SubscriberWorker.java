@@ -0,0 +1,107 @@
+package io.github.lefpap.mdtr.event;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Delivers the events of a ring to one subscriber, on a thread of its own and in ring order.
+ */
+final class SubscriberWorker implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(SubscriberWorker.class);
+
+    private final String name;
+    private final Class<? extends CqrsEvent> eventType;
+    private final CqrsEventSubscriber<CqrsEvent> subscriber;
+    private final EventRing ring;
+    private final Sequence sequence = new Sequence(-1);
+
+    // Written by the worker thread only
+    private volatile long processed;
+    private volatile long failed;
+    private Thread thread;
+
+    @SuppressWarnings("unchecked")
+    SubscriberWorker(String name, Class<? extends CqrsEvent> eventType, CqrsEventSubscriber<?> subscriber, EventRing ring) {
+        this.name = name;
+        this.eventType = eventType;
+        this.subscriber = (CqrsEventSubscriber<CqrsEvent>) subscriber;
+        this.ring = ring;
+    }
+
+    boolean accepts(Class<?> type) {
+        return eventType.isAssignableFrom(type);
+    }
+
+    Sequence sequence() {
+        return sequence;
+    }
+
+    void start(ThreadFactory threadFactory) {
+        thread = threadFactory.newThread(this);
+        thread.start();
+    }
+
+    boolean isRunningOn(Thread candidate) {
+        return thread == candidate;
+    }
+
+    void join() throws InterruptedException {
+        thread.join();
+    }
+
+    @Override
+    public void run() {
+        long next = sequence.get() + 1;
+        while (true) {
+            long available = ring.waitFor(next);
+            if (available < next) {
+                return;
+            }
+
+            long handled = 0;
+            long failures = 0;
+            for (long s = next; s <= available; s++) {
+                EventRing.Slot slot = ring.slot(s);
+                CqrsEvent event = slot.event;
+                if (!eventType.isInstance(event)) {
+                    continue;
+                }
+
+                EventCompletion completion = slot.completion;
+                try {
+                    subscriber.onEvent(event);
+                    handled++;
+                } catch (Throwable t) {
+                    failures++;
+                    if (completion != null) {
+                        completion.fail(t);
+                    } else {
+                        log.error("Subscriber {} failed to handle {}", name, event.getClass().getName(), t);
+                    }
+                } finally {
+                    if (completion != null) {
+                        completion.done();
+                    }
+                }
+            }
+
+            // Frees the consumed slots for the publishers
+            sequence.set(available);
+            if (handled > 0) {
+                processed += handled;
+            }
+            if (failures > 0) {
+                failed += failures;
+            }
+            next = available + 1;
+        }
+    }
+
+    CqrsEventSubscriberStats stats() {
+        return new CqrsEventSubscriberStats(name, eventType.getName(), processed, failed,
+                Math.max(0, ring.cursor() - sequence.get()));
+    }
+}
@@ -0,0 +1,195 @@
+package io.github.lefpap.mdtr.idempotency;
+
+import io.github.lefpap.mdtr.concurrent.CqrsFutures;
+import io.github.lefpap.mdtr.middleware.CqrsAsyncHandlerMiddleware;
+import io.github.lefpap.mdtr.request.CqrsIdempotentCommand;
+import io.github.lefpap.mdtr.request.CqrsRequest;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Middleware handling every {@link CqrsIdempotentCommand} only once per idempotency key.
+ *
+ * <p>
+ * The result of a successful execution is saved to the {@link CqrsIdempotencyStore}, and commands of the
+ * same type and key are answered with it for as long as the store keeps it, without reaching their
+ * handler. Commands arriving while one with the same key is in flight wait for its outcome, and receive
+ * the same result or the same exception. Failed executions are not recorded, so a command whose
+ * execution failed is handled again when retried. Commands without an idempotency key are always
+ * handled.
+ * </p>
+ *
+ * <p>
+ * Blocking callers wait on the in-flight execution, while asynchronous callers receive a future that
+ * completes with it, without blocking a thread.
+ * </p>
+ */
+public class CqrsIdempotencyMiddleware implements CqrsAsyncHandlerMiddleware {
+
+    private final CqrsIdempotencyStore store;
+    private final ConcurrentMap<Key, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+
+    private final ClassValue<Boolean> idempotent = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> requestType) {
+            return CqrsIdempotentCommand.class.isAssignableFrom(requestType);
+        }
+    };
+
+    /**
+     * Constructs a new idempotency middleware.
+     *
+     * @param store the store recording the results of commands
+     */
+    public CqrsIdempotencyMiddleware(CqrsIdempotencyStore store) {
+        this.store = Objects.requireNonNull(store, "Store cannot be null");
+    }
+
+    @Override
+    public <T extends CqrsRequest<R>, R> R invoke(T request, Supplier<R> next) {
+        String idempotencyKey = ((CqrsIdempotentCommand<?>) request).idempotencyKey();
+        if (idempotencyKey == null) {
+            return next.get();
+        }
+
+        Class<?> type = request.getClass();
+        CqrsIdempotentResult recorded = store.find(type, idempotencyKey);
+        if (recorded != null) {
+            replayed.increment();
+            //noinspection unchecked
+            return (R) recorded.value();
+        }
+
+        var key = new Key(type, idempotencyKey);
+        var execution = new CompletableFuture<R>();
+        var existing = join(key, execution);
+        if (existing != null) {
+            return CqrsFutures.join(existing);
+        }
+
+        R result;
+        try {
+            result = executeOnce(key, next);
+        } catch (Throwable t) {
+            inFlight.remove(key, execution);
+            execution.completeExceptionally(t);
+            throw t;
+        }
+        inFlight.remove(key, execution);
+        execution.complete(result);
+        return result;
+    }
+
+    @Override
+    public <T extends CqrsRequest<R>, R> CompletableFuture<R> invokeAsync(T request, Supplier<CompletableFuture<R>> next) {
+        String idempotencyKey = ((CqrsIdempotentCommand<?>) request).idempotencyKey();
+        if (idempotencyKey == null) {
+            return CqrsFutures.invoke(next);
+        }
+
+        Class<?> type = request.getClass();
+        CqrsIdempotentResult recorded;
+        try {
+            recorded = store.find(type, idempotencyKey);
+        } catch (Throwable t) {
+            return CompletableFuture.failedFuture(t);
+        }
+        if (recorded != null) {
+            replayed.increment();
+            //noinspection unchecked
+            return CompletableFuture.completedFuture((R) recorded.value());
+        }
+
+        var key = new Key(type, idempotencyKey);
+        var execution = new CompletableFuture<R>();
+        var existing = join(key, execution);
+        if (existing != null) {
+            return existing.copy();
+        }
+
+        CqrsFutures.invoke(() -> executeOnceAsync(key, next)).whenComplete((result, failure) -> {
+            inFlight.remove(key, execution);
+            if (failure != null) {
+                execution.completeExceptionally(CqrsFutures.unwrap(failure));
+            } else {
+                execution.complete(result);
+            }
+        });
+        // Callers get their own view, so cancelling one does not affect the others
+        return execution.copy();
+    }
+
+    @Override
+    public boolean applies(Class<?> requestType) {
+        return idempotent.get(requestType);
+    }
+
+    /**
+     * Returns a snapshot of the idempotency counters.
+     *
+     * @return the idempotency statistics
+     */
+    public CqrsIdempotencyStats stats() {
+        return new CqrsIdempotencyStats(executions.sum(), replayed.sum(), shared.sum(), inFlight.size());
+    }
+
+    /**
+     * Executes the command unless an execution with the same key completed since the store was checked,
+     * and records its result.
+     */
+    @SuppressWarnings("unchecked")
+    private <R> R executeOnce(Key key, Supplier<R> next) {
+        // An execution completing in between saves its result before leaving the in-flight map
+        CqrsIdempotentResult recorded = store.find(key.type(), key.idempotencyKey());
+        if (recorded != null) {
+            replayed.increment();
+            return (R) recorded.value();
+        }
+
+        executions.increment();
+        R result = next.get();
+        store.save(key.type(), key.idempotencyKey(), new CqrsIdempotentResult(result));
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R> CompletableFuture<R> executeOnceAsync(Key key, Supplier<CompletableFuture<R>> next) {
+        CqrsIdempotentResult recorded = store.find(key.type(), key.idempotencyKey());
+        if (recorded != null) {
+            replayed.increment();
+            return CompletableFuture.completedFuture((R) recorded.value());
+        }
+
+        executions.increment();
+        return CqrsFutures.invoke(next).thenApply(result -> {
+            store.save(key.type(), key.idempotencyKey(), new CqrsIdempotentResult(result));
+            return result;
+        });
+    }
+
+    /**
+     * Registers the given execution for the key, unless a command with the same key is already in flight.
+     *
+     * @return the in-flight execution of the same key, or {@code null} if the given one was registered
+     */
+    @SuppressWarnings("unchecked")
+    private <R> CompletableFuture<R> join(Key key, CompletableFuture<R> execution) {
+        var existing = (CompletableFuture<R>) inFlight.putIfAbsent(key, execution);
+        if (existing != null) {
+            shared.increment();
+        }
+        return existing;
+    }
+
+    private record Key(Class<?> type, String idempotencyKey) {
+    }
+}
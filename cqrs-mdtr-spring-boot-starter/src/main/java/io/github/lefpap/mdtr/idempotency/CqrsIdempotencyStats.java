@@ -0,0 +1,17 @@
+package io.github.lefpap.mdtr.idempotency;
+
+/**
+ * Snapshot of the counters of a {@link CqrsIdempotencyMiddleware}.
+ *
+ * @param executionCount the number of commands passed on to their handler
+ * @param replayedCount  the number of commands that received a recorded result
+ * @param sharedCount    the number of commands that waited for a concurrent command with the same key
+ * @param inFlight       the current number of in-flight executions
+ */
+public record CqrsIdempotencyStats(
+        long executionCount,
+        long replayedCount,
+        long sharedCount,
+        long inFlight
+) {
+}
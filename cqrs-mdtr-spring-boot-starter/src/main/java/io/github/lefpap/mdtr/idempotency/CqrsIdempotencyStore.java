@@ -0,0 +1,32 @@
+package io.github.lefpap.mdtr.idempotency;
+
+/**
+ * Stores the results of idempotent commands, keyed by command type and idempotency key.
+ *
+ * <p>
+ * Implementations decide how long results are kept, and may forget them at any time, in which case the
+ * next command with the same key is handled again. They must be safe for concurrent use.
+ * </p>
+ *
+ * @see InMemoryCqrsIdempotencyStore
+ */
+public interface CqrsIdempotencyStore {
+
+    /**
+     * Returns the result recorded for a command.
+     *
+     * @param commandType    the type of the command
+     * @param idempotencyKey the idempotency key of the command
+     * @return the recorded result, or {@code null} if none is recorded
+     */
+    CqrsIdempotentResult find(Class<?> commandType, String idempotencyKey);
+
+    /**
+     * Records the result of a command, replacing any result recorded for the same key.
+     *
+     * @param commandType    the type of the command
+     * @param idempotencyKey the idempotency key of the command
+     * @param result         the result
+     */
+    void save(Class<?> commandType, String idempotencyKey, CqrsIdempotentResult result);
+}
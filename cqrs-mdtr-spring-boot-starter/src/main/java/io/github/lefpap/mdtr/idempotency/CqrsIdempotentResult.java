@@ -0,0 +1,9 @@
+package io.github.lefpap.mdtr.idempotency;
+
+/**
+ * Recorded result of an idempotent command.
+ *
+ * @param value the result returned by the handler, possibly {@code null}
+ */
+public record CqrsIdempotentResult(Object value) {
+}
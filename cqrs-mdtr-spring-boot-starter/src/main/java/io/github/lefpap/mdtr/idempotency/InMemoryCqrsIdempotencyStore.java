@@ -0,0 +1,288 @@
+package io.github.lefpap.mdtr.idempotency;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Size-bounded, expiring {@link CqrsIdempotencyStore} keeping results in memory.
+ *
+ * <p>
+ * Results expire after the time to live of the store and, once the store is full, the oldest ones are
+ * evicted first. Entries are kept in independently locked segments of preallocated parallel arrays,
+ * indexed by a 64-bit hash of their command type and key in an open-addressing table of primitives, so
+ * a stored result costs little more than the result itself and looking one up allocates nothing.
+ * </p>
+ */
+public class InMemoryCqrsIdempotencyStore implements CqrsIdempotencyStore {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final int mask;
+    private final long ttlNanos;
+
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * Constructs a new in-memory store.
+     *
+     * @param maximumSize the maximum number of recorded results
+     * @param timeToLive  the time after which a recorded result is forgotten
+     */
+    public InMemoryCqrsIdempotencyStore(int maximumSize, Duration timeToLive) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+        }
+        Objects.requireNonNull(timeToLive, "Time to live cannot be null");
+        if (timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("Time to live must be positive: " + timeToLive);
+        }
+
+        int count = Math.min(MAX_SEGMENTS, Integer.highestOneBit(maximumSize));
+        this.segments = new Segment[count];
+        this.mask = count - 1;
+        this.ttlNanos = timeToLive.toNanos();
+
+        int perSegment = (int) (((long) maximumSize + count - 1) / count);
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    @Override
+    public CqrsIdempotentResult find(Class<?> commandType, String idempotencyKey) {
+        long hash = hash(commandType, idempotencyKey);
+        return segmentFor(hash).find(hash, commandType, idempotencyKey, System.nanoTime());
+    }
+
+    @Override
+    public void save(Class<?> commandType, String idempotencyKey, CqrsIdempotentResult result) {
+        Objects.requireNonNull(result, "Result cannot be null");
+        long hash = hash(commandType, idempotencyKey);
+        segmentFor(hash).save(hash, commandType, idempotencyKey, result, System.nanoTime());
+    }
+
+    /**
+     * Removes all recorded results.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * Returns the number of recorded results, including expired ones not yet removed.
+     *
+     * @return the number of recorded results
+     */
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of results evicted to make room for newer ones.
+     *
+     * @return the eviction count
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the number of results removed once expired.
+     *
+     * @return the expiration count
+     */
+    public long expirationCount() {
+        return expirations.sum();
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments[(int) (hash >>> 48) & mask];
+    }
+
+    /**
+     * Returns a 64-bit hash of the command type and key, never {@code 0}.
+     */
+    private static long hash(Class<?> commandType, String idempotencyKey) {
+        long h = 0xcbf29ce484222325L ^ commandType.hashCode();
+        for (int i = 0; i < idempotencyKey.length(); i++) {
+            h ^= idempotencyKey.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    private final class Segment {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final int capacity;
+
+        // Entries in the order they were saved, which is also the order they expire in. Removed entries
+        // leave a hole, marked by a zero hash, until they reach the head.
+        private final long[] hashes;
+        private final Class<?>[] types;
+        private final String[] keys;
+        private final CqrsIdempotentResult[] results;
+        private final long[] expiresAt;
+        private int head;
+        private int count;
+        private int live;
+
+        // Open-addressing index from hash to entry slot, with linear probing. Zero marks a free position.
+        private final long[] indexHashes;
+        private final int[] indexSlots;
+        private final int indexMask;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+            this.hashes = new long[capacity];
+            this.types = new Class<?>[capacity];
+            this.keys = new String[capacity];
+            this.results = new CqrsIdempotentResult[capacity];
+            this.expiresAt = new long[capacity];
+
+            // At most half full, so that probe sequences stay short
+            int indexSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+            this.indexHashes = new long[indexSize];
+            this.indexSlots = new int[indexSize];
+            this.indexMask = indexSize - 1;
+        }
+
+        CqrsIdempotentResult find(long hash, Class<?> type, String key, long now) {
+            lock.lock();
+            try {
+                int slot = slotOf(hash, type, key);
+                return slot < 0 || now - expiresAt[slot] >= 0 ? null : results[slot];
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void save(long hash, Class<?> type, String key, CqrsIdempotentResult result, long now) {
+            lock.lock();
+            try {
+                int existing = slotOf(hash, type, key);
+                if (existing >= 0) {
+                    // Saved again at the tail, to keep the entries in expiry order
+                    remove(existing);
+                }
+                while (count > 0 && (hashes[head] == 0 || now - expiresAt[head] >= 0)) {
+                    if (hashes[head] != 0) {
+                        expirations.increment();
+                    }
+                    removeHead();
+                }
+                if (count == capacity) {
+                    if (hashes[head] != 0) {
+                        evictions.increment();
+                    }
+                    removeHead();
+                }
+
+                int slot = (head + count) % capacity;
+                count++;
+                live++;
+                hashes[slot] = hash;
+                types[slot] = type;
+                keys[slot] = key;
+                results[slot] = result;
+                expiresAt[slot] = now + ttlNanos;
+
+                int i = (int) hash & indexMask;
+                while (indexHashes[i] != 0) {
+                    i = (i + 1) & indexMask;
+                }
+                indexHashes[i] = hash;
+                indexSlots[i] = slot;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void clear() {
+            lock.lock();
+            try {
+                Arrays.fill(hashes, 0);
+                Arrays.fill(types, null);
+                Arrays.fill(keys, null);
+                Arrays.fill(results, null);
+                Arrays.fill(indexHashes, 0);
+                head = 0;
+                count = 0;
+                live = 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return live;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int slotOf(long hash, Class<?> type, String key) {
+            for (int i = (int) hash & indexMask; indexHashes[i] != 0; i = (i + 1) & indexMask) {
+                if (indexHashes[i] == hash) {
+                    int slot = indexSlots[i];
+                    if (types[slot] == type && keys[slot].equals(key)) {
+                        return slot;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        private void removeHead() {
+            if (hashes[head] != 0) {
+                remove(head);
+            }
+            head = (head + 1) % capacity;
+            count--;
+        }
+
+        private void remove(int slot) {
+            unindex(slot);
+            hashes[slot] = 0;
+            types[slot] = null;
+            keys[slot] = null;
+            results[slot] = null;
+            live--;
+        }
+
+        private void unindex(int slot) {
+            long hash = hashes[slot];
+            int gap = (int) hash & indexMask;
+            while (indexHashes[gap] != hash || indexSlots[gap] != slot) {
+                gap = (gap + 1) & indexMask;
+            }
+            // Shifts the following positions back into the gap, unless that would move them before the
+            // position they hash to, so that probing still finds them
+            for (int i = (gap + 1) & indexMask; indexHashes[i] != 0; i = (i + 1) & indexMask) {
+                int home = (int) indexHashes[i] & indexMask;
+                if (((i - home) & indexMask) >= ((i - gap) & indexMask)) {
+                    indexHashes[gap] = indexHashes[i];
+                    indexSlots[gap] = indexSlots[i];
+                    gap = i;
+                }
+            }
+            indexHashes[gap] = 0;
+        }
+    }
+}
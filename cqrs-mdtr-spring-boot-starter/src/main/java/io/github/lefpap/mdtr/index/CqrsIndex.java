@@ -0,0 +1,128 @@
+package io.github.lefpap.mdtr.index;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Properties;
+
+/**
+ * Build-time index of handlers and middlewares, as generated by the {@code cqrs-mdtr-processor}
+ * annotation processor.
+ *
+ * <p>
+ * The indexes of every classpath entry are merged. Classes compiled without the processor are simply
+ * absent from the index, so callers must fall back to reading the annotations of beans they cannot find.
+ * </p>
+ */
+public final class CqrsIndex {
+
+    /**
+     * Location of the index files on the classpath.
+     */
+    public static final String LOCATION = "META-INF/cqrs-mdtr.index";
+
+    private static final String HANDLER_PREFIX = "handler:";
+    private static final String MIDDLEWARE_PREFIX = "middleware:";
+
+    private static final CqrsIndex EMPTY = new CqrsIndex(Map.of(), Map.of());
+
+    private final Map<String, String> requestTypes;
+    private final Map<String, Integer> middlewareOrders;
+
+    private CqrsIndex(Map<String, String> requestTypes, Map<String, Integer> middlewareOrders) {
+        this.requestTypes = requestTypes;
+        this.middlewareOrders = middlewareOrders;
+    }
+
+    /**
+     * Returns an index without entries.
+     *
+     * @return the empty index
+     */
+    public static CqrsIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Loads and merges the index files visible to the given class loader.
+     *
+     * @param classLoader the class loader, or {@code null} for the default one
+     * @return the index, empty if there is no index file
+     */
+    public static CqrsIndex load(ClassLoader classLoader) {
+        ClassLoader loader = classLoader != null ? classLoader : CqrsIndex.class.getClassLoader();
+        Map<String, String> requestTypes = new HashMap<>();
+        Map<String, Integer> middlewareOrders = new HashMap<>();
+
+        try {
+            Enumeration<URL> urls = loader.getResources(LOCATION);
+            while (urls.hasMoreElements()) {
+                URL url = urls.nextElement();
+                var properties = new Properties();
+                try (InputStream in = url.openStream()) {
+                    properties.load(in);
+                }
+
+                for (String name : properties.stringPropertyNames()) {
+                    String value = properties.getProperty(name);
+                    if (value.startsWith(HANDLER_PREFIX)) {
+                        requestTypes.put(name, value.substring(HANDLER_PREFIX.length()));
+                    } else if (value.startsWith(MIDDLEWARE_PREFIX)) {
+                        middlewareOrders.put(name, Integer.parseInt(value.substring(MIDDLEWARE_PREFIX.length())));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load " + LOCATION, e);
+        }
+
+        return requestTypes.isEmpty() && middlewareOrders.isEmpty()
+                ? EMPTY
+                : new CqrsIndex(Map.copyOf(requestTypes), Map.copyOf(middlewareOrders));
+    }
+
+    /**
+     * Returns the name of the request type handled by the given handler class.
+     *
+     * @param handlerClassName the binary name of the handler class
+     * @return the binary name of the request type, or {@code null} if the handler is not indexed
+     */
+    public String getRequestType(String handlerClassName) {
+        return requestTypes.get(handlerClassName);
+    }
+
+    /**
+     * Returns the order of a middleware.
+     *
+     * @param key the binary name of the middleware class, or {@code <configuration class>#<method>} for
+     *            middlewares declared by a {@code @Bean} method
+     * @return the order, or an empty optional if the middleware is not indexed
+     */
+    public OptionalInt getMiddlewareOrder(String key) {
+        Integer order = middlewareOrders.get(key);
+        return order == null ? OptionalInt.empty() : OptionalInt.of(order);
+    }
+
+    /**
+     * Returns the indexed handler classes with the request types they handle.
+     *
+     * @return the binary names of the request types by handler class name
+     */
+    public Map<String, String> getHandlers() {
+        return requestTypes;
+    }
+
+    /**
+     * Returns whether the index has no entries.
+     *
+     * @return {@code true} if no handler or middleware is indexed
+     */
+    public boolean isEmpty() {
+        return requestTypes.isEmpty() && middlewareOrders.isEmpty();
+    }
+}
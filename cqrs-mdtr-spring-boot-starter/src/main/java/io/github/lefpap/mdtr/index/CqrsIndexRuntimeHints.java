@@ -0,0 +1,28 @@
+package io.github.lefpap.mdtr.index;
+
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+/**
+ * Registers the runtime hints needed to run the mediator in a GraalVM native image.
+ *
+ * <p>
+ * The index files are included as resources. The indexed handler and request types are registered for
+ * reflection, so that their annotations, such as {@code @CqrsCacheable}, can still be read at runtime.
+ * </p>
+ */
+public class CqrsIndexRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(@NonNull RuntimeHints hints, @Nullable ClassLoader classLoader) {
+        hints.resources().registerPattern(CqrsIndex.LOCATION);
+
+        CqrsIndex.load(classLoader).getHandlers().forEach((handlerType, requestType) -> {
+            hints.reflection().registerType(TypeReference.of(handlerType));
+            hints.reflection().registerType(TypeReference.of(requestType));
+        });
+    }
+}
@@ -0,0 +1,94 @@
+package io.github.lefpap.mdtr.jfr;
+
+import io.github.lefpap.mdtr.request.CqrsCommand;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event spanning the handling of a request by the mediator, middlewares included.
+ *
+ * <p>
+ * The event is enabled and thresholded through the usual JFR settings under the name
+ * {@value #NAME}. When it is not being recorded, {@link #begin} costs a single enabled check.
+ * </p>
+ */
+@Name(CqrsDispatchEvent.NAME)
+@Label("CQRS Dispatch")
+@Category("CQRS Mediator")
+@Description("Handling of a command or query by the CQRS mediator")
+@StackTrace(false)
+public final class CqrsDispatchEvent extends Event {
+
+    /**
+     * Name of the event type.
+     */
+    public static final String NAME = "io.github.lefpap.mdtr.Dispatch";
+
+    private static final CqrsDispatchEvent PROBE = new CqrsDispatchEvent();
+
+    @Label("Request Type")
+    Class<?> requestType;
+
+    @Label("Handler Type")
+    Class<?> handlerType;
+
+    @Label("Kind")
+    @Description("Whether the request is a command or a query")
+    String kind;
+
+    @Label("Batch Size")
+    @Description("Number of requests handled together by a batch query handler, 1 otherwise")
+    int batchSize;
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    @Label("Exception Type")
+    Class<?> exceptionType;
+
+    /**
+     * Determines if the event is currently recorded.
+     *
+     * @return true if the event is recorded, false otherwise
+     */
+    public static boolean enabled() {
+        return PROBE.isEnabled();
+    }
+
+    /**
+     * Begins a dispatch event, if the event is currently recorded.
+     *
+     * @param requestType the type of the request
+     * @param handler     the handler of the request
+     * @param batchSize   the number of requests handled together
+     * @return the started event, or {@code null} if the event is not recorded
+     */
+    public static CqrsDispatchEvent begin(Class<?> requestType, Object handler, int batchSize) {
+        if (!enabled()) {
+            return null;
+        }
+
+        var event = new CqrsDispatchEvent();
+        event.requestType = requestType;
+        event.handlerType = handler.getClass();
+        event.kind = CqrsCommand.class.isAssignableFrom(requestType) ? "command" : "query";
+        event.batchSize = batchSize;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event with the outcome of the request and commits it.
+     *
+     * @param failure the exception the request completed with, or {@code null} if it succeeded
+     */
+    public void end(Throwable failure) {
+        succeeded = failure == null;
+        exceptionType = failure == null ? null : failure.getClass();
+        commit();
+    }
+}
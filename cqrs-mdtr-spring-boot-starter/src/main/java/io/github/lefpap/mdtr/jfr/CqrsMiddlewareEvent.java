@@ -0,0 +1,89 @@
+package io.github.lefpap.mdtr.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event spanning the invocation of a single middleware.
+ *
+ * <p>
+ * The span covers the middleware and everything it calls further down the chain, so the events of a
+ * request nest like the middlewares themselves. The event is enabled and thresholded through the usual
+ * JFR settings under the name {@value #NAME}.
+ * </p>
+ */
+@Name(CqrsMiddlewareEvent.NAME)
+@Label("CQRS Middleware")
+@Category("CQRS Mediator")
+@Description("Invocation of a middleware of the CQRS middleware pipeline")
+@StackTrace(false)
+public final class CqrsMiddlewareEvent extends Event {
+
+    /**
+     * Name of the event type.
+     */
+    public static final String NAME = "io.github.lefpap.mdtr.Middleware";
+
+    private static final CqrsMiddlewareEvent PROBE = new CqrsMiddlewareEvent();
+
+    @Label("Middleware Type")
+    Class<?> middlewareType;
+
+    @Label("Request Type")
+    Class<?> requestType;
+
+    @Label("Position")
+    @Description("Position of the middleware in the chain of the request type")
+    int position;
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    @Label("Exception Type")
+    Class<?> exceptionType;
+
+    /**
+     * Determines if the event is currently recorded.
+     *
+     * @return true if the event is recorded, false otherwise
+     */
+    public static boolean enabled() {
+        return PROBE.isEnabled();
+    }
+
+    /**
+     * Begins a middleware event, if the event is currently recorded.
+     *
+     * @param middleware  the invoked middleware
+     * @param requestType the type of the request
+     * @param position    the position of the middleware in the chain
+     * @return the started event, or {@code null} if the event is not recorded
+     */
+    public static CqrsMiddlewareEvent begin(Object middleware, Class<?> requestType, int position) {
+        if (!enabled()) {
+            return null;
+        }
+
+        var event = new CqrsMiddlewareEvent();
+        event.middlewareType = middleware.getClass();
+        event.requestType = requestType;
+        event.position = position;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event with the outcome of the middleware and commits it.
+     *
+     * @param failure the exception the middleware completed with, or {@code null} if it succeeded
+     */
+    public void end(Throwable failure) {
+        succeeded = failure == null;
+        exceptionType = failure == null ? null : failure.getClass();
+        commit();
+    }
+}
@@ -0,0 +1,478 @@
+package io.github.lefpap.mdtr.journal;
+
+import io.github.lefpap.mdtr.CqrsMediator;
+import io.github.lefpap.mdtr.codec.CqrsCodec;
+import io.github.lefpap.mdtr.exception.CqrsJournalException;
+import io.github.lefpap.mdtr.request.CqrsCommand;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of commands, stored in memory-mapped segment files of a local directory.
+ *
+ * <p>
+ * Every command is encoded with a {@link CqrsCodec} and appended with a sequence number and timestamp to
+ * the current segment. Segments are pre-allocated to a fixed size and named after the sequence number of
+ * their first command; when a command does not fit, the journal rolls over to a new segment. Appended
+ * commands survive a crash of the process; the {@link CqrsJournalFsync fsync policy} decides whether they
+ * also survive a failure of the machine.
+ * </p>
+ *
+ * <p>
+ * Commands are journaled before they are handled, so the journal also holds commands whose handler then
+ * failed; {@link #markFailed(long)} appends a marker for them, and replays skip marked commands. A command
+ * that was being handled when the process crashed carries no marker and is replayed.
+ * </p>
+ *
+ * <p>
+ * When opened on a directory with existing segments, the journal continues after the last intact command.
+ * {@link #replay(CqrsMediator, long)} dispatches journaled commands again, e.g. to rebuild state after a
+ * restart.
+ * </p>
+ */
+public class CqrsCommandJournal implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(CqrsCommandJournal.class);
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final byte[] FAILURE_MARKER = new byte[0];
+
+    private final Path directory;
+    private final CqrsCodec codec;
+    private final int segmentSize;
+    private final CqrsJournalFsync fsync;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pending = lock.newCondition();
+    private final Condition synced = lock.newCondition();
+    private final ClassValue<byte[]> typeNames = new ClassValue<>() {
+        @Override
+        protected byte[] computeValue(Class<?> type) {
+            return type.getName().getBytes(StandardCharsets.UTF_8);
+        }
+    };
+
+    private JournalSegment segment;
+    private long syncedSequence;
+    private int syncedPosition;
+    private boolean closed;
+    private CqrsJournalException syncFailure;
+    private volatile Object replaying;
+
+    /**
+     * Opens the journal in the given directory, creating the directory if needed.
+     *
+     * @param directory           the directory of the segment files
+     * @param codec               the codec encoding the commands
+     * @param segmentSize         the size of a segment file in bytes
+     * @param fsync               when appended commands are forced to the storage device
+     * @param groupCommitInterval the minimum interval between syncs with {@link CqrsJournalFsync#GROUP_COMMIT};
+     *                            zero syncs as soon as the previous sync completes
+     */
+    public CqrsCommandJournal(Path directory, CqrsCodec codec, int segmentSize, CqrsJournalFsync fsync, Duration groupCommitInterval) {
+        this.directory = Objects.requireNonNull(directory, "Directory cannot be null");
+        this.codec = Objects.requireNonNull(codec, "Codec cannot be null");
+        this.fsync = Objects.requireNonNull(fsync, "Fsync policy cannot be null");
+        if (segmentSize < 1024) {
+            throw new IllegalArgumentException("Segment size must be at least 1 KB: " + segmentSize);
+        }
+        this.segmentSize = segmentSize;
+
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new CqrsJournalException("Cannot create journal directory " + directory, e);
+        }
+
+        List<Path> segments = segments();
+        this.segment = segments.isEmpty()
+                ? JournalSegment.create(segmentPath(1), 1, segmentSize)
+                : JournalSegment.open(segments.getLast(), firstSequence(segments.getLast()));
+        this.syncedSequence = segment.getLastSequence();
+        this.syncedPosition = segment.getPosition();
+
+        if (fsync == CqrsJournalFsync.GROUP_COMMIT) {
+            Objects.requireNonNull(groupCommitInterval, "Group commit interval cannot be null");
+            if (groupCommitInterval.isNegative()) {
+                throw new IllegalArgumentException("Group commit interval cannot be negative: " + groupCommitInterval);
+            }
+            long interval = groupCommitInterval.toNanos();
+            Thread.ofPlatform()
+                    .name("cqrs-journal-sync")
+                    .daemon()
+                    .start(() -> runSyncer(interval));
+        }
+    }
+
+    /**
+     * Appends a command to the journal.
+     *
+     * <p>
+     * Returns once the command is durable according to the fsync policy. Once a group commit sync has
+     * failed, commands are no longer appended.
+     *
+     * @param command the command
+     * @return the sequence number of the command
+     * @throws CqrsJournalException if the command cannot be written or synced, or its type name is longer
+     *                              than 65535 bytes in UTF-8
+     */
+    public long append(CqrsCommand<?> command) {
+        Objects.requireNonNull(command, "Command cannot be null");
+        byte[] type = typeNames.get(command.getClass());
+        if (type.length > JournalSegment.MAX_TYPE_LENGTH) {
+            throw new CqrsJournalException("Command type name " + command.getClass().getName() + " of " + type.length
+                    + " bytes exceeds the journal limit of " + JournalSegment.MAX_TYPE_LENGTH + " bytes");
+        }
+        byte[] data = codec.encode(command);
+        int recordSize = JournalSegment.RECORD_HEADER + JournalSegment.RECORD_FIXED_BODY + type.length + data.length;
+        if (recordSize > segmentSize) {
+            throw new CqrsJournalException("Command " + command.getClass().getName() + " of " + recordSize
+                    + " bytes does not fit into a journal segment of " + segmentSize + " bytes");
+        }
+        return append(type, data, recordSize);
+    }
+
+    /**
+     * Marks a journaled command as failed, so that replays skip it.
+     *
+     * <p>
+     * The marker takes a sequence number of its own and is durable according to the fsync policy, like a
+     * command.
+     *
+     * @param sequence the sequence number of the command whose handler failed
+     * @throws CqrsJournalException if the marker cannot be written or synced
+     */
+    public void markFailed(long sequence) {
+        byte[] data = ByteBuffer.allocate(Long.BYTES).putLong(sequence).array();
+        append(FAILURE_MARKER, data, JournalSegment.RECORD_HEADER + JournalSegment.RECORD_FIXED_BODY + data.length);
+    }
+
+    private long append(byte[] type, byte[] data, int recordSize) {
+        long sequence;
+        lock.lock();
+        try {
+            if (closed) {
+                throw new CqrsJournalException("Journal " + directory + " is closed");
+            }
+            if (syncFailure != null) {
+                throw new CqrsJournalException("Journal " + directory + " failed to sync", syncFailure);
+            }
+            if (!segment.fits(recordSize)) {
+                roll();
+            }
+
+            sequence = segment.getLastSequence() + 1;
+            int offset = segment.append(sequence, System.currentTimeMillis(), type, data);
+            if (fsync == CqrsJournalFsync.EVERY_COMMAND) {
+                segment.force(offset, recordSize);
+                syncedSequence = sequence;
+                syncedPosition = segment.getPosition();
+            } else if (fsync == CqrsJournalFsync.GROUP_COMMIT) {
+                pending.signal();
+                while (syncedSequence < sequence && !closed && syncFailure == null) {
+                    synced.awaitUninterruptibly();
+                }
+                if (syncedSequence < sequence && syncFailure != null) {
+                    throw new CqrsJournalException("Command " + sequence + " of journal " + directory
+                            + " may not be durable, as the journal failed to sync", syncFailure);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return sequence;
+    }
+
+    /**
+     * Returns the sequence number of the last appended command.
+     *
+     * @return the last sequence number, or {@code 0} if the journal is empty
+     */
+    public long getLastSequence() {
+        lock.lock();
+        try {
+            return segment.getLastSequence();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads the journaled commands in order, starting at the given sequence number.
+     *
+     * <p>
+     * Commands marked as {@link #markFailed(long) failed} are read as well.
+     *
+     * @param fromSequence the sequence number of the first command to read
+     * @param consumer     receives the commands
+     * @throws CqrsJournalException if the journal cannot be read
+     */
+    public void read(long fromSequence, Consumer<CqrsJournalEntry> consumer) {
+        Objects.requireNonNull(consumer, "Consumer cannot be null");
+        List<Path> segments = segments();
+        Map<String, Class<?>> types = new HashMap<>();
+        ClassLoader classLoader = classLoader();
+
+        for (int i = 0; i < segments.size(); i++) {
+            // Skip segments whose commands all precede the requested sequence number
+            if (i + 1 < segments.size() && firstSequence(segments.get(i + 1)) <= fromSequence) {
+                continue;
+            }
+
+            JournalSegment.read(segments.get(i), (sequence, timestamp, typeName, data) -> {
+                if (sequence < fromSequence || typeName.isEmpty()) {
+                    return;
+                }
+                Class<?> type = types.computeIfAbsent(typeName, name -> loadClass(name, classLoader));
+                var command = (CqrsCommand<?>) codec.decode(data, type);
+                consumer.accept(new CqrsJournalEntry(sequence, Instant.ofEpochMilli(timestamp), command));
+            });
+        }
+    }
+
+    /**
+     * Dispatches the journaled commands again, in order, through the given mediator.
+     *
+     * <p>
+     * Replayed commands are not journaled a second time, and commands marked as {@link #markFailed(long)
+     * failed} are skipped. A command that fails again is passed to the failure handler and replay carries on
+     * with the next one; to stop the replay instead, the failure handler rethrows the exception.
+     *
+     * @param mediator       the mediator
+     * @param fromSequence   the sequence number of the first command to replay
+     * @param failureHandler receives the commands that fail, with their exception
+     * @return the number of successfully replayed commands
+     */
+    public long replay(CqrsMediator mediator, long fromSequence, BiConsumer<CqrsJournalEntry, RuntimeException> failureHandler) {
+        Objects.requireNonNull(mediator, "Mediator cannot be null");
+        Objects.requireNonNull(failureHandler, "Failure handler cannot be null");
+        Set<Long> failed = failedSequences(fromSequence);
+        long[] count = {0};
+        read(fromSequence, entry -> {
+            if (failed.contains(entry.sequence())) {
+                return;
+            }
+            CqrsCommand<?> command = entry.command();
+            replaying = command;
+            try {
+                mediator.dispatch(command);
+                count[0]++;
+            } catch (RuntimeException e) {
+                failureHandler.accept(entry, e);
+            } finally {
+                replaying = null;
+            }
+        });
+        return count[0];
+    }
+
+    /**
+     * Dispatches the journaled commands again, in order, through the given mediator, logging the commands
+     * that fail.
+     *
+     * @param mediator     the mediator
+     * @param fromSequence the sequence number of the first command to replay
+     * @return the number of successfully replayed commands
+     * @see #replay(CqrsMediator, long, BiConsumer)
+     */
+    public long replay(CqrsMediator mediator, long fromSequence) {
+        return replay(mediator, fromSequence, (entry, e) -> log.warn("Failed to replay journaled command {} ({})",
+                entry.sequence(), entry.command().getClass().getName(), e));
+    }
+
+    /**
+     * Dispatches all journaled commands again, in order, through the given mediator, logging the commands
+     * that fail.
+     *
+     * @param mediator the mediator
+     * @return the number of successfully replayed commands
+     * @see #replay(CqrsMediator, long, BiConsumer)
+     */
+    public long replay(CqrsMediator mediator) {
+        return replay(mediator, 1);
+    }
+
+    /**
+     * Returns whether the given command is currently being replayed from this journal.
+     *
+     * @param command the command
+     * @return {@code true} if the command is being replayed
+     */
+    boolean isReplaying(Object command) {
+        return replaying == command;
+    }
+
+    /**
+     * Forces the appended commands to the storage device and closes the journal.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            segment.force();
+            syncedSequence = segment.getLastSequence();
+            pending.signal();
+            synced.signalAll();
+            segment.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Set<Long> failedSequences(long fromSequence) {
+        Set<Long> failed = new HashSet<>();
+        for (Path segment : segments()) {
+            JournalSegment.read(segment, (sequence, timestamp, typeName, data) -> {
+                if (typeName.isEmpty()) {
+                    long failedSequence = ByteBuffer.wrap(data).getLong();
+                    if (failedSequence >= fromSequence) {
+                        failed.add(failedSequence);
+                    }
+                }
+            });
+        }
+        return failed;
+    }
+
+    private void runSyncer(long interval) {
+        long lastSync = System.nanoTime() - interval;
+        while (true) {
+            lock.lock();
+            try {
+                while (!closed && syncedSequence == segment.getLastSequence()) {
+                    pending.awaitUninterruptibly();
+                }
+                if (closed) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            // Appends arriving until the interval has passed share the next sync
+            long delay = lastSync + interval - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            lastSync = System.nanoTime();
+            try {
+                sync();
+            } catch (RuntimeException e) {
+                // Fails the waiting and later appends, rather than leaving them to wait for a sync
+                lock.lock();
+                try {
+                    syncFailure = new CqrsJournalException("Cannot sync journal " + directory, e);
+                    synced.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+        }
+    }
+
+    private void sync() {
+        JournalSegment current;
+        long sequence;
+        int from;
+        int to;
+        lock.lock();
+        try {
+            if (closed || syncedSequence == segment.getLastSequence()) {
+                return;
+            }
+            current = segment;
+            sequence = segment.getLastSequence();
+            from = syncedPosition;
+            to = segment.getPosition();
+        } finally {
+            lock.unlock();
+        }
+
+        // Forced outside the lock, so that appends to the same segment carry on meanwhile
+        current.force(from, to - from);
+
+        lock.lock();
+        try {
+            if (sequence > syncedSequence) {
+                syncedSequence = sequence;
+                if (current == segment) {
+                    syncedPosition = to;
+                }
+                synced.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void roll() {
+        // Previous segments are always durable, so a sync only ever needs to force the current one
+        if (fsync != CqrsJournalFsync.NONE) {
+            segment.force();
+            syncedSequence = segment.getLastSequence();
+            synced.signalAll();
+        }
+        segment.close();
+        long next = segment.getLastSequence() + 1;
+        segment = JournalSegment.create(segmentPath(next), next, segmentSize);
+        syncedPosition = 0;
+    }
+
+    private List<Path> segments() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new CqrsJournalException("Cannot list journal directory " + directory, e);
+        }
+    }
+
+    private Path segmentPath(long firstSequence) {
+        return directory.resolve(String.format("%020d%s", firstSequence, SEGMENT_SUFFIX));
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static ClassLoader classLoader() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return classLoader != null ? classLoader : CqrsCommandJournal.class.getClassLoader();
+    }
+
+    private static Class<?> loadClass(String name, ClassLoader classLoader) {
+        try {
+            return Class.forName(name, false, classLoader);
+        } catch (ClassNotFoundException e) {
+            throw new CqrsJournalException("Unknown journaled command type " + name, e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package io.github.lefpap.mdtr.journal;
+
+import io.github.lefpap.mdtr.request.CqrsCommand;
+
+import java.time.Instant;
+
+/**
+ * A command read back from the command journal.
+ *
+ * @param sequence  the sequence number of the command, starting at 1; failure markers take sequence numbers
+ *                  of their own, so those of commands are increasing but not necessarily consecutive
+ * @param timestamp when the command was journaled
+ * @param command   the decoded command
+ */
+public record CqrsJournalEntry(
+        long sequence,
+        Instant timestamp,
+        CqrsCommand<?> command
+) {
+}
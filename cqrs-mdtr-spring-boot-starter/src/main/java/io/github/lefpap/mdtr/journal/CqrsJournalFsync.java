@@ -0,0 +1,29 @@
+package io.github.lefpap.mdtr.journal;
+
+/**
+ * When the command journal forces appended commands to the storage device.
+ *
+ * <p>
+ * Commands are written to memory-mapped segments, so they survive a crash of the process under every
+ * policy. The policy decides what is lost when the machine itself fails.
+ * </p>
+ */
+public enum CqrsJournalFsync {
+
+    /**
+     * Every command is forced to the device before it is passed on to its handler.
+     */
+    EVERY_COMMAND,
+
+    /**
+     * Commands appended while a sync is in progress are forced together by the next one, at most once per
+     * group commit interval, and each command waits for the sync covering it before it is passed on to its
+     * handler.
+     */
+    GROUP_COMMIT,
+
+    /**
+     * Commands are never forced explicitly; the operating system writes them back in its own time.
+     */
+    NONE
+}
@@ -0,0 +1,56 @@
+package io.github.lefpap.mdtr.journal;
+
+import io.github.lefpap.mdtr.middleware.CqrsHandlerMiddleware;
+import io.github.lefpap.mdtr.request.CqrsCommand;
+import io.github.lefpap.mdtr.request.CqrsRequest;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Middleware appending every command to a {@link CqrsCommandJournal} before passing it on to its handler.
+ *
+ * <p>
+ * The journal is written ahead: a command is journaled, and durable according to the fsync policy, before
+ * its handler runs, and a command that cannot be journaled is not handled. When the handler fails, the
+ * command is {@link CqrsCommandJournal#markFailed(long) marked as failed}, so that replays skip it.
+ * Commands replayed from the journal are passed on without being journaled again.
+ * </p>
+ */
+public class CqrsJournalMiddleware implements CqrsHandlerMiddleware {
+
+    private final CqrsCommandJournal journal;
+
+    /**
+     * Constructs a new journal middleware.
+     *
+     * @param journal the journal the commands are appended to
+     */
+    public CqrsJournalMiddleware(CqrsCommandJournal journal) {
+        this.journal = Objects.requireNonNull(journal, "Journal cannot be null");
+    }
+
+    @Override
+    public <T extends CqrsRequest<R>, R> R invoke(T request, Supplier<R> next) {
+        if (!(request instanceof CqrsCommand<?> command) || journal.isReplaying(command)) {
+            return next.get();
+        }
+
+        long sequence = journal.append(command);
+        try {
+            return next.get();
+        } catch (RuntimeException e) {
+            try {
+                journal.markFailed(sequence);
+            } catch (RuntimeException markFailure) {
+                e.addSuppressed(markFailure);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean applies(Class<?> requestType) {
+        return CqrsCommand.class.isAssignableFrom(requestType);
+    }
+}
@@ -0,0 +1,242 @@
+package io.github.lefpap.mdtr.journal;
+
+import io.github.lefpap.mdtr.exception.CqrsJournalException;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * A pre-allocated, memory-mapped journal file holding consecutive records.
+ *
+ * <p>
+ * A record is laid out as {@code length:int crc:int sequence:long timestamp:long typeLength:short type data},
+ * where the length covers everything after the CRC and the CRC32C covers the same bytes. A record with an
+ * empty type marks the command whose sequence number it holds as data as failed. The length is
+ * written last, so a record that was torn by a crash reads either as the end of the segment (length zero)
+ * or fails its checksum; reading stops at the first such record.
+ * </p>
+ *
+ * <p>
+ * Instances are not thread-safe; the journal guards appends with its own lock.
+ * </p>
+ */
+final class JournalSegment implements AutoCloseable {
+
+    static final int RECORD_HEADER = 8;
+    static final int RECORD_FIXED_BODY = 8 + 8 + 2;
+    static final int MAX_TYPE_LENGTH = 0xFFFF;
+
+    private final Path path;
+    private final long firstSequence;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final CRC32C crc = new CRC32C();
+
+    private int position;
+    private long lastSequence;
+
+    private JournalSegment(Path path, long firstSequence, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.firstSequence = firstSequence;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.lastSequence = firstSequence - 1;
+    }
+
+    /**
+     * Creates a new segment file of the given size.
+     *
+     * @param path          the segment file, which must not exist
+     * @param firstSequence the sequence number of the first record
+     * @param size          the size of the segment in bytes
+     * @return the segment, positioned at its start
+     */
+    static JournalSegment create(Path path, long firstSequence, int size) {
+        try {
+            var channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            // Mapping beyond the end of the file extends it, so the segment is allocated up front
+            var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            return new JournalSegment(path, firstSequence, channel, buffer);
+        } catch (IOException e) {
+            throw new CqrsJournalException("Cannot create journal segment " + path, e);
+        }
+    }
+
+    /**
+     * Opens an existing segment file for appending, positioned after its last intact record.
+     *
+     * @param path          the segment file
+     * @param firstSequence the sequence number of the first record
+     * @return the segment
+     */
+    static JournalSegment open(Path path, long firstSequence) {
+        try {
+            var channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            var segment = new JournalSegment(path, firstSequence, channel, buffer);
+            segment.recover();
+            return segment;
+        } catch (IOException e) {
+            throw new CqrsJournalException("Cannot open journal segment " + path, e);
+        }
+    }
+
+    /**
+     * Reads the intact records of a segment file.
+     *
+     * @param path     the segment file
+     * @param consumer receives the sequence, timestamp, type name and data of every record
+     */
+    static void read(Path path, RecordConsumer consumer) {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            var crc = new CRC32C();
+            int position = 0;
+            int length;
+            while ((length = intactRecordLength(buffer, position, crc)) > 0) {
+                int body = position + RECORD_HEADER;
+                long sequence = buffer.getLong(body);
+                long timestamp = buffer.getLong(body + 8);
+                int typeLength = Short.toUnsignedInt(buffer.getShort(body + 16));
+                byte[] type = new byte[typeLength];
+                buffer.get(body + RECORD_FIXED_BODY, type);
+                byte[] data = new byte[length - RECORD_FIXED_BODY - typeLength];
+                buffer.get(body + RECORD_FIXED_BODY + typeLength, data);
+
+                consumer.accept(sequence, timestamp, new String(type, StandardCharsets.UTF_8), data);
+                position += RECORD_HEADER + length;
+            }
+        } catch (IOException e) {
+            throw new CqrsJournalException("Cannot read journal segment " + path, e);
+        }
+    }
+
+    /**
+     * Returns whether a record of the given size, header included, fits into the rest of the segment.
+     */
+    boolean fits(int recordSize) {
+        return recordSize <= buffer.capacity() - position;
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @param sequence  the sequence number of the record
+     * @param timestamp the timestamp of the record
+     * @param type      the encoded type name
+     * @param data      the encoded command
+     * @return the offset of the record in the segment
+     * @throws IllegalArgumentException if the type name is longer than {@value #MAX_TYPE_LENGTH} bytes
+     */
+    int append(long sequence, long timestamp, byte[] type, byte[] data) {
+        if (type.length > MAX_TYPE_LENGTH) {
+            throw new IllegalArgumentException("Type name of " + type.length + " bytes exceeds " + MAX_TYPE_LENGTH + " bytes");
+        }
+        int start = position;
+        int body = start + RECORD_HEADER;
+        int length = RECORD_FIXED_BODY + type.length + data.length;
+
+        buffer.putLong(body, sequence);
+        buffer.putLong(body + 8, timestamp);
+        buffer.putShort(body + 16, (short) type.length);
+        buffer.put(body + RECORD_FIXED_BODY, type);
+        buffer.put(body + RECORD_FIXED_BODY + type.length, data);
+
+        crc.reset();
+        crc.update(buffer.slice(body, length));
+        buffer.putInt(start + 4, (int) crc.getValue());
+        buffer.putInt(start, length);
+
+        position = body + length;
+        lastSequence = sequence;
+        return start;
+    }
+
+    /**
+     * Forces a range of the segment to the storage device.
+     */
+    void force(int offset, int length) {
+        buffer.force(offset, length);
+    }
+
+    /**
+     * Forces the whole segment to the storage device.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    long getFirstSequence() {
+        return firstSequence;
+    }
+
+    int getPosition() {
+        return position;
+    }
+
+    long getLastSequence() {
+        return lastSequence;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new CqrsJournalException("Cannot close journal segment " + path, e);
+        }
+    }
+
+    private void recover() {
+        int length;
+        while ((length = intactRecordLength(buffer, position, crc)) > 0) {
+            lastSequence = buffer.getLong(position + RECORD_HEADER);
+            position += RECORD_HEADER + length;
+        }
+
+        // Clear the remains of a torn record, so that they cannot be mistaken for records later
+        if (position + RECORD_HEADER <= buffer.capacity() && buffer.getInt(position) != 0) {
+            int i = position;
+            for (; i + 8 <= buffer.capacity(); i += 8) {
+                buffer.putLong(i, 0L);
+            }
+            for (; i < buffer.capacity(); i++) {
+                buffer.put(i, (byte) 0);
+            }
+            buffer.force();
+        }
+    }
+
+    private static int intactRecordLength(MappedByteBuffer buffer, int position, CRC32C crc) {
+        if (position + RECORD_HEADER > buffer.capacity()) {
+            return 0;
+        }
+
+        int length = buffer.getInt(position);
+        if (length < RECORD_FIXED_BODY || length > buffer.capacity() - position - RECORD_HEADER) {
+            return 0;
+        }
+
+        crc.reset();
+        crc.update(buffer.slice(position + RECORD_HEADER, length));
+        return (int) crc.getValue() == buffer.getInt(position + 4) ? length : 0;
+    }
+
+    /**
+     * Receives the records of a segment.
+     */
+    @FunctionalInterface
+    interface RecordConsumer {
+        void accept(long sequence, long timestamp, String type, byte[] data);
+    }
+}
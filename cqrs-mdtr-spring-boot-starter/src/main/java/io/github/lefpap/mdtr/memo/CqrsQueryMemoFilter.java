@@ -0,0 +1,28 @@
+package io.github.lefpap.mdtr.memo;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+
+import java.io.IOException;
+
+/**
+ * Servlet filter making every request a unit of work with its own {@link CqrsQueryMemo}.
+ *
+ * <p>
+ * The memo is bound to the thread processing the request and discarded once the filter chain returns.
+ * Work continuing on other threads, such as asynchronous request processing, only shares the memo
+ * through {@link CqrsQueryMemo#propagating} or {@link CqrsQueryMemo#capture}.
+ * </p>
+ */
+public class CqrsQueryMemoFilter implements Filter {
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        try (CqrsQueryMemo.Scope ignored = CqrsQueryMemo.open()) {
+            chain.doFilter(request, response);
+        }
+    }
+}
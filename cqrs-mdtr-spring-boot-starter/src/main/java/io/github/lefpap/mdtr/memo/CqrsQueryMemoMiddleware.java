@@ -0,0 +1,100 @@
+package io.github.lefpap.mdtr.memo;
+
+import io.github.lefpap.mdtr.concurrent.CqrsFutures;
+import io.github.lefpap.mdtr.middleware.CqrsAsyncHandlerMiddleware;
+import io.github.lefpap.mdtr.request.CqrsCommand;
+import io.github.lefpap.mdtr.request.CqrsQuery;
+import io.github.lefpap.mdtr.request.CqrsRequest;
+import io.github.lefpap.mdtr.request.CqrsStreamQuery;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Middleware answering queries from the {@link CqrsQueryMemo memo} of the current unit of work.
+ *
+ * <p>
+ * Within a unit of work, a query equal to one already answered receives the same result without reaching
+ * its handler. Every command is reported to the memo as a {@link CqrsQueryMemo#beginWrite() write}, so
+ * that queries sent while it executes, including those sent by its own handler, and after it completes,
+ * whether or not it succeeds, observe its writes. Failed queries are not memoised. Requests sent outside
+ * a unit of work, and streaming queries, pass through untouched.
+ * </p>
+ */
+public class CqrsQueryMemoMiddleware implements CqrsAsyncHandlerMiddleware {
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    private final ClassValue<Boolean> memoised = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> requestType) {
+            return CqrsCommand.class.isAssignableFrom(requestType)
+                    || CqrsQuery.class.isAssignableFrom(requestType) && !CqrsStreamQuery.class.isAssignableFrom(requestType);
+        }
+    };
+
+    @Override
+    public <T extends CqrsRequest<R>, R> R invoke(T request, Supplier<R> next) {
+        CqrsQueryMemo memo = CqrsQueryMemo.current();
+        if (memo == null) {
+            return next.get();
+        }
+
+        if (request instanceof CqrsCommand<?>) {
+            beginWrite(memo);
+            try {
+                return next.get();
+            } finally {
+                memo.endWrite();
+            }
+        }
+
+        lookups.increment();
+        return memo.memoize(request, () -> {
+            misses.increment();
+            return next.get();
+        });
+    }
+
+    @Override
+    public <T extends CqrsRequest<R>, R> CompletableFuture<R> invokeAsync(T request, Supplier<CompletableFuture<R>> next) {
+        CqrsQueryMemo memo = CqrsQueryMemo.current();
+        if (memo == null) {
+            return CqrsFutures.invoke(next);
+        }
+
+        if (request instanceof CqrsCommand<?>) {
+            beginWrite(memo);
+            return CqrsFutures.invoke(next).whenComplete((result, failure) -> memo.endWrite());
+        }
+
+        lookups.increment();
+        return memo.memoizeAsync(request, () -> {
+            misses.increment();
+            return CqrsFutures.invoke(next);
+        });
+    }
+
+    @Override
+    public boolean applies(Class<?> requestType) {
+        return memoised.get(requestType);
+    }
+
+    /**
+     * Returns a snapshot of the memo counters.
+     *
+     * @return the memo statistics
+     */
+    public CqrsQueryMemoStats stats() {
+        long missCount = misses.sum();
+        return new CqrsQueryMemoStats(Math.max(0, lookups.sum() - missCount), missCount, invalidations.sum());
+    }
+
+    private void beginWrite(CqrsQueryMemo memo) {
+        invalidations.increment();
+        memo.beginWrite();
+    }
+}
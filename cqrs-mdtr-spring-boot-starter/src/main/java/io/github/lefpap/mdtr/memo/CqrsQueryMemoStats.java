@@ -0,0 +1,15 @@
+package io.github.lefpap.mdtr.memo;
+
+/**
+ * Snapshot of the counters of a {@link CqrsQueryMemoMiddleware}.
+ *
+ * @param hitCount          the number of queries answered from the memo of their unit of work
+ * @param missCount         the number of queries passed on to their handler within a unit of work
+ * @param invalidationCount the number of commands that invalidated the memo of their unit of work
+ */
+public record CqrsQueryMemoStats(
+        long hitCount,
+        long missCount,
+        long invalidationCount
+) {
+}
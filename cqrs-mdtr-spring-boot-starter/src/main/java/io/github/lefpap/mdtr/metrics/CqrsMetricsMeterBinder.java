@@ -0,0 +1,86 @@
+package io.github.lefpap.mdtr.metrics;
+
+import io.github.lefpap.mdtr.request.CqrsCommand;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.lang.NonNull;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exposes the metrics of an {@link InMemoryCqrsMetricsRecorder} as Micrometer meters.
+ *
+ * <p>
+ * Meters are registered for every request type when its first request is recorded, tagged with the
+ * request type name and its kind ({@code command} or {@code query}):
+ * </p>
+ * <ul>
+ *     <li>{@code cqrs.requests}: a function timer with the request count and total time,</li>
+ *     <li>{@code cqrs.requests.errors}: a function counter of failed requests,</li>
+ *     <li>{@code cqrs.requests.max}: a time gauge of the longest recent request,</li>
+ *     <li>{@code cqrs.requests.latency}: time gauges of the 50th, 95th and 99th percentile recent
+ *     latencies.</li>
+ * </ul>
+ *
+ * <p>
+ * The meters read the recorder's counters when they are published, so binding adds no cost to
+ * dispatching.
+ * </p>
+ */
+public class CqrsMetricsMeterBinder implements MeterBinder {
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final InMemoryCqrsMetricsRecorder recorder;
+
+    /**
+     * Constructs a new binder for the given recorder.
+     *
+     * @param recorder the metrics recorder
+     */
+    public CqrsMetricsMeterBinder(@NonNull InMemoryCqrsMetricsRecorder recorder) {
+        this.recorder = Objects.requireNonNull(recorder, "Metrics recorder cannot be null");
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        recorder.onNewRequestType(metrics -> bind(registry, metrics));
+    }
+
+    private static void bind(MeterRegistry registry, CqrsRequestMetrics metrics) {
+        Class<?> requestType = metrics.requestType();
+        Tags tags = Tags.of(
+                "request", requestType.getName(),
+                "kind", CqrsCommand.class.isAssignableFrom(requestType) ? "command" : "query"
+        );
+
+        FunctionTimer.builder("cqrs.requests", metrics, CqrsRequestMetrics::count, CqrsRequestMetrics::totalNanos, TimeUnit.NANOSECONDS)
+                .description("Requests handled by the CQRS mediator")
+                .tags(tags)
+                .register(registry);
+
+        FunctionCounter.builder("cqrs.requests.errors", metrics, CqrsRequestMetrics::errorCount)
+                .description("Requests that completed with an exception")
+                .tags(tags)
+                .register(registry);
+
+        TimeGauge.builder("cqrs.requests.max", metrics, TimeUnit.NANOSECONDS, CqrsRequestMetrics::maxNanos)
+                .description("Longest time spent handling a single recent request")
+                .tags(tags)
+                .register(registry);
+
+        for (double percentile : PERCENTILES) {
+            TimeGauge.builder("cqrs.requests.latency", metrics, TimeUnit.NANOSECONDS,
+                            m -> m.latencies().valueAtPercentile(percentile))
+                    .description("Recent request latency percentiles")
+                    .tags(tags)
+                    .tag("percentile", String.valueOf(percentile))
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package io.github.lefpap.mdtr.partition;
+
+import io.github.lefpap.mdtr.concurrent.CqrsFutures;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Executor running tasks with equal partition keys one at a time, in submission order.
+ *
+ * <p>
+ * Keys are hashed onto a fixed number of shards, each served by a single worker thread, so tasks of the
+ * same key never run concurrently while tasks of different shards run in parallel. Tasks are handed to a
+ * shard through a lock-free queue, and ordering is defined by the order in which they are submitted.
+ * </p>
+ *
+ * <p>
+ * Tasks submitted or executed from the worker thread of their own shard are queued behind the tasks
+ * already waiting there, like any other. Only {@link #call} runs its task immediately in that thread, as
+ * waiting for a task queued behind the running one would never complete; such a task therefore runs
+ * ahead of the tasks already waiting in the shard. Worker threads are only started once their shard gets
+ * its first task.
+ * </p>
+ *
+ * <p>
+ * A task calling into another shard blocks its own shard meanwhile. When two shards would end up waiting for
+ * each other, directly or through further shards, the call closing the cycle is rejected instead of
+ * deadlocking. Futures returned by {@link #submit} get no such protection when waited for from a worker
+ * thread.
+ * </p>
+ */
+public class CqrsPartitionedExecutor implements AutoCloseable {
+
+    private final PartitionLane[] lanes;
+
+    /**
+     * Constructs a new executor with one daemon platform thread per shard.
+     *
+     * @param shards the number of shards
+     */
+    public CqrsPartitionedExecutor(int shards) {
+        this(shards, defaultThreadFactory());
+    }
+
+    /**
+     * Constructs a new executor.
+     *
+     * @param shards        the number of shards
+     * @param threadFactory creates the worker thread of a shard
+     * @throws IllegalArgumentException if the number of shards is not positive
+     */
+    public CqrsPartitionedExecutor(int shards, ThreadFactory threadFactory) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("Shards must be positive: " + shards);
+        }
+        Objects.requireNonNull(threadFactory, "Thread factory cannot be null");
+
+        this.lanes = new PartitionLane[shards];
+        for (int i = 0; i < shards; i++) {
+            lanes[i] = new PartitionLane(threadFactory);
+        }
+    }
+
+    /**
+     * Runs a task in the shard of the given key and waits for its outcome.
+     *
+     * <p>
+     * Called from the worker thread of the same shard, e.g. by a handler dispatching a command of its own
+     * partition, the task runs immediately in the calling thread instead.
+     * </p>
+     *
+     * @param key  the partition key
+     * @param task the task
+     * @param <R>  the type of the result
+     * @return the result of the task
+     * @throws java.util.concurrent.RejectedExecutionException if the executor is closed, or if called from
+     *                                                         a worker thread whose shard the target shard
+     *                                                         waits for
+     */
+    public <R> R call(Object key, Supplier<R> task) {
+        Objects.requireNonNull(task, "Task cannot be null");
+
+        PartitionLane lane = laneOf(key);
+        if (lane.isWorkerThread()) {
+            return task.get();
+        }
+
+        PartitionLane current = PartitionLane.current();
+        if (current == null) {
+            return CqrsFutures.join(enqueue(lane, task));
+        }
+        current.beginWait(lane, lanes.length);
+        try {
+            // The wait ends with the task, before the target shard moves on to tasks that may call back
+            return CqrsFutures.join(enqueue(lane, () -> {
+                try {
+                    return task.get();
+                } finally {
+                    current.endWait();
+                }
+            }));
+        } finally {
+            current.endWait();
+        }
+    }
+
+    /**
+     * Submits a task to the shard of the given key. The returned future must not be waited for from the
+     * worker thread of the same shard, since the task only runs once the current one has completed.
+     *
+     * @param key  the partition key
+     * @param task the task
+     * @param <R>  the type of the result
+     * @return a future completed with the outcome of the task
+     * @throws java.util.concurrent.RejectedExecutionException if the executor is closed
+     */
+    public <R> CompletableFuture<R> submit(Object key, Supplier<R> task) {
+        Objects.requireNonNull(task, "Task cannot be null");
+
+        return enqueue(laneOf(key), task);
+    }
+
+    /**
+     * Executes a task in the shard of the given key, without tracking its outcome. Exceptions thrown by
+     * the task are logged.
+     *
+     * @param key  the partition key
+     * @param task the task
+     * @throws java.util.concurrent.RejectedExecutionException if the executor is closed
+     */
+    public void execute(Object key, Runnable task) {
+        Objects.requireNonNull(task, "Task cannot be null");
+
+        laneOf(key).execute(task);
+    }
+
+    /**
+     * Returns the number of shards.
+     *
+     * @return the number of shards
+     */
+    public int getShards() {
+        return lanes.length;
+    }
+
+    /**
+     * Returns the number of tasks waiting in all shards.
+     *
+     * @return the number of pending tasks
+     */
+    public int getPendingTasks() {
+        int pending = 0;
+        for (PartitionLane lane : lanes) {
+            pending += lane.pendingTasks();
+        }
+        return pending;
+    }
+
+    /**
+     * Stops accepting tasks. The worker threads exit once they have run the tasks already submitted.
+     */
+    @Override
+    public void close() {
+        for (PartitionLane lane : lanes) {
+            lane.close();
+        }
+    }
+
+    private static <R> CompletableFuture<R> enqueue(PartitionLane lane, Supplier<R> task) {
+        var future = new CompletableFuture<R>();
+        lane.execute(() -> {
+            try {
+                future.complete(task.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    private PartitionLane laneOf(Object key) {
+        Objects.requireNonNull(key, "Partition key cannot be null");
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return lanes[Math.floorMod(h, lanes.length)];
+    }
+
+    private static ThreadFactory defaultThreadFactory() {
+        var counter = new AtomicInteger();
+        return runnable -> Thread.ofPlatform()
+                .name("cqrs-partition-" + counter.getAndIncrement())
+                .daemon()
+                .unstarted(runnable);
+    }
+}
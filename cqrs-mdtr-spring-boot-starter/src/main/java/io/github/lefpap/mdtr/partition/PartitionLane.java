@@ -0,0 +1,160 @@
+package io.github.lefpap.mdtr.partition;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A single-writer lane: one worker thread draining a lock-free multi-producer queue.
+ *
+ * <p>
+ * Producers enqueue and only unpark the worker when it announced that it is about to park, so a busy
+ * lane is handed tasks without any lock or system call. The worker thread is started with the first
+ * task. Once closed, the worker runs the tasks accepted so far before it exits, and tasks offered
+ * concurrently with the close are either run or rejected.
+ * </p>
+ */
+final class PartitionLane implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionLane.class);
+    private static final ThreadLocal<PartitionLane> CURRENT = new ThreadLocal<>();
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final ThreadFactory threadFactory;
+    private final ReentrantLock startLock = new ReentrantLock();
+
+    private volatile Thread worker;
+    private volatile boolean parked;
+    private volatile boolean closed;
+    // The lane whose task the worker of this lane is blocked on, if any
+    private volatile PartitionLane waitingOn;
+
+    PartitionLane(ThreadFactory threadFactory) {
+        this.threadFactory = threadFactory;
+    }
+
+    void execute(Runnable task) {
+        if (closed) {
+            throw new RejectedExecutionException("Partitioned executor is closed");
+        }
+        tasks.offer(task);
+        // The worker may have seen the lane empty and exited since the check above
+        if (closed && tasks.remove(task)) {
+            throw new RejectedExecutionException("Partitioned executor is closed");
+        }
+
+        Thread thread = worker;
+        if (thread == null) {
+            start();
+        } else if (parked) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    boolean isWorkerThread() {
+        return Thread.currentThread() == worker;
+    }
+
+    int pendingTasks() {
+        return tasks.size();
+    }
+
+    /**
+     * Returns the lane whose worker is the current thread.
+     *
+     * @return the lane, or {@code null} if the current thread is not a worker
+     */
+    static PartitionLane current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Marks the worker of this lane as blocked on a task of the given lane.
+     *
+     * @param target   the lane the worker waits for
+     * @param maxLanes the number of lanes, bounding the search for a cycle
+     * @throws RejectedExecutionException if the target lane waits, directly or through other lanes, for this
+     *                                    one, so that waiting would never complete
+     */
+    void beginWait(PartitionLane target, int maxLanes) {
+        // Published before the search, so that of two lanes closing a cycle at least one sees the other
+        waitingOn = target;
+        PartitionLane lane = target;
+        for (int i = 0; i < maxLanes && lane != null; i++, lane = lane.waitingOn) {
+            if (lane == this) {
+                waitingOn = null;
+                throw new RejectedExecutionException("Partitioned task would deadlock: its shard and the shard it"
+                        + " calls wait for each other");
+            }
+        }
+    }
+
+    /**
+     * Marks the worker of this lane as no longer blocked.
+     */
+    void endWait() {
+        waitingOn = null;
+    }
+
+    void close() {
+        closed = true;
+        Thread thread = worker;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    @Override
+    public void run() {
+        CURRENT.set(this);
+        while (true) {
+            Runnable task = tasks.poll();
+            if (task != null) {
+                runSafely(task);
+                continue;
+            }
+            if (closed) {
+                // Tasks offered before the close was seen are still run
+                if (tasks.isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+
+            // Announce the park before the final emptiness check, so a concurrent producer either
+            // sees the flag or its task is seen here
+            parked = true;
+            if (tasks.isEmpty() && !closed) {
+                LockSupport.park(this);
+            }
+            parked = false;
+        }
+    }
+
+    private void start() {
+        startLock.lock();
+        try {
+            if (worker == null) {
+                Thread thread = threadFactory.newThread(this);
+                worker = thread;
+                thread.start();
+            }
+        } finally {
+            startLock.unlock();
+        }
+    }
+
+    private static void runSafely(Runnable task) {
+        try {
+            task.run();
+        } catch (Throwable t) {
+            log.error("Partitioned task failed", t);
+        }
+    }
+}
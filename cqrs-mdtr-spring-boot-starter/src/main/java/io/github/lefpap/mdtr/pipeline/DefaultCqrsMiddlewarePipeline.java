@@ -1,12 +1,19 @@
 package io.github.lefpap.mdtr.pipeline;
 
+import io.github.lefpap.mdtr.concurrent.CqrsFutures;
+import io.github.lefpap.mdtr.handler.CqrsAsyncRequestHandler;
 import io.github.lefpap.mdtr.handler.CqrsRequestHandler;
+import io.github.lefpap.mdtr.jfr.CqrsMiddlewareEvent;
+import io.github.lefpap.mdtr.middleware.CqrsAsyncHandlerMiddleware;
 import io.github.lefpap.mdtr.middleware.CqrsHandlerMiddleware;
 import io.github.lefpap.mdtr.middleware.CqrsMiddlewarePipeline;
 import io.github.lefpap.mdtr.request.CqrsRequest;
+import io.github.lefpap.mdtr.sampling.CqrsRequestTrace;
 
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Supplier;
 
 /**
@@ -17,10 +24,37 @@ import java.util.function.Supplier;
  * It allows for the addition of global, command-specific, and query-specific middleware
  * to the pipeline, ensuring extensibility and modularity in request handling.
  * </p>
+ *
+ * <p>
+ * The chain of applicable middlewares is resolved once per concrete request type and cached,
+ * so steady-state executions do not filter or allocate intermediate collections. Middlewares
+ * that override {@link CqrsHandlerMiddleware#applies(CqrsRequest)} are still checked against
+ * every request instance.
+ * </p>
+ *
+ * <p>
+ * Asynchronous executions hand {@link CqrsAsyncHandlerMiddleware} instances the rest of the chain as a
+ * future. Plain middlewares and handlers are moved to the executor once and then run inline, so a
+ * chain of blocking stages occupies a single executor thread.
+ * </p>
+ *
+ * <p>
+ * While a JDK Flight Recorder recording has the {@link CqrsMiddlewareEvent} enabled, every middleware
+ * invocation is emitted as an event. Synchronous executions traced by a request sampler report the time
+ * spent in every middleware and in the handler to their {@link CqrsRequestTrace}.
+ * </p>
  */
 public class DefaultCqrsMiddlewarePipeline implements CqrsMiddlewarePipeline {
 
     private final List<CqrsHandlerMiddleware> middlewares;
+    private final boolean[] perRequestChecks;
+
+    private final ClassValue<MiddlewareChain> chains = new ClassValue<>() {
+        @Override
+        protected MiddlewareChain computeValue(Class<?> requestType) {
+            return MiddlewareChain.resolve(middlewares, perRequestChecks, requestType);
+        }
+    };
 
     /**
      * Constructs a new instance of the middleware pipeline with the specified middlewares.
@@ -31,14 +65,19 @@ public class DefaultCqrsMiddlewarePipeline implements CqrsMiddlewarePipeline {
         this.middlewares = Objects.isNull(middlewares)
                 ? List.of()
                 : List.copyOf(middlewares);
+
+        this.perRequestChecks = new boolean[this.middlewares.size()];
+        for (int i = 0; i < perRequestChecks.length; i++) {
+            perRequestChecks[i] = MiddlewareChain.requiresPerRequestCheck(this.middlewares.get(i));
+        }
     }
 
     /**
      * Executes a CQRS request through the middleware pipeline.
      *
      * <p>
-     * The pipeline filters applicable middleware for the given request and chains their execution.
-     * Each middleware can process the request and decide whether to pass it to the next middleware
+     * The pipeline looks up the applicable middleware for the type of the given request and chains their
+     * execution. Each middleware can process the request and decide whether to pass it to the next middleware
      * or terminate the chain.
      *
      * @param request the request to be executed
@@ -49,22 +88,147 @@ public class DefaultCqrsMiddlewarePipeline implements CqrsMiddlewarePipeline {
      */
     @Override
     public <T extends CqrsRequest<R>, R> R execute(T request, CqrsRequestHandler<T, R> handler) {
-
-        Supplier<R> invocation = () -> handler.handle(request);
         if (middlewares.isEmpty()) {
-            return invocation.get();
+            return handler.handle(request);
+        }
+
+        MiddlewareChain chain = chains.get(request.getClass());
+        if (chain.isEmpty()) {
+            return handler.handle(request);
+        }
+
+        return new Invocation<>(chain, 0, request, handler).get();
+    }
+
+    /**
+     * Executes a CQRS request asynchronously through the middleware pipeline.
+     *
+     * @param request  the request to be executed
+     * @param handler  the handler responsible for processing the request
+     * @param executor the executor used for blocking middlewares and handlers
+     * @param <T>      the type of the request, extending {@link CqrsRequest}
+     * @param <R>      the type of the result produced by the request
+     * @return a future completed with the result of executing the request through the pipeline
+     */
+    @Override
+    public <T extends CqrsRequest<R>, R> CompletableFuture<R> executeAsync(T request, CqrsRequestHandler<T, R> handler, Executor executor) {
+        MiddlewareChain chain = middlewares.isEmpty()
+                ? MiddlewareChain.EMPTY
+                : chains.get(request.getClass());
+
+        return new AsyncInvocation<>(chain, 0, request, handler, executor, false).get();
+    }
+
+    /**
+     * Continuation of the chain starting at a given index.
+     *
+     * <p>
+     * Instances are immutable, so a middleware may invoke its continuation more than once.
+     */
+    private record Invocation<T extends CqrsRequest<R>, R>(
+            MiddlewareChain chain,
+            int index,
+            T request,
+            CqrsRequestHandler<T, R> handler
+    ) implements Supplier<R> {
+
+        @Override
+        public R get() {
+            for (int i = index; i < chain.size(); i++) {
+                if (chain.applies(i, request)) {
+                    return invoke(chain.get(i), i, new Invocation<>(chain, i + 1, request, handler));
+                }
+            }
+            return CqrsRequestTrace.handle(request, handler);
+        }
+
+        private R invoke(CqrsHandlerMiddleware middleware, int position, Supplier<R> next) {
+            var event = CqrsMiddlewareEvent.begin(middleware, request.getClass(), position);
+            var trace = CqrsRequestTrace.current(request);
+            if (event == null && trace == null) {
+                return middleware.invoke(request, next);
+            }
+
+            int slot = trace == null ? -1 : trace.enter(middleware);
+            Throwable failure = null;
+            try {
+                return middleware.invoke(request, next);
+            } catch (Throwable t) {
+                failure = t;
+                throw t;
+            } finally {
+                if (trace != null) {
+                    trace.exit(slot);
+                }
+                if (event != null) {
+                    event.end(failure);
+                }
+            }
         }
+    }
 
-        List<CqrsHandlerMiddleware> chain = middlewares.stream()
-                .filter(mw -> mw.applies(request))
-                .toList();
+    /**
+     * Asynchronous continuation of the chain starting at a given index.
+     *
+     * <p>
+     * {@code offloaded} is set when the continuation is invoked from a blocking stage that already runs
+     * on the executor, in which case blocking stages are run inline instead of being submitted again.
+     */
+    private record AsyncInvocation<T extends CqrsRequest<R>, R>(
+            MiddlewareChain chain,
+            int index,
+            T request,
+            CqrsRequestHandler<T, R> handler,
+            Executor executor,
+            boolean offloaded
+    ) implements Supplier<CompletableFuture<R>> {
+
+        @Override
+        public CompletableFuture<R> get() {
+            for (int i = index; i < chain.size(); i++) {
+                if (!chain.applies(i, request)) {
+                    continue;
+                }
+
+                CqrsHandlerMiddleware middleware = chain.get(i);
+                if (middleware instanceof CqrsAsyncHandlerMiddleware asyncMiddleware) {
+                    var next = new AsyncInvocation<>(chain, i + 1, request, handler, executor, false);
+                    var event = CqrsMiddlewareEvent.begin(middleware, request.getClass(), i);
+                    var future = CqrsFutures.invoke(() -> asyncMiddleware.invokeAsync(request, next));
+                    if (event != null) {
+                        future.whenComplete((result, failure) -> event.end(CqrsFutures.unwrap(failure)));
+                    }
+                    return future;
+                }
 
-        for (int i = chain.size() - 1; i >= 0; i--) {
-            CqrsHandlerMiddleware middleware = chain.get(i);
-            Supplier<R> next = invocation;
-            invocation = () -> middleware.invoke(request, next);
+                var next = new AsyncInvocation<>(chain, i + 1, request, handler, executor, true);
+                int position = i;
+                return run(() -> {
+                    var event = CqrsMiddlewareEvent.begin(middleware, request.getClass(), position);
+                    Throwable failure = null;
+                    try {
+                        return middleware.invoke(request, () -> CqrsFutures.join(next.get()));
+                    } catch (Throwable t) {
+                        failure = t;
+                        throw t;
+                    } finally {
+                        if (event != null) {
+                            event.end(failure);
+                        }
+                    }
+                });
+            }
+
+            if (handler instanceof CqrsAsyncRequestHandler<T, R> asyncHandler) {
+                return CqrsFutures.invoke(() -> asyncHandler.handleAsync(request));
+            }
+            return run(() -> handler.handle(request));
         }
 
-        return invocation.get();
+        private CompletableFuture<R> run(Supplier<R> stage) {
+            return offloaded
+                    ? CqrsFutures.supply(stage)
+                    : CompletableFuture.supplyAsync(stage, executor);
+        }
     }
 }
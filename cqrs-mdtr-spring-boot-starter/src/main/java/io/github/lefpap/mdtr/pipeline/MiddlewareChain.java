@@ -0,0 +1,110 @@
+package io.github.lefpap.mdtr.pipeline;
+
+import io.github.lefpap.mdtr.middleware.CqrsHandlerMiddleware;
+import io.github.lefpap.mdtr.request.CqrsRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable, pre-resolved chain of the middlewares applicable to a single request type.
+ *
+ * <p>
+ * Middlewares that decide applicability by type are filtered once, when the chain is built.
+ * Middlewares that override {@link CqrsHandlerMiddleware#applies(CqrsRequest)} are kept in the
+ * chain and checked against each request instance at execution time.
+ * </p>
+ */
+final class MiddlewareChain {
+
+    static final MiddlewareChain EMPTY = new MiddlewareChain(new CqrsHandlerMiddleware[0], null);
+
+    private final CqrsHandlerMiddleware[] middlewares;
+    private final boolean[] perRequestChecks;
+
+    private MiddlewareChain(CqrsHandlerMiddleware[] middlewares, boolean[] perRequestChecks) {
+        this.middlewares = middlewares;
+        this.perRequestChecks = perRequestChecks;
+    }
+
+    /**
+     * Resolves the chain of middlewares applicable to the given request type.
+     *
+     * @param middlewares      the ordered middlewares of the pipeline
+     * @param perRequestChecks flags marking the middlewares that need a per-request check
+     * @param requestType      the concrete request type
+     * @return the resolved chain
+     */
+    static MiddlewareChain resolve(List<CqrsHandlerMiddleware> middlewares, boolean[] perRequestChecks, Class<?> requestType) {
+        List<CqrsHandlerMiddleware> applicable = new ArrayList<>(middlewares.size());
+        List<Boolean> checks = new ArrayList<>(middlewares.size());
+        boolean dynamic = false;
+
+        for (int i = 0; i < middlewares.size(); i++) {
+            CqrsHandlerMiddleware middleware = middlewares.get(i);
+            if (perRequestChecks[i]) {
+                applicable.add(middleware);
+                checks.add(true);
+                dynamic = true;
+            } else if (middleware.applies(requestType)) {
+                applicable.add(middleware);
+                checks.add(false);
+            }
+        }
+
+        if (applicable.isEmpty()) {
+            return EMPTY;
+        }
+
+        boolean[] flags = null;
+        if (dynamic) {
+            flags = new boolean[checks.size()];
+            for (int i = 0; i < flags.length; i++) {
+                flags[i] = checks.get(i);
+            }
+        }
+
+        return new MiddlewareChain(applicable.toArray(CqrsHandlerMiddleware[]::new), flags);
+    }
+
+    /**
+     * Determines if the given middleware overrides the per-request applicability check.
+     *
+     * @param middleware the middleware to inspect
+     * @return true if the middleware must be checked against each request instance
+     */
+    static boolean requiresPerRequestCheck(CqrsHandlerMiddleware middleware) {
+        try {
+            return middleware.getClass()
+                    .getMethod("applies", CqrsRequest.class)
+                    .getDeclaringClass() != CqrsHandlerMiddleware.class;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+
+    boolean isEmpty() {
+        return middlewares.length == 0;
+    }
+
+    int size() {
+        return middlewares.length;
+    }
+
+    CqrsHandlerMiddleware get(int index) {
+        return middlewares[index];
+    }
+
+    /**
+     * Determines if the middleware at the given index applies to the given request.
+     *
+     * @param index   the index of the middleware in the chain
+     * @param request the request being executed
+     * @return true if the middleware applies, false otherwise
+     */
+    boolean applies(int index, CqrsRequest<?> request) {
+        return perRequestChecks == null
+                || !perRequestChecks[index]
+                || middlewares[index].applies(request);
+    }
+}
@@ -1,9 +1,14 @@
 package io.github.lefpap.mdtr.pipeline;
 
+import io.github.lefpap.mdtr.concurrent.CqrsFutures;
+import io.github.lefpap.mdtr.handler.CqrsAsyncRequestHandler;
 import io.github.lefpap.mdtr.handler.CqrsRequestHandler;
 import io.github.lefpap.mdtr.middleware.CqrsMiddlewarePipeline;
 import io.github.lefpap.mdtr.request.CqrsRequest;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 /**
  * A no-operation implementation of the {@link CqrsMiddlewarePipeline} interface.
  * This class is used when no middleware is needed in the pipeline.
@@ -18,4 +23,18 @@ public class NoopCqrsMiddlewarePipeline implements CqrsMiddlewarePipeline {
     public <T extends CqrsRequest<R>, R> R execute(T request, CqrsRequestHandler<T, R> handler) {
         return handler.handle(request);
     }
+
+    /**
+     * No operation implementation of the executeAsync method.
+     *
+     * <p>
+     * Asynchronous handlers are invoked directly, other handlers are run on the given executor.
+     */
+    @Override
+    public <T extends CqrsRequest<R>, R> CompletableFuture<R> executeAsync(T request, CqrsRequestHandler<T, R> handler, Executor executor) {
+        if (handler instanceof CqrsAsyncRequestHandler<T, R> asyncHandler) {
+            return CqrsFutures.invoke(() -> asyncHandler.handleAsync(request));
+        }
+        return CompletableFuture.supplyAsync(() -> handler.handle(request), executor);
+    }
 }
@@ -5,6 +5,7 @@ import io.github.lefpap.mdtr.handler.CqrsQueryHandler;
 import io.github.lefpap.mdtr.request.CqrsCommand;
 import io.github.lefpap.mdtr.request.CqrsQuery;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
 
 import java.util.Map;
 import java.util.Optional;
@@ -75,4 +76,38 @@ public interface CqrsHandlerRegistry {
      * @return an optional containing the query handler if found, otherwise empty
      */
     <Q extends CqrsQuery<R>, R> Optional<CqrsQueryHandler<Q, R>> getQueryHandler(@NonNull Class<Q> queryType);
+
+    /**
+     * Retrieves a command handler for a specific command type without wrapping it in an {@link Optional}.
+     *
+     * <p>
+     * This is the lookup used on the dispatch path. The default implementation delegates to
+     * {@link #getCommandHandler(Class)}.
+     *
+     * @param commandType the command type
+     * @param <C>         the command type
+     * @param <R>         the result type
+     * @return the command handler, or {@code null} if none is found
+     */
+    @Nullable
+    default <C extends CqrsCommand<R>, R> CqrsCommandHandler<C, R> findCommandHandler(@NonNull Class<C> commandType) {
+        return this.<C, R>getCommandHandler(commandType).orElse(null);
+    }
+
+    /**
+     * Retrieves a query handler for a specific query type without wrapping it in an {@link Optional}.
+     *
+     * <p>
+     * This is the lookup used on the send path. The default implementation delegates to
+     * {@link #getQueryHandler(Class)}.
+     *
+     * @param queryType the query type
+     * @param <Q>       the query type
+     * @param <R>       the result type
+     * @return the query handler, or {@code null} if none is found
+     */
+    @Nullable
+    default <Q extends CqrsQuery<R>, R> CqrsQueryHandler<Q, R> findQueryHandler(@NonNull Class<Q> queryType) {
+        return this.<Q, R>getQueryHandler(queryType).orElse(null);
+    }
 }
@@ -0,0 +1,184 @@
+package io.github.lefpap.mdtr.registry;
+
+import io.github.lefpap.mdtr.handler.CqrsAsyncCommandHandler;
+import io.github.lefpap.mdtr.handler.CqrsAsyncQueryHandler;
+import io.github.lefpap.mdtr.handler.CqrsBatchCommandHandler;
+import io.github.lefpap.mdtr.handler.CqrsBatchQueryHandler;
+import io.github.lefpap.mdtr.handler.CqrsCommandHandler;
+import io.github.lefpap.mdtr.handler.CqrsQueryHandler;
+import io.github.lefpap.mdtr.handler.CqrsRequestHandler;
+import io.github.lefpap.mdtr.request.CqrsCommand;
+import io.github.lefpap.mdtr.request.CqrsQuery;
+import org.springframework.beans.factory.BeanFactory;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Creates handlers that resolve their handler bean by name the first time they handle a request.
+ *
+ * <p>
+ * The lazy handler implements the same handler interfaces as the bean type, so batch and asynchronous
+ * handlers keep being treated as such by the mediator and the pipeline before the bean exists. The bean is
+ * resolved once, under a lock; afterwards every call costs a single volatile read.
+ * </p>
+ */
+public final class CqrsLazyHandlers {
+
+    private CqrsLazyHandlers() {
+    }
+
+    /**
+     * Returns a handler delegating to the given bean, which is resolved on first use.
+     *
+     * @param beanFactory the bean factory owning the handler bean
+     * @param beanName    the name of the handler bean
+     * @param beanType    the type of the handler bean
+     * @return the lazy handler
+     * @throws IllegalArgumentException if the bean type is neither a command nor a query handler
+     */
+    public static CqrsRequestHandler<?, ?> lazyHandler(BeanFactory beanFactory, String beanName, Class<?> beanType) {
+        Objects.requireNonNull(beanFactory, "Bean factory cannot be null");
+        Objects.requireNonNull(beanName, "Bean name cannot be null");
+        Objects.requireNonNull(beanType, "Bean type cannot be null");
+
+        var bean = new LazyBean(beanFactory, beanName);
+        if (CqrsBatchCommandHandler.class.isAssignableFrom(beanType)) {
+            return new LazyBatchCommandHandler<>(bean);
+        }
+        if (CqrsAsyncCommandHandler.class.isAssignableFrom(beanType)) {
+            return new LazyAsyncCommandHandler<>(bean);
+        }
+        if (CqrsCommandHandler.class.isAssignableFrom(beanType)) {
+            return new LazyCommandHandler<>(bean);
+        }
+        if (CqrsBatchQueryHandler.class.isAssignableFrom(beanType)) {
+            return new LazyBatchQueryHandler<>(bean);
+        }
+        if (CqrsAsyncQueryHandler.class.isAssignableFrom(beanType)) {
+            return new LazyAsyncQueryHandler<>(bean);
+        }
+        if (CqrsQueryHandler.class.isAssignableFrom(beanType)) {
+            return new LazyQueryHandler<>(bean);
+        }
+        throw new IllegalArgumentException("Bean " + beanName + " of type " + beanType.getName()
+                + " is neither a command nor a query handler");
+    }
+
+    /**
+     * A handler bean, resolved from its bean factory on first access.
+     */
+    private static final class LazyBean {
+
+        private final BeanFactory beanFactory;
+        private final String beanName;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile Object instance;
+
+        private LazyBean(BeanFactory beanFactory, String beanName) {
+            this.beanFactory = beanFactory;
+            this.beanName = beanName;
+        }
+
+        @SuppressWarnings("unchecked")
+        <H> H get() {
+            Object bean = instance;
+            return (H) (bean != null ? bean : resolve());
+        }
+
+        private Object resolve() {
+            lock.lock();
+            try {
+                Object bean = instance;
+                if (bean == null) {
+                    bean = beanFactory.getBean(beanName);
+                    instance = bean;
+                }
+                return bean;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return beanName;
+        }
+    }
+
+    private record LazyCommandHandler<C extends CqrsCommand<R>, R>(LazyBean bean)
+            implements CqrsCommandHandler<C, R> {
+
+        @Override
+        public R handle(C command) {
+            return bean.<CqrsCommandHandler<C, R>>get().handle(command);
+        }
+    }
+
+    private record LazyAsyncCommandHandler<C extends CqrsCommand<R>, R>(LazyBean bean)
+            implements CqrsAsyncCommandHandler<C, R> {
+
+        @Override
+        public R handle(C command) {
+            return bean.<CqrsAsyncCommandHandler<C, R>>get().handle(command);
+        }
+
+        @Override
+        public CompletableFuture<R> handleAsync(C command) {
+            return bean.<CqrsAsyncCommandHandler<C, R>>get().handleAsync(command);
+        }
+    }
+
+    private record LazyBatchCommandHandler<C extends CqrsCommand<R>, R>(LazyBean bean)
+            implements CqrsBatchCommandHandler<C, R> {
+
+        @Override
+        public R handle(C command) {
+            return bean.<CqrsBatchCommandHandler<C, R>>get().handle(command);
+        }
+
+        @Override
+        public List<R> handleBatch(List<C> commands) {
+            return bean.<CqrsBatchCommandHandler<C, R>>get().handleBatch(commands);
+        }
+    }
+
+    private record LazyQueryHandler<Q extends CqrsQuery<R>, R>(LazyBean bean)
+            implements CqrsQueryHandler<Q, R> {
+
+        @Override
+        public R handle(Q query) {
+            return bean.<CqrsQueryHandler<Q, R>>get().handle(query);
+        }
+    }
+
+    private record LazyAsyncQueryHandler<Q extends CqrsQuery<R>, R>(LazyBean bean)
+            implements CqrsAsyncQueryHandler<Q, R> {
+
+        @Override
+        public R handle(Q query) {
+            return bean.<CqrsAsyncQueryHandler<Q, R>>get().handle(query);
+        }
+
+        @Override
+        public CompletableFuture<R> handleAsync(Q query) {
+            return bean.<CqrsAsyncQueryHandler<Q, R>>get().handleAsync(query);
+        }
+    }
+
+    private record LazyBatchQueryHandler<Q extends CqrsQuery<R>, R>(LazyBean bean)
+            implements CqrsBatchQueryHandler<Q, R> {
+
+        @Override
+        public R handle(Q query) {
+            return bean.<CqrsBatchQueryHandler<Q, R>>get().handle(query);
+        }
+
+        @Override
+        public List<R> handleBatch(List<Q> queries) {
+            return bean.<CqrsBatchQueryHandler<Q, R>>get().handleBatch(queries);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package io.github.lefpap.mdtr.registry;
+
+import java.util.Map;
+
+/**
+ * Immutable open-addressing table of handlers keyed by request class identity.
+ *
+ * <p>
+ * Lookups compare keys by reference and never allocate, which makes the table suitable for the
+ * steady-state dispatch path once the set of registered handlers is final.
+ * </p>
+ *
+ * @param <H> the handler type
+ */
+final class FrozenHandlerTable<H> {
+
+    private final Class<?>[] keys;
+    private final Object[] values;
+    private final int mask;
+
+    private FrozenHandlerTable(Class<?>[] keys, Object[] values) {
+        this.keys = keys;
+        this.values = values;
+        this.mask = keys.length - 1;
+    }
+
+    /**
+     * Builds a table containing the given handlers.
+     *
+     * @param handlers the handlers by request type
+     * @param <H>      the handler type
+     * @return the table
+     */
+    static <H> FrozenHandlerTable<H> of(Map<Class<?>, H> handlers) {
+        int capacity = Integer.highestOneBit(Math.max(2, handlers.size() * 2 - 1)) << 1;
+        Class<?>[] keys = new Class<?>[capacity];
+        Object[] values = new Object[capacity];
+
+        handlers.forEach((type, handler) -> {
+            int i = indexOf(type, capacity - 1);
+            while (keys[i] != null) {
+                i = (i + 1) & (capacity - 1);
+            }
+            keys[i] = type;
+            values[i] = handler;
+        });
+
+        return new FrozenHandlerTable<>(keys, values);
+    }
+
+    /**
+     * Returns the handler registered for exactly the given type.
+     *
+     * @param type the request type
+     * @return the handler, or {@code null} if none is registered
+     */
+    @SuppressWarnings("unchecked")
+    H get(Class<?> type) {
+        int i = indexOf(type, mask);
+        while (true) {
+            Class<?> key = keys[i];
+            if (key == type) {
+                return (H) values[i];
+            }
+            if (key == null) {
+                return null;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    private static int indexOf(Class<?> type, int mask) {
+        int h = System.identityHashCode(type);
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
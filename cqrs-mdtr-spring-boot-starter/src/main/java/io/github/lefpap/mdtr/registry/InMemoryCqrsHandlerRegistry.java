@@ -6,16 +6,36 @@ import io.github.lefpap.mdtr.handler.CqrsQueryHandler;
 import io.github.lefpap.mdtr.request.CqrsCommand;
 import io.github.lefpap.mdtr.request.CqrsQuery;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
 
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Thread-safe in-memory implementation of the \`CqrsHandlerRegistry\` interface.
  * Provides efficient registration and retrieval of command and query handlers.
  *
+ * <p>
+ * Handlers are resolved for the most specific registered type in the hierarchy of the requested type:
+ * the type itself and its superclasses first, then its interfaces breadth-first. This lets a single
+ * handler serve subclasses, proxies and implementations of a sealed interface. The outcome of the
+ * resolution, including the absence of a handler, is memoised per requested type and discarded
+ * whenever a handler is registered.
+ * </p>
+ *
+ * <p>
+ * Once all handlers are registered, the registry can be {@link #freeze() frozen} into an immutable,
+ * identity-keyed snapshot. Frozen registries reject further registrations and serve
+ * {@link #findCommandHandler(Class)} and {@link #findQueryHandler(Class)} without allocating.
+ * </p>
+ *
  * @see CqrsCommand
  * @see CqrsQuery
  */
@@ -24,36 +44,46 @@ public class InMemoryCqrsHandlerRegistry implements CqrsHandlerRegistry {
     private final Map<Class<?>, CqrsCommandHandler<?, ?>> commandHandlers = new ConcurrentHashMap<>();
     private final Map<Class<?>, CqrsQueryHandler<?, ?>> queryHandlers = new ConcurrentHashMap<>();
 
+    private volatile ClassValue<Optional<CqrsCommandHandler<?, ?>>> resolvedCommandHandlers = resolverOf(commandHandlers);
+    private volatile ClassValue<Optional<CqrsQueryHandler<?, ?>>> resolvedQueryHandlers = resolverOf(queryHandlers);
+
+    private volatile FrozenHandlerTable<CqrsCommandHandler<?, ?>> frozenCommandHandlers;
+    private volatile FrozenHandlerTable<CqrsQueryHandler<?, ?>> frozenQueryHandlers;
+
     /**
      * @throws NullPointerException                     if the command type or handler is null
      * @throws RequestHandlerAlreadyRegisteredException if a handler is already registered for the command type
+     * @throws IllegalStateException                    if the registry is frozen
      */
     @Override
-    public <C extends CqrsCommand<R>, R> void registerCommandHandler(@NonNull Class<C> commandType, @NonNull CqrsCommandHandler<C, R> handler) {
+    public synchronized <C extends CqrsCommand<R>, R> void registerCommandHandler(@NonNull Class<C> commandType, @NonNull CqrsCommandHandler<C, R> handler) {
         Objects.requireNonNull(commandType, "Command type cannot be null");
         Objects.requireNonNull(handler, "Command handler cannot be null");
+        checkNotFrozen();
 
-        if (commandHandlers.containsKey(commandType)) {
+        if (commandHandlers.putIfAbsent(commandType, handler) != null) {
             throw new RequestHandlerAlreadyRegisteredException("Command handler already registered for type: " + commandType.getName());
         }
 
-        commandHandlers.put(commandType, handler);
+        resolvedCommandHandlers = resolverOf(commandHandlers);
     }
 
     /**
      * @throws NullPointerException                     if the query type or handler is {@code null}
      * @throws RequestHandlerAlreadyRegisteredException if a handler is already registered for the query type
+     * @throws IllegalStateException                    if the registry is frozen
      */
     @Override
-    public <Q extends CqrsQuery<R>, R> void registerQueryHandler(@NonNull Class<Q> queryType, @NonNull CqrsQueryHandler<Q, R> handler) {
+    public synchronized <Q extends CqrsQuery<R>, R> void registerQueryHandler(@NonNull Class<Q> queryType, @NonNull CqrsQueryHandler<Q, R> handler) {
         Objects.requireNonNull(queryType, "Query type cannot be null");
         Objects.requireNonNull(handler, "Query handler cannot be null");
+        checkNotFrozen();
 
-        if (queryHandlers.containsKey(queryType)) {
+        if (queryHandlers.putIfAbsent(queryType, handler) != null) {
             throw new RequestHandlerAlreadyRegisteredException("Query handler already registered for type: " + queryType.getName());
         }
 
-        queryHandlers.put(queryType, handler);
+        resolvedQueryHandlers = resolverOf(queryHandlers);
     }
 
     /**
@@ -63,10 +93,8 @@ public class InMemoryCqrsHandlerRegistry implements CqrsHandlerRegistry {
     public <C extends CqrsCommand<R>, R> Optional<CqrsCommandHandler<C, R>> getCommandHandler(@NonNull Class<C> commandType) {
         Objects.requireNonNull(commandType, "Command type cannot be null");
 
-        var handler = commandHandlers.get(commandType);
-        //noinspection unchecked
-        return Optional.ofNullable(handler)
-                .map(h -> (CqrsCommandHandler<C, R>) h);
+        //noinspection unchecked,rawtypes
+        return (Optional) resolvedCommandHandlers.get(commandType);
     }
 
     /**
@@ -76,9 +104,121 @@ public class InMemoryCqrsHandlerRegistry implements CqrsHandlerRegistry {
     public <Q extends CqrsQuery<R>, R> Optional<CqrsQueryHandler<Q, R>> getQueryHandler(@NonNull Class<Q> queryType) {
         Objects.requireNonNull(queryType, "Query type cannot be null");
 
-        var handler = queryHandlers.get(queryType);
-        //noinspection unchecked
-        return Optional.ofNullable(handler)
-                .map(h -> (CqrsQueryHandler<Q, R>) h);
+        //noinspection unchecked,rawtypes
+        return (Optional) resolvedQueryHandlers.get(queryType);
+    }
+
+    /**
+     * @throws NullPointerException if the command type is null
+     */
+    @Nullable
+    @Override
+    @SuppressWarnings("unchecked")
+    public <C extends CqrsCommand<R>, R> CqrsCommandHandler<C, R> findCommandHandler(@NonNull Class<C> commandType) {
+        var frozen = frozenCommandHandlers;
+        if (frozen != null) {
+            var handler = frozen.get(commandType);
+            if (handler != null) {
+                return (CqrsCommandHandler<C, R>) handler;
+            }
+        }
+        return this.<C, R>getCommandHandler(commandType).orElse(null);
+    }
+
+    /**
+     * @throws NullPointerException if the query type is null
+     */
+    @Nullable
+    @Override
+    @SuppressWarnings("unchecked")
+    public <Q extends CqrsQuery<R>, R> CqrsQueryHandler<Q, R> findQueryHandler(@NonNull Class<Q> queryType) {
+        var frozen = frozenQueryHandlers;
+        if (frozen != null) {
+            var handler = frozen.get(queryType);
+            if (handler != null) {
+                return (CqrsQueryHandler<Q, R>) handler;
+            }
+        }
+        return this.<Q, R>getQueryHandler(queryType).orElse(null);
+    }
+
+    /**
+     * Freezes the registry into an immutable snapshot of the registered handlers.
+     *
+     * <p>
+     * Subsequent registrations fail with an {@link IllegalStateException}. Freezing an already frozen
+     * registry has no effect.
+     */
+    public synchronized void freeze() {
+        if (isFrozen()) {
+            return;
+        }
+        frozenCommandHandlers = FrozenHandlerTable.of(commandHandlers);
+        frozenQueryHandlers = FrozenHandlerTable.of(queryHandlers);
+    }
+
+    /**
+     * Determines if the registry is frozen.
+     *
+     * @return true if the registry is frozen, false otherwise
+     */
+    public boolean isFrozen() {
+        return frozenCommandHandlers != null;
+    }
+
+    private void checkNotFrozen() {
+        if (isFrozen()) {
+            throw new IllegalStateException("Handler registry is frozen and does not accept new handlers");
+        }
+    }
+
+    /**
+     * Creates a memoising resolver over the current registrations of the given map.
+     *
+     * @param handlers the registered handlers by request type
+     * @param <H>      the handler type
+     * @return the resolver
+     */
+    private static <H> ClassValue<Optional<H>> resolverOf(Map<Class<?>, H> handlers) {
+        return new ClassValue<>() {
+            @Override
+            protected Optional<H> computeValue(Class<?> requestType) {
+                return Optional.ofNullable(resolve(requestType, handlers));
+            }
+        };
+    }
+
+    /**
+     * Finds the handler registered for the most specific type in the hierarchy of the given type.
+     *
+     * @param requestType the requested type
+     * @param handlers    the registered handlers by request type
+     * @param <H>         the handler type
+     * @return the handler, or {@code null} if none is registered for any type in the hierarchy
+     */
+    private static <H> H resolve(Class<?> requestType, Map<Class<?>, H> handlers) {
+        Queue<Class<?>> interfaces = new ArrayDeque<>();
+        for (Class<?> type = requestType; type != null; type = type.getSuperclass()) {
+            H handler = handlers.get(type);
+            if (handler != null) {
+                return handler;
+            }
+            Collections.addAll(interfaces, type.getInterfaces());
+        }
+
+        Set<Class<?>> visited = new HashSet<>();
+        while (!interfaces.isEmpty()) {
+            Class<?> type = interfaces.remove();
+            if (!visited.add(type)) {
+                continue;
+            }
+            H handler = handlers.get(type);
+            if (handler != null) {
+                return handler;
+            }
+            Collections.addAll(interfaces, type.getInterfaces());
+        }
+
+        return null;
     }
 }
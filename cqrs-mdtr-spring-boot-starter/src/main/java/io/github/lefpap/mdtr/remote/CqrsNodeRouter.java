@@ -0,0 +1,26 @@
+package io.github.lefpap.mdtr.remote;
+
+import io.github.lefpap.mdtr.request.CqrsRequest;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+/**
+ * Decides which node handles a request.
+ *
+ * <p>
+ * Every node must route a request to the same node, so that a request received from another node is
+ * handled where it arrives.
+ * </p>
+ */
+@FunctionalInterface
+public interface CqrsNodeRouter {
+
+    /**
+     * Returns the node owning the given request.
+     *
+     * @param request the request to route
+     * @return the name of the owning node, or {@code null} if the request is handled locally
+     */
+    @Nullable
+    String route(@NonNull CqrsRequest<?> request);
+}
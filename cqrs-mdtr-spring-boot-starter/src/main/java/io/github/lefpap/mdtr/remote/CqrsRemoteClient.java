@@ -0,0 +1,323 @@
+package io.github.lefpap.mdtr.remote;
+
+import io.github.lefpap.mdtr.codec.CqrsCodec;
+import io.github.lefpap.mdtr.deadline.CqrsDeadline;
+import io.github.lefpap.mdtr.exception.CqrsDeadlineExceededException;
+import io.github.lefpap.mdtr.exception.CqrsRemoteException;
+import io.github.lefpap.mdtr.request.CqrsCommand;
+import io.github.lefpap.mdtr.request.CqrsPartitionedCommand;
+import io.github.lefpap.mdtr.request.CqrsRequest;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Client sending requests to the {@link CqrsRemoteServer} of other nodes.
+ *
+ * <p>
+ * Every node is reached through a small pool of connections, opened on first use and reopened after a
+ * failure. A connection carries any number of requests at a time, and requests sent while the connection
+ * is busy writing share the next socket write. Partitioned commands of the same partition key always take
+ * the same connection, so that they reach the node in the order they were sent.
+ * </p>
+ *
+ * <p>
+ * A request fails with a {@link CqrsDeadlineExceededException} when the {@link CqrsDeadline deadline} of
+ * the calling thread passes, and with a {@link CqrsRemoteException} when the request timeout passes, the
+ * connection is lost or the handler fails on the node. The remaining time of the deadline travels with the
+ * request and bounds its execution on the node.
+ * </p>
+ */
+public class CqrsRemoteClient implements AutoCloseable {
+
+    private final CqrsCodec codec;
+    private final ClassLoader classLoader;
+    private final long requestTimeoutNanos;
+    private final Map<String, NodeConnections> nodes = new LinkedHashMap<>();
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    /**
+     * Constructs a new remote client.
+     *
+     * @param addresses          the addresses of the nodes, keyed by node name
+     * @param codec              the codec encoding requests and results
+     * @param connectionsPerNode the number of connections to every node
+     * @param requestTimeout     the time after which requests without an earlier deadline fail
+     */
+    public CqrsRemoteClient(Map<String, InetSocketAddress> addresses, CqrsCodec codec, int connectionsPerNode, Duration requestTimeout) {
+        Objects.requireNonNull(addresses, "Addresses cannot be null");
+        this.codec = Objects.requireNonNull(codec, "Codec cannot be null");
+        this.classLoader = ClassUtils.getDefaultClassLoader();
+        this.requestTimeoutNanos = Objects.requireNonNull(requestTimeout, "Request timeout cannot be null").toNanos();
+        if (connectionsPerNode < 1) {
+            throw new IllegalArgumentException("Connections per node must be positive: " + connectionsPerNode);
+        }
+        addresses.forEach((node, address) -> nodes.put(node, new NodeConnections(node, address, connectionsPerNode)));
+
+        this.scheduler = new ScheduledThreadPoolExecutor(1, Thread.ofPlatform()
+                .name("cqrs-remote-timer")
+                .daemon()
+                .factory());
+        this.scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Sends a request to the given node.
+     *
+     * @param node    the name of the node
+     * @param request the request to send
+     * @param <R>     the type of the result
+     * @return a future completed with the result of the request on the node
+     * @throws IllegalArgumentException if the node is unknown
+     */
+    public <R> CompletableFuture<R> call(String node, CqrsRequest<R> request) {
+        Objects.requireNonNull(request, "Request cannot be null");
+        NodeConnections connections = nodes.get(node);
+        if (connections == null) {
+            throw new IllegalArgumentException("Unknown node " + node);
+        }
+
+        long timeoutNanos = requestTimeoutNanos;
+        long deadlineNanos = 0;
+        CqrsDeadline deadline = CqrsDeadline.current();
+        if (deadline != null) {
+            deadlineNanos = deadline.remainingNanos();
+            if (deadlineNanos <= 0) {
+                return CompletableFuture.failedFuture(new CqrsDeadlineExceededException(
+                        "Deadline of " + request.getClass().getSimpleName() + " exceeded before it was sent to node " + node));
+            }
+            timeoutNanos = Math.min(timeoutNanos, deadlineNanos);
+        }
+
+        byte kind = request instanceof CqrsCommand<?> ? RemoteFrame.COMMAND : RemoteFrame.QUERY;
+        Object key = request instanceof CqrsPartitionedCommand<?> partitioned ? partitioned.partitionKey() : null;
+        byte[] payload = codec.encode(request);
+        return connections.call(kind, request.getClass().getName(), payload, key, deadlineNanos, timeoutNanos, deadline != null);
+    }
+
+    /**
+     * Returns a snapshot of the traffic to every node.
+     *
+     * @return the node statistics
+     */
+    public List<CqrsRemoteNodeStats> stats() {
+        List<CqrsRemoteNodeStats> stats = new ArrayList<>(nodes.size());
+        for (NodeConnections connections : nodes.values()) {
+            stats.add(connections.stats());
+        }
+        return stats;
+    }
+
+    /**
+     * Closes every connection, failing the requests still waiting for their result.
+     */
+    @Override
+    public void close() {
+        for (NodeConnections connections : nodes.values()) {
+            connections.close();
+        }
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * The connections to a node.
+     */
+    private final class NodeConnections {
+
+        private final String node;
+        private final InetSocketAddress address;
+        private final ClientConnection[] connections;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final AtomicInteger next = new AtomicInteger();
+
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder writes = new LongAdder();
+
+        private volatile boolean closed;
+
+        private NodeConnections(String node, InetSocketAddress address, int size) {
+            this.node = node;
+            this.address = Objects.requireNonNull(address, "Address of node " + node + " cannot be null");
+            this.connections = new ClientConnection[size];
+        }
+
+        @SuppressWarnings("unchecked")
+        private <R> CompletableFuture<R> call(byte kind, String type, byte[] payload, Object key,
+                                              long deadlineNanos, long timeoutNanos, boolean hasDeadline) {
+            requests.increment();
+            int slot = key == null
+                    ? Math.floorMod(next.getAndIncrement(), connections.length)
+                    : Math.floorMod(key.hashCode(), connections.length);
+
+            CompletableFuture<Object> result;
+            try {
+                result = connection(slot).call(kind, type, payload, deadlineNanos, timeoutNanos, hasDeadline);
+            } catch (CqrsRemoteException e) {
+                result = CompletableFuture.failedFuture(e);
+            }
+            result.whenComplete((r, t) -> {
+                if (t != null) {
+                    failures.increment();
+                }
+            });
+            return (CompletableFuture<R>) result;
+        }
+
+        private ClientConnection connection(int slot) {
+            ClientConnection connection = connections[slot];
+            if (connection != null && !connection.isClosed()) {
+                return connection;
+            }
+
+            lock.lock();
+            try {
+                if (closed) {
+                    throw new CqrsRemoteException(node, "Remote client is closed");
+                }
+                connection = connections[slot];
+                if (connection == null || connection.isClosed()) {
+                    connection = new ClientConnection(this);
+                    connections[slot] = connection;
+                }
+                return connection;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private CqrsRemoteNodeStats stats() {
+            int open = 0;
+            int inFlight = 0;
+            for (ClientConnection connection : connections) {
+                if (connection != null && !connection.isClosed()) {
+                    open++;
+                    inFlight += connection.pending.size();
+                }
+            }
+            return new CqrsRemoteNodeStats(node, open, requests.sum(), failures.sum(), inFlight, writes.sum());
+        }
+
+        private void close() {
+            lock.lock();
+            try {
+                closed = true;
+                for (ClientConnection connection : connections) {
+                    if (connection != null) {
+                        connection.connection.close();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * A connection to a node and the requests waiting for their result on it.
+     */
+    private final class ClientConnection implements RemoteConnection.Handler {
+
+        private final NodeConnections owner;
+        private final RemoteConnection connection;
+        private final ConcurrentMap<Long, CompletableFuture<Object>> pending = new ConcurrentHashMap<>();
+        private final AtomicLong ids = new AtomicLong();
+
+        private ClientConnection(NodeConnections owner) {
+            this.owner = owner;
+            try {
+                this.connection = new RemoteConnection(SocketChannel.open(owner.address), this, owner.writes);
+            } catch (IOException e) {
+                throw new CqrsRemoteException(owner.node, "Cannot connect to node " + owner.node + " at " + owner.address, e);
+            }
+            connection.start("cqrs-remote-" + owner.node);
+        }
+
+        private boolean isClosed() {
+            return connection.isClosed();
+        }
+
+        private CompletableFuture<Object> call(byte kind, String type, byte[] payload,
+                                               long deadlineNanos, long timeoutNanos, boolean hasDeadline) {
+            long id = ids.incrementAndGet();
+            var future = new CompletableFuture<Object>();
+            pending.put(id, future);
+
+            ScheduledFuture<?> timeout = scheduler.schedule(() -> {
+                if (pending.remove(id) != null) {
+                    future.completeExceptionally(hasDeadline
+                            ? new CqrsDeadlineExceededException("Deadline of " + type + " exceeded waiting for node " + owner.node)
+                            : new CqrsRemoteException(owner.node, type + " timed out waiting for node " + owner.node));
+                }
+            }, timeoutNanos, TimeUnit.NANOSECONDS);
+            future.whenComplete((r, t) -> timeout.cancel(false));
+
+            if (!connection.send(new RemoteFrame(kind, id, deadlineNanos, type, payload))) {
+                fail(id, null);
+            }
+            return future;
+        }
+
+        @Override
+        public void onFrame(RemoteConnection connection, RemoteFrame frame) {
+            CompletableFuture<Object> future = pending.remove(frame.id());
+            if (future == null) {
+                // Timed out already
+                return;
+            }
+            if (frame.kind() == RemoteFrame.RESULT) {
+                try {
+                    future.complete(frame.type() == null ? null : codec.decode(frame.payload(), resolve(frame.type())));
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            } else {
+                String message = new String(frame.payload(), StandardCharsets.UTF_8);
+                future.completeExceptionally(CqrsDeadlineExceededException.class.getName().equals(frame.type())
+                        ? new CqrsDeadlineExceededException(message + " on node " + owner.node)
+                        : new CqrsRemoteException(owner.node, frame.type(), message));
+            }
+        }
+
+        @Override
+        public void onClose(RemoteConnection connection, Throwable cause) {
+            for (Long id : pending.keySet()) {
+                fail(id, cause);
+            }
+        }
+
+        private void fail(long id, Throwable cause) {
+            CompletableFuture<Object> future = pending.remove(id);
+            if (future != null) {
+                future.completeExceptionally(new CqrsRemoteException(owner.node, "Connection to node " + owner.node + " lost", cause));
+            }
+        }
+
+        private Class<?> resolve(String type) {
+            try {
+                return ClassUtils.forName(type, classLoader);
+            } catch (ClassNotFoundException | LinkageError e) {
+                throw new CqrsRemoteException(owner.node, "Unknown result type " + type + " from node " + owner.node, e);
+            }
+        }
+    }
+}
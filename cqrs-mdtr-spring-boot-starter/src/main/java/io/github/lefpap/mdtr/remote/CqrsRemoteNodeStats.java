@@ -0,0 +1,22 @@
+package io.github.lefpap.mdtr.remote;
+
+/**
+ * Point-in-time statistics of the traffic from a {@link CqrsRemoteClient} to a node.
+ *
+ * @param node          the name of the node
+ * @param connections   the number of open connections to the node
+ * @param requestCount  the number of requests sent to the node
+ * @param failedCount   the number of requests that failed, whether on the node or on the way
+ * @param inFlightCount the number of requests waiting for their result
+ * @param writeCount    the number of socket writes carrying the requests; fewer writes than requests
+ *                      means requests shared writes
+ */
+public record CqrsRemoteNodeStats(
+        String node,
+        int connections,
+        long requestCount,
+        long failedCount,
+        int inFlightCount,
+        long writeCount
+) {
+}
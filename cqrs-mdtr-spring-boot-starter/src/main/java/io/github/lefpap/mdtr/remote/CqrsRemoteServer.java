@@ -0,0 +1,200 @@
+package io.github.lefpap.mdtr.remote;
+
+import io.github.lefpap.mdtr.CqrsMediator;
+import io.github.lefpap.mdtr.codec.CqrsCodec;
+import io.github.lefpap.mdtr.concurrent.CqrsFutures;
+import io.github.lefpap.mdtr.deadline.CqrsDeadline;
+import io.github.lefpap.mdtr.request.CqrsCommand;
+import io.github.lefpap.mdtr.request.CqrsQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Server handling the requests other nodes route to this node.
+ *
+ * <p>
+ * Requests are handed to the local mediator asynchronously, in the order they arrive on a connection, and
+ * run with the remaining time of their deadline. Their results are sent back as they complete, so a slow
+ * request does not hold back the ones behind it. The mediator should be the local one: routing the
+ * received requests again would send them back and forth between nodes with diverging routes.
+ * </p>
+ *
+ * <p>
+ * Received requests are decoded into any class the codec accepts. Like the codec, the server must only be
+ * reachable by trusted nodes.
+ * </p>
+ */
+public class CqrsRemoteServer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(CqrsRemoteServer.class);
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final InetSocketAddress address;
+    private final CqrsMediator mediator;
+    private final CqrsCodec codec;
+    private final ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+    private final Set<RemoteConnection> connections = ConcurrentHashMap.newKeySet();
+    private final LongAdder writes = new LongAdder();
+
+    private volatile ServerSocketChannel serverChannel;
+
+    /**
+     * Constructs a new remote server.
+     *
+     * @param address  the address to listen on; port zero picks a free port
+     * @param mediator the local mediator handling the received requests
+     * @param codec    the codec decoding requests and encoding results
+     */
+    public CqrsRemoteServer(InetSocketAddress address, CqrsMediator mediator, CqrsCodec codec) {
+        this.address = Objects.requireNonNull(address, "Address cannot be null");
+        this.mediator = Objects.requireNonNull(mediator, "Mediator cannot be null");
+        this.codec = Objects.requireNonNull(codec, "Codec cannot be null");
+    }
+
+    /**
+     * Starts listening for connections.
+     *
+     * @throws IOException if the address cannot be bound
+     */
+    public void start() throws IOException {
+        ServerSocketChannel channel = ServerSocketChannel.open().bind(address);
+        serverChannel = channel;
+        Thread.ofPlatform()
+                .name("cqrs-remote-accept")
+                .daemon()
+                .start(() -> accept(channel));
+        log.debug("Listening for remote requests on {}", channel.getLocalAddress());
+    }
+
+    /**
+     * Returns the address the server listens on.
+     *
+     * @return the bound address
+     * @throws IllegalStateException if the server is not started
+     */
+    public InetSocketAddress getAddress() {
+        ServerSocketChannel channel = serverChannel;
+        if (channel == null) {
+            throw new IllegalStateException("Remote server is not started");
+        }
+        try {
+            return (InetSocketAddress) channel.getLocalAddress();
+        } catch (IOException e) {
+            throw new IllegalStateException("Remote server is closed", e);
+        }
+    }
+
+    /**
+     * Stops listening and closes every connection.
+     */
+    @Override
+    public void close() throws IOException {
+        ServerSocketChannel channel = serverChannel;
+        if (channel != null) {
+            channel.close();
+        }
+        for (RemoteConnection connection : connections) {
+            connection.close();
+        }
+    }
+
+    private void accept(ServerSocketChannel channel) {
+        RemoteConnection.Handler handler = new RemoteConnection.Handler() {
+            @Override
+            public void onFrame(RemoteConnection connection, RemoteFrame frame) {
+                handle(connection, frame);
+            }
+
+            @Override
+            public void onClose(RemoteConnection connection, Throwable cause) {
+                connections.remove(connection);
+                if (cause != null) {
+                    log.debug("Remote connection closed", cause);
+                }
+            }
+        };
+
+        while (channel.isOpen()) {
+            try {
+                SocketChannel socket = channel.accept();
+                var connection = new RemoteConnection(socket, handler, writes);
+                connections.add(connection);
+                connection.start("cqrs-remote-" + socket.getRemoteAddress());
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                log.warn("Failed to accept remote connection", e);
+            }
+        }
+    }
+
+    private void handle(RemoteConnection connection, RemoteFrame frame) {
+        if (!frame.isRequest()) {
+            connection.send(failure(frame.id(), new IllegalStateException("Unexpected frame kind " + frame.kind())));
+            return;
+        }
+
+        CompletableFuture<Object> result = CqrsFutures.invoke(() -> {
+            Object request = codec.decode(frame.payload(), requestType(frame));
+            if (frame.deadline() <= 0) {
+                return dispatch(request);
+            }
+            return CqrsDeadline.after(Duration.ofNanos(frame.deadline())).call(() -> dispatch(request));
+        });
+
+        result.whenComplete((value, t) -> connection.send(t == null
+                ? success(frame.id(), value)
+                : failure(frame.id(), CqrsFutures.unwrap(t))));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private CompletableFuture<Object> dispatch(Object request) {
+        return request instanceof CqrsCommand command
+                ? mediator.dispatchAsync(command)
+                : mediator.sendAsync((CqrsQuery) request);
+    }
+
+    private Class<?> requestType(RemoteFrame frame) {
+        Class<?> type;
+        try {
+            type = ClassUtils.forName(frame.type(), classLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            throw new IllegalArgumentException("Unknown request type " + frame.type(), e);
+        }
+        Class<?> expected = frame.kind() == RemoteFrame.COMMAND ? CqrsCommand.class : CqrsQuery.class;
+        if (!expected.isAssignableFrom(type)) {
+            throw new IllegalArgumentException(type.getName() + " is not a " + expected.getSimpleName());
+        }
+        return type;
+    }
+
+    private RemoteFrame success(long id, Object value) {
+        try {
+            return value == null
+                    ? new RemoteFrame(RemoteFrame.RESULT, id, 0, null, EMPTY)
+                    : new RemoteFrame(RemoteFrame.RESULT, id, 0, value.getClass().getName(), codec.encode(value));
+        } catch (RuntimeException e) {
+            return failure(id, e);
+        }
+    }
+
+    private static RemoteFrame failure(long id, Throwable t) {
+        String message = String.valueOf(t.getMessage());
+        return new RemoteFrame(RemoteFrame.FAILURE, id, 0, t.getClass().getName(), message.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,269 @@
+package io.github.lefpap.mdtr.remote;
+
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A socket connection between two nodes carrying any number of interleaved frames in both directions.
+ *
+ * <p>
+ * Frames are sent without waiting for the frames sent before them to be answered. Senders append their
+ * frame to a queue drained by the writer thread of the connection, which packs every frame queued while it
+ * was busy into a single socket write. Received frames are passed to the handler on the reader thread of
+ * the connection, in the order they were sent.
+ * </p>
+ */
+final class RemoteConnection implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Receives the frames and the end of a connection.
+     */
+    interface Handler {
+
+        void onFrame(RemoteConnection connection, RemoteFrame frame);
+
+        void onClose(RemoteConnection connection, Throwable cause);
+    }
+
+    private final SocketChannel channel;
+    private final Handler handler;
+    private final LongAdder writes;
+
+    private final Queue<RemoteFrame> outbound = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean idle = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile Thread writer;
+
+    // Only used by the writer thread
+    private final Map<String, Integer> sentTypes = new HashMap<>();
+    private ByteBuffer writeBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    RemoteConnection(SocketChannel channel, Handler handler, LongAdder writes) throws IOException {
+        this.channel = channel;
+        this.handler = handler;
+        this.writes = writes;
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+    }
+
+    /**
+     * Starts the reader and writer threads of the connection.
+     *
+     * @param name the prefix of the thread names
+     */
+    void start(String name) {
+        writer = Thread.ofVirtual().name(name + "-writer").start(this::write);
+        Thread.ofVirtual().name(name + "-reader").start(this::read);
+    }
+
+    /**
+     * Sends a frame.
+     *
+     * @param frame the frame to send
+     * @return {@code false} if the connection is closed
+     */
+    boolean send(RemoteFrame frame) {
+        if (closed.get()) {
+            return false;
+        }
+        outbound.add(frame);
+        if (idle.get() && idle.compareAndSet(true, false)) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    @Override
+    public void close() {
+        close(null);
+    }
+
+    private void close(Throwable cause) {
+        if (closed.compareAndSet(false, true)) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Nothing left to release
+            }
+            outbound.clear();
+            LockSupport.unpark(writer);
+            handler.onClose(this, cause);
+        }
+    }
+
+    private void write() {
+        try {
+            while (!closed.get()) {
+                RemoteFrame frame = outbound.poll();
+                if (frame != null) {
+                    encode(frame);
+                    continue;
+                }
+                if (writeBuffer.position() > 0) {
+                    flush();
+                    continue;
+                }
+                // A sender queuing a frame after the check below unparks the writer
+                idle.set(true);
+                if (outbound.isEmpty() && !closed.get()) {
+                    LockSupport.park(this);
+                }
+                idle.set(false);
+            }
+        } catch (IOException | RuntimeException e) {
+            close(e);
+        }
+    }
+
+    private void encode(RemoteFrame frame) throws IOException {
+        byte[] typeName = null;
+        int typeRef = 0;
+        if (frame.type() != null) {
+            Integer known = sentTypes.get(frame.type());
+            if (known == null) {
+                int number = sentTypes.size() + 1;
+                sentTypes.put(frame.type(), number);
+                typeName = frame.type().getBytes(StandardCharsets.UTF_8);
+                typeRef = number << 1 | 1;
+            } else {
+                typeRef = known << 1;
+            }
+        }
+
+        // Upper bound of the encoded size: kind, three varints, the type name and the payload
+        int maxSize = 4 + 1 + 10 + 10 + 5 + (typeName == null ? 0 : 5 + typeName.length) + frame.payload().length;
+        ensureCapacity(maxSize);
+
+        int start = writeBuffer.position();
+        writeBuffer.putInt(0);
+        writeBuffer.put(frame.kind());
+        putVarLong(frame.id());
+        if (frame.isRequest()) {
+            putVarLong(frame.deadline());
+        }
+        putVarLong(typeRef);
+        if (typeName != null) {
+            putVarLong(typeName.length);
+            writeBuffer.put(typeName);
+        }
+        writeBuffer.put(frame.payload());
+        writeBuffer.putInt(start, writeBuffer.position() - start - 4);
+    }
+
+    private void ensureCapacity(int size) throws IOException {
+        if (writeBuffer.remaining() >= size) {
+            return;
+        }
+        flush();
+        if (writeBuffer.capacity() < size) {
+            writeBuffer = ByteBuffer.allocateDirect(size);
+        }
+    }
+
+    private void flush() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            channel.write(writeBuffer);
+        }
+        writeBuffer.clear();
+        writes.increment();
+        if (writeBuffer.capacity() > BUFFER_SIZE) {
+            writeBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+    }
+
+    private void putVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            writeBuffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        writeBuffer.put((byte) value);
+    }
+
+    private void read() {
+        Map<Integer, String> receivedTypes = new HashMap<>();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        try {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                // Every complete frame of the read is handled before reading on
+                while (buffer.remaining() >= 4) {
+                    int length = buffer.getInt(buffer.position());
+                    if (length <= 0 || length > RemoteFrame.MAX_FRAME_SIZE) {
+                        throw new IOException("Invalid frame length " + length);
+                    }
+                    if (buffer.remaining() < 4 + length) {
+                        break;
+                    }
+                    int end = buffer.position() + 4 + length;
+                    buffer.position(buffer.position() + 4);
+                    handler.onFrame(this, decode(buffer, end, receivedTypes));
+                    buffer.position(end);
+                }
+                buffer.compact();
+                if (!buffer.hasRemaining()) {
+                    // The next frame does not fit in the buffer
+                    ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.getInt(0) + 4));
+                    buffer = larger.put(buffer.flip());
+                }
+            }
+            close(null);
+        } catch (IOException | RuntimeException e) {
+            close(e);
+        }
+    }
+
+    private static RemoteFrame decode(ByteBuffer buffer, int end, Map<Integer, String> receivedTypes) throws IOException {
+        byte kind = buffer.get();
+        long id = getVarLong(buffer);
+        long deadline = kind == RemoteFrame.COMMAND || kind == RemoteFrame.QUERY ? getVarLong(buffer) : 0;
+
+        int typeRef = (int) getVarLong(buffer);
+        String type = null;
+        if (typeRef != 0) {
+            int number = typeRef >>> 1;
+            if ((typeRef & 1) != 0) {
+                byte[] name = new byte[(int) getVarLong(buffer)];
+                buffer.get(name);
+                type = new String(name, StandardCharsets.UTF_8);
+                receivedTypes.put(number, type);
+            } else {
+                type = receivedTypes.get(number);
+                if (type == null) {
+                    throw new IOException("Unknown type number " + number);
+                }
+            }
+        }
+
+        byte[] payload = new byte[end - buffer.position()];
+        buffer.get(payload);
+        return new RemoteFrame(kind, id, deadline, type, payload);
+    }
+
+    private static long getVarLong(ByteBuffer buffer) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
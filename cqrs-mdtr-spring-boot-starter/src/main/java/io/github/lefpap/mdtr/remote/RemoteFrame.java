@@ -0,0 +1,37 @@
+package io.github.lefpap.mdtr.remote;
+
+/**
+ * A frame exchanged between nodes.
+ *
+ * <p>
+ * On the wire, a frame is laid out as
+ * </p>
+ * <pre>
+ * length:int32  kind:int8  id:varint  [deadline:varint]  type:typeref  payload:bytes
+ * </pre>
+ * <p>
+ * where the length counts the bytes following it, the deadline is only present in requests and the payload
+ * extends to the end of the frame. Type names are sent once per connection and direction; a type reference
+ * is a varint holding the type number shifted left by one, with the low bit set when the name follows as a
+ * varint length and UTF-8 bytes. Type number zero stands for no type.
+ * </p>
+ *
+ * @param kind     the kind of frame
+ * @param id       the id correlating a response with its request
+ * @param deadline the remaining time of a request in nanoseconds, or zero for none
+ * @param type     the request type, result type or exception type name, or {@code null}
+ * @param payload  the encoded request or result, or the UTF-8 message of an exception
+ */
+record RemoteFrame(byte kind, long id, long deadline, String type, byte[] payload) {
+
+    static final byte COMMAND = 1;
+    static final byte QUERY = 2;
+    static final byte RESULT = 3;
+    static final byte FAILURE = 4;
+
+    static final int MAX_FRAME_SIZE = 64 * 1024 * 1024;
+
+    boolean isRequest() {
+        return kind == COMMAND || kind == QUERY;
+    }
+}
@@ -0,0 +1,127 @@
+package io.github.lefpap.mdtr.remote;
+
+import io.github.lefpap.mdtr.CqrsMediator;
+import io.github.lefpap.mdtr.concurrent.CqrsFutures;
+import io.github.lefpap.mdtr.request.CqrsCommand;
+import io.github.lefpap.mdtr.request.CqrsQuery;
+import io.github.lefpap.mdtr.request.CqrsStreamQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * Mediator sending the requests owned by other nodes to them, and handing every other request to the
+ * local mediator.
+ *
+ * <p>
+ * The owner of every request is decided by the {@link CqrsNodeRouter}. Requests owned by another node go
+ * through the middlewares of that node only. Streaming queries are always handled locally.
+ * </p>
+ */
+public class RoutingCqrsMediator implements CqrsMediator {
+
+    private static final Logger log = LoggerFactory.getLogger(RoutingCqrsMediator.class);
+
+    private final CqrsMediator local;
+    private final CqrsNodeRouter router;
+    private final CqrsRemoteClient client;
+
+    /**
+     * Constructs a new routing mediator.
+     *
+     * @param local  the mediator handling local requests
+     * @param router decides which node handles a request
+     * @param client sends requests to other nodes
+     */
+    public RoutingCqrsMediator(CqrsMediator local, CqrsNodeRouter router, CqrsRemoteClient client) {
+        this.local = Objects.requireNonNull(local, "Local mediator cannot be null");
+        this.router = Objects.requireNonNull(router, "Router cannot be null");
+        this.client = Objects.requireNonNull(client, "Remote client cannot be null");
+    }
+
+    @Override
+    public <R, C extends CqrsCommand<R>> R dispatch(C command) {
+        String node = router.route(command);
+        return node == null ? local.dispatch(command) : CqrsFutures.join(client.call(node, command));
+    }
+
+    @Override
+    public <R, Q extends CqrsQuery<R>> R send(Q query) {
+        String node = router.route(query);
+        return node == null ? local.send(query) : CqrsFutures.join(client.call(node, query));
+    }
+
+    @Override
+    public <R, C extends CqrsCommand<R>> CompletableFuture<R> dispatchAsync(C command) {
+        String node = router.route(command);
+        return node == null ? local.dispatchAsync(command) : CqrsFutures.invoke(() -> client.call(node, command));
+    }
+
+    @Override
+    public <R, C extends CqrsCommand<R>> void dispatchAndForget(C command) {
+        String node = router.route(command);
+        if (node == null) {
+            local.dispatchAndForget(command);
+        } else {
+            CqrsFutures.invoke(() -> client.call(node, command)).whenComplete((result, failure) -> {
+                if (failure != null) {
+                    log.error("Command {} failed on node {}", command.getClass().getName(), node, CqrsFutures.unwrap(failure));
+                }
+            });
+        }
+    }
+
+    @Override
+    public <R, Q extends CqrsQuery<R>> CompletableFuture<R> sendAsync(Q query) {
+        String node = router.route(query);
+        return node == null ? local.sendAsync(query) : CqrsFutures.invoke(() -> client.call(node, query));
+    }
+
+    @Override
+    public <T, Q extends CqrsStreamQuery<T>> Flow.Publisher<T> stream(Q query) {
+        return local.stream(query);
+    }
+
+    /**
+     * Sends the local queries through the local mediator, batching them as it does, while the remote
+     * queries are on their way to their nodes.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <R, Q extends CqrsQuery<R>> List<R> sendAll(Collection<Q> queries) {
+        List<Q> localQueries = new ArrayList<>(queries.size());
+        Object[] results = new Object[queries.size()];
+        boolean[] remote = new boolean[queries.size()];
+
+        int i = 0;
+        for (Q query : queries) {
+            String node = router.route(query);
+            if (node == null) {
+                localQueries.add(query);
+            } else {
+                results[i] = client.call(node, query);
+                remote[i] = true;
+            }
+            i++;
+        }
+        if (localQueries.size() == queries.size()) {
+            return local.sendAll(queries);
+        }
+
+        List<R> localResults = localQueries.isEmpty() ? List.of() : local.sendAll(localQueries);
+        int next = 0;
+        for (i = 0; i < results.length; i++) {
+            results[i] = remote[i]
+                    ? CqrsFutures.join((CompletableFuture<R>) results[i])
+                    : localResults.get(next++);
+        }
+        return (List<R>) Arrays.asList(results);
+    }
+}
@@ -0,0 +1,85 @@
+package io.github.lefpap.mdtr.remote;
+
+import io.github.lefpap.mdtr.request.CqrsPartitionedCommand;
+import io.github.lefpap.mdtr.request.CqrsRequest;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Router assigning request types to nodes from a fixed table.
+ *
+ * <p>
+ * A request type is either owned by a single node, or partitioned across all nodes, in which case every
+ * {@link CqrsPartitionedCommand} is owned by the node at the hash of its partition key. Partition keys must
+ * hash alike on every node, as strings, numbers, UUIDs and records of them do; enums and other identity
+ * hashed keys do not. Requests of other types are handled locally.
+ * </p>
+ */
+public class StaticCqrsNodeRouter implements CqrsNodeRouter {
+
+    private final String localNode;
+    private final List<String> nodes;
+    private final Map<String, String> owners;
+    private final Set<String> partitionedTypes;
+
+    private final ClassValue<Route> routesByType = new ClassValue<>() {
+        @Override
+        protected Route computeValue(Class<?> requestType) {
+            String owner = owners.get(requestType.getName());
+            if (owner != null) {
+                return new Route(owner.equals(localNode) ? null : owner, false);
+            }
+            if (partitionedTypes.contains(requestType.getName())) {
+                if (!CqrsPartitionedCommand.class.isAssignableFrom(requestType)) {
+                    throw new IllegalStateException(requestType.getName() + " is routed by partition but is not a partitioned command");
+                }
+                return new Route(null, true);
+            }
+            return new Route(null, false);
+        }
+    };
+
+    /**
+     * Constructs a new static router.
+     *
+     * @param localNode        the name of this node
+     * @param nodes            the names of all nodes, in the same order on every node
+     * @param owners           the owning node of individual request types, keyed by request type name
+     * @param partitionedTypes the names of the partitioned command types spread across all nodes
+     */
+    public StaticCqrsNodeRouter(String localNode, List<String> nodes, Map<String, String> owners, Collection<String> partitionedTypes) {
+        this.localNode = Objects.requireNonNull(localNode, "Local node cannot be null");
+        this.nodes = List.copyOf(Objects.requireNonNull(nodes, "Nodes cannot be null"));
+        this.owners = Map.copyOf(Objects.requireNonNull(owners, "Owners cannot be null"));
+        this.partitionedTypes = Set.copyOf(Objects.requireNonNull(partitionedTypes, "Partitioned types cannot be null"));
+        if (!this.nodes.contains(localNode)) {
+            throw new IllegalArgumentException("Local node " + localNode + " is not one of " + this.nodes);
+        }
+        this.owners.forEach((type, owner) -> {
+            if (!this.nodes.contains(owner)) {
+                throw new IllegalArgumentException("Owner " + owner + " of " + type + " is not one of " + this.nodes);
+            }
+        });
+    }
+
+    @Override
+    @Nullable
+    public String route(@NonNull CqrsRequest<?> request) {
+        Route route = routesByType.get(request.getClass());
+        if (!route.partitioned()) {
+            return route.node();
+        }
+        Object key = ((CqrsPartitionedCommand<?>) request).partitionKey();
+        String node = nodes.get(Math.floorMod(Objects.hashCode(key), nodes.size()));
+        return node.equals(localNode) ? null : node;
+    }
+
+    private record Route(String node, boolean partitioned) {
+    }
+}
@@ -0,0 +1,12 @@
+package io.github.lefpap.mdtr.sampling;
+
+import java.time.Duration;
+
+/**
+ * Time a sampled request spent in one of its middlewares.
+ *
+ * @param middleware the class name of the middleware
+ * @param duration   the time spent in the middleware itself, excluding the rest of the chain
+ */
+public record CqrsMiddlewareTiming(String middleware, Duration duration) {
+}
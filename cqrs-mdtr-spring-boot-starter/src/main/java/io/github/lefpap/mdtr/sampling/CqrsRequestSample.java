@@ -0,0 +1,33 @@
+package io.github.lefpap.mdtr.sampling;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A request captured by the {@link CqrsRequestSampler}.
+ *
+ * @param timestamp       when the request started
+ * @param requestType     the class name of the request
+ * @param request         the string form of the request, truncated, or {@code null} unless the sampler includes it
+ * @param thread          the name of the thread that executed, or for asynchronous requests submitted, the request
+ * @param duration        the time from dispatch to outcome
+ * @param handlerDuration the time spent in the handler, or {@code null} if unknown or the handler was not called
+ * @param middlewares     the time spent in every middleware, in chain order; empty for asynchronous requests
+ * @param slow            whether the request was captured for exceeding the slow threshold rather than sampled
+ * @param succeeded       whether the request succeeded
+ * @param exceptionType   the class name of the exception the request failed with, or {@code null}
+ */
+public record CqrsRequestSample(
+        Instant timestamp,
+        String requestType,
+        String request,
+        String thread,
+        Duration duration,
+        Duration handlerDuration,
+        List<CqrsMiddlewareTiming> middlewares,
+        boolean slow,
+        boolean succeeded,
+        String exceptionType
+) {
+}
@@ -0,0 +1,293 @@
+package io.github.lefpap.mdtr.sampling;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps the most recent slow or randomly sampled requests in a fixed-size ring.
+ *
+ * <p>
+ * Every request is timed, but only requests that take at least the slow threshold, or are picked at the
+ * sample rate, are turned into a {@link CqrsRequestSample}. The others return their pooled
+ * {@link CqrsRequestTrace} without allocating. Captured samples overwrite the oldest ones without locking.
+ * The slow threshold and the sample rate can be changed while the application runs.
+ * </p>
+ *
+ * <p>
+ * Samples only name the request type unless request descriptions are included, since the string form of a
+ * request may hold credentials or personal data.
+ * </p>
+ */
+public class CqrsRequestSampler {
+
+    private static final int MAX_REQUEST_LENGTH = 256;
+    private static final int PROBES = 4;
+
+    private final AtomicReferenceArray<CqrsRequestSample> samples;
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong();
+
+    private final AtomicReferenceArray<CqrsRequestTrace> traces;
+    private final int traceMask;
+    private final boolean includeRequests;
+
+    private volatile long slowThresholdNanos;
+    private volatile double sampleRate;
+
+    /**
+     * Constructs a new request sampler that does not include request descriptions.
+     *
+     * @param capacity      the number of samples kept, rounded up to a power of two
+     * @param slowThreshold the duration from which requests are captured as slow
+     * @param sampleRate    the fraction of the other requests captured, between 0 and 1
+     */
+    public CqrsRequestSampler(int capacity, Duration slowThreshold, double sampleRate) {
+        this(capacity, slowThreshold, sampleRate, false);
+    }
+
+    /**
+     * Constructs a new request sampler.
+     *
+     * @param capacity        the number of samples kept, rounded up to a power of two
+     * @param slowThreshold   the duration from which requests are captured as slow
+     * @param sampleRate      the fraction of the other requests captured, between 0 and 1
+     * @param includeRequests whether samples hold the truncated string form of their request
+     */
+    public CqrsRequestSampler(int capacity, Duration slowThreshold, double sampleRate, boolean includeRequests) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.samples = new AtomicReferenceArray<>(Math.max(size, 1));
+        this.mask = samples.length() - 1;
+
+        int pooled = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1;
+        this.traces = new AtomicReferenceArray<>(pooled);
+        this.traceMask = pooled - 1;
+        this.includeRequests = includeRequests;
+
+        setSlowThreshold(slowThreshold);
+        setSampleRate(sampleRate);
+        CqrsRequestTrace.activate();
+    }
+
+    /**
+     * Returns the duration from which requests are captured as slow.
+     *
+     * @return the slow threshold
+     */
+    public Duration getSlowThreshold() {
+        return Duration.ofNanos(slowThresholdNanos);
+    }
+
+    /**
+     * Sets the duration from which requests are captured as slow.
+     *
+     * @param slowThreshold the slow threshold
+     */
+    public void setSlowThreshold(Duration slowThreshold) {
+        this.slowThresholdNanos = Objects.requireNonNull(slowThreshold, "Slow threshold cannot be null").toNanos();
+    }
+
+    /**
+     * Returns the fraction of the requests below the slow threshold that are captured.
+     *
+     * @return the sample rate
+     */
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Sets the fraction of the requests below the slow threshold that are captured.
+     *
+     * @param sampleRate the sample rate, between 0 and 1
+     */
+    public void setSampleRate(double sampleRate) {
+        if (!(sampleRate >= 0 && sampleRate <= 1)) {
+            throw new IllegalArgumentException("Sample rate must be between 0 and 1: " + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Returns the number of samples kept.
+     *
+     * @return the capacity of the ring
+     */
+    public int getCapacity() {
+        return samples.length();
+    }
+
+    /**
+     * Starts tracing a request executing on the current thread.
+     *
+     * @param request   the request
+     * @param startTime the {@link System#nanoTime()} at which the request started
+     * @return the trace to pass to {@link #end}
+     */
+    public CqrsRequestTrace begin(Object request, long startTime) {
+        CqrsRequestTrace trace = borrow();
+        trace.bind(request, startTime);
+        return trace;
+    }
+
+    /**
+     * Ends tracing a request, capturing it if it was slow or is sampled.
+     *
+     * @param trace   the trace returned by {@link #begin}
+     * @param failure the exception the request failed with, or {@code null}
+     */
+    public void end(CqrsRequestTrace trace, Throwable failure) {
+        long duration = System.nanoTime() - trace.startTime;
+        trace.unbind();
+        if (isCaptured(duration)) {
+            capture(trace, duration, failure);
+        }
+        trace.reset();
+        release(trace);
+    }
+
+    /**
+     * Records an asynchronous request, capturing it if it was slow or is sampled. Its middlewares are not
+     * timed.
+     *
+     * @param request   the request
+     * @param thread    the thread that submitted the request
+     * @param startTime the {@link System#nanoTime()} at submission
+     * @param failure   the exception the request failed with, or {@code null}
+     */
+    public void record(Object request, Thread thread, long startTime, Throwable failure) {
+        long duration = System.nanoTime() - startTime;
+        if (isCaptured(duration)) {
+            publish(new CqrsRequestSample(
+                    Instant.now().minusNanos(duration),
+                    request.getClass().getName(),
+                    describe(request),
+                    thread.getName(),
+                    Duration.ofNanos(duration),
+                    null,
+                    List.of(),
+                    duration >= slowThresholdNanos,
+                    failure == null,
+                    failure == null ? null : failure.getClass().getName()));
+        }
+    }
+
+    /**
+     * Returns the kept samples, most recent first.
+     *
+     * @return the samples
+     */
+    public List<CqrsRequestSample> samples() {
+        long end = cursor.get();
+        long start = Math.max(0, end - samples.length());
+        List<CqrsRequestSample> result = new ArrayList<>((int) (end - start));
+        for (long i = end - 1; i >= start; i--) {
+            CqrsRequestSample sample = samples.get((int) (i & mask));
+            if (sample != null) {
+                result.add(sample);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Discards the kept samples.
+     */
+    public void clear() {
+        for (int i = 0; i < samples.length(); i++) {
+            samples.set(i, null);
+        }
+    }
+
+    private boolean isCaptured(long duration) {
+        if (duration >= slowThresholdNanos) {
+            return true;
+        }
+        double rate = sampleRate;
+        return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    private void capture(CqrsRequestTrace trace, long duration, Throwable failure) {
+        int count = trace.middlewareCount;
+        List<CqrsMiddlewareTiming> middlewares = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // A middleware spans the rest of the chain, which is subtracted to leave its own time
+            long span = trace.exitTimes[i] - trace.enterTimes[i];
+            long inner = i + 1 < count
+                    ? trace.exitTimes[i + 1] - trace.enterTimes[i + 1]
+                    : trace.handlerEndTime - trace.handlerStartTime;
+            middlewares.add(new CqrsMiddlewareTiming(trace.middlewares[i].getClass().getName(), Duration.ofNanos(Math.max(0, span - inner))));
+        }
+
+        Duration handlerDuration;
+        if (trace.handlerEndTime != 0) {
+            handlerDuration = Duration.ofNanos(trace.handlerEndTime - trace.handlerStartTime);
+        } else {
+            // Without middlewares, the handler is all there is
+            handlerDuration = count == 0 ? Duration.ofNanos(duration) : null;
+        }
+
+        publish(new CqrsRequestSample(
+                Instant.now().minusNanos(duration),
+                trace.request.getClass().getName(),
+                describe(trace.request),
+                trace.thread.getName(),
+                Duration.ofNanos(duration),
+                handlerDuration,
+                List.copyOf(middlewares),
+                duration >= slowThresholdNanos,
+                failure == null,
+                failure == null ? null : failure.getClass().getName()));
+    }
+
+    private void publish(CqrsRequestSample sample) {
+        samples.set((int) (cursor.getAndIncrement() & mask), sample);
+    }
+
+    private String describe(Object request) {
+        if (!includeRequests) {
+            return null;
+        }
+
+        String description;
+        try {
+            description = String.valueOf(request);
+        } catch (RuntimeException e) {
+            return request.getClass().getName() + " (toString failed: " + e + ")";
+        }
+        return description.length() <= MAX_REQUEST_LENGTH
+                ? description
+                : description.substring(0, MAX_REQUEST_LENGTH) + "...";
+    }
+
+    private CqrsRequestTrace borrow() {
+        int start = (int) Thread.currentThread().threadId();
+        for (int i = 0; i < PROBES; i++) {
+            int slot = (start + i) & traceMask;
+            CqrsRequestTrace trace = traces.get(slot);
+            if (trace != null && traces.compareAndSet(slot, trace, null)) {
+                return trace;
+            }
+        }
+        return new CqrsRequestTrace();
+    }
+
+    private void release(CqrsRequestTrace trace) {
+        int start = (int) Thread.currentThread().threadId();
+        for (int i = 0; i < PROBES; i++) {
+            int slot = (start + i) & traceMask;
+            if (traces.get(slot) == null && traces.compareAndSet(slot, null, trace)) {
+                return;
+            }
+        }
+        // The pool is full; the trace is left to the garbage collector
+    }
+}
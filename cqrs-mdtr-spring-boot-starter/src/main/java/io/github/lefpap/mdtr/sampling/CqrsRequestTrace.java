@@ -0,0 +1,135 @@
+package io.github.lefpap.mdtr.sampling;
+
+import io.github.lefpap.mdtr.handler.CqrsRequestHandler;
+import io.github.lefpap.mdtr.middleware.CqrsHandlerMiddleware;
+import io.github.lefpap.mdtr.request.CqrsRequest;
+
+/**
+ * Timings of a request executing on the current thread, collected for the {@link CqrsRequestSampler}.
+ *
+ * <p>
+ * The middleware pipeline reports every middleware it enters and leaves, and the handler it calls, to the
+ * trace of the current thread. Traces are pooled and reused, so timing a request that ends up not being
+ * sampled allocates nothing. Only synchronous executions are traced; while no sampler exists,
+ * {@link #current} costs a single volatile read.
+ * </p>
+ */
+public final class CqrsRequestTrace {
+
+    static final int MAX_MIDDLEWARES = 32;
+
+    private static final ThreadLocal<CqrsRequestTrace> CURRENT = new ThreadLocal<>();
+
+    private static volatile boolean active;
+
+    final CqrsHandlerMiddleware[] middlewares = new CqrsHandlerMiddleware[MAX_MIDDLEWARES];
+    final long[] enterTimes = new long[MAX_MIDDLEWARES];
+    final long[] exitTimes = new long[MAX_MIDDLEWARES];
+    int middlewareCount;
+
+    Object request;
+    Thread thread;
+    long startTime;
+    long handlerStartTime;
+    long handlerEndTime;
+
+    private CqrsRequestTrace previous;
+
+    CqrsRequestTrace() {
+    }
+
+    /**
+     * Returns the trace of the given request, if it is the request traced on the current thread.
+     *
+     * @param request the request executing on the current thread
+     * @return the trace, or {@code null} if the request is not traced
+     */
+    public static CqrsRequestTrace current(CqrsRequest<?> request) {
+        if (!active) {
+            return null;
+        }
+        CqrsRequestTrace trace = CURRENT.get();
+        // Requests executed on behalf of the traced one, such as batched queries, are not part of its trace
+        return trace != null && trace.request == request ? trace : null;
+    }
+
+    /**
+     * Invokes the handler of a request, timing it when the request is traced.
+     *
+     * @param request the request
+     * @param handler the handler of the request
+     * @param <T>     the type of the request
+     * @param <R>     the type of the result
+     * @return the result of the handler
+     */
+    public static <T extends CqrsRequest<R>, R> R handle(T request, CqrsRequestHandler<T, R> handler) {
+        CqrsRequestTrace trace = current(request);
+        if (trace == null) {
+            return handler.handle(request);
+        }
+
+        trace.handlerStartTime = System.nanoTime();
+        try {
+            return handler.handle(request);
+        } finally {
+            trace.handlerEndTime = System.nanoTime();
+        }
+    }
+
+    /**
+     * Records entering a middleware.
+     *
+     * @param middleware the middleware
+     * @return the slot to pass to {@link #exit}
+     */
+    public int enter(CqrsHandlerMiddleware middleware) {
+        int slot = middlewareCount;
+        if (slot == MAX_MIDDLEWARES) {
+            return -1;
+        }
+        middlewareCount++;
+        middlewares[slot] = middleware;
+        enterTimes[slot] = System.nanoTime();
+        return slot;
+    }
+
+    /**
+     * Records leaving a middleware.
+     *
+     * @param slot the slot returned by {@link #enter}
+     */
+    public void exit(int slot) {
+        if (slot >= 0) {
+            exitTimes[slot] = System.nanoTime();
+        }
+    }
+
+    static void activate() {
+        active = true;
+    }
+
+    void bind(Object request, long startTime) {
+        this.request = request;
+        this.thread = Thread.currentThread();
+        this.startTime = startTime;
+        this.previous = CURRENT.get();
+        CURRENT.set(this);
+    }
+
+    void unbind() {
+        // Setting rather than removing keeps the thread's map entry for its next request
+        CURRENT.set(previous);
+    }
+
+    void reset() {
+        for (int i = 0; i < middlewareCount; i++) {
+            middlewares[i] = null;
+        }
+        middlewareCount = 0;
+        request = null;
+        thread = null;
+        previous = null;
+        handlerStartTime = 0;
+        handlerEndTime = 0;
+    }
+}
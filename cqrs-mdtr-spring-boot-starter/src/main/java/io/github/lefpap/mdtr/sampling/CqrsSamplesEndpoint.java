@@ -0,0 +1,79 @@
+package io.github.lefpap.mdtr.sampling;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Actuator endpoint listing the requests kept by the {@link CqrsRequestSampler}.
+ *
+ * <p>
+ * Reading returns the sampler settings and the samples, most recent first. Writing changes the slow
+ * threshold and the sample rate, and deleting discards the samples.
+ * </p>
+ */
+@Endpoint(id = "cqrsSamples")
+public class CqrsSamplesEndpoint {
+
+    private final CqrsRequestSampler sampler;
+
+    /**
+     * Constructs a new samples endpoint.
+     *
+     * @param sampler the request sampler
+     */
+    public CqrsSamplesEndpoint(CqrsRequestSampler sampler) {
+        this.sampler = Objects.requireNonNull(sampler, "Sampler cannot be null");
+    }
+
+    /**
+     * Returns the sampler settings and the samples.
+     *
+     * @return the settings and samples
+     */
+    @ReadOperation
+    public Samples samples() {
+        return new Samples(sampler.getSlowThreshold(), sampler.getSampleRate(), sampler.getCapacity(), sampler.samples());
+    }
+
+    /**
+     * Changes the sampler settings that are given.
+     *
+     * @param slowThreshold the new slow threshold, or {@code null} to keep it
+     * @param sampleRate    the new sample rate, or {@code null} to keep it
+     */
+    @WriteOperation
+    public void configure(@Nullable Duration slowThreshold, @Nullable Double sampleRate) {
+        if (slowThreshold != null) {
+            sampler.setSlowThreshold(slowThreshold);
+        }
+        if (sampleRate != null) {
+            sampler.setSampleRate(sampleRate);
+        }
+    }
+
+    /**
+     * Discards the samples.
+     */
+    @DeleteOperation
+    public void clear() {
+        sampler.clear();
+    }
+
+    /**
+     * The sampler settings and samples.
+     *
+     * @param slowThreshold the duration from which requests are kept as slow
+     * @param sampleRate    the fraction of the other requests kept
+     * @param capacity      the number of samples kept
+     * @param samples       the samples, most recent first
+     */
+    public record Samples(Duration slowThreshold, double sampleRate, int capacity, List<CqrsRequestSample> samples) {
+    }
+}
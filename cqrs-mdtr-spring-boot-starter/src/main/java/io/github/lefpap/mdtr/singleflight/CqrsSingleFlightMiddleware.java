@@ -0,0 +1,152 @@
+package io.github.lefpap.mdtr.singleflight;
+
+import io.github.lefpap.mdtr.annotation.CqrsSingleFlight;
+import io.github.lefpap.mdtr.batch.CqrsQueryBatches;
+import io.github.lefpap.mdtr.concurrent.CqrsFutures;
+import io.github.lefpap.mdtr.middleware.CqrsAsyncHandlerMiddleware;
+import io.github.lefpap.mdtr.request.CqrsQuery;
+import io.github.lefpap.mdtr.request.CqrsRequest;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Middleware letting concurrent, equal queries share a single handler execution.
+ *
+ * <p>
+ * It applies to query types annotated with {@link CqrsSingleFlight} and to the query types passed to
+ * the constructor. The first query of a kind is passed on to the rest of the chain; equal queries
+ * arriving while it is in flight wait for its outcome and receive the same result, or the same
+ * exception. The execution is forgotten as soon as it completes, so, unlike a cache, later queries
+ * are always handled again.
+ * </p>
+ *
+ * <p>
+ * Blocking callers wait on the shared execution, while asynchronous callers receive a future that
+ * completes with it, without blocking a thread.
+ * </p>
+ *
+ * <p>
+ * Queries executed in a batch through {@code sendAll} are passed on without sharing: they only reach
+ * their handler together with the rest of their batch, so waiting for an equal query of another batch
+ * could deadlock both. Equal queries within a batch are already executed once.
+ * </p>
+ */
+public class CqrsSingleFlightMiddleware implements CqrsAsyncHandlerMiddleware {
+
+    private final Set<Class<?>> queryTypes;
+    private final ConcurrentMap<Object, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+
+    private final ClassValue<Boolean> singleFlight = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> requestType) {
+            return CqrsQuery.class.isAssignableFrom(requestType)
+                    && (requestType.isAnnotationPresent(CqrsSingleFlight.class) || queryTypes.contains(requestType));
+        }
+    };
+
+    /**
+     * Constructs a new single-flight middleware for the query types annotated with {@link CqrsSingleFlight}.
+     */
+    public CqrsSingleFlightMiddleware() {
+        this(Set.of());
+    }
+
+    /**
+     * Constructs a new single-flight middleware for the query types annotated with {@link CqrsSingleFlight}
+     * and the given query types.
+     *
+     * @param queryTypes additional query types to deduplicate
+     */
+    public CqrsSingleFlightMiddleware(Collection<? extends Class<? extends CqrsQuery<?>>> queryTypes) {
+        this.queryTypes = Set.copyOf(Objects.requireNonNull(queryTypes, "Query types cannot be null"));
+    }
+
+    @Override
+    public <T extends CqrsRequest<R>, R> R invoke(T request, Supplier<R> next) {
+        if (CqrsQueryBatches.isBatching()) {
+            return next.get();
+        }
+
+        var execution = new CompletableFuture<R>();
+        var existing = join(request, execution);
+        if (existing != null) {
+            return CqrsFutures.join(existing);
+        }
+
+        R result;
+        try {
+            result = next.get();
+        } catch (Throwable t) {
+            inFlight.remove(request, execution);
+            execution.completeExceptionally(t);
+            throw t;
+        }
+        inFlight.remove(request, execution);
+        execution.complete(result);
+        return result;
+    }
+
+    @Override
+    public <T extends CqrsRequest<R>, R> CompletableFuture<R> invokeAsync(T request, Supplier<CompletableFuture<R>> next) {
+        if (CqrsQueryBatches.isBatching()) {
+            return CqrsFutures.invoke(next);
+        }
+
+        var execution = new CompletableFuture<R>();
+        var existing = join(request, execution);
+        if (existing != null) {
+            return existing.copy();
+        }
+
+        CqrsFutures.invoke(next).whenComplete((result, failure) -> {
+            inFlight.remove(request, execution);
+            if (failure != null) {
+                execution.completeExceptionally(CqrsFutures.unwrap(failure));
+            } else {
+                execution.complete(result);
+            }
+        });
+        // Callers get their own view, so cancelling one does not affect the others
+        return execution.copy();
+    }
+
+    @Override
+    public boolean applies(Class<?> requestType) {
+        return singleFlight.get(requestType);
+    }
+
+    /**
+     * Returns a snapshot of the single-flight counters.
+     *
+     * @return the single-flight statistics
+     */
+    public CqrsSingleFlightStats stats() {
+        return new CqrsSingleFlightStats(executions.sum(), shared.sum(), inFlight.size());
+    }
+
+    /**
+     * Registers the given execution for the request, unless an equal request is already in flight.
+     *
+     * @return the in-flight execution of an equal request, or {@code null} if the given one was registered
+     */
+    @SuppressWarnings("unchecked")
+    private <R> CompletableFuture<R> join(Object request, CompletableFuture<R> execution) {
+        var existing = (CompletableFuture<R>) inFlight.putIfAbsent(request, execution);
+        if (existing != null) {
+            shared.increment();
+        } else {
+            executions.increment();
+        }
+        return existing;
+    }
+}
@@ -0,0 +1,15 @@
+package io.github.lefpap.mdtr.singleflight;
+
+/**
+ * Snapshot of the counters of a {@link CqrsSingleFlightMiddleware}.
+ *
+ * @param executionCount the number of queries passed on to their handler
+ * @param sharedCount    the number of queries that received the outcome of an equal in-flight query
+ * @param inFlight       the current number of in-flight executions
+ */
+public record CqrsSingleFlightStats(
+        long executionCount,
+        long sharedCount,
+        long inFlight
+) {
+}
@@ -0,0 +1,84 @@
+package io.github.lefpap.mdtr.stream;
+
+import io.github.lefpap.mdtr.middleware.CqrsHandlerMiddleware;
+import io.github.lefpap.mdtr.request.CqrsRequest;
+import io.github.lefpap.mdtr.request.CqrsStreamQuery;
+
+import java.util.concurrent.Flow;
+import java.util.function.Supplier;
+
+/**
+ * Base class for middlewares observing the elements and the termination of streaming queries.
+ *
+ * <p>
+ * The publisher returned by the rest of the chain is wrapped, so the callbacks run as the subscriber
+ * consumes the stream, on the thread emitting the signal, rather than when the query is sent. Demand
+ * and cancellation pass through unchanged. Callbacks must be quick and must not throw.
+ * </p>
+ *
+ * <p>
+ * The middleware applies to {@link CqrsStreamQuery} types only.
+ * </p>
+ */
+public abstract class CqrsStreamObserverMiddleware implements CqrsHandlerMiddleware {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final <T extends CqrsRequest<R>, R> R invoke(T request, Supplier<R> next) {
+        R result = next.get();
+        if (request instanceof CqrsStreamQuery<?> query && result instanceof Flow.Publisher<?> publisher) {
+            return (R) new ObservedPublisher<>(publisher, query, this);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean applies(Class<?> requestType) {
+        return CqrsStreamQuery.class.isAssignableFrom(requestType);
+    }
+
+    /**
+     * Called when a subscriber subscribes to the stream of the query.
+     *
+     * @param query the streaming query
+     */
+    protected void onSubscribe(CqrsStreamQuery<?> query) {
+    }
+
+    /**
+     * Called for every element delivered to the subscriber.
+     *
+     * @param query   the streaming query
+     * @param element the element
+     */
+    protected void onElement(CqrsStreamQuery<?> query, Object element) {
+    }
+
+    /**
+     * Called when the stream completed normally.
+     *
+     * @param query    the streaming query
+     * @param elements the number of delivered elements
+     */
+    protected void onComplete(CqrsStreamQuery<?> query, long elements) {
+    }
+
+    /**
+     * Called when the stream failed.
+     *
+     * @param query    the streaming query
+     * @param failure  the failure
+     * @param elements the number of elements delivered before the failure
+     */
+    protected void onError(CqrsStreamQuery<?> query, Throwable failure, long elements) {
+    }
+
+    /**
+     * Called when the subscriber cancelled its subscription.
+     *
+     * @param query    the streaming query
+     * @param elements the number of elements delivered before the cancellation
+     */
+    protected void onCancel(CqrsStreamQuery<?> query, long elements) {
+    }
+}
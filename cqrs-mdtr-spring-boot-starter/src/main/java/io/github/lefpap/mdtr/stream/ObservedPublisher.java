@@ -0,0 +1,84 @@
+package io.github.lefpap.mdtr.stream;
+
+import io.github.lefpap.mdtr.request.CqrsStreamQuery;
+
+import java.util.concurrent.Flow;
+
+/**
+ * Publisher reporting the signals of another publisher to a {@link CqrsStreamObserverMiddleware}.
+ *
+ * @param <T> the type of the elements
+ */
+final class ObservedPublisher<T> implements Flow.Publisher<T> {
+
+    private final Flow.Publisher<T> upstream;
+    private final CqrsStreamQuery<?> query;
+    private final CqrsStreamObserverMiddleware observer;
+
+    ObservedPublisher(Flow.Publisher<T> upstream, CqrsStreamQuery<?> query, CqrsStreamObserverMiddleware observer) {
+        this.upstream = upstream;
+        this.query = query;
+        this.observer = observer;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        upstream.subscribe(new ObservedSubscriber(subscriber));
+    }
+
+    private final class ObservedSubscriber implements Flow.Subscriber<T>, Flow.Subscription {
+
+        private final Flow.Subscriber<? super T> downstream;
+        private Flow.Subscription subscription;
+        // Signals are serial, so a plain counter is enough; it is only read by the signalling thread
+        private long elements;
+        private volatile boolean terminated;
+
+        private ObservedSubscriber(Flow.Subscriber<? super T> downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            observer.onSubscribe(query);
+            downstream.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(T item) {
+            elements++;
+            observer.onElement(query, item);
+            downstream.onNext(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            terminated = true;
+            observer.onError(query, throwable, elements);
+            downstream.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            terminated = true;
+            observer.onComplete(query, elements);
+            downstream.onComplete();
+        }
+
+        @Override
+        public void request(long n) {
+            subscription.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            // Cancelling a terminated subscription is a no-op, e.g. when a completed stream is closed
+            if (!terminated) {
+                terminated = true;
+                observer.onCancel(query, elements);
+            }
+            subscription.cancel();
+        }
+    }
+}